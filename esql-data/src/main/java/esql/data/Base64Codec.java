@@ -0,0 +1,247 @@
+package esql.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming Base64 (RFC 4648 basic alphabet, no line breaks) between LOB streams and text outputs.
+ *
+ * Data is read by large chunks (multiple of 3 bytes, 4 chars) into buffers reused for the whole stream,
+ * and encoded/decoded directly into char or byte buffers: no String or ByteBuffer per chunk.
+ * Output is the same as java.util.Base64.getEncoder(), input is accepted as java.util.Base64.getDecoder()
+ * (padding may be omitted).
+ */
+final class Base64Codec {
+
+    //bytes read per chunk when encoding, multiple of 3
+    static final int CHUNK_SIZE = 48 * 1024;
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    //sextet of ASCII char, -1 for others
+    private static final byte[] SEXTETS = new byte[128];
+
+    static {
+        Arrays.fill(SEXTETS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++)
+            SEXTETS[ALPHABET[i]] = (byte) i;
+    }
+
+    private Base64Codec() {
+    }
+
+    /**
+     * receive chars of encoded chunks, the array is reused for next chunk.
+     */
+    interface CharChunkWriter {
+        void write(char[] chars, int length) throws IOException;
+    }
+
+    /**
+     * encode the whole input to output (padding at the end).
+     */
+    static void encode(InputStream in, Appendable out) throws IOException {
+        encode(in, Long.MAX_VALUE, (chars, length) -> Value.appendChars(out, chars, 0, length));
+    }
+
+    /**
+     * encode the whole input to ASCII bytes.
+     */
+    static void encode(InputStream in, OutputStream out) throws IOException {
+        byte[] b = new byte[CHUNK_SIZE];
+        byte[] ascii = new byte[CHUNK_SIZE / 3 * 4];
+        int n;
+        while (0 < (n = in.readNBytes(b, 0, b.length)))
+            out.write(ascii, 0, encode(b, 0, n, ascii));
+    }
+
+    /**
+     * encode the whole input into the CLOB being created.
+     */
+    static void encode(InputStream in, ValueCLOBCreator creator) throws IOException {
+        encode(in, Long.MAX_VALUE, (chars, length) -> creator.writeToLOB(chars, 0, length));
+    }
+
+    /**
+     * encode at most maxBytes (rounded down to multiple of 3 if the input is longer) of input.
+     */
+    static void encode(InputStream in, long maxBytes, CharChunkWriter writer) throws IOException {
+        byte[] b = new byte[CHUNK_SIZE];
+        char[] chars = new char[CHUNK_SIZE / 3 * 4];
+        long remaining = maxBytes;
+        int n;
+        while (remaining >= 3 && 0 < (n = in.readNBytes(b, 0, (int) Math.min(b.length, remaining - remaining % 3)))) {
+            writer.write(chars, encode(b, 0, n, chars));
+            remaining -= n;
+        }
+    }
+
+    /**
+     * encode bytes to chars, padded if length is not multiple of 3.
+     *
+     * @return number of chars
+     */
+    static int encode(byte[] src, int offset, int length, char[] dst) {
+        int d = 0;
+        int end = offset + length - length % 3;
+        for (int i = offset; i < end; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[d++] = ALPHABET[bits >>> 18];
+            dst[d++] = ALPHABET[(bits >>> 12) & 0x3f];
+            dst[d++] = ALPHABET[(bits >>> 6) & 0x3f];
+            dst[d++] = ALPHABET[bits & 0x3f];
+        }
+        int rest = length % 3;
+        if(rest > 0) {
+            int bits = (src[end] & 0xff) << 16 | (rest == 2 ? (src[end + 1] & 0xff) << 8 : 0);
+            dst[d++] = ALPHABET[bits >>> 18];
+            dst[d++] = ALPHABET[(bits >>> 12) & 0x3f];
+            dst[d++] = rest == 2 ? ALPHABET[(bits >>> 6) & 0x3f] : '=';
+            dst[d++] = '=';
+        }
+        return d;
+    }
+
+    /**
+     * encode bytes to ASCII bytes, padded if length is not multiple of 3.
+     *
+     * @return number of bytes
+     */
+    static int encode(byte[] src, int offset, int length, byte[] dst) {
+        int d = 0;
+        int end = offset + length - length % 3;
+        for (int i = offset; i < end; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[d++] = (byte) ALPHABET[bits >>> 18];
+            dst[d++] = (byte) ALPHABET[(bits >>> 12) & 0x3f];
+            dst[d++] = (byte) ALPHABET[(bits >>> 6) & 0x3f];
+            dst[d++] = (byte) ALPHABET[bits & 0x3f];
+        }
+        int rest = length % 3;
+        if(rest > 0) {
+            int bits = (src[end] & 0xff) << 16 | (rest == 2 ? (src[end + 1] & 0xff) << 8 : 0);
+            dst[d++] = (byte) ALPHABET[bits >>> 18];
+            dst[d++] = (byte) ALPHABET[(bits >>> 12) & 0x3f];
+            dst[d++] = (byte) (rest == 2 ? ALPHABET[(bits >>> 6) & 0x3f] : '=');
+            dst[d++] = '=';
+        }
+        return d;
+    }
+
+    /**
+     * decode Base64 text into the BLOB being created.
+     *
+     * @return number of decoded bytes
+     * @throws IllegalArgumentException if the text is not Base64
+     */
+    static long decode(CharSequence text, ValueBLOBCreator creator) throws IOException {
+        char[] chars = new char[CHUNK_SIZE / 3 * 4];
+        byte[] b = new byte[CHUNK_SIZE];
+        long total = 0;
+        int len = text.length();
+        for (int from = 0; from < len; from += chars.length) {
+            int n = Math.min(chars.length, len - from);
+            for (int i = 0; i < n; i++)
+                chars[i] = text.charAt(from + i);
+            int d = decode(chars, 0, n, from + n == len, b);
+            creator.writeToLOB(ByteBuffer.wrap(b, 0, d));
+            total += d;
+        }
+        return total;
+    }
+
+    /**
+     * decode Base64 text of reader into the BLOB being created.
+     *
+     * @return number of decoded bytes
+     * @throws IllegalArgumentException if the text is not Base64
+     */
+    static long decode(Reader in, ValueBLOBCreator creator) throws IOException {
+        return decode(in, (b, length) -> creator.writeToLOB(ByteBuffer.wrap(b, 0, length)));
+    }
+
+    /**
+     * decode Base64 text of reader to output.
+     *
+     * @return number of decoded bytes
+     * @throws IllegalArgumentException if the text is not Base64
+     */
+    static long decode(Reader in, OutputStream out) throws IOException {
+        return decode(in, (b, length) -> out.write(b, 0, length));
+    }
+
+    private interface ByteChunkWriter {
+        void write(byte[] b, int length) throws IOException;
+    }
+
+    private static long decode(Reader in, ByteChunkWriter writer) throws IOException {
+        char[] chars = new char[CHUNK_SIZE / 3 * 4 + 4];
+        byte[] b = new byte[CHUNK_SIZE + 3];
+        long total = 0;
+        int kept = 0; //chars of incomplete group from previous read
+        while (true) {
+            int n = kept;
+            int r = 0;
+            while (n < chars.length && 0 <= (r = in.read(chars, n, chars.length - n)))
+                n += r;
+            boolean last = r < 0;
+            //the last group may have padding, keep it until the end
+            int end = last ? n : Math.max(0, n - 4 - n % 4);
+            int d = decode(chars, 0, end, last, b);
+            if(d > 0)
+                writer.write(b, d);
+            total += d;
+            if(last)
+                return total;
+            kept = n - end;
+            System.arraycopy(chars, end, chars, 0, kept);
+        }
+    }
+
+    /**
+     * decode chars to bytes. The range is multiple of 4 chars without padding unless it is the last one.
+     *
+     * @return number of bytes
+     * @throws IllegalArgumentException if the chars are not Base64
+     */
+    static int decode(char[] src, int from, int to, boolean last, byte[] dst) {
+        int end = to;
+        int padding = 0;
+        if(last) {
+            while (padding < 2 && end > from && src[end - 1] == '=') {
+                end--;
+                padding++;
+            }
+            if(padding > 0 && (end - from + padding) % 4 != 0)
+                throw new IllegalArgumentException("Base64 padding is invalid");
+        }
+        int rest = (end - from) % 4;
+        if(rest == 1 || (rest != 0 && !last))
+            throw new IllegalArgumentException("Base64 length is invalid");
+        int d = 0;
+        int full = end - rest;
+        for (int i = from; i < full; i += 4) {
+            int bits = sextet(src[i]) << 18 | sextet(src[i + 1]) << 12 | sextet(src[i + 2]) << 6 | sextet(src[i + 3]);
+            dst[d++] = (byte) (bits >>> 16);
+            dst[d++] = (byte) (bits >>> 8);
+            dst[d++] = (byte) bits;
+        }
+        if(rest > 0) {
+            int bits = sextet(src[full]) << 18 | sextet(src[full + 1]) << 12 | (rest == 3 ? sextet(src[full + 2]) << 6 : 0);
+            dst[d++] = (byte) (bits >>> 16);
+            if(rest == 3)
+                dst[d++] = (byte) (bits >>> 8);
+        }
+        return d;
+    }
+
+    private static int sextet(char c) {
+        int v = c < 128 ? SEXTETS[c] : -1;
+        if(v < 0)
+            throw new IllegalArgumentException("Illegal base64 character " + Integer.toString(c, 16));
+        return v;
+    }
+}
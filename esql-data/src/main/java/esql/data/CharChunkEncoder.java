@@ -0,0 +1,120 @@
+package esql.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encoder of chars written by chunks, with a reusable CharsetEncoder and a pooled byte buffer.
+ *
+ * Encoded bytes are given to a sink once (to hash and write the same bytes). A high surrogate ending a chunk
+ * is kept for the next one, so a pair split by the writer is encoded as String.getBytes() would do;
+ * malformed chars are replaced the same way. Not thread safe.
+ */
+final class CharChunkEncoder {
+
+    static final int BUFFER_SIZE = 16 * 1024;
+
+    interface ByteSink {
+        void write(byte[] b, int off, int len) throws IOException;
+    }
+
+    private final CharsetEncoder encoder;
+    private final char[] pair = new char[2];
+    private byte[] buffer;
+    private ByteBuffer bytes;
+    private boolean carry = false;
+
+    CharChunkEncoder(Charset charset) {
+        this(charset, BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize bytes given to the sink at most (at most MAX_BUFFERED_SIZE)
+     */
+    CharChunkEncoder(Charset charset, int bufferSize) {
+        this.buffer = LobBufferPool.bytes(bufferSize);
+        this.bytes = ByteBuffer.wrap(buffer);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * encode the remaining chars, the buffer position is moved to its limit.
+     */
+    void encode(CharBuffer chars, ByteSink sink) throws IOException {
+        if(carry && chars.hasRemaining()) {
+            pair[1] = chars.get();
+            carry = false;
+            encode(CharBuffer.wrap(pair), false, sink);
+        }
+        encode(chars, false, sink);
+    }
+
+    /**
+     * @return true if the last char is kept, not encoded yet
+     */
+    boolean hasCarry() {
+        return carry;
+    }
+
+    /**
+     * encode the kept surrogate (if any) as end of input, the encoder is ready for a new text after.
+     */
+    void finish(ByteSink sink) throws IOException {
+        encode(carry ? CharBuffer.wrap(pair, 0, 1) : CharBuffer.allocate(0), true, sink);
+        carry = false;
+        while (encoder.flush(bytes).isOverflow())
+            drain(sink);
+        drain(sink);
+        encoder.reset();
+    }
+
+    private void encode(CharBuffer chars, boolean end, ByteSink sink) throws IOException {
+        while (encoder.encode(chars, bytes, end).isOverflow())
+            drain(sink);
+        drain(sink);
+        if(chars.hasRemaining()) { //incomplete surrogate pair at the end
+            pair[0] = chars.get();
+            carry = true;
+        }
+    }
+
+    private void drain(ByteSink sink) throws IOException {
+        if(bytes.position() > 0)
+            sink.write(buffer, 0, bytes.position());
+        bytes.clear();
+    }
+
+    /**
+     * give back the byte buffer, the encoder must not be used after.
+     */
+    void release() {
+        if(buffer != null) {
+            LobBufferPool.release(buffer);
+            buffer = null;
+            bytes = null;
+        }
+    }
+
+    /**
+     * bytes of the chars at once, as String.getBytes() (used when the length is known and small).
+     */
+    static byte[] encodeAll(Charset charset, char[] chars, int offset, int length) {
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        byte[] b = new byte[(int) Math.ceil(length * (double) encoder.maxBytesPerChar())];
+        ByteBuffer out = ByteBuffer.wrap(b);
+        CoderResult result = encoder.encode(CharBuffer.wrap(chars, offset, length), out, true);
+        if(!result.isUnderflow())
+            throw new IllegalStateException("CLOB encode error. "+result);
+        encoder.flush(out);
+        return out.position() == b.length ? b : java.util.Arrays.copyOf(b, out.position());
+    }
+}
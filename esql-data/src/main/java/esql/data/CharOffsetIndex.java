@@ -0,0 +1,74 @@
+package esql.data;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Sparse index of char positions to byte offsets of an encoded CLOB temp file.
+ *
+ * Offsets are recorded while encoding, every STEP chars (esql.data.lob.char.index); a reader from a char
+ * position starts decoding at the nearest recorded offset before it. An offset falling inside a surrogate
+ * pair is recorded at the pair start. Written by one thread, read only once the file is complete.
+ */
+final class CharOffsetIndex {
+
+    static final int STEP = Math.max(1024, Integer.getInteger("esql.data.lob.char.index", 64 * 1024));
+
+    private long[] chars = new long[16];
+    private long[] bytes = new long[16];
+    private int size = 1; //(0, 0) is the first entry
+    private long charCount = 0;
+    private long byteCount = 0;
+
+    /**
+     * encode the remaining chars to the sink, recording the offsets passed by.
+     */
+    void encode(CharChunkEncoder encoder, CharBuffer data, CharChunkEncoder.ByteSink sink) throws IOException {
+        CharChunkEncoder.ByteSink counting = (b, off, len) -> {
+            sink.write(b, off, len);
+            byteCount += len;
+        };
+        int limit = data.limit();
+        while (data.hasRemaining()) {
+            long next = (charCount / STEP + 1) * STEP;
+            int n = (int) Math.min(data.remaining(), next - charCount);
+            data.limit(data.position() + n);
+            encoder.encode(data, counting);
+            data.limit(limit);
+            charCount += n;
+            if(charCount == next) //a kept high surrogate is not written yet
+                record(encoder.hasCarry() ? charCount - 1 : charCount, byteCount);
+        }
+    }
+
+    private void record(long charPos, long bytePos) {
+        if(size == chars.length) {
+            chars = Arrays.copyOf(chars, size * 2);
+            bytes = Arrays.copyOf(bytes, size * 2);
+        }
+        chars[size] = charPos;
+        bytes[size] = bytePos;
+        size++;
+    }
+
+    /**
+     * @return entry of the nearest recorded char position at or before the position
+     */
+    int floor(long charPos) {
+        int i = Arrays.binarySearch(chars, 0, size, charPos);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    long charAt(int entry) {
+        return chars[entry];
+    }
+
+    long byteAt(int entry) {
+        return bytes[entry];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2025 by ESI Tech Vietnam and associated contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package esql.data;
+
+import java.text.ParsePosition;
+import java.util.Arrays;
+
+import static esql.data.StringLeftRightChecker.*;
+
+/**
+ * A compiled pattern of StringLeftRightChecker, built once and reused for every check.
+ *
+ * The char sets are compiled into 128-bit ASCII bitsets (with a sorted array for non-ASCII chars),
+ * so each char is checked by a bit test instead of a binary search.
+ * StringLeftRightChecker.checkStringOfPattern compiles its parameters and checks by this class.
+ * The pattern is immutable and thread-safe.
+ */
+public final class CheckerPattern {
+
+    private final boolean bypassSurroundingSpaces;
+    private final boolean includeLeftSequence;
+    private final char[] leftSequence;
+    private final CharSet leftSet; //null if the left is a sequence
+    private final boolean leftIsOptional;
+    private final boolean includeRightSequence;
+    private final char[] rightSequence;
+    private final CharSet rightSet; //null if the right is a sequence
+    private final boolean rightIsOptional;
+    private final CharSet validChars;
+    private final boolean allowLineBreaks;
+
+    /**
+     * compile a pattern, the parameters are same as StringLeftRightChecker.checkStringOfPattern.
+     * The chars of sets are not required to be sorted.
+     */
+    public CheckerPattern(boolean bypassSurroundingSpaces,
+                          boolean includeLeftSequence, char[] leftSequence, boolean leftIsOptional, boolean leftAsTheSet,
+                          boolean includeRightSequence, char[] rightSequence, boolean rightIsOptional, boolean rightAsTheSet,
+                          char[] validChars, boolean allowLineBreaks) {
+        this.bypassSurroundingSpaces = bypassSurroundingSpaces;
+        this.includeLeftSequence = includeLeftSequence;
+        this.leftSequence = leftSequence == null || leftSequence.length == 0 ? null : leftSequence.clone();
+        this.leftSet = this.leftSequence != null && leftAsTheSet ? new CharSet(leftSequence) : null;
+        this.leftIsOptional = leftIsOptional;
+        this.includeRightSequence = includeRightSequence;
+        this.rightSequence = rightSequence == null || rightSequence.length == 0 ? null : rightSequence.clone();
+        this.rightSet = this.rightSequence != null && rightAsTheSet ? new CharSet(rightSequence) : null;
+        this.rightIsOptional = rightIsOptional;
+        this.validChars = validChars == null || validChars.length == 0 ? null : new CharSet(validChars);
+        this.allowLineBreaks = allowLineBreaks;
+    }
+
+    /**
+     * set of chars, bitset of ASCII and sorted array of others.
+     */
+    static final class CharSet {
+        private final long low; //0-63
+        private final long high; //64-127
+        private final char[] others;
+
+        CharSet(char[] chars) {
+            long l = 0, h = 0;
+            char[] o = new char[chars.length];
+            int n = 0;
+            for (char c : chars) {
+                if(c < 64)
+                    l |= 1L << c;
+                else if(c < 128)
+                    h |= 1L << (c - 64);
+                else
+                    o[n++] = c;
+            }
+            low = l;
+            high = h;
+            others = Arrays.copyOf(o, n);
+            Arrays.sort(others);
+        }
+
+        boolean contains(char c) {
+            if(c < 64)
+                return (low & (1L << c)) != 0;
+            if(c < 128)
+                return (high & (1L << (c - 64))) != 0;
+            return others.length > 0 && Arrays.binarySearch(others, c) >= 0;
+        }
+    }
+
+    /**
+     * @return true if the string is matched to the end (STRING_GRACEFULLY_END_MATCHED)
+     */
+    public boolean match(CharSequence stringValue, ParsePosition outputStart, ParsePosition outputEnd) {
+        return check(stringValue, outputStart, outputEnd) == STRING_GRACEFULLY_END_MATCHED;
+    }
+
+    /**
+     * check the string from outputStart (or 0 if null), same as StringLeftRightChecker.checkStringOfPattern.
+     *
+     * @param stringValue the string value to check
+     * @param outputStart position to start match, can be null, set to the start of value
+     * @param outputEnd position to end match, can be null, set to the end of value
+     * @return last state of the check, -1 for null or empty string
+     */
+    public int check(CharSequence stringValue, ParsePosition outputStart, ParsePosition outputEnd) {
+        return check(STRING_START, stringValue, outputStart, outputEnd);
+    }
+
+    /**
+     * check the string from a state of the machine, STRING_START if it is not a state before the end.
+     */
+    int check(int initialState, CharSequence stringValue, ParsePosition outputStart, ParsePosition outputEnd) {
+        if (stringValue == null || stringValue.length() == 0 || validChars == null)
+            return -1; //not match anyway or empty string
+
+        int state = initialState;
+        if (state < STRING_START || state >= STRING_GRACEFULLY_END_MATCHED) {
+            state = STRING_START; //reset to start state
+        }
+        int patternPos = 0;
+        int initialIndex = 0; //initial index of stringValue
+        if (outputStart != null) {
+            initialIndex = outputStart.getIndex();
+            if (initialIndex < 0)
+                initialIndex = 0; //reset to 0
+        }
+
+        int length = stringValue.length();
+        for (int i = initialIndex; i <= length; i++) {
+            char c = i < length ? stringValue.charAt(i) : ' ';
+            if (state == STRING_START && bypassSurroundingSpaces && Character.isWhitespace(c)) {
+                continue; //skip leading spaces
+            }
+            if (state == STRING_START) {
+                state = STRING_START_OF_VALUE;
+
+                //choice to include left sequence or not
+                if (leftSequence != null) {
+                    if(leftSet != null) { //start as a set of characters
+                        boolean valid = leftSet.contains(c); //check only first char
+                        if (!valid && !leftIsOptional) {
+                            return state; //must have start char match
+                        }
+                        if (includeLeftSequence && outputStart != null) {
+                            outputStart.setIndex(i); //set start index
+                        }
+                        if(valid) {
+                            continue; //jump to next char as Start Of Value
+                        }
+                    }
+                    else {
+                        // matching the start character sequence
+                        boolean valid = c == leftSequence[0]; //check first char
+                        if (!valid && !leftIsOptional) {
+                            return state; //must have start char match
+                        }
+                        if (includeLeftSequence && outputStart != null) {
+                            outputStart.setIndex(i); //set start index
+                        }
+                        if (valid) {
+                            state = STRING_START_SEQUENCE_MATCH; //checked start chars
+                        }
+                    }
+                }
+            }
+
+            if (state == STRING_START_SEQUENCE_MATCH || state == STRING_CONTINUE_START_SEQUENCE) { //after start chars
+                if (patternPos == leftSequence.length) { //found all start chars
+                    state = STRING_START_OF_VALUE; //go to value
+                    if (!includeLeftSequence && outputStart != null)
+                        outputStart.setIndex(i); //set start index
+                } else if (patternPos < leftSequence.length && c == leftSequence[patternPos]) {
+                    state = STRING_CONTINUE_START_SEQUENCE;
+                    patternPos++; //next char matched
+                    continue;
+                } else if (leftIsOptional) { //optional start chars, go to value directly
+                    state = STRING_START_OF_VALUE;
+                    i -= patternPos; //reset back to the char at beginning of value
+                    if (outputStart != null)
+                        outputStart.setIndex(i); //set start index
+                } else {
+                    return state; //not match start chars
+                }
+            }
+
+            if (state == STRING_START_OF_VALUE || state == STRING_CONTINUE_OF_VALUE) { //in value or after line break
+                if (allowLineBreaks && state == STRING_CONTINUE_OF_VALUE && (c == '\n' || c == '\r')) { //line break in value allowed
+                    continue;
+                }
+                if(state == STRING_START_OF_VALUE) {
+                    if (!includeLeftSequence && outputStart != null) {
+                        outputStart.setIndex(i); //set start index
+                    }
+                }
+
+                //Check for the valid char
+                if (i < length && !validChars.contains(c)) { //not valid chars
+                    state = STRING_RIGHT_SEQUENCE_MATCH; //invalid char in value, it should be the end of value
+                    if (!includeRightSequence && outputEnd != null)
+                        outputEnd.setIndex(i); //set end index to current char
+                } else if(i < length) { //valid char in value
+                    state = STRING_CONTINUE_OF_VALUE; //continue in value
+                    continue;
+                } else {
+                    if (!includeRightSequence && outputEnd != null)
+                        outputEnd.setIndex(i); //set end index to current char
+                    if(state == STRING_CONTINUE_OF_VALUE) //at least one char
+                        state = rightIsOptional ? STRING_END_OF_TEMPLATE : STRING_RIGHT_SEQUENCE_MATCH;
+                }
+            }
+
+            if (state == STRING_RIGHT_SEQUENCE_MATCH) { //after value, check end chars
+                if (rightSequence != null) {
+                    if (rightSet != null) { //end as a set of characters
+                        if (!rightSet.contains(c) && !rightIsOptional) {
+                            return state; //must have end char match
+                        }
+                        state = STRING_CONTINUE_RIGHT_SEQUENCE; //go to end directly
+                    } else {
+                        if (c == rightSequence[0]) {
+                            state = STRING_CONTINUE_RIGHT_SEQUENCE; //checked end chars
+                        } else if (!rightIsOptional) //not optional end chars, invalid char in value
+                            return state;
+
+                        if (state != STRING_CONTINUE_RIGHT_SEQUENCE) {
+                            if (i + 1 < length) { //no end char sequence, must be at end of value
+                                return state; //not at end of value
+                            } else
+                                state = STRING_END_OF_TEMPLATE; //go to end directly
+                        }
+                    }
+                }
+                else {//no right sequence
+                    state = STRING_END_OF_TEMPLATE;
+                }
+            }
+
+            if (state == STRING_CONTINUE_RIGHT_SEQUENCE) { //in sequence of end chars
+                if (rightSet != null) { //end as a set of characters
+                    if(i >= length)
+                        state = STRING_GRACEFULLY_END_MATCHED;
+                    else if (!rightSet.contains(c)) {
+                        if(rightIsOptional)
+                            state = STRING_END_OF_TEMPLATE;
+                        else
+                            return state;
+                    }
+                    else
+                        continue;
+                } else {
+                    if (patternPos == rightSequence.length) { //found all end chars
+                        state = i + 1 >= length ? STRING_GRACEFULLY_END_MATCHED : STRING_END_OF_TEMPLATE; //go to end
+                        if (includeRightSequence && outputEnd != null)
+                            outputEnd.setIndex(i);
+                    } else if (patternPos < rightSequence.length && c == rightSequence[patternPos]) {
+                        patternPos++;
+                        continue; //continue to next char
+                    } else if (rightIsOptional) { //optional end chars, go to end directly
+                        state = STRING_END_OF_TEMPLATE;
+                        if (includeRightSequence)
+                            return state; //can not pass the end chars, so not match
+                        i -= patternPos; //reset back to the char at beginning of value
+                        if (outputEnd != null)
+                            outputEnd.setIndex(i);
+                    } else {
+                        return state; //neither match end chars, nor optional
+                    }
+                }
+            }
+
+            if (state == STRING_END_OF_TEMPLATE) { //after all chars, must be the last char in stringValue
+                if(i >= length) { //beyond the end
+                    if(rightIsOptional || rightSequence == null)
+                        state = STRING_GRACEFULLY_END_MATCHED;
+                    else
+                        return state;
+                }
+
+                if(i < length && (!Character.isWhitespace(c) || bypassSurroundingSpaces))
+                    return state;
+            }
+        }
+        return state; //return last state
+    }
+}
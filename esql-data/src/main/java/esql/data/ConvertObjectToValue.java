@@ -8,9 +8,15 @@ import java.util.function.Function;
 public class ConvertObjectToValue implements Function<Object, Value> {
 
     private final Types type; //type to convert or assign
+    private final ValueStringPool pool; //for strings, may be null
 
     ConvertObjectToValue(Types type) {
+        this(type, null);
+    }
+
+    ConvertObjectToValue(Types type, ValueStringPool pool) {
         this.type = type;
+        this.pool = pool;
     }
 
     @Override
@@ -41,7 +47,7 @@ public class ConvertObjectToValue implements Function<Object, Value> {
         else if(o instanceof BigInteger)
             value = ValueNumber.buildNumber(type, ((BigInteger) o));
         else if(o instanceof Float || o instanceof Double)
-            value = ValueNumber.buildNumber(type, ((Float) o).doubleValue());
+            value = ValueNumber.buildNumber(type, ((Number) o).doubleValue());
         else if(o instanceof Number)
             value = ValueNumber.buildNumber(type, ((Number) o).longValue());
         //Boolean
@@ -51,7 +57,7 @@ public class ConvertObjectToValue implements Function<Object, Value> {
         else if(o instanceof byte[])
             value = ValueBytes.buildBytes((byte[])o);
         else //to String otherwise
-            value = ValueString.buildString(type, o.toString());
+            value = ValueString.buildString(type, o.toString(), pool);
 
         if(!value.is(type))
             return value.convertTo(type);
@@ -0,0 +1,213 @@
+package esql.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON output of data tree elements, scalars are written by their values (Value.writeTo, writeUtf8To):
+ * strings without chars to escape are written as they are, UTF-8 strings copy their bytes to streams.
+ * Output is the same as JsonGenerator, numbers are in plain form.
+ */
+abstract class DataTreeJsonWriter {
+
+    //ASCII chars of JSON syntax and escapes
+    abstract void writeAscii(char c) throws IOException;
+
+    //chars which need no escape
+    abstract void writeChars(CharSequence s) throws IOException;
+
+    //string form of the value, no escape
+    abstract void writeValue(Value v) throws IOException;
+
+    static DataTreeJsonWriter of(OutputStream out) {
+        return new Utf8Writer(out);
+    }
+
+    static DataTreeJsonWriter of(Writer out) {
+        return new CharWriter(out);
+    }
+
+    void writeTree(Map<Key, ValueDataTreeElement> tree) throws IOException {
+        writeAscii('{');
+        boolean first = true;
+        for (Map.Entry<Key, ValueDataTreeElement> e : tree.entrySet()) {
+            if(!first)
+                writeAscii(',');
+            writeString(e.getKey().origString());
+            writeAscii(':');
+            writeElement(e.getValue());
+            first = false;
+        }
+        writeAscii('}');
+    }
+
+    void writeList(List<ValueDataTreeElement> list) throws IOException {
+        writeAscii('[');
+        boolean first = true;
+        for (ValueDataTreeElement e : list) {
+            if(!first)
+                writeAscii(',');
+            writeElement(e);
+            first = false;
+        }
+        writeAscii(']');
+    }
+
+    void writeElement(ValueDataTreeElement element) throws IOException {
+        Object obj = element.getObject();
+        if(obj == null) {
+            writeAscii("null");
+            return;
+        }
+        if(element.isScalar()) {
+            Types type = element.getType();
+            if(Types.TYPE_BOOLEAN.equals(type))
+                writeAscii((Boolean) obj ? "true" : "false");
+            else if(Types.TYPE_STRING.equals(type)) {
+                Value v = element.getValue();
+                if(v instanceof ValueString)
+                    writeString((ValueString) v);
+                else
+                    writeString(obj.toString());
+            }
+            else {
+                assert (Types.isNumber(type)) : "It is not number type "+type;
+                if(obj instanceof Double || obj instanceof Float) {
+                    double d = ((Number) obj).doubleValue();
+                    if(Double.isNaN(d) || Double.isInfinite(d))
+                        throw new NumberFormatException("JSON does not allow "+d);
+                }
+                writeValue(element.getValue());
+            }
+            return;
+        }
+        Map<Key, ValueDataTreeElement> subMap = element.getTree();
+        if(subMap != null) {
+            writeTree(subMap);
+            return;
+        }
+        List<ValueDataTreeElement> subList = element.getList();
+        if(subList != null)
+            writeList(subList);
+    }
+
+    void writeString(ValueString v) throws IOException {
+        CharSequence s = v.chars();
+        if(escapeAt(s, 0) < 0) {
+            writeAscii('"');
+            writeValue(v);
+            writeAscii('"');
+        }
+        else
+            writeString(s);
+    }
+
+    void writeString(CharSequence s) throws IOException {
+        writeAscii('"');
+        int start = 0;
+        int i;
+        while ((i = escapeAt(s, start)) >= 0) {
+            if(i > start)
+                writeChars(s.subSequence(start, i));
+            writeEscape(s.charAt(i));
+            start = i + 1;
+        }
+        if(start < s.length())
+            writeChars(start == 0 ? s : s.subSequence(start, s.length()));
+        writeAscii('"');
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++)
+            writeAscii(s.charAt(i));
+    }
+
+    private void writeEscape(char c) throws IOException {
+        writeAscii('\\');
+        switch (c) {
+            case '"':
+            case '\\':
+                writeAscii(c);
+                break;
+            case '\b':
+                writeAscii('b');
+                break;
+            case '\f':
+                writeAscii('f');
+                break;
+            case '\n':
+                writeAscii('n');
+                break;
+            case '\r':
+                writeAscii('r');
+                break;
+            case '\t':
+                writeAscii('t');
+                break;
+            default:
+                writeAscii("u00");
+                writeAscii(Character.forDigit(c >> 4, 16));
+                writeAscii(Character.forDigit(c & 0xf, 16));
+        }
+    }
+
+    //index of the first char to escape from start, -1 if none
+    static int escapeAt(CharSequence s, int start) {
+        for (int i = start; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if(c < 0x20 || c == '"' || c == '\\')
+                return i;
+        }
+        return -1;
+    }
+
+    private static final class Utf8Writer extends DataTreeJsonWriter {
+        private final OutputStream out;
+
+        Utf8Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        void writeAscii(char c) throws IOException {
+            out.write(c);
+        }
+
+        @Override
+        void writeChars(CharSequence s) throws IOException {
+            out.write(s.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        void writeValue(Value v) throws IOException {
+            v.writeUtf8To(out);
+        }
+    }
+
+    private static final class CharWriter extends DataTreeJsonWriter {
+        private final Writer out;
+
+        CharWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        void writeAscii(char c) throws IOException {
+            out.write(c);
+        }
+
+        @Override
+        void writeChars(CharSequence s) throws IOException {
+            out.append(s);
+        }
+
+        @Override
+        void writeValue(Value v) throws IOException {
+            v.writeTo(out);
+        }
+    }
+}
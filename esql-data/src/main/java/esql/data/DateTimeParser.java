@@ -0,0 +1,451 @@
+package esql.data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsing date/time strings to values.
+ *
+ * ISO-8601 strings (as LocalDate/LocalTime/LocalDateTime/Instant.parse) are parsed by hand in one pass,
+ * other forms of them fall back to java.time.
+ * Custom formats are DateTimeFormatter patterns, compiled once per (format, locale) and cached.
+ * Patterns of numeric fields and literals only (like dd/MM/yyyy HH:mm) are parsed by hand too,
+ * a string which does not match them exactly is given to the DateTimeFormatter.
+ */
+final class DateTimeParser {
+
+    public static final int FORMAT_CACHE_SIZE = Integer.getInteger("esql.data.datetime.format.cache.size", 256);
+
+    private static final ConcurrentHashMap<String, CompiledFormat> FORMATS = new ConcurrentHashMap<>();
+
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final long NANOS_PER_SECOND = 1000_000_000L;
+    private static final int DAYS_0000_TO_1970 = (146097 * 5) - (30 * 365 + 7);
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final int[] FRACTION_SCALE = {
+            0, 100_000_000, 10_000_000, 1000_000, 100_000, 10_000, 1000, 100, 10, 1,
+    };
+
+    private DateTimeParser() {
+    }
+
+    /**
+     * parse ISO-8601 string as LocalDate/LocalTime/LocalDateTime/Instant.parse do.
+     *
+     * @param type date/time type
+     * @param s the string
+     * @return value of type
+     * @throws DateTimeParseException if not a date/time string
+     */
+    static Value parse(Types type, CharSequence s) {
+        Value v = parseIso(type, s);
+        if(v != null)
+            return v;
+        //rare forms (extended years, offsets with seconds...) or errors
+        switch (type) {
+            case TYPE_DATE:
+                return ValueDateTime.buildDateTime(LocalDate.parse(s));
+            case TYPE_TIME:
+                return ValueDateTime.buildDateTime(LocalTime.parse(s));
+            case TYPE_DATETIME:
+                return ValueDateTime.buildDateTime(LocalDateTime.parse(s));
+            case TYPE_TIMESTAMP:
+                return ValueDateTime.buildDateTime(Instant.parse(s));
+            default:
+                throw new IllegalArgumentException("type \""+type+"\" is not date/time");
+        }
+    }
+
+    /**
+     * parse string of a DateTimeFormatter pattern.
+     * A datetime without time fields is at midnight, a timestamp without offset/zone is local
+     * in the zone of TimeZoneContext.
+     *
+     * @param type date/time type
+     * @param s the string
+     * @param format pattern, as DateTimeFormatter.ofPattern
+     * @param locale locale of pattern (month, day names...)
+     * @return value of type
+     * @throws java.time.DateTimeException if the string does not match the pattern, or lacks fields of type
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    static Value parse(Types type, CharSequence s, String format, Locale locale) {
+        if(!Types.isDateOrTime(type))
+            throw new IllegalArgumentException("type \""+type+"\" is not date/time");
+        CompiledFormat f = compile(format, locale);
+        if(f.fields != null) {
+            Value v = f.parseNumeric(type, s);
+            if(v != null)
+                return v;
+        }
+        return f.parseByFormatter(type, s);
+    }
+
+    private static CompiledFormat compile(String format, Locale locale) {
+        String key = format + '\u0000' + locale.toLanguageTag();
+        CompiledFormat f = FORMATS.get(key);
+        if(f == null) {
+            f = new CompiledFormat(format, locale);
+            if(FORMATS.size() >= FORMAT_CACHE_SIZE) //formats come from statements, should be few
+                FORMATS.clear();
+            FORMATS.put(key, f);
+        }
+        return f;
+    }
+
+    private static Value parseIso(Types type, CharSequence s) {
+        int len = s.length();
+        switch (type) {
+            case TYPE_DATE: {
+                if(len != 10)
+                    return null;
+                long day = isoDate(s, 0);
+                return day == Long.MIN_VALUE ? null : ValueDateTime.buildDate((int) day);
+            }
+            case TYPE_TIME: {
+                long nanoOfDay = isoTime(s, 0, len, false);
+                return nanoOfDay < 0 ? null : ValueDateTime.buildTime(nanoOfDay);
+            }
+            case TYPE_DATETIME: {
+                if(len < 16 || s.charAt(10) != 'T')
+                    return null;
+                long day = isoDate(s, 0);
+                long nanoOfDay = isoTime(s, 11, len, false);
+                if(day == Long.MIN_VALUE || nanoOfDay < 0)
+                    return null;
+                return ValueDateTime.buildLocalDateTime(day * SECONDS_PER_DAY + nanoOfDay / NANOS_PER_SECOND, (int) (nanoOfDay % NANOS_PER_SECOND));
+            }
+            case TYPE_TIMESTAMP: {
+                if(len < 20 || s.charAt(10) != 'T')
+                    return null;
+                int end = isoZone(s, 0, len);
+                if(end < 0)
+                    return null;
+                int offset = 0;
+                if(end < len - 1) //+HH:mm
+                    offset = (digits(s, end + 1, 2) * 3600 + digits(s, end + 4, 2) * 60) * (s.charAt(end) == '-' ? -1 : 1);
+                long day = isoDate(s, 0);
+                long nanoOfDay = isoTime(s, 11, end, true);
+                if(day == Long.MIN_VALUE || nanoOfDay < 0)
+                    return null;
+                return ValueDateTime.buildTimestamp(day * SECONDS_PER_DAY + nanoOfDay / NANOS_PER_SECOND - offset, (int) (nanoOfDay % NANOS_PER_SECOND));
+            }
+            default:
+                return null;
+        }
+    }
+
+    //yyyy-MM-dd at from, epoch day or Long.MIN_VALUE
+    static long isoDate(CharSequence s, int from) {
+        if(s.charAt(from + 4) != '-' || s.charAt(from + 7) != '-')
+            return Long.MIN_VALUE;
+        int y = digits(s, from, 4);
+        int m = digits(s, from + 5, 2);
+        int d = digits(s, from + 8, 2);
+        if(y < 0 || !isValidDate(y, m, d))
+            return Long.MIN_VALUE;
+        return epochDay(y, m, d);
+    }
+
+    //'Z' or +HH:mm at the end of [from, to), index of zone or -1
+    static int isoZone(CharSequence s, int from, int to) {
+        int len = to - from;
+        if(len >= 1 && s.charAt(to - 1) == 'Z')
+            return to - 1;
+        if(len < 6 || s.charAt(to - 3) != ':' || (s.charAt(to - 6) != '+' && s.charAt(to - 6) != '-'))
+            return -1;
+        int h = digits(s, to - 5, 2);
+        int m = digits(s, to - 2, 2);
+        return h < 0 || h > 18 || m < 0 || m > 59 ? -1 : to - 6;
+    }
+
+    //HH:mm[:ss[.fffffffff]] in [from, to), nano of day or -1
+    static long isoTime(CharSequence s, int from, int to, boolean secondRequired) {
+        int len = to - from;
+        if(len < 5 || s.charAt(from + 2) != ':')
+            return -1;
+        int h = digits(s, from, 2);
+        int m = digits(s, from + 3, 2);
+        if(h < 0 || h > 23 || m < 0 || m > 59)
+            return -1;
+        long nanoOfDay = (h * 3600L + m * 60L) * NANOS_PER_SECOND;
+        if(len == 5)
+            return secondRequired ? -1 : nanoOfDay;
+        if(len < 8 || s.charAt(from + 5) != ':')
+            return -1;
+        int sec = digits(s, from + 6, 2);
+        if(sec < 0 || sec > 59) //leap second is left to java.time
+            return -1;
+        nanoOfDay += sec * NANOS_PER_SECOND;
+        if(len == 8)
+            return nanoOfDay;
+        int n = len - 9; //fraction digits
+        if(s.charAt(from + 8) != '.' || n < 1 || n > 9)
+            return -1;
+        int fraction = digits(s, from + 9, n);
+        if(fraction < 0)
+            return -1;
+        return nanoOfDay + (long) fraction * FRACTION_SCALE[n];
+    }
+
+    //n ASCII digits at from, or -1
+    private static int digits(CharSequence s, int from, int n) {
+        int v = 0;
+        for (int i = from; i < from + n; i++) {
+            char c = s.charAt(i);
+            if(c < '0' || c > '9')
+                return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static boolean isValidDate(int y, int m, int d) {
+        if(m < 1 || m > 12 || d < 1)
+            return false;
+        if(m == 2 && d == 29)
+            return isLeapYear(y);
+        return d <= DAYS_IN_MONTH[m - 1];
+    }
+
+    private static boolean isLeapYear(long y) {
+        return (y & 3) == 0 && (y % 100 != 0 || y % 400 == 0);
+    }
+
+    //same as LocalDate.toEpochDay, for year >= 0
+    static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if(month > 2) {
+            total--;
+            if(!isLeapYear(year))
+                total--;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static final int F_YEAR = 0;
+    private static final int F_YEAR2 = 1; //2 digits year of 2000-2099
+    private static final int F_MONTH = 2;
+    private static final int F_DAY = 3;
+    private static final int F_HOUR = 4;
+    private static final int F_MINUTE = 5;
+    private static final int F_SECOND = 6;
+    private static final int F_FRACTION = 7;
+    private static final int F_LITERAL = 8;
+
+    /**
+     * a field of numeric pattern: digits or literal.
+     */
+    private static final class Field {
+        final int kind;
+        final int minWidth;
+        final int maxWidth;
+        final String literal;
+
+        Field(int kind, int minWidth, int maxWidth, String literal) {
+            this.kind = kind;
+            this.minWidth = minWidth;
+            this.maxWidth = maxWidth;
+            this.literal = literal;
+        }
+    }
+
+    private static final class CompiledFormat {
+        final DateTimeFormatter formatter;
+        final Field[] fields; //null if pattern is not numeric only
+
+        CompiledFormat(String format, Locale locale) {
+            this.formatter = DateTimeFormatter.ofPattern(format, locale);
+            this.fields = compileNumeric(format);
+        }
+
+        /**
+         * @return null if the pattern has text, zone or other fields than y/u, M, d, H, m, s, S.
+         */
+        private static Field[] compileNumeric(String format) {
+            List<Field> fields = new ArrayList<>();
+            int i = 0;
+            while (i < format.length()) {
+                char c = format.charAt(i);
+                if(c == '\'') { //quoted literal, '' is a quote
+                    StringBuilder sb = new StringBuilder();
+                    i++;
+                    while (true) {
+                        if(i >= format.length())
+                            return null;
+                        if(format.charAt(i) == '\'') {
+                            if(i + 1 < format.length() && format.charAt(i + 1) == '\'') {
+                                sb.append('\'');
+                                i += 2;
+                                continue;
+                            }
+                            i++;
+                            break;
+                        }
+                        sb.append(format.charAt(i++));
+                    }
+                    fields.add(new Field(F_LITERAL, 0, 0, sb.toString()));
+                    continue;
+                }
+                if(c == '[' || c == ']' || c == '{' || c == '}' || c == '#')
+                    return null; //optional sections and reserved
+                if(!Character.isLetter(c)) {
+                    fields.add(new Field(F_LITERAL, 0, 0, String.valueOf(c)));
+                    i++;
+                    continue;
+                }
+                int count = 1;
+                while (i + count < format.length() && format.charAt(i + count) == c)
+                    count++;
+                Field f = numericField(c, count);
+                if(f == null)
+                    return null;
+                //variable width followed by digits can not be split by hand
+                if(!fields.isEmpty()) {
+                    Field last = fields.get(fields.size() - 1);
+                    if(last.kind != F_LITERAL && last.minWidth != last.maxWidth)
+                        return null;
+                }
+                fields.add(f);
+                i += count;
+            }
+            return fields.toArray(new Field[0]);
+        }
+
+        private static Field numericField(char c, int count) {
+            switch (c) {
+                case 'y':
+                case 'u':
+                    if(count == 2)
+                        return new Field(F_YEAR2, 2, 2, null);
+                    return count == 4 ? new Field(F_YEAR, 4, 4, null) : null;
+                case 'M':
+                    return count <= 2 ? new Field(F_MONTH, count, 2, null) : null; //MMM is text
+                case 'd':
+                    return count <= 2 ? new Field(F_DAY, count, 2, null) : null;
+                case 'H':
+                    return count <= 2 ? new Field(F_HOUR, count, 2, null) : null;
+                case 'm':
+                    return count <= 2 ? new Field(F_MINUTE, count, 2, null) : null;
+                case 's':
+                    return count <= 2 ? new Field(F_SECOND, count, 2, null) : null;
+                case 'S':
+                    return count <= 9 ? new Field(F_FRACTION, count, count, null) : null;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @return null if not matched exactly, the formatter decides then.
+         */
+        Value parseNumeric(Types type, CharSequence s) {
+            int[] values = new int[F_LITERAL];
+            int present = 0;
+            int pos = 0;
+            int len = s.length();
+            for (Field f : fields) {
+                if(f.kind == F_LITERAL) {
+                    String l = f.literal;
+                    if(pos + l.length() > len)
+                        return null;
+                    for (int i = 0; i < l.length(); i++)
+                        if(s.charAt(pos + i) != l.charAt(i))
+                            return null;
+                    pos += l.length();
+                    continue;
+                }
+                int v = 0;
+                int n = 0;
+                while (n < f.maxWidth && pos < len) {
+                    char c = s.charAt(pos);
+                    if(c < '0' || c > '9')
+                        break;
+                    v = v * 10 + (c - '0');
+                    n++;
+                    pos++;
+                }
+                if(n < f.minWidth)
+                    return null;
+                values[f.kind] = v;
+                present |= 1 << f.kind;
+            }
+            if(pos != len)
+                return null;
+
+            boolean hasDate = (present & ((1 << F_YEAR) | (1 << F_YEAR2))) != 0
+                    && (present & (1 << F_MONTH)) != 0 && (present & (1 << F_DAY)) != 0;
+            int year = (present & (1 << F_YEAR2)) != 0 ? 2000 + values[F_YEAR2] : values[F_YEAR];
+            if(hasDate && !isValidDate(year, values[F_MONTH], values[F_DAY]))
+                return null;
+            int hour = values[F_HOUR], minute = values[F_MINUTE], second = values[F_SECOND];
+            if(hour > 23 || minute > 59 || second > 59)
+                return null;
+            if((present & ((1 << F_MINUTE) | (1 << F_SECOND))) != 0 && (present & (1 << F_HOUR)) == 0)
+                return null; //time without hour
+            long nanoOfDay = (hour * 3600L + minute * 60L + second) * NANOS_PER_SECOND;
+            if((present & (1 << F_FRACTION)) != 0) {
+                for (Field f : fields)
+                    if(f.kind == F_FRACTION)
+                        nanoOfDay += (long) values[F_FRACTION] * FRACTION_SCALE[f.minWidth];
+            }
+
+            switch (type) {
+                case TYPE_DATE:
+                    return hasDate ? ValueDateTime.buildDate((int) epochDay(year, values[F_MONTH], values[F_DAY])) : null;
+                case TYPE_TIME:
+                    return (present & (1 << F_HOUR)) != 0 ? ValueDateTime.buildTime(nanoOfDay) : null;
+                case TYPE_DATETIME:
+                case TYPE_TIMESTAMP:
+                    if(!hasDate)
+                        return null;
+                    long local = epochDay(year, values[F_MONTH], values[F_DAY]) * SECONDS_PER_DAY + nanoOfDay / NANOS_PER_SECOND;
+                    int nano = (int) (nanoOfDay % NANOS_PER_SECOND);
+                    if(Types.TYPE_DATETIME.equals(type))
+                        return ValueDateTime.buildLocalDateTime(local, nano);
+                    return ValueDateTime.buildTimestamp(TimeZoneContext.current().toEpochSecond(local), nano);
+                default:
+                    return null;
+            }
+        }
+
+        Value parseByFormatter(Types type, CharSequence s) {
+            TemporalAccessor t = formatter.parse(s);
+            switch (type) {
+                case TYPE_DATE:
+                    return ValueDateTime.buildDateTime(LocalDate.from(t));
+                case TYPE_TIME:
+                    return ValueDateTime.buildDateTime(LocalTime.from(t));
+                case TYPE_DATETIME:
+                    return ValueDateTime.buildDateTime(localDateTime(t));
+                case TYPE_TIMESTAMP:
+                    if(t.isSupported(ChronoField.INSTANT_SECONDS))
+                        return ValueDateTime.buildDateTime(Instant.from(t));
+                    LocalDateTime local = localDateTime(t);
+                    return ValueDateTime.buildTimestamp(TimeZoneContext.current().toEpochSecond(local.toEpochSecond(ZoneOffset.UTC)), local.getNano());
+                default:
+                    throw new AssertionError();
+            }
+        }
+
+        private static LocalDateTime localDateTime(TemporalAccessor t) {
+            if(t.isSupported(ChronoField.HOUR_OF_DAY))
+                return LocalDateTime.from(t);
+            return LocalDate.from(t).atStartOfDay();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package esql.data;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.util.zip.CRC32C;
+
+/**
+ * Non-cryptographic fingerprints as MessageDigest, so LOB hashing treats them as other algorithms.
+ * They are fast to tell LOBs apart, but not safe against crafted collisions.
+ * Digests are big-endian (CRC32C 4 bytes, XXH64 8 bytes as its canonical form).
+ */
+final class FastDigests {
+
+    private FastDigests() {
+    }
+
+    /**
+     * CRC32C of the JDK (hardware accelerated on most platforms).
+     */
+    static final class Crc32c extends MessageDigest {
+        private final CRC32C crc = new CRC32C();
+
+        Crc32c() {
+            super("CRC32C");
+        }
+
+        @Override
+        protected int engineGetDigestLength() {
+            return 4;
+        }
+
+        @Override
+        protected void engineUpdate(byte input) {
+            crc.update(input);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            crc.update(input, offset, len);
+        }
+
+        @Override
+        protected void engineUpdate(ByteBuffer input) {
+            crc.update(input);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            int v = (int) crc.getValue();
+            crc.reset();
+            return new byte[]{(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v};
+        }
+
+        @Override
+        protected void engineReset() {
+            crc.reset();
+        }
+    }
+
+    /**
+     * xxHash64 with seed 0, by stripes of 32 bytes.
+     */
+    static final class XxHash64 extends MessageDigest {
+        private static final long P1 = 0x9E3779B185EBCA87L;
+        private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long P3 = 0x165667B19E3779F9L;
+        private static final long P4 = 0x85EBCA77C2B2AE63L;
+        private static final long P5 = 0x27D4EB2F165667C5L;
+        private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private final byte[] stripe = new byte[32];
+        private int buffered;
+        private long total;
+        private long v1, v2, v3, v4;
+
+        XxHash64() {
+            super("XXH64");
+            engineReset();
+        }
+
+        private static long round(long acc, long input) {
+            return Long.rotateLeft(acc + input * P2, 31) * P1;
+        }
+
+        private static long merge(long h, long v) {
+            return (h ^ round(0, v)) * P1 + P4;
+        }
+
+        private void stripe(byte[] b, int off) {
+            v1 = round(v1, (long) LONG_LE.get(b, off));
+            v2 = round(v2, (long) LONG_LE.get(b, off + 8));
+            v3 = round(v3, (long) LONG_LE.get(b, off + 16));
+            v4 = round(v4, (long) LONG_LE.get(b, off + 24));
+        }
+
+        @Override
+        protected int engineGetDigestLength() {
+            return 8;
+        }
+
+        @Override
+        protected void engineUpdate(byte input) {
+            engineUpdate(new byte[]{input}, 0, 1);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            total += len;
+            if(buffered > 0) {
+                int n = Math.min(len, 32 - buffered);
+                System.arraycopy(input, offset, stripe, buffered, n);
+                buffered += n;
+                offset += n;
+                len -= n;
+                if(buffered < 32)
+                    return;
+                stripe(stripe, 0);
+                buffered = 0;
+            }
+            for (; len >= 32; offset += 32, len -= 32)
+                stripe(input, offset);
+            System.arraycopy(input, offset, stripe, 0, len);
+            buffered = len;
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            long h;
+            if(total >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = merge(h, v1);
+                h = merge(h, v2);
+                h = merge(h, v3);
+                h = merge(h, v4);
+            }
+            else
+                h = P5;
+            h += total;
+            int i = 0;
+            for (; i + 8 <= buffered; i += 8)
+                h = Long.rotateLeft(h ^ round(0, (long) LONG_LE.get(stripe, i)), 27) * P1 + P4;
+            if(i + 4 <= buffered) {
+                h = Long.rotateLeft(h ^ (((int) INT_LE.get(stripe, i)) & 0xFFFFFFFFL) * P1, 23) * P2 + P3;
+                i += 4;
+            }
+            for (; i < buffered; i++)
+                h = Long.rotateLeft(h ^ (stripe[i] & 0xFFL) * P5, 11) * P1;
+            h ^= h >>> 33;
+            h *= P2;
+            h ^= h >>> 29;
+            h *= P3;
+            h ^= h >>> 32;
+            engineReset();
+            byte[] digest = new byte[8];
+            for (int k = 7; k >= 0; k--, h >>>= 8)
+                digest[k] = (byte) h;
+            return digest;
+        }
+
+        @Override
+        protected void engineReset() {
+            buffered = 0;
+            total = 0;
+            v1 = P1 + P2;
+            v2 = P2;
+            v3 = 0;
+            v4 = -P1;
+        }
+    }
+}
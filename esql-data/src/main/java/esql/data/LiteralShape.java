@@ -0,0 +1,299 @@
+package esql.data;
+
+/**
+ * Classify an untyped literal (form field, CSV cell...) in one scan: the result is a bitmask of every shape
+ * the string satisfies, with offsets of its parts. It is mutable and may be reused for many strings
+ * (not thread-safe), like a ParsePosition.
+ *
+ * Shapes are same as the patterns of Value, surrounding whitespaces are allowed:
+ * <ul>
+ *     <li>INTEGER: [+-]?\d+</li>
+ *     <li>DECIMAL: [+-]?\d+(\.\d*)?</li>
+ *     <li>FLOATING: [+-]?\d+(\.\d*)?([Ee][+-]?\d+)?</li>
+ *     <li>HEX: (0x)?[0-9A-Fa-f]+</li>
+ *     <li>BASE64, BASE64URL: alphabet chars with at most 2 '=' padding, length is multiple of 4</li>
+ *     <li>DATE, TIME, DATETIME, TIMESTAMP: ISO-8601 forms of the fast path of DateTimeParser,
+ *     like "2024-03-05", "07:08:09.123", "2024-03-05T07:08", "2024-03-05T07:08:09+07:00"</li>
+ * </ul>
+ * A string may have many shapes, like "1234" is INTEGER, DECIMAL, FLOATING, HEX, BASE64 and BASE64URL.
+ */
+public final class LiteralShape {
+
+    public static final int INTEGER = 1;
+    public static final int DECIMAL = 1 << 1;
+    public static final int FLOATING = 1 << 2;
+    public static final int HEX = 1 << 3;
+    public static final int BASE64 = 1 << 4;
+    public static final int BASE64URL = 1 << 5;
+    public static final int DATE = 1 << 6;
+    public static final int TIME = 1 << 7;
+    public static final int DATETIME = 1 << 8;
+    public static final int TIMESTAMP = 1 << 9;
+
+    private static final int NUMBERS = INTEGER | DECIMAL | FLOATING;
+    private static final int TEMPORALS = DATE | TIME | DATETIME | TIMESTAMP;
+
+    //char classes of ASCII
+    private static final byte C_DIGIT = 1;
+    private static final byte C_HEX_LETTER = 1 << 1;
+    private static final byte C_LETTER = 1 << 2; //other letters of base64
+    private static final byte C_BASE64 = 1 << 3; // + /
+    private static final byte C_BASE64URL = 1 << 4; // - _
+    private static final byte C_TEMPORAL = 1 << 5; // - : . T Z +
+    private static final byte C_SPACE = 1 << 6;
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++)
+            CLASSES[c] = C_DIGIT | C_TEMPORAL;
+        for (char c = 'A'; c <= 'Z'; c++)
+            CLASSES[c] = C_LETTER;
+        for (char c = 'a'; c <= 'z'; c++)
+            CLASSES[c] = C_LETTER;
+        for (char c : "ABCDEFabcdef".toCharArray())
+            CLASSES[c] = C_HEX_LETTER;
+        CLASSES['+'] = C_BASE64 | C_TEMPORAL;
+        CLASSES['/'] = C_BASE64;
+        CLASSES['-'] = C_BASE64URL | C_TEMPORAL;
+        CLASSES['_'] = C_BASE64URL;
+        CLASSES[':'] = C_TEMPORAL;
+        CLASSES['.'] = C_TEMPORAL;
+        CLASSES['T'] |= C_TEMPORAL;
+        CLASSES['Z'] |= C_TEMPORAL;
+        for (char c : " \t\n\u000B\f\r".toCharArray()) //same as \s
+            CLASSES[c] = C_SPACE;
+    }
+
+    //states of number
+    private static final int N_START = 0;
+    private static final int N_SIGN = 1;
+    private static final int N_INTEGER = 2;
+    private static final int N_POINT = 3;
+    private static final int N_FRACTION = 4;
+    private static final int N_EXPONENT = 5;
+    private static final int N_EXPONENT_SIGN = 6;
+    private static final int N_EXPONENT_DIGITS = 7;
+    private static final int N_FAILED = 8;
+
+    private int mask;
+    private int start;
+    private int end;
+    private int signIndex;
+    private int integerStart;
+    private int decimalPoint;
+    private int exponent;
+    private int hexStart;
+
+    public LiteralShape() {
+        clear();
+    }
+
+    private void clear() {
+        mask = 0;
+        start = end = 0;
+        signIndex = integerStart = decimalPoint = exponent = hexStart = -1;
+    }
+
+    /**
+     * classify the string, offsets of previous string are reset.
+     *
+     * @param s the string, null is no shape
+     * @return bitmask of shapes, 0 if none
+     */
+    public int classify(CharSequence s) {
+        clear();
+        if(s == null)
+            return 0;
+        int to = s.length();
+        int from = 0;
+        while (from < to && isSpace(s.charAt(from)))
+            from++;
+        while (to > from && isSpace(s.charAt(to - 1)))
+            to--;
+        start = from;
+        end = to;
+        if(from == to)
+            return 0;
+
+        int alive = NUMBERS | HEX | BASE64 | BASE64URL | TEMPORALS;
+        int state = N_START;
+        int padding = 0;
+        int hexFrom = from;
+        if(to - from > 2 && s.charAt(from) == '0' && s.charAt(from + 1) == 'x')
+            hexFrom = from + 2;
+        for (int i = from; i < to && alive != 0; i++) {
+            char c = s.charAt(i);
+            int cls = c < 128 ? CLASSES[c] : 0;
+            //base64, padding only at the end
+            if(c == '=') {
+                if(++padding > 2)
+                    alive &= ~(BASE64 | BASE64URL);
+            }
+            else if(padding > 0 || (cls & (C_DIGIT | C_HEX_LETTER | C_LETTER | C_BASE64 | C_BASE64URL)) == 0)
+                alive &= ~(BASE64 | BASE64URL);
+            else if((cls & C_BASE64) != 0)
+                alive &= ~BASE64URL;
+            else if((cls & C_BASE64URL) != 0)
+                alive &= ~BASE64;
+            //hex
+            if(i >= hexFrom && (cls & (C_DIGIT | C_HEX_LETTER)) == 0)
+                alive &= ~HEX;
+            if((cls & C_TEMPORAL) == 0)
+                alive &= ~TEMPORALS;
+            //number
+            if(state != N_FAILED) {
+                state = nextNumberState(state, c, cls);
+                switch (state) {
+                    case N_SIGN:
+                        signIndex = i;
+                        break;
+                    case N_INTEGER:
+                        if(integerStart < 0)
+                            integerStart = i;
+                        break;
+                    case N_POINT:
+                        decimalPoint = i;
+                        break;
+                    case N_EXPONENT:
+                        exponent = i;
+                        break;
+                    case N_FAILED:
+                        alive &= ~NUMBERS;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        int result = 0;
+        if((alive & NUMBERS) != 0) {
+            if(state == N_INTEGER)
+                result |= INTEGER | DECIMAL | FLOATING;
+            else if(state == N_POINT || state == N_FRACTION)
+                result |= DECIMAL | FLOATING;
+            else if(state == N_EXPONENT_DIGITS)
+                result |= FLOATING;
+        }
+        if((alive & HEX) != 0) {
+            result |= HEX;
+            hexStart = hexFrom;
+        }
+        if((to - from) % 4 == 0)
+            result |= alive & (BASE64 | BASE64URL);
+        if((alive & TEMPORALS) != 0)
+            result |= temporal(s, from, to);
+        if((result & NUMBERS) == 0)
+            signIndex = integerStart = decimalPoint = exponent = -1;
+        mask = result;
+        return result;
+    }
+
+    private static int nextNumberState(int state, char c, int cls) {
+        boolean digit = (cls & C_DIGIT) != 0;
+        switch (state) {
+            case N_START:
+                return digit ? N_INTEGER : c == '+' || c == '-' ? N_SIGN : N_FAILED;
+            case N_SIGN:
+                return digit ? N_INTEGER : N_FAILED;
+            case N_INTEGER:
+                return digit ? N_INTEGER : c == '.' ? N_POINT : c == 'e' || c == 'E' ? N_EXPONENT : N_FAILED;
+            case N_POINT:
+            case N_FRACTION:
+                return digit ? N_FRACTION : c == 'e' || c == 'E' ? N_EXPONENT : N_FAILED;
+            case N_EXPONENT:
+                return digit ? N_EXPONENT_DIGITS : c == '+' || c == '-' ? N_EXPONENT_SIGN : N_FAILED;
+            case N_EXPONENT_SIGN:
+            case N_EXPONENT_DIGITS:
+                return digit ? N_EXPONENT_DIGITS : N_FAILED;
+            default:
+                return N_FAILED;
+        }
+    }
+
+    //only called for strings of digits and - : . T Z +
+    private static int temporal(CharSequence s, int from, int to) {
+        int len = to - from;
+        if(len >= 10 && s.charAt(from + 4) == '-') {
+            if(DateTimeParser.isoDate(s, from) == Long.MIN_VALUE)
+                return 0;
+            if(len == 10)
+                return DATE;
+            if(s.charAt(from + 10) != 'T')
+                return 0;
+            if(DateTimeParser.isoTime(s, from + 11, to, false) >= 0)
+                return DATETIME;
+            int zone = DateTimeParser.isoZone(s, from + 11, to);
+            return zone >= 0 && DateTimeParser.isoTime(s, from + 11, zone, true) >= 0 ? TIMESTAMP : 0;
+        }
+        return DateTimeParser.isoTime(s, from, to, false) >= 0 ? TIME : 0;
+    }
+
+    private static boolean isSpace(char c) {
+        return c < 128 && CLASSES[c] == C_SPACE;
+    }
+
+    /**
+     * @return bitmask of shapes of the last classified string
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * @param shapes one or more shape bits
+     * @return true if the last classified string has any of the shapes
+     */
+    public boolean is(int shapes) {
+        return (mask & shapes) != 0;
+    }
+
+    /**
+     * @return index of the first non-space char
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return index after the last non-space char
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return index of the sign of a number, -1 if none
+     */
+    public int getSignIndex() {
+        return signIndex;
+    }
+
+    /**
+     * @return index of the first digit of a number, -1 if not a number
+     */
+    public int getIntegerStart() {
+        return integerStart;
+    }
+
+    /**
+     * @return index of the decimal point of a number, -1 if none
+     */
+    public int getDecimalPoint() {
+        return decimalPoint;
+    }
+
+    /**
+     * @return index of 'e' or 'E' of a floating number, -1 if none
+     */
+    public int getExponent() {
+        return exponent;
+    }
+
+    /**
+     * @return index of the first hex digit (after "0x"), -1 if not hex
+     */
+    public int getHexStart() {
+        return hexStart;
+    }
+}
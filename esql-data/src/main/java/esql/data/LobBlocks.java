@@ -0,0 +1,305 @@
+package esql.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Layout of a LOB temp file compressed by independent blocks, to seek without inflating from the start.
+ *
+ * The content is cut in blocks of BLOCK_SIZE bytes, each one deflated alone (esql.data.lob.compress.level)
+ * or stored as is when it does not compress enough; the file is the blocks one after the other and
+ * the offsets are kept here, with the LOB. After n incompressible blocks in a row, the next n blocks
+ * are stored without trying (n up to MAX_SKIP), so random data costs little.
+ * Compression is off unless esql.data.lob.compress is true (or set by ValueLOB.setTempCompression).
+ */
+final class LobBlocks {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int LEVEL = Integer.getInteger("esql.data.lob.compress.level", Deflater.BEST_SPEED);
+    //a block is stored if deflated to more than 7/8 of it
+    static final int MIN_SAVING = BLOCK_SIZE / 8;
+    static final int MAX_SKIP = 64;
+
+    private static volatile boolean enabled = Boolean.getBoolean("esql.data.lob.compress");
+
+    //file offset of each block, and of the end
+    private long[] offsets = new long[17];
+    private final BitSet stored = new BitSet();
+    private int count = 0;
+    private long length = 0;
+
+    private LobBlocks() {
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean compress) {
+        enabled = compress;
+    }
+
+    /**
+     * @return number of content bytes
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * @return number of bytes of the file
+     */
+    long fileLength() {
+        return offsets[count];
+    }
+
+    /**
+     * @return content bytes by file bytes
+     */
+    double ratio() {
+        return fileLength() == 0 ? 1.0 : (double) length / fileLength();
+    }
+
+    /**
+     * Writer of the blocks to a file channel, not thread safe. The layout is complete when finished.
+     */
+    static final class Writer {
+        private final FileChannel out;
+        private final LobBlocks blocks = new LobBlocks();
+        private final Deflater deflater = new Deflater(LEVEL);
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] deflated = new byte[BLOCK_SIZE - MIN_SAVING];
+        private int filled = 0;
+        private int skip = 0;
+        private int incompressible = 0;
+
+        Writer(FileChannel out) {
+            this.out = out;
+        }
+
+        void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, BLOCK_SIZE - filled);
+                System.arraycopy(b, off, block, filled, n);
+                filled += n;
+                off += n;
+                len -= n;
+                if(filled == BLOCK_SIZE)
+                    writeBlock();
+            }
+        }
+
+        void write(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                int n = Math.min(data.remaining(), BLOCK_SIZE - filled);
+                data.get(block, filled, n);
+                filled += n;
+                if(filled == BLOCK_SIZE)
+                    writeBlock();
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            int size = skip > 0 ? -1 : deflate();
+            if(size < 0) { //stored as is
+                if(skip > 0)
+                    skip--;
+                else
+                    skip = incompressible = Math.min(MAX_SKIP, incompressible + 1);
+                blocks.stored.set(blocks.count);
+                writeFully(block, filled);
+            }
+            else {
+                incompressible = 0;
+                writeFully(deflated, size);
+            }
+            if(blocks.count + 1 == blocks.offsets.length)
+                blocks.offsets = Arrays.copyOf(blocks.offsets, blocks.offsets.length * 2);
+            blocks.offsets[blocks.count + 1] = blocks.offsets[blocks.count] + (size < 0 ? filled : size);
+            blocks.count++;
+            blocks.length += filled;
+            filled = 0;
+        }
+
+        //deflated size, -1 if it does not fit
+        private int deflate() {
+            deflater.reset();
+            deflater.setInput(block, 0, filled);
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished() && size < deflated.length)
+                size += deflater.deflate(deflated, size, deflated.length - size);
+            return deflater.finished() && size < filled - filled / 8 ? size : -1;
+        }
+
+        private void writeFully(byte[] b, int len) throws IOException {
+            ByteBuffer buff = ByteBuffer.wrap(b, 0, len);
+            while (buff.hasRemaining())
+                out.write(buff);
+        }
+
+        /**
+         * write the last block, the channel is not closed.
+         */
+        LobBlocks finish() throws IOException {
+            try {
+                if(filled > 0)
+                    writeBlock();
+            } finally {
+                deflater.end();
+            }
+            return blocks;
+        }
+
+        void abort() {
+            deflater.end();
+        }
+    }
+
+    private int blockLength(int i) {
+        return (int) Math.min(BLOCK_SIZE, length - (long) i * BLOCK_SIZE);
+    }
+
+    //content of the block into b (BLOCK_SIZE at least), the inflater is reset
+    private int readBlock(FileChannel channel, int i, byte[] b, byte[] compressed, Inflater inflater) throws IOException {
+        int blockLength = blockLength(i);
+        int fileLength = (int) (offsets[i + 1] - offsets[i]);
+        byte[] target = stored.get(i) ? b : compressed;
+        ByteBuffer buff = ByteBuffer.wrap(target, 0, fileLength);
+        while (buff.hasRemaining()) {
+            if(channel.read(buff, offsets[i] + buff.position()) < 0)
+                throw new IOException("LOB temp file is truncated");
+        }
+        if(target == b)
+            return blockLength;
+        inflater.reset();
+        inflater.setInput(compressed, 0, fileLength);
+        try {
+            int n = 0, r;
+            while (n < blockLength && 0 < (r = inflater.inflate(b, n, blockLength - n)))
+                n += r;
+            if(n != blockLength)
+                throw new IOException("LOB temp block is corrupted");
+            return n;
+        } catch (DataFormatException e) {
+            throw new IOException("LOB temp block is corrupted. "+e.toString());
+        }
+    }
+
+    /**
+     * stream of the content from a position, the file is read block by block.
+     */
+    InputStream newInput(Path file, long position) {
+        return new BlockInput(file, position);
+    }
+
+    /**
+     * read content bytes from a position, as FileChannel.read(ByteBuffer, long).
+     */
+    int read(Path file, ByteBuffer dst, long position) throws IOException {
+        if(position >= length)
+            return -1;
+        try(InputStream in = newInput(file, position)) {
+            int n = (int) Math.min(dst.remaining(), length - position);
+            if(dst.hasArray()) {
+                n = in.readNBytes(dst.array(), dst.arrayOffset() + dst.position(), n);
+                dst.position(dst.position() + n);
+            }
+            else
+                dst.put(in.readNBytes(n));
+            return n;
+        }
+    }
+
+    private final class BlockInput extends InputStream {
+        private final Path file;
+        private FileChannel channel;
+        private Inflater inflater;
+        private byte[] block;
+        private byte[] compressed;
+        private long position;
+        //block in the buffer, its bytes and next byte
+        private int current = -1;
+        private int limit = 0;
+        private int pos = 0;
+
+        BlockInput(Path file, long position) {
+            this.file = file;
+            this.position = position;
+        }
+
+        //false at the end
+        private boolean fill() throws IOException {
+            if(position >= length)
+                return false;
+            if(channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+                inflater = new Inflater();
+                block = new byte[BLOCK_SIZE];
+                compressed = new byte[BLOCK_SIZE];
+            }
+            current = (int) (position / BLOCK_SIZE);
+            limit = readBlock(channel, current, block, compressed, inflater);
+            pos = (int) (position - (long) current * BLOCK_SIZE);
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if(pos >= limit && !fill())
+                return -1;
+            position++;
+            return block[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0)
+                return 0;
+            if(pos >= limit && !fill())
+                return -1;
+            int n = Math.min(len, limit - pos);
+            System.arraycopy(block, pos, b, off, n);
+            pos += n;
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            if(n <= 0)
+                return 0;
+            long skipped = Math.min(n, length - position);
+            position += skipped;
+            //still in the buffered block
+            if(current >= 0 && position / BLOCK_SIZE == current && position < (long) current * BLOCK_SIZE + limit)
+                pos = (int) (position - (long) current * BLOCK_SIZE);
+            else
+                pos = limit;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return limit - pos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(channel != null) {
+                inflater.end();
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package esql.data;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of first-block arrays of the LOB creators, by size classes (powers of 2 up to MAX_BUFFERED_SIZE).
+ *
+ * A creator starts with the size class of LOBs built recently and grows by classes, so a short CLOB
+ * does not take a full MAX_BUFFERED_SIZE block. An array handed to a built LOB leaves the pool for good
+ * (values are immutable and may be shared), only arrays of abandoned or copied blocks come back.
+ */
+final class LobBufferPool {
+
+    static final int MIN_SIZE = 256;
+    //arrays kept per size class and type
+    static final int POOL_SIZE = Integer.getInteger("esql.data.lob.pool.size", 16);
+
+    private static final int CLASSES = classOf(ValueLOB.MAX_BUFFERED_SIZE) + 1;
+    private static final ArrayBlockingQueue<byte[]>[] BYTES = queues();
+    private static final ArrayBlockingQueue<char[]>[] CHARS = queues();
+
+    private LobBufferPool() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArrayBlockingQueue<T>[] queues() {
+        ArrayBlockingQueue<T>[] queues = (ArrayBlockingQueue<T>[]) new ArrayBlockingQueue<?>[CLASSES];
+        for (int i = 0; i < CLASSES && POOL_SIZE > 0; i++)
+            queues[i] = new ArrayBlockingQueue<>(POOL_SIZE);
+        return queues;
+    }
+
+    //smallest class of the size
+    static int classOf(int size) {
+        int c = 0;
+        while (sizeOf(c) < size)
+            c++;
+        return c;
+    }
+
+    static int sizeOf(int sizeClass) {
+        return (int) Math.min((long) MIN_SIZE << sizeClass, ValueLOB.MAX_BUFFERED_SIZE);
+    }
+
+    /**
+     * array of the size class of minSize (at most MAX_BUFFERED_SIZE), content is undefined.
+     */
+    static byte[] bytes(int minSize) {
+        int c = classOf(Math.min(minSize, ValueLOB.MAX_BUFFERED_SIZE));
+        byte[] b = POOL_SIZE > 0 ? BYTES[c].poll() : null;
+        return b != null ? b : new byte[sizeOf(c)];
+    }
+
+    /**
+     * array of the size class of minSize (at most MAX_BUFFERED_SIZE), content is undefined.
+     */
+    static char[] chars(int minSize) {
+        int c = classOf(Math.min(minSize, ValueLOB.MAX_BUFFERED_SIZE));
+        char[] b = POOL_SIZE > 0 ? CHARS[c].poll() : null;
+        return b != null ? b : new char[sizeOf(c)];
+    }
+
+    /**
+     * give back an array of bytes(), it must not be used after.
+     */
+    static void release(byte[] b) {
+        int c = classOf(b.length);
+        if(POOL_SIZE > 0 && sizeOf(c) == b.length)
+            BYTES[c].offer(b);
+    }
+
+    /**
+     * give back an array of chars(), it must not be used after.
+     */
+    static void release(char[] b) {
+        int c = classOf(b.length);
+        if(POOL_SIZE > 0 && sizeOf(c) == b.length)
+            CHARS[c].offer(b);
+    }
+
+    //the array is kept by a LOB if no more than a quarter is unused, otherwise the data is copied
+    private static boolean handOff(int capacity, int length) {
+        return capacity - length <= capacity / 4;
+    }
+
+    /**
+     * first block for a built LOB: the array itself (unused tail cleared) or an exact copy.
+     * The array must not be used by the caller after.
+     */
+    static byte[] handOff(byte[] b, int length) {
+        if(handOff(b.length, length)) {
+            Arrays.fill(b, length, b.length, (byte) 0);
+            return b;
+        }
+        byte[] copy = Arrays.copyOf(b, length);
+        release(b);
+        return copy;
+    }
+
+    /**
+     * first block for a built LOB: the array itself (unused tail cleared) or an exact copy.
+     * The array must not be used by the caller after.
+     */
+    static char[] handOff(char[] b, int length) {
+        if(handOff(b.length, length)) {
+            Arrays.fill(b, length, b.length, '\0');
+            return b;
+        }
+        char[] copy = Arrays.copyOf(b, length);
+        release(b);
+        return copy;
+    }
+
+    /**
+     * moving average of built LOB sizes, for the initial first block.
+     * Updates are not synchronized, a lost update only delays the adaptation.
+     */
+    static final class Adaptive {
+        private volatile int average = MIN_SIZE;
+
+        int initialSize() {
+            return average;
+        }
+
+        void record(long size) {
+            int s = (int) Math.min(size, ValueLOB.MAX_BUFFERED_SIZE);
+            average += (s - average) / 8;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package esql.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Background copy of a LOB source to its temp file.
+ *
+ * A task of the spool executor drains the source by chunks: hashing, writing and publishing the spooled length.
+ * Any number of readers (newInput) read the spooled prefix by positional reads and wait only for bytes
+ * not written yet. The hashes are stored in the holder when the source is fully spooled.
+ * The task does not refer the LOB, which may be released (closed or unreachable) while spooling.
+ */
+final class LobSpooler {
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "esql-lob-spool");
+        t.setDaemon(true);
+        return t;
+    });
+    private static volatile Executor executor = DEFAULT_EXECUTOR;
+
+    private final Path file;
+    private final MultiDigest digest;
+    private final byte[][] holder;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    //written and done are guarded by lock for waiting, volatile for polling
+    private volatile long written;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private volatile AutoCloseable source;
+    private Exception failure;
+    private long reserved;
+    //char positions of a spooled reader, set when fully spooled (read after await)
+    private CharOffsetIndex charIndex;
+
+    LobSpooler(Path file, MultiDigest digest, byte[][] holder) {
+        this.file = file;
+        this.digest = digest;
+        this.holder = holder;
+    }
+
+    /**
+     * executor of spooling tasks, a task blocks on reading the source and writing the file.
+     */
+    static void setExecutor(Executor spoolExecutor) {
+        executor = spoolExecutor == null ? DEFAULT_EXECUTOR : spoolExecutor;
+    }
+
+    /**
+     * start spooling bytes of the source, it is closed when done.
+     */
+    void start(InputStream in) {
+        source = in;
+        executor.execute(() -> run(out -> {
+            byte[] b = new byte[LobStore.SPOOL_CHUNK_SIZE];
+            int r;
+            while (!cancelled && 0 <= (r = in.read(b)))
+                append(out, b, 0, r);
+        }));
+    }
+
+    /**
+     * start spooling chars of the source, encoded by the charset (malformed chars replaced as String.getBytes).
+     */
+    void start(Reader in, Charset charset) {
+        source = in;
+        executor.execute(() -> run(out -> {
+            //chunks large enough to be hashed in parallel
+            CharChunkEncoder encoder = new CharChunkEncoder(charset, ValueLOB.MAX_BUFFERED_SIZE);
+            CharOffsetIndex recording = new CharOffsetIndex();
+            CharChunkEncoder.ByteSink sink = (b, off, len) -> append(out, b, off, len);
+            try {
+                char[] chars = new char[LobStore.SPOOL_CHUNK_SIZE / 4];
+                int r;
+                while (!cancelled && 0 <= (r = in.read(chars)))
+                    recording.encode(encoder, CharBuffer.wrap(chars, 0, r), sink);
+                if(!cancelled) {
+                    encoder.finish(sink);
+                    charIndex = recording;
+                }
+            } finally {
+                encoder.release();
+            }
+        }));
+    }
+
+    private interface Drain {
+        void to(FileChannel out) throws IOException;
+    }
+
+    private void run(Drain drain) {
+        LobStore store = LobStore.getDefault();
+        try {
+            //released before the task started, no file to leave behind
+            if(!cancelled) {
+                try(FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    drain.to(out);
+                    if(!cancelled)
+                        digest.digestTo(holder);
+                }
+            }
+        } catch (Exception e) {
+            lock.lock();
+            try {
+                failure = e;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            closeSource();
+            //the LOB may be released while spooling, its file is not deleted by the store then
+            if(!store.track(file, failure == null && !cancelled ? holder : null) || cancelled)
+                deleteFile();
+            store.unreserve(reserved);
+            lock.lock();
+            try {
+                done = true;
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void closeSource() {
+        AutoCloseable in = source;
+        if(in != null) {
+            try {
+                in.close();
+            } catch (Exception e) {
+                //nothing to read anymore
+            }
+        }
+    }
+
+    private void deleteFile() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //swept as orphan later
+        }
+    }
+
+    private void append(FileChannel out, byte[] b, int off, int length) throws IOException {
+        if(length <= 0)
+            return;
+        LobStore.getDefault().reserve(length);
+        reserved += length;
+        digest.update(b, off, length);
+        ByteBuffer buff = ByteBuffer.wrap(b, off, length);
+        while (buff.hasRemaining())
+            out.write(buff);
+        lock.lock();
+        try {
+            written += length;
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * stop spooling, the source is closed to release a blocked read and waiting readers fail.
+     */
+    void cancel() {
+        lock.lock();
+        try {
+            if(done) //fully spooled or failed
+                return;
+            cancelled = true;
+            //readers do not wait for a source that may never return
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        //the task stops at the next chunk anyway
+        closeSource();
+    }
+
+    /**
+     * wait until the source is fully spooled.
+     *
+     * @throws IOException if spooling failed or was cancelled
+     */
+    void await() throws IOException {
+        awaitBytes(Long.MAX_VALUE);
+    }
+
+    //bytes available from the position, -1 at the end of a fully spooled source
+    private long awaitBytes(long position) throws IOException {
+        lock.lock();
+        try {
+            while (written <= position && !done && !cancelled)
+                progress.await();
+            if(failure != null)
+                throw new IOException("LOB spool error. "+failure.toString(), failure);
+            if(cancelled && written <= position)
+                throw new IOException("LOB spool is cancelled");
+            return written > position ? written - position : -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("LOB spool wait is interrupted");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    CharOffsetIndex charIndex() {
+        return charIndex;
+    }
+
+    /**
+     * new reader of the spooled bytes from the start, it waits for bytes not spooled yet.
+     * The owner (LOB of the file) is kept reachable by the reader, so the file is not released under it.
+     */
+    InputStream newInput(Object owner) throws IOException {
+        return new TeeInput(owner);
+    }
+
+    private final class TeeInput extends InputStream {
+        @SuppressWarnings("unused")
+        private final Object owner;
+        private FileChannel channel;
+        private long position;
+
+        TeeInput(Object owner) throws IOException {
+            this.owner = owner;
+            //an open channel still reads a file deleted by LOB close()
+            if(written > 0)
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0)
+                return 0;
+            //no wait for already spooled bytes
+            long available = written - position;
+            if(available <= 0 && (available = awaitBytes(position)) < 0)
+                return -1;
+            if(channel == null)
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+            if(n > 0)
+                position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if(n <= 0)
+                return 0;
+            long available = written - position;
+            if(available <= 0 && (available = awaitBytes(position)) < 0)
+                return 0;
+            long skipped = Math.min(n, available);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, written - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(channel != null)
+                channel.close();
+        }
+    }
+}
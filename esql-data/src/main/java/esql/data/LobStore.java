@@ -0,0 +1,345 @@
+package esql.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store of LOB temp files in ValueLOB.tempDir.
+ *
+ * Every LOB value holding a temp file takes a reference of it, the file is deleted when the last reference
+ * is released: by close(), or by a Cleaner when the value becomes unreachable. Converted LOBs share the file
+ * instead of linking or copying it. Spooled content with a pre-calculated hash is keyed by the strongest hash:
+ * a new file with the same content (compared byte by byte) is deleted and the existing one is shared.
+ * On-demand and background spooled files are keyed when tracked, once hashed; they are not shared
+ * themselves (the LOB already refers its own file) but later LOBs of the same content share them.
+ *
+ * The store enforces an optional quota of temp bytes (esql.data.lob.quota, 0 for unlimited), checked while
+ * spooling. Temp files older than esql.data.lob.orphan.age seconds (default one day), left by a crashed
+ * process, are swept when the default store is created.
+ */
+public final class LobStore {
+
+    public static final long DEFAULT_QUOTA = Long.getLong("esql.data.lob.quota", 0);
+    public static final Duration ORPHAN_AGE = Duration.ofSeconds(Long.getLong("esql.data.lob.orphan.age", 86400));
+    static final String[] PREFIXES = {"ESQL-LOB", "ESQL-CLOB"};
+    static final int SPOOL_CHUNK_SIZE = 64 * 1024;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static volatile LobStore defaultStore;
+
+    private final long quota;
+    private final AtomicLong usedBytes = new AtomicLong();
+    //guarded by this
+    private final Map<Path, Entry> entries = new HashMap<>();
+    private final Map<String, Entry> contents = new HashMap<>();
+
+    private static final class Entry {
+        final Path file;
+        int references;
+        long size;
+        String contentKey;
+
+        Entry(Path file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * a reference of a LOB to its temp file, released once.
+     */
+    static final class Ref {
+        private final Path file;
+        private final Cleaner.Cleanable cleanable;
+
+        private Ref(Path file, Cleaner.Cleanable cleanable) {
+            this.file = file;
+            this.cleanable = cleanable;
+        }
+
+        Path path() {
+            return file;
+        }
+
+        void release() {
+            cleanable.clean();
+        }
+    }
+
+    //must not refer to the owner
+    private static final class Release implements Runnable {
+        private final LobStore store;
+        private final Path file;
+
+        Release(LobStore store, Path file) {
+            this.store = store;
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            store.release(file);
+        }
+    }
+
+    LobStore(long quota) {
+        this.quota = quota;
+    }
+
+    /**
+     * the store of LOB values, orphans are swept at the first use.
+     */
+    public static LobStore getDefault() {
+        LobStore store = defaultStore;
+        if(store == null) {
+            synchronized (LobStore.class) {
+                store = defaultStore;
+                if(store == null) {
+                    store = new LobStore(DEFAULT_QUOTA);
+                    try {
+                        store.sweepOrphans(ORPHAN_AGE);
+                    } catch (IOException e) {
+                        //temp dir is not readable, files are created there later anyway
+                    }
+                    defaultStore = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * take a reference of the temp file for the owner, released by Ref.release() or when the owner is unreachable.
+     * If the file has the same content as a stored file (same strongest hash and bytes), it is deleted and the
+     * stored file is referred instead.
+     *
+     * @param owner LOB value
+     * @param file temp file, may not exist yet (on-demand LOB)
+     * @param hashes pre-calculated hashes of the content, by algorithm
+     * @return the reference, its path may differ from the file
+     */
+    Ref acquire(Object owner, Path file, byte[][] hashes) {
+        //files are read out of the lock: the stored file of the same hash, then committed if still stored
+        boolean exists = Files.exists(file);
+        String key = exists ? contentKey(hashes) : null;
+        Path candidate = null;
+        if(key != null) {
+            synchronized (this) {
+                Entry same = entries.containsKey(file) ? null : contents.get(key);
+                candidate = same == null ? null : same.file;
+            }
+        }
+        boolean duplicate = candidate != null && sameContent(candidate, file);
+        long size = exists ? size(file) : 0;
+        Path path;
+        synchronized (this) {
+            Entry entry = entries.get(file);
+            if(entry == null) {
+                Entry same = key == null ? null : contents.get(key);
+                if(duplicate && same != null && same.file.equals(candidate))
+                    entry = same;
+                else {
+                    entry = new Entry(file);
+                    entry.size = size;
+                    usedBytes.addAndGet(size);
+                    entries.put(file, entry);
+                    if(key != null && same == null) {
+                        entry.contentKey = key;
+                        contents.put(key, entry);
+                    }
+                }
+            }
+            entry.references++;
+            path = entry.file;
+        }
+        if(!path.equals(file))
+            delete(file);
+        return new Ref(path, CLEANER.register(owner, new Release(this, path)));
+    }
+
+    private synchronized void release(Path file) {
+        Entry entry = entries.get(file);
+        if(entry == null || --entry.references > 0)
+            return;
+        entries.remove(file);
+        if(entry.contentKey != null)
+            contents.remove(entry.contentKey);
+        usedBytes.addAndGet(-entry.size);
+        delete(file);
+    }
+
+    /**
+     * count the size of a file spooled after it was acquired (on-demand LOB), and key it by its hashes
+     * calculated while spooling, so LOBs of the same content acquired later share it.
+     *
+     * @param hashes hashes of the whole content, by algorithm (null or none if not calculated)
+     * @return false if the file is not referred (already released)
+     */
+    boolean track(Path file, byte[][] hashes) {
+        long size = size(file);
+        String key = hashes == null ? null : contentKey(hashes);
+        synchronized (this) {
+            Entry entry = entries.get(file);
+            if(entry == null)
+                return false;
+            usedBytes.addAndGet(size - entry.size);
+            entry.size = size;
+            if(key != null && entry.contentKey == null && !contents.containsKey(key)) {
+                entry.contentKey = key;
+                contents.put(key, entry);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * reserve bytes to be written to a temp file, before it is acquired.
+     *
+     * @throws IOException if the quota is exceeded
+     */
+    void reserve(long bytes) throws IOException {
+        long used = usedBytes.addAndGet(bytes);
+        if(quota > 0 && used > quota) {
+            usedBytes.addAndGet(-bytes);
+            throw new IOException("LOB temp quota exceeded, "+quota+" bytes");
+        }
+    }
+
+    /**
+     * cancel reserved bytes, once the file is acquired (counted by its size) or deleted.
+     */
+    void unreserve(long bytes) {
+        usedBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * copy the input to a new file by chunks, reserving the bytes; the file is deleted on error.
+     * The caller must unreserve the returned size.
+     *
+     * @return number of bytes
+     */
+    long spool(InputStream in, Path target) throws IOException {
+        return spool(in, target, null);
+    }
+
+    /**
+     * copy the input to a new file by chunks, each chunk also updates the digests.
+     *
+     * @see #spool(InputStream, Path)
+     */
+    long spool(InputStream in, Path target, MultiDigest digest) throws IOException {
+        long n = 0;
+        try(OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] b = new byte[SPOOL_CHUNK_SIZE];
+            int r;
+            while (0 <= (r = in.read(b))) {
+                reserve(r);
+                n += r;
+                if(digest != null)
+                    digest.update(b, 0, r);
+                out.write(b, 0, r);
+            }
+        } catch (IOException | RuntimeException e) {
+            unreserve(n);
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return n;
+    }
+
+    /**
+     * delete LOB temp files of ValueLOB.tempDir older than the age and not used by this store.
+     *
+     * @return number of deleted files
+     */
+    public int sweepOrphans(Duration olderThan) throws IOException {
+        FileTime limit = FileTime.fromMillis(System.currentTimeMillis() - olderThan.toMillis());
+        int deleted = 0;
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(ValueLOB.tempDir, "ESQL-*")) {
+            for (Path file : files) {
+                if(!isLobFile(file) || !Files.isRegularFile(file))
+                    continue;
+                synchronized (this) {
+                    if(entries.containsKey(file) || Files.getLastModifiedTime(file).compareTo(limit) >= 0)
+                        continue;
+                    if(Files.deleteIfExists(file))
+                        deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isLobFile(Path file) {
+        String name = file.getFileName().toString();
+        for (String prefix : PREFIXES) {
+            if(name.startsWith(prefix))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return bytes of temp files and reserved for spooling
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * @return quota of temp bytes, 0 for unlimited
+     */
+    public long getQuota() {
+        return quota;
+    }
+
+    /**
+     * @return number of temp files in use
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    //the strongest hash, null if none
+    static String contentKey(byte[][] hashes) {
+        for (int algo : ValueLOB.BY_STRENGTH) {
+            if(algo < hashes.length && hashes[algo] != null)
+                return algo + ":" + ValueBytes.bytesToHex(hashes[algo]);
+        }
+        return null;
+    }
+
+    private static boolean sameContent(Path stored, Path file) {
+        try {
+            return Files.size(stored) == Files.size(file) && Files.mismatch(stored, file) == -1;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //still open on some platforms, swept as orphan later
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package esql.data;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Digests of several algorithms fed by the same chunks, so the LOB content is read once.
+ *
+ * A large chunk (PARALLEL_MIN_SIZE or more) with several digests is hashed by the worker threads
+ * (esql.data.lob.hash.threads, 0 to disable), one digest per thread, and update() returns when all
+ * digests are done, so the caller may reuse the chunk after.
+ */
+final class MultiDigest {
+
+    static final int PARALLEL_THREADS = Integer.getInteger("esql.data.lob.hash.threads",
+            Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    static final int PARALLEL_MIN_SIZE = Integer.getInteger("esql.data.lob.hash.parallel", 32 * 1024);
+
+    private final int[] algos;
+    private final MessageDigest[] digests;
+
+    private static final class Workers {
+        static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(PARALLEL_THREADS, r -> {
+            Thread t = new Thread(r, "esql-lob-hash");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    MultiDigest(int... algos) throws NoSuchAlgorithmException {
+        this.algos = algos.clone();
+        this.digests = new MessageDigest[algos.length];
+        for (int i = 0; i < algos.length; i++)
+            digests[i] = ValueLOB.messageDigestFromAlgorithm(algos[i]);
+    }
+
+    int[] algorithms() {
+        return algos.clone();
+    }
+
+    boolean isEmpty() {
+        return digests.length == 0;
+    }
+
+    void update(byte[] b, int off, int len) {
+        if(len <= 0 || digests.length == 0)
+            return;
+        if(digests.length == 1 || len < PARALLEL_MIN_SIZE || PARALLEL_THREADS <= 0) {
+            for (MessageDigest digest : digests)
+                digest.update(b, off, len);
+            return;
+        }
+        Future<?>[] running = new Future<?>[digests.length - 1];
+        for (int i = 1; i < digests.length; i++) {
+            MessageDigest digest = digests[i];
+            running[i - 1] = Workers.EXECUTOR.submit(() -> digest.update(b, off, len));
+        }
+        digests[0].update(b, off, len);
+        //wait all even if interrupted, the chunk is in use
+        boolean interrupted = false;
+        RuntimeException error = null;
+        for (Future<?> f : running) {
+            while (true) {
+                try {
+                    f.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    error = new RuntimeException("LOB hash error. "+e.getCause().toString());
+                    break;
+                }
+            }
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+        if(error != null)
+            throw error;
+    }
+
+    /**
+     * update by the remaining bytes, the buffer position is moved to its limit.
+     */
+    void update(ByteBuffer data) {
+        if(data.hasArray()) {
+            update(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            data.position(data.limit());
+            return;
+        }
+        for (MessageDigest digest : digests)
+            digest.update(data.duplicate());
+        data.position(data.limit());
+    }
+
+    /**
+     * complete the digests into the holder (indexed by algorithm), digests are reset.
+     */
+    void digestTo(byte[][] holder) {
+        for (int i = 0; i < digests.length; i++)
+            holder[algos[i]] = digests[i].digest();
+    }
+
+    /**
+     * @return new holder of the completed digests, indexed by algorithm
+     */
+    byte[][] digest() {
+        byte[][] holder = new byte[ValueLOB.HASHES.length][];
+        digestTo(holder);
+        return holder;
+    }
+
+    /**
+     * stream updating the digests by chunks read from the source.
+     */
+    InputStream input(InputStream source) {
+        if(digests.length == 0)
+            return source;
+        return new FilterInputStream(source) {
+            @Override
+            public int read() throws IOException {
+                int c = in.read();
+                if(c >= 0) {
+                    for (MessageDigest digest : digests)
+                        digest.update((byte) c);
+                }
+                return c;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if(n > 0)
+                    update(b, off, n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                //skipped bytes are hashed too
+                byte[] b = new byte[(int) Math.min(n, 8192)];
+                long skipped = 0;
+                int r;
+                while (skipped < n && 0 < (r = read(b, 0, (int) Math.min(b.length, n - skipped))))
+                    skipped += r;
+                return skipped;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+}
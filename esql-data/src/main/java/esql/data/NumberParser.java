@@ -0,0 +1,251 @@
+package esql.data;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParsePosition;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsing number string directly from a CharSequence range in one pass,
+ * without substring, ParsePosition or exceptions for control flow.
+ *
+ * The format is same as Value.isIntegerString/isDecimalString/isFloatingNumberString:
+ * surrounding spaces, optional sign, digits, optional '.' with digits, optional exponent.
+ * Integer types take the integer part of a decimal string, like before.
+ */
+final class NumberParser {
+
+    //exact powers of ten in double, for the fast path
+    private static final double[] DOUBLE_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final int MAX_EXPONENT = 100000; //beyond that, BigDecimal/Double do the job
+
+    //DecimalFormat of parseFormat, cloned for each use (not thread-safe)
+    private static final ConcurrentHashMap<String, DecimalFormat> FORMATS = new ConcurrentHashMap<>();
+
+    private NumberParser() {
+    }
+
+    static Value parse(Types type, CharSequence s) {
+        return parse(type, s, 0, s.length(), false);
+    }
+
+    /**
+     * same as parse, but return null for a string which is not a number of type.
+     */
+    static Value parseOrNull(Types type, CharSequence s) {
+        return parse(type, s, 0, s.length(), true);
+    }
+
+    /**
+     * parse number string of a DecimalFormat pattern (grouping, currency, percent...) in the locale.
+     *
+     * @param type number type
+     * @param s the string
+     * @param format pattern, as DecimalFormat
+     * @param locale locale of symbols
+     * @return number value of type
+     * @throws NumberFormatException if the whole string is not a number of the pattern
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    static Value parse(Types type, String s, String format, Locale locale) {
+        String key = format + '\u0000' + locale.toLanguageTag();
+        DecimalFormat prototype = FORMATS.get(key);
+        if(prototype == null) {
+            prototype = new DecimalFormat(format, DecimalFormatSymbols.getInstance(locale));
+            prototype.setParseBigDecimal(true);
+            if(FORMATS.size() >= DateTimeParser.FORMAT_CACHE_SIZE)
+                FORMATS.clear();
+            FORMATS.put(key, prototype);
+        }
+        DecimalFormat df = (DecimalFormat) prototype.clone();
+        ParsePosition pos = new ParsePosition(0);
+        Number n = df.parse(s, pos);
+        if(n == null || pos.getIndex() != s.length())
+            throw new NumberFormatException("\"" + s + "\" is not a number of format \"" + format + "\"");
+        if(!(n instanceof BigDecimal)) //infinity or NaN
+            return ValueNumber.buildNumber(type, n.doubleValue());
+        return ValueNumber.buildNumber(type, (BigDecimal) n);
+    }
+
+    /**
+     * parse number of type from the range of char sequence.
+     *
+     * @param type number type
+     * @param s the char sequence
+     * @param from start index (inclusive)
+     * @param to end index (exclusive)
+     * @return the number value
+     * @throws NumberFormatException if not a number string or out of range of integer type.
+     */
+    static Value parse(Types type, CharSequence s, int from, int to) {
+        return parse(type, s, from, to, false);
+    }
+
+    private static Value parse(Types type, CharSequence s, int from, int to, boolean orNull) {
+        if(!Types.isNumber(type))
+            throw new IllegalArgumentException("type \""+type+"\" is not number");
+        //trim
+        while (from < to && Character.isWhitespace(s.charAt(from)))
+            from++;
+        while (to > from && Character.isWhitespace(s.charAt(to - 1)))
+            to--;
+        if(from == to) {
+            if(orNull)
+                return null;
+            throw new NumberFormatException("empty string");
+        }
+
+        int i = from;
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            i++;
+        }
+        //integer part, accumulated as negative to reach Long.MIN_VALUE
+        int intStart = i;
+        long intPart = 0;
+        boolean intOverflow = false;
+        //all digits (integer and fraction) as mantissa
+        long mantissa = 0;
+        boolean mantissaOverflow = false;
+        for (; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9)
+                break;
+            if (intPart < (Long.MIN_VALUE + d) / 10)
+                intOverflow = true;
+            else
+                intPart = intPart * 10 - d;
+            if (mantissa > (Long.MAX_VALUE - d) / 10)
+                mantissaOverflow = true;
+            else
+                mantissa = mantissa * 10 + d;
+        }
+        int intEnd = i;
+        //fraction part
+        int fractionDigits = 0;
+        if (i < to && s.charAt(i) == '.') {
+            for (i++; i < to; i++) {
+                int d = s.charAt(i) - '0';
+                if (d < 0 || d > 9)
+                    break;
+                fractionDigits++;
+                if (mantissa > (Long.MAX_VALUE - d) / 10)
+                    mantissaOverflow = true;
+                else
+                    mantissa = mantissa * 10 + d;
+            }
+        }
+        //empty integer part of ".5" is 0
+        boolean valid = intEnd > intStart || fractionDigits > 0;
+        //exponent part
+        boolean hasExponent = false;
+        int exponent = 0;
+        if (valid && i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            hasExponent = true;
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            int expStart = i;
+            for (; i < to; i++) {
+                int d = s.charAt(i) - '0';
+                if (d < 0 || d > 9)
+                    break;
+                if (exponent < MAX_EXPONENT)
+                    exponent = exponent * 10 + d;
+            }
+            valid = i > expStart;
+            if (negativeExponent)
+                exponent = -exponent;
+        }
+        valid = valid && i == to;
+
+        switch (type) {
+            case TYPE_BYTE:
+            case TYPE_UBYTE:
+            case TYPE_SHORT:
+            case TYPE_USHORT:
+            case TYPE_INT:
+            case TYPE_UINT:
+            case TYPE_LONG:
+                if (!valid || hasExponent) {
+                    if(orNull)
+                        return null;
+                    throw new NumberFormatException("not an integer string: " + s.subSequence(from, to));
+                }
+                if (intOverflow || (!negative && intPart == Long.MIN_VALUE)) {
+                    if(orNull)
+                        return null;
+                    throw new NumberFormatException("out of range: " + s.subSequence(from, to));
+                }
+                return ValueNumber.buildNumber(type, negative ? intPart : -intPart);
+            case TYPE_ULONG:
+                if (!valid || hasExponent) {
+                    if(orNull)
+                        return null;
+                    throw new NumberFormatException("not an integer string: " + s.subSequence(from, to));
+                }
+                if (intOverflow || (!negative && intPart == Long.MIN_VALUE))
+                    return ValueNumber.buildNumber(type,
+                            new BigInteger(s.subSequence(negative ? intStart - 1 : intStart, intEnd).toString()));
+                return ValueNumber.buildNumber(type, negative ? intPart : -intPart);
+            case TYPE_DECIMAL:
+                if (!valid) {
+                    if(orNull)
+                        return null;
+                    throw new NumberFormatException("not a decimal string: " + s.subSequence(from, to));
+                }
+                if (!mantissaOverflow) {
+                    long scale = (long) fractionDigits - exponent;
+                    long unscaled = mantissa;
+                    if (unscaled == 0 && scale < 0)
+                        scale = 0;
+                    //negative scale, bring to scale 0 when fit
+                    for (; scale < 0 && unscaled <= Long.MAX_VALUE / 10; scale++)
+                        unscaled *= 10;
+                    if (scale >= 0 && scale <= ValueNumber.MAX_COMPACT_SCALE)
+                        return ValueNumber.buildDecimal(negative ? -unscaled : unscaled, (int) scale);
+                }
+                try {
+                    return ValueNumber.buildNumber(type, new BigDecimal(s.subSequence(from, to).toString()));
+                } catch (NumberFormatException e) { //exponent out of int range
+                    if(orNull)
+                        return null;
+                    throw e;
+                }
+            case TYPE_FLOAT:
+            case TYPE_DOUBLE:
+                if (valid && !mantissaOverflow && mantissa < MAX_EXACT_DOUBLE) {
+                    //both exact in double, one correctly rounded operation
+                    int e10 = exponent - fractionDigits;
+                    double d = Double.NaN;
+                    if (e10 == 0 || mantissa == 0)
+                        d = mantissa;
+                    else if (e10 > 0 && e10 < DOUBLE_POW10.length)
+                        d = mantissa * DOUBLE_POW10[e10];
+                    else if (e10 < 0 && -e10 < DOUBLE_POW10.length)
+                        d = mantissa / DOUBLE_POW10[-e10];
+                    if (!Double.isNaN(d))
+                        return ValueNumber.buildNumber(type, negative ? -d : d);
+                }
+                //long mantissa, big exponent, NaN, Infinity...
+                if (!valid && orNull)
+                    return null;
+                return ValueNumber.buildNumber(type, Double.parseDouble(s.subSequence(from, to).toString()));
+            default:
+                break;
+        }
+        throw new AssertionError();
+    }
+}
@@ -17,7 +17,6 @@
 package esql.data;
 
 import java.text.ParsePosition;
-import java.util.Arrays;
 
 /**
  *
@@ -86,6 +85,7 @@ public class StringLeftRightChecker {
      * Check a string value of pattern, like a string with start/end chars and valid chars.
      * This is used for string validation, extract meaningfully chars as-well
      * it support checking like a hex string, integer string, etc.
+     * For a pattern checked many times, compile it once as a CheckerPattern.
      *
      * @param bypassSurroundingSpaces if true, will skip leading/trailing spaces and tabs
      * @param includeLeftSequence    if true, will include start sequence in outputStart
@@ -109,191 +109,10 @@ public class StringLeftRightChecker {
             boolean includeRightSequence, char[] rightCharSequence, boolean rightIsOptional, boolean rightAsTheSet,
             char[] validSortedChars, boolean allowLineBreaks,
             CharSequence stringValue, ParsePosition outputStart, ParsePosition outputEnd) {
-        if (stringValue == null || stringValue.length() == 0
-                || validSortedChars == null || validSortedChars.length == 0)
-            return -1; //not match anyway or empty string
-
-        int state = initialState;
-        if (state < STRING_START || state >= STRING_GRACEFULLY_END_MATCHED) {
-            state = STRING_START; //reset to start state
-        }
-
-        int patternPos = 0;
-        int initialIndex = 0; //initial index of stringValue
-        if (outputStart != null) {
-            initialIndex = outputStart.getIndex();
-            if (initialIndex < 0)
-                initialIndex = 0; //reset to 0
-        }
-
-        for (int i = initialIndex; i <= stringValue.length(); i++) {
-            char c = i < stringValue.length() ? stringValue.charAt(i) : ' ';
-            if (state == STRING_START && bypassSurroundingSpaces && Character.isWhitespace(c)) {
-                continue; //skip leading spaces
-            }
-            if (state == STRING_START) {
-                state = STRING_START_OF_VALUE;
-
-                //choice to include left sequence or not
-                if (leftSequence != null && leftSequence.length > 0) {
-                    if(leftAsTheSet) { //start as a set of characters
-                        boolean valid = Arrays.binarySearch(leftSequence, c) >= 0; //check only first char
-                        if (!valid && !leftIsOptional) {
-                            return state; //must have start char match
-                        }
-
-                        state = STRING_START_OF_VALUE;
-                        if (includeLeftSequence && outputStart != null) {
-                            outputStart.setIndex(i); //set start index
-                        }
-
-                        if(valid) {
-                            continue; //jump to next char as Start Of Value
-                        }
-                    }
-                    else {
-                        // matching the start character sequence
-                        boolean valid = c == leftSequence[0]; //check first char
-                        if (!valid && !leftIsOptional) {
-                            return state; //must have start char match
-                        }
-                        if (includeLeftSequence && outputStart != null) {
-                            outputStart.setIndex(i); //set start index
-                        }
-                        if (valid) {
-                            state = STRING_START_SEQUENCE_MATCH; //checked start chars
-                        }
-                        else
-                            state = STRING_START_OF_VALUE; //next to value directly
-                    }
-                }
-            }
-
-            if (state == STRING_START_SEQUENCE_MATCH || state == STRING_CONTINUE_START_SEQUENCE) { //after start chars
-                if (patternPos == leftSequence.length) { //found all start chars
-                    state = STRING_START_OF_VALUE; //go to value
-                    if (!includeLeftSequence && outputStart != null)
-                        outputStart.setIndex(i); //set start index
-                } else if (patternPos < leftSequence.length && c == leftSequence[patternPos]) {
-                    state = STRING_CONTINUE_START_SEQUENCE;
-                    patternPos++; //next char matched
-                    continue;
-                } else if (leftIsOptional) { //optional start chars, go to value directly
-                    state = STRING_START_OF_VALUE;
-                    i -= patternPos; //reset back to the char at beginning of value
-                    if (outputStart != null)
-                        outputStart.setIndex(i); //set start index
-                } else {
-                    return state; //not match start chars
-                }
-            }
-
-            if (state == STRING_START_OF_VALUE || state == STRING_CONTINUE_OF_VALUE) { //in value or after line break
-                if (allowLineBreaks && state == STRING_CONTINUE_OF_VALUE && (c == '\n' || c == '\r')) { //line break in value allowed
-                    continue;
-                }
-                if(state == STRING_START_OF_VALUE) {
-                    if (!includeLeftSequence && outputStart != null) {
-                        outputStart.setIndex(i); //set start index
-                    }
-                }
-
-                //Check for the valid char
-                if (Arrays.binarySearch(validSortedChars, c) < 0 && i < stringValue.length()) { //not valid chars or reached end of string
-                    state = STRING_RIGHT_SEQUENCE_MATCH; //invalid char in value, it should be the end of value
-                    if (!includeRightSequence && outputEnd != null)
-                        outputEnd.setIndex(i); //set end index to current char
-                } else if(i < stringValue.length()) { //valid char in value
-                    state = STRING_CONTINUE_OF_VALUE; //continue in value
-                    continue;
-                } else {
-                    if (!includeRightSequence && outputEnd != null)
-                        outputEnd.setIndex(i); //set end index to current char
-                    if(state == STRING_CONTINUE_OF_VALUE) //at least one char
-                        state = rightIsOptional ? STRING_END_OF_TEMPLATE : STRING_RIGHT_SEQUENCE_MATCH;
-                }
-            }
-
-            if (state == STRING_RIGHT_SEQUENCE_MATCH) { //after value, check end chars
-                if (rightCharSequence != null && rightCharSequence.length > 0) {
-                    if (rightAsTheSet) { //end as a set of characters
-                        boolean valid = Arrays.binarySearch(rightCharSequence, c) >= 0; //check for series of characters
-                        if (!valid && !rightIsOptional) {
-                            return state; //must have end char match
-                        }
-                        state = STRING_CONTINUE_RIGHT_SEQUENCE; //go to end directly
-                    } else {
-                        if (c == rightCharSequence[0]) {
-                            state = STRING_CONTINUE_RIGHT_SEQUENCE; //checked end chars
-                        } else if (!rightIsOptional) //not optional end chars, invalid char in value
-                            return state;
-
-                        if (state != STRING_CONTINUE_RIGHT_SEQUENCE) {
-                            if (i + 1 < stringValue.length()) { //no end char sequence, must be at end of value
-                                return state; //not at end of value
-                            } else
-                                state = STRING_END_OF_TEMPLATE; //go to end directly
-                        }
-                    }
-                }
-                else {//no right sequence
-                    state = STRING_END_OF_TEMPLATE;
-                }
-            }
-
-            if (state == STRING_CONTINUE_RIGHT_SEQUENCE) { //in sequence of end chars
-                if (rightAsTheSet) { //end as a set of characters
-                    if(i >= stringValue.length())
-                        state = STRING_GRACEFULLY_END_MATCHED;
-                    else {
-                        boolean valid = Arrays.binarySearch(rightCharSequence, c) >= 0; //check for series of characters
-                        if (!valid) {
-                            if(rightIsOptional)
-                                state = STRING_END_OF_TEMPLATE;
-                            else
-                                return state;
-                        }
-                        else
-                            continue;
-                    }
-                } else {
-                    if (patternPos == rightCharSequence.length) { //found all end chars
-                        state = i + 1 >= stringValue.length() ? STRING_GRACEFULLY_END_MATCHED : STRING_END_OF_TEMPLATE; //go to end
-                        if (includeRightSequence && outputEnd != null)
-                            outputEnd.setIndex(i);
-                    } else if (patternPos < rightCharSequence.length && c == rightCharSequence[patternPos]) {
-                        patternPos++;
-                        continue; //continue to next char
-                    } else if (rightIsOptional) { //optional end chars, go to end directly
-                        state = STRING_END_OF_TEMPLATE;
-                        if (includeRightSequence)
-                            return state; //can not pass the end chars, so not match
-                        i -= patternPos; //reset back to the char at beginning of value
-                        if (outputEnd != null)
-                            outputEnd.setIndex(i);
-                    } else {
-                        return state; //neither match end chars, nor optional
-                    }
-                }
-            }
-
-            if (state == STRING_END_OF_TEMPLATE) { //after all chars, must be the last char in stringValue
-                if(i >= stringValue.length()) { //beyond the end
-                    if(rightIsOptional || rightCharSequence == null || rightCharSequence.length == 0)
-                        state = STRING_GRACEFULLY_END_MATCHED;
-                    else
-                        return state;
-                }
-
-                if(i < stringValue.length() && (!Character.isWhitespace(c) || bypassSurroundingSpaces))
-                    return state;
-            }
-        }
-
-        //if (state == STRING_END_OF_TEMPLATE) { //end of value gracefully
-        //    state = STRING_GRACEFULLY_END_MATCHED;
-        //}
-
-        return state; //return last state
+        return new CheckerPattern(bypassSurroundingSpaces,
+                includeLeftSequence, leftSequence, leftIsOptional, leftAsTheSet,
+                includeRightSequence, rightCharSequence, rightIsOptional, rightAsTheSet,
+                validSortedChars, allowLineBreaks)
+                .check(initialState, stringValue, outputStart, outputEnd);
     }
 }
@@ -0,0 +1,193 @@
+package esql.data;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time zone for date/time conversions and comparisons between local date/datetime and timestamp values.
+ *
+ * The zone is taken from the current thread (set per request with use(zone)) or the default one (JVM zone at start).
+ * The zone rules are resolved once, and the offset range around the last converted instant is kept,
+ * so converting a column of values near each other does not look up the rules again.
+ *
+ * <pre>
+ * try(TimeZoneContext.Scope s = TimeZoneContext.use(ZoneId.of("Asia/Ho_Chi_Minh"))) {
+ *     value.convertTo(Types.TYPE_TIMESTAMP);
+ * }
+ * </pre>
+ */
+public final class TimeZoneContext {
+
+    private static final ConcurrentHashMap<ZoneId, TimeZoneContext> CONTEXTS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<TimeZoneContext> CURRENT = new ThreadLocal<>();
+    private static volatile TimeZoneContext defaultContext = of(ZoneId.systemDefault());
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private volatile OffsetRange lastRange; //shared by threads, replaced as a whole
+
+    private TimeZoneContext(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        if(rules.isFixedOffset()) {
+            int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+            lastRange = new OffsetRange(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, offset);
+        }
+    }
+
+    /**
+     * @param zone time zone
+     * @return the shared context of the zone
+     */
+    public static TimeZoneContext of(ZoneId zone) {
+        return CONTEXTS.computeIfAbsent(zone, TimeZoneContext::new);
+    }
+
+    /**
+     * @return context of current thread, or the default one.
+     */
+    public static TimeZoneContext current() {
+        TimeZoneContext c = CURRENT.get();
+        return c != null ? c : defaultContext;
+    }
+
+    public static TimeZoneContext getDefault() {
+        return defaultContext;
+    }
+
+    /**
+     * set the zone for threads without their own zone.
+     */
+    public static void setDefault(ZoneId zone) {
+        defaultContext = of(zone);
+    }
+
+    /**
+     * use the zone in current thread, until the scope is closed (the previous zone is back).
+     *
+     * @param zone time zone
+     * @return scope to close
+     */
+    public static Scope use(ZoneId zone) {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(of(zone));
+        return scope;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public ZoneRules getRules() {
+        return rules;
+    }
+
+    /**
+     * @param epochSecond seconds from epoch at UTC
+     * @return offset of the zone at the instant
+     */
+    public ZoneOffset getOffset(long epochSecond) {
+        return ZoneOffset.ofTotalSeconds(rangeOfInstant(epochSecond).offset);
+    }
+
+    /**
+     * @param epochSecond seconds from epoch at UTC
+     * @return local seconds from 1970-01-01T00:00 in the zone
+     */
+    public long toLocalEpochSecond(long epochSecond) {
+        return epochSecond + rangeOfInstant(epochSecond).offset;
+    }
+
+    /**
+     * local datetime to instant, same as LocalDateTime.atZone(zone): a time in a gap is moved forward
+     * by the length of the gap, a time in an overlap takes the earlier offset.
+     *
+     * @param localEpochSecond local seconds from 1970-01-01T00:00
+     * @return seconds from epoch at UTC
+     */
+    public long toEpochSecond(long localEpochSecond) {
+        OffsetRange r = lastRange;
+        if(r != null && localEpochSecond >= r.fromLocal && localEpochSecond < r.toLocal)
+            return localEpochSecond - r.offset;
+        ZoneOffset offset = rules.getOffset(LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC));
+        long epochSecond = localEpochSecond - offset.getTotalSeconds();
+        OffsetRange found = rangeOfInstant(epochSecond);
+        if(localEpochSecond >= found.fromLocal && localEpochSecond < found.toLocal)
+            return epochSecond;
+        //gap or overlap
+        return LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC).atZone(zone).toEpochSecond();
+    }
+
+    private OffsetRange rangeOfInstant(long epochSecond) {
+        OffsetRange r = lastRange;
+        if(r != null && epochSecond >= r.from && epochSecond < r.to)
+            return r;
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        int offset = rules.getOffset(instant).getTotalSeconds();
+        //transition at or before the instant, and the one after
+        ZoneOffsetTransition prev = rules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        long from = Long.MIN_VALUE, fromLocal = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE, toLocal = Long.MAX_VALUE;
+        if(prev != null) {
+            from = prev.toEpochSecond();
+            //local times of an overlap are not in the range
+            fromLocal = from + Math.max(offset, prev.getOffsetBefore().getTotalSeconds());
+        }
+        if(next != null) {
+            to = next.toEpochSecond();
+            toLocal = to + Math.min(offset, next.getOffsetAfter().getTotalSeconds());
+        }
+        r = new OffsetRange(from, to, fromLocal, toLocal, offset);
+        lastRange = r;
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeZoneContext(" + zone + ")";
+    }
+
+    /**
+     * instants [from, to) with the same offset, and the local times [fromLocal, toLocal) which map to them only.
+     */
+    private static final class OffsetRange {
+        final long from;
+        final long to;
+        final long fromLocal;
+        final long toLocal;
+        final int offset;
+
+        OffsetRange(long from, long to, long fromLocal, long toLocal, int offset) {
+            this.from = from;
+            this.to = to;
+            this.fromLocal = fromLocal;
+            this.toLocal = toLocal;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * restore the previous zone of the thread on close.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final TimeZoneContext previous;
+
+        private Scope(TimeZoneContext previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if(previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package esql.data;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParsePosition;
 import java.time.*;
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 /**
@@ -24,7 +33,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
     static final Pattern BASE64_LINE_PATTERN = Pattern.compile("\\s*([0-9A-Za-z+/]+=?=?)\\s*");
     static final Pattern BASE64URL_LINE_PATTERN = Pattern.compile("\\s*([0-9A-Za-z\\-_]+=?=?)\\s*");
 
-    /* Hex, Integer, Decimal, Base64... for StringLeftRightChecker */
+    /* Hex, Integer, Decimal, Base64... for CheckerPattern */
     private static final char[] HEX_SORTED_CHARS = "0123456789ABCDEFabcdef".toCharArray();
     private static final char[] HEX_START_CHAR_SEQUENCE = {'0', 'x'};
 
@@ -40,19 +49,43 @@ public abstract class Value implements Serializable, Comparable<Value> {
      * @return the Matcher for hex string
      */
     public static boolean isHexString(CharSequence stringValue, ParsePosition outputStart, ParsePosition outputEnd) {
-        return StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED == StringLeftRightChecker.checkStringOfPattern(0,true,
-                false, HEX_START_CHAR_SEQUENCE, true, false, //start chars
-                false, null, false, false, //end chars
-                HEX_SORTED_CHARS, false, //valid chars
-                stringValue, outputStart, outputEnd);
+        return HEX_CHECKER.match(stringValue, outputStart, outputEnd);
     }
 
-    private static char[] INTEGER_START_CHARS = {'+','-'};
-    private static char[] INTEGER_SORTED_CHARS = {
+    private static final char[] INTEGER_START_CHARS = {'+','-'};
+    private static final char[] INTEGER_SORTED_CHARS = {
             '0', '1', '2', '3', '4', '5', '6', '7', '8', '9'
     };
-    private static char[] DECIMAL_POINT_CHARS = {'.'};
-    private static char[] FLOATING_POWER_NOTATION = {'E','e'};
+    private static final char[] DECIMAL_POINT_CHARS = {'.'};
+    private static final char[] FLOATING_POWER_NOTATION = {'E','e'};
+
+    /* compiled once, see StringLeftRightChecker for the parameters */
+    private static final CheckerPattern HEX_CHECKER = new CheckerPattern(true,
+            false, HEX_START_CHAR_SEQUENCE, true, false, //start chars
+            false, null, false, false, //end chars
+            HEX_SORTED_CHARS, false); //valid chars
+    private static final CheckerPattern INTEGER_CHECKER = new CheckerPattern(true,
+            true, INTEGER_START_CHARS, true, true, //start set
+            false, null, false, false, //end chars
+            INTEGER_SORTED_CHARS, false); //valid chars
+    //integer part of decimal and floating number, until the decimal point
+    private static final CheckerPattern INTEGER_PART_CHECKER = new CheckerPattern(true,
+            true, INTEGER_START_CHARS, true, true, //start chars
+            false, DECIMAL_POINT_CHARS, false, false, //end chars
+            INTEGER_SORTED_CHARS, false); //valid chars
+    private static final CheckerPattern DECIMAL_PART_CHECKER = new CheckerPattern(false,
+            true, DECIMAL_POINT_CHARS, false, false, //start chars
+            false, null, false, false, //end chars
+            INTEGER_SORTED_CHARS, false); //valid chars
+    //decimal part of floating number, until the power notation
+    private static final CheckerPattern FLOATING_DECIMAL_PART_CHECKER = new CheckerPattern(false,
+            true, DECIMAL_POINT_CHARS, false, false, //start chars
+            false, FLOATING_POWER_NOTATION, false, true, //end chars
+            INTEGER_SORTED_CHARS, false); //valid chars
+    private static final CheckerPattern POWER_PART_CHECKER = new CheckerPattern(false,
+            true, INTEGER_START_CHARS, true, true, //start chars should be optional
+            false, null, false, false, //end chars
+            INTEGER_SORTED_CHARS, false); //valid chars
 
     /**
      * match a integer string check, like "1234" or "-1234" or "+1234" or "01234".
@@ -87,11 +120,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
             return false;
         }
 
-        return StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED == StringLeftRightChecker.checkStringOfPattern(0,true,
-                true, INTEGER_START_CHARS, true, true, //start set
-                false, null, false, false, //end chars
-                INTEGER_SORTED_CHARS, false, //valid chars
-                val, outputStart, outputEnd);
+        return INTEGER_CHECKER.match(val, outputStart, outputEnd);
     }
 
     /**
@@ -117,11 +146,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
          if(decimalPointOutput == null)
              decimalPointOutput = new ParsePosition(0); //create default position
 
-         int part1 = StringLeftRightChecker.checkStringOfPattern(0,true,
-                 true, INTEGER_START_CHARS, true, true, //start chars
-                 false, DECIMAL_POINT_CHARS, false, false, //end chars
-                 INTEGER_SORTED_CHARS, false, //valid chars
-                 val, outputStart, decimalPointOutput);
+         int part1 = INTEGER_PART_CHECKER.check(val, outputStart, decimalPointOutput);
          //gracefully: 'xxx.'; right sequence not match 'xxx';
         if(part1 != StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED && part1 != StringLeftRightChecker.STRING_END_OF_TEMPLATE
                 && part1 != StringLeftRightChecker.STRING_RIGHT_SEQUENCE_MATCH) //not match integer part
@@ -133,11 +158,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
             return true;
         }
         //part2, check decimal point and decimal part
-        return StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED == StringLeftRightChecker.checkStringOfPattern(0,false,
-                true, DECIMAL_POINT_CHARS, false, false, //start chars
-                false, null, false, false, //end chars
-                INTEGER_SORTED_CHARS, false, //valid chars
-                val, decimalPointOutput, outputEnd);
+        return DECIMAL_PART_CHECKER.match(val, decimalPointOutput, outputEnd);
     }
 
     /**
@@ -169,11 +190,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
             powerNotationOutput = new ParsePosition(0); //create default position
 
         //first part, match integer or decimal part
-        int part1 = StringLeftRightChecker.checkStringOfPattern(0,true,
-                true, INTEGER_START_CHARS, true, true, //start chars
-                false, DECIMAL_POINT_CHARS, false, false, //end chars
-                INTEGER_SORTED_CHARS, false, //valid chars
-                value, outputStart, decimalPointOutput);
+        int part1 = INTEGER_PART_CHECKER.check(value, outputStart, decimalPointOutput);
         if(part1 != StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED && part1 != StringLeftRightChecker.STRING_END_OF_TEMPLATE
                 && part1 != StringLeftRightChecker.STRING_RIGHT_SEQUENCE_MATCH) //not match integer part
             return false; //not match integer part
@@ -185,11 +202,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
         }
 
         //part2, check decimal point and decimal part
-        int part2 = StringLeftRightChecker.checkStringOfPattern(0, false,
-                true, DECIMAL_POINT_CHARS, false, false, //start chars
-                false, FLOATING_POWER_NOTATION, false, true, //end chars
-                INTEGER_SORTED_CHARS, false, //valid chars
-                value, decimalPointOutput, powerNotationOutput);
+        int part2 = FLOATING_DECIMAL_PART_CHECKER.check(value, decimalPointOutput, powerNotationOutput);
 
         if(part2 != StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED && part2 != StringLeftRightChecker.STRING_END_OF_TEMPLATE
                 && part2 != StringLeftRightChecker.STRING_CONTINUE_RIGHT_SEQUENCE) //not match decimal part
@@ -203,11 +216,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
         var savePos = powerNotationOutput.getIndex();
         powerNotationOutput.setIndex(savePos + 1); //move to next char after e or E
         //part3, check power notation and integer part
-        int part3 = StringLeftRightChecker.checkStringOfPattern(0, false,
-                true, INTEGER_START_CHARS, true, true, //start chars should be optional
-                false, null, false, false, //end chars
-                INTEGER_SORTED_CHARS, false, //valid chars
-                value, powerNotationOutput, outputEnd);
+        int part3 = POWER_PART_CHECKER.check(value, powerNotationOutput, outputEnd);
         powerNotationOutput.setIndex(savePos); //restore position
         return part3 == StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED;
     }
@@ -241,6 +250,14 @@ public abstract class Value implements Serializable, Comparable<Value> {
             'y', 'z',
     };
     private static final char[] BASE64_PADDING = { '=' };
+    private static final CheckerPattern BASE64_CHECKER = new CheckerPattern(true,
+            true, null, false, false, //start chars
+            true, BASE64_PADDING, true, true, //end chars
+            BASE64_SORTED_CHAR_SET, false); //valid chars
+    private static final CheckerPattern BASE64URL_CHECKER = new CheckerPattern(true,
+            true, null, false, false, //start chars
+            true, BASE64_PADDING, true, true, //end chars
+            BASE64URL_SORTED_CHAR_SET, false); //valid chars
 
     /**
      * match a base64 string check, like "aGVsbG8gd29ybGQ=" or "aGVsbG8gd29ybGQ" or "aGVsbG8gd29ybGQ=="
@@ -257,13 +274,7 @@ public abstract class Value implements Serializable, Comparable<Value> {
             return m.matches();
         }
 
-        //using StringLeftRightChecker
-        int state = StringLeftRightChecker.checkStringOfPattern(0,true,
-                true, null, false, false, //start chars
-                true, BASE64_PADDING, true, true, //end chars
-                isBase64URL ? BASE64URL_SORTED_CHAR_SET : BASE64_SORTED_CHAR_SET, false, //valid chars
-                value, null, null);
-        return state == StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED;
+        return (isBase64URL ? BASE64URL_CHECKER : BASE64_CHECKER).match(value, null, null);
     }
 
     /**
@@ -448,42 +459,42 @@ public static Value buildValue(ResultSet rs, int coltype, int column) throws ESI
 
     public final static Value valueOf(Boolean val) {
         if(val==null)
-            nullOf(Types.TYPE_BOOLEAN);
+            return nullOf(Types.TYPE_BOOLEAN);
         return ValueBoolean.buildBoolean(val);
     }
 
     public final static Value valueOf(Byte val) {
         if(val==null)
-            nullOf(Types.TYPE_BYTE);
+            return nullOf(Types.TYPE_BYTE);
         return ValueNumber.buildNumber(Types.TYPE_BYTE, val.longValue());
     }
 
     public final static Value valueOf(Short val) {
         if(val==null)
-            nullOf(Types.TYPE_SHORT);
+            return nullOf(Types.TYPE_SHORT);
         return ValueNumber.buildNumber(Types.TYPE_SHORT, val.longValue());
     }
 
     public final static Value valueOf(Integer val) {
         if(val==null)
-            nullOf(Types.TYPE_INT);
+            return nullOf(Types.TYPE_INT);
         return ValueNumber.buildNumber(Types.TYPE_INT, val.longValue());
     }
     public final static Value valueOf(Long val) {
         if(val==null)
-            nullOf(Types.TYPE_LONG);
+            return nullOf(Types.TYPE_LONG);
         return ValueNumber.buildNumber(Types.TYPE_LONG, val.longValue());
     }
 
     public final static Value valueOf(Float val) {
         if(val==null)
-            nullOf(Types.TYPE_FLOAT);
-        return ValueNumber.buildNumber(Types.TYPE_FLOAT, val);
+            return nullOf(Types.TYPE_FLOAT);
+        return ValueNumber.buildNumber(Types.TYPE_FLOAT, val.floatValue());
     }
     public final static Value valueOf(Double val) {
         if(val==null)
-            nullOf(Types.TYPE_DOUBLE);
-        return ValueNumber.buildNumber(Types.TYPE_DOUBLE, val);
+            return nullOf(Types.TYPE_DOUBLE);
+        return ValueNumber.buildNumber(Types.TYPE_DOUBLE, val.doubleValue());
     }
 
     public final static Value valueOf(BigDecimal num) {
@@ -546,14 +557,70 @@ public static Value buildValue(ResultSet rs, int coltype, int column) throws ESI
         return ValueDateTime.buildDateTime(val);
     }
 
-    /* full fled build value */
-    /*
+    /**
+     * build value of type from string, like parameters of form-encoded or JSON request.
+     * Number types are parsed directly from the string, others are converted from string value.
+     *
+     * @param type type of value
+     * @param val string, null for null value
+     * @return value of type, null value for empty string of non-string type.
+     * @throws NumberFormatException if not a number string for number type.
+     * @throws IllegalArgumentException if the string can not convert to type.
+     */
     public static Value buildValue(Types type, String val) {
-        if(!Types.isString(type))
-            throw new IllegalArgumentException("Must be string type.");
-        return ValueString.buildString(type, val);
+        if(val == null)
+            return nullOf(type);
+        if(Types.isString(type))
+            return ValueString.buildString(type, val);
+        if(val.isEmpty())
+            return nullOf(type);
+        if(Types.isNumber(type))
+            return NumberParser.parse(type, val);
+        return ValueString.buildString(Types.TYPE_STRING, val).convertTo(type);
+    }
+
+    /**
+     * build value from string of statement parameters (attributes type, parseFormat and trim).
+     * The format is in the default locale for formatting.
+     *
+     * @param type abbreviation of type (as Types.of)
+     * @see #buildValue(Types, String, String, Locale, boolean)
+     */
+    public static Value buildValue(String type, String val, String format, boolean trimSpace) {
+        return buildValue(Types.of(type), val, format, Locale.getDefault(Locale.Category.FORMAT), trimSpace);
     }
 
+    /**
+     * build value of type from string with a parse format.
+     * Date/time types take DateTimeFormatter patterns, number types take DecimalFormat patterns,
+     * the format is ignored for other types. Without format, it is same as buildValue(type, val).
+     *
+     * @param type type of value
+     * @param val string, null for null value
+     * @param format parse pattern, null or empty for ISO-8601 date/time and plain numbers
+     * @param locale locale of the pattern (month names, decimal symbols...)
+     * @param trimSpace trim the string before parsing
+     * @return value of type, null value for empty string of non-string type.
+     * @throws java.time.format.DateTimeParseException if the string does not match the date/time pattern.
+     * @throws NumberFormatException if not a number string for number type.
+     * @throws IllegalArgumentException if the string can not convert to type, or the pattern is invalid.
+     */
+    public static Value buildValue(Types type, String val, String format, Locale locale, boolean trimSpace) {
+        if(val != null && trimSpace)
+            val = val.trim();
+        if(val == null || format == null || format.isEmpty() || Types.isString(type))
+            return buildValue(type, val);
+        if(val.isEmpty())
+            return nullOf(type);
+        if(Types.isDateOrTime(type))
+            return DateTimeParser.parse(type, val, format, locale);
+        if(Types.isNumber(type))
+            return NumberParser.parse(type, val, format, locale);
+        return buildValue(type, val);
+    }
+
+    /* full fled build value */
+    /*
     public static Value buildValue(Types type, long num) {
         if(Types.TYPE_BOOLEAN.equals(type))
             return buildValue(num!=0);
@@ -581,15 +648,6 @@ public static Value buildValue(ResultSet rs, int coltype, int column) throws ESI
 		return s.parseValue(val);
 	}
 
-	public static Value buildValue(String type, String val,String format, boolean trimSpace) throws ESIException {
-		if(val == null)
-			return null;
-		ValueParse s = new ValueParse(type);
-		s.setParseFormat(format);
-		s.setTrimSpace(trimSpace);
-		return s.parseValue(val);
-	}
-
 	public static Value buildValue(String type, String[] valarray) throws ESIException {
 		if(valarray == null)
 			return null;
@@ -606,6 +664,80 @@ public static Value buildValue(ResultSet rs, int coltype, int column) throws ESI
      */
     public abstract String stringValue();
 
+    /**
+     * Write the string form of value (same as stringValue) to the output, without building the whole String
+     * when the value can stream it (numbers, bytes, arrays, LOBs...).
+     * LOBs are written in full, not limited in size as stringValue.
+     *
+     * @param out output, Writer or StringBuilder are written by chunks of chars
+     * @throws IOException from the output or LOB reading
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append(stringValue());
+    }
+
+    /**
+     * Write the string form of value (same as writeTo) as UTF-8 bytes, nothing for null.
+     *
+     * @param out output
+     * @throws IOException from the output or LOB reading
+     */
+    public void writeUtf8To(OutputStream out) throws IOException {
+        out.write(stringValue().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write the string form of value (same as writeTo) as UTF-8 bytes into the buffer.
+     *
+     * @param buf output buffer
+     * @throws BufferOverflowException if the buffer has not enough space, the position is not changed then.
+     */
+    public void writeUtf8To(ByteBuffer buf) {
+        int start = buf.position();
+        try {
+            writeUtf8To(new ByteBufferOutputStream(buf));
+        } catch (BufferOverflowException e) {
+            buf.position(start);
+            throw e;
+        } catch (IOException e) {
+            buf.position(start);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * append chars to output, Writer and StringBuilder take the array directly.
+     */
+    static void appendChars(Appendable out, char[] chars, int offset, int length) throws IOException {
+        if(out instanceof StringBuilder)
+            ((StringBuilder) out).append(chars, offset, length);
+        else if(out instanceof Writer)
+            ((Writer) out).write(chars, offset, length);
+        else
+            out.append(CharBuffer.wrap(chars, offset, length));
+    }
+
+    /**
+     * OutputStream over a ByteBuffer, BufferOverflowException when it is full.
+     */
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buf;
+
+        ByteBufferOutputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public void write(int b) {
+            buf.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buf.put(b, off, len);
+        }
+    }
+
     @Override
     public String toString() {
         return getType()+":"+stringValue();
@@ -654,6 +786,11 @@ public static Value buildValue(ResultSet rs, int coltype, int column) throws ESI
             return false;
         }
 
+        @Override
+        public int hashCode() {
+            return 0; //same for all nulls
+        }
+
         @Override
         public Value convertTo(Types type) {
             return nullOf(type);
@@ -1,7 +1,12 @@
 package esql.data;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.temporal.Temporal;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -19,6 +24,10 @@ public abstract class ValueArray extends Value implements List<Value> {
     public static final String ARRAY_SEPARATOR = Optional.ofNullable(System.getenv("ESQL_ARRAY_SEPARATOR")).orElse(",");
     public static final char[] ARRAY_SEPARATOR_CHARSEQ = ARRAY_SEPARATOR.toCharArray();
 
+    private static final byte[] ARRAY_PREFIX_UTF8 = ARRAY_PREFIX.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_POSTFIX_UTF8 = ARRAY_POSTFIX.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_SEPARATOR_UTF8 = ARRAY_SEPARATOR.getBytes(StandardCharsets.UTF_8);
+
     public static final ValueArray NULL_STRING_ARRAY = new ValueArrayNULLEmpty(Types.TYPE_STRING, true);
     public static final ValueArray NULL_NSTRING_ARRAY = new ValueArrayNULLEmpty(Types.TYPE_NSTRING, true);
     public static final ValueArray NULL_BYTES_ARRAY = new ValueArrayNULLEmpty(Types.TYPE_BYTES, true);
@@ -229,9 +238,20 @@ public abstract class ValueArray extends Value implements List<Value> {
      * @return
      */
     public static ValueArray arrayOfObject(Types type, Collection<Object> list) {
+        return arrayOfObject(type, list, null);
+    }
+
+    /**
+     * universal building method for any from Java Collection, strings are shared from the pool.
+     * @param type
+     * @param list
+     * @param pool string pool, may be null
+     * @return
+     */
+    public static ValueArray arrayOfObject(Types type, Collection<Object> list, ValueStringPool pool) {
         if(list.isEmpty())
             return ValueArrayNULLEmpty.buildEmptyArray(type);
-        ConvertObjectToValue f = new ConvertObjectToValue(type);
+        ConvertObjectToValue f = new ConvertObjectToValue(type, pool);
         return new ValueArrayByArray(type, list.stream().map(f).collect(Collectors.toUnmodifiableList()));
     }
 
@@ -240,6 +260,69 @@ public abstract class ValueArray extends Value implements List<Value> {
         return true;
     }
 
+    /**
+     * elements are written one by one with prefix, separators and postfix, as stringValue.
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        if(isNull())
+            return;
+        out.append(ARRAY_PREFIX);
+        boolean first = true;
+        for (Value v : this) {
+            if(!first)
+                out.append(ARRAY_SEPARATOR);
+            v.writeTo(out);
+            first = false;
+        }
+        out.append(ARRAY_POSTFIX);
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        if(isNull())
+            return;
+        out.write(ARRAY_PREFIX_UTF8);
+        boolean first = true;
+        for (Value v : this) {
+            if(!first)
+                out.write(ARRAY_SEPARATOR_UTF8);
+            v.writeUtf8To(out);
+            first = false;
+        }
+        out.write(ARRAY_POSTFIX_UTF8);
+    }
+
+    @Override
+    public void writeUtf8To(ByteBuffer buf) {
+        if(isNull())
+            return;
+        int start = buf.position();
+        try {
+            buf.put(ARRAY_PREFIX_UTF8);
+            boolean first = true;
+            for (Value v : this) {
+                if(!first)
+                    buf.put(ARRAY_SEPARATOR_UTF8);
+                v.writeUtf8To(buf);
+                first = false;
+            }
+            buf.put(ARRAY_POSTFIX_UTF8);
+        } catch (BufferOverflowException e) {
+            buf.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * values for internal read-only iteration, may be the backed array (do not modify).
+     *
+     * @return array of values
+     */
+    Value[] backedValueArray() {
+        return toArray(EMPTY_ARRAY);
+    }
+
     /**
      * This method is for convert/create Java array from ValueArray for JDBC Binding.
      *
@@ -523,6 +606,11 @@ public abstract class ValueArray extends Value implements List<Value> {
             return false;
         }
 
+        @Override
+        public int hashCode() {
+            return isNull ? 0 : 1; //as empty List
+        }
+
         @Override
         public Value convertTo(Types type) {
             if(isNull)
@@ -12,6 +12,7 @@ class ValueArrayByArray extends ValueArray {
 
     private final Types type;
     private final Value[] array;
+    private transient int hash;
 
     ValueArrayByArray(Types type, Value... array) {
         this.type = type;
@@ -61,6 +62,11 @@ class ValueArrayByArray extends ValueArray {
         return Arrays.asList(this.array).toArray(a);
     }
 
+    @Override
+    Value[] backedValueArray() {
+        return array;
+    }
+
     @Override
     public boolean add(Value value) {
         throw new UnsupportedOperationException("Unmodifiable array");
@@ -243,6 +249,14 @@ class ValueArrayByArray extends ValueArray {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if(h == 0)
+            hash = h = Arrays.hashCode(array); //same as List.hashCode
+        return h;
+    }
+
     static class ArrayIterator implements ListIterator<Value> {
 
         private int i;
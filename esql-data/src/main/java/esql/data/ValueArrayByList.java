@@ -217,7 +217,7 @@ class ValueArrayByList extends ValueArray {
             return true;
         if (obj instanceof ValueArray) {
             if(isEmpty())
-                return !((ValueArrayNULLEmpty) obj).isNull();
+                return ((ValueArray) obj).isEmpty() && !((ValueArray) obj).isNull();
             if (obj instanceof ValueArrayByList)
                 return list.equals(((ValueArrayByList) obj).list);
             return Arrays.equals(list.toArray(), ((ValueArray) obj).toArray());
@@ -232,6 +232,11 @@ class ValueArrayByList extends ValueArray {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return list.hashCode(); //modifiable, not cached
+    }
+
     @Override
     public Object[] toObjectArray() {
         List<Object> data = list.stream().map(new ConvertValueToObject())
@@ -0,0 +1,287 @@
+package esql.data;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Aggregation over ValueArray, like SQL aggregate functions: null items are ignored,
+ * the result of an empty or all-null array is null.
+ *
+ * Number arrays are reduced on primitives (long for integer types, unscaled long for decimal, double
+ * for float/double), BigDecimal is used only on overflow. Arrays larger than
+ * the threshold (system property esql.data.array.parallel.threshold) are reduced in the common fork-join pool.
+ */
+public final class ValueArrays {
+
+    static final int PARALLEL_THRESHOLD = Integer.getInteger("esql.data.array.parallel.threshold", 1 << 16);
+    private static final int LEAF_SIZE = 1 << 13;
+
+    private ValueArrays() {
+    }
+
+    /**
+     * sum of numbers. Integer types sum to long (decimal when overflow), ulong to ulong,
+     * decimal to decimal and float/double to double.
+     *
+     * @param array of number
+     * @return sum value
+     * @throws IllegalArgumentException for array of non-number type.
+     */
+    public static Value sum(ValueArray array) {
+        return accumulate(array).sum();
+    }
+
+    /**
+     * average of numbers. Integer and decimal types give decimal (16 digits), float/double give double.
+     *
+     * @param array of number
+     * @return average value
+     * @throws IllegalArgumentException for array of non-number type.
+     */
+    public static Value avg(ValueArray array) {
+        return accumulate(array).avg();
+    }
+
+    /**
+     * count of non-null items, for array of any type.
+     *
+     * @param array of values
+     * @return count as long value
+     */
+    public static Value countNonNull(ValueArray array) {
+        Value[] a = array.backedValueArray();
+        long n = reduce(a, (values, from, to) -> {
+            long c = 0;
+            for (int i = from; i < to; i++)
+                if (values[i] != null && !values[i].isNull())
+                    c++;
+            return c;
+        }, Long::sum);
+        return ValueNumber.buildNumber(Types.TYPE_LONG, n);
+    }
+
+    /**
+     * minimum item, for array of any comparable type.
+     *
+     * @param array of values
+     * @return the minimum item itself, null value if no item.
+     */
+    public static Value min(ValueArray array) {
+        return extreme(array, -1);
+    }
+
+    /**
+     * maximum item, for array of any comparable type.
+     *
+     * @param array of values
+     * @return the maximum item itself, null value if no item.
+     */
+    public static Value max(ValueArray array) {
+        return extreme(array, 1);
+    }
+
+    private static Value extreme(ValueArray array, int sign) {
+        Value[] a = array.backedValueArray();
+        final boolean integer = isLongKind(array.getType());
+        final boolean floating = Types.TYPE_FLOAT.equals(array.getType()) || Types.TYPE_DOUBLE.equals(array.getType());
+        BinaryOperator<Value> pick = (x, y) -> {
+            if (x == null)
+                return y;
+            if (y == null)
+                return x;
+            int c;
+            if (integer)
+                c = Long.compare(((ValueNumber) y).longValue(), ((ValueNumber) x).longValue());
+            else if (floating)
+                c = Double.compare(((ValueNumber) y).doubleValue(), ((ValueNumber) x).doubleValue());
+            else
+                c = y.compareTo(x);
+            return c * sign > 0 ? y : x;
+        };
+        Value r = reduce(a, (values, from, to) -> {
+            Value best = null;
+            for (int i = from; i < to; i++)
+                if (values[i] != null && !values[i].isNull())
+                    best = pick.apply(best, values[i]);
+            return best;
+        }, pick);
+        return r == null ? Value.nullOf(array.getType()) : r;
+    }
+
+    private static boolean isLongKind(Types type) {
+        return Types.isInteger(type) && !Types.TYPE_ULONG.equals(type);
+    }
+
+    private static Accumulator accumulate(ValueArray array) {
+        final Types type = array.getType();
+        if (!Types.isNumber(type))
+            throw new IllegalArgumentException("not an array of number: " + type);
+        Value[] a = array.backedValueArray();
+        return reduce(a, (values, from, to) -> {
+            Accumulator acc = new Accumulator(type);
+            for (int i = from; i < to; i++)
+                if (values[i] != null && !values[i].isNull())
+                    acc.add((ValueNumber) values[i]);
+            return acc;
+        }, Accumulator::merge);
+    }
+
+    @FunctionalInterface
+    interface RangeKernel<R> {
+        R apply(Value[] values, int from, int to);
+    }
+
+    static <R> R reduce(Value[] values, RangeKernel<R> kernel, BinaryOperator<R> combiner) {
+        if (values.length < PARALLEL_THRESHOLD)
+            return kernel.apply(values, 0, values.length);
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(values, 0, values.length, kernel, combiner));
+    }
+
+    private static final class ReduceTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+        private final Value[] values;
+        private final int from;
+        private final int to;
+        private final RangeKernel<R> kernel;
+        private final BinaryOperator<R> combiner;
+
+        ReduceTask(Value[] values, int from, int to, RangeKernel<R> kernel, BinaryOperator<R> combiner) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.kernel = kernel;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= LEAF_SIZE)
+                return kernel.apply(values, from, to);
+            int mid = (from + to) >>> 1;
+            ReduceTask<R> left = new ReduceTask<>(values, from, mid, kernel, combiner);
+            left.fork();
+            R right = new ReduceTask<>(values, mid, to, kernel, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * partial sum and count. Exact sum is big + sum / 10^scale, the long sum is flushed to big on overflow.
+     */
+    private static final class Accumulator {
+        private static final long[] POW10 = {
+                1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+                10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+                1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L,
+        };
+        private final Types type;
+        private final boolean floating;
+        private long count = 0;
+        private long sum = 0;
+        private int scale = 0;
+        private BigDecimal big = null;
+        private double doubleSum = 0;
+
+        Accumulator(Types type) {
+            this.type = type;
+            this.floating = Types.TYPE_FLOAT.equals(type) || Types.TYPE_DOUBLE.equals(type);
+        }
+
+        void add(ValueNumber v) {
+            count++;
+            if (floating) {
+                doubleSum += v.doubleValue();
+                return;
+            }
+            int s = v.compactScale();
+            if (s >= 0) //integers and compact decimals
+                addScaled(v.compactUnscaled(), s);
+            else //ulong, BigDecimal, other
+                addBig(v.decimalValue());
+        }
+
+        private void addScaled(long u, int s) {
+            if (s > scale) {
+                long p = POW10[s - scale];
+                if (sum != Long.MIN_VALUE && Math.abs(sum) <= Long.MAX_VALUE / p) {
+                    sum *= p;
+                    scale = s;
+                } else { //flush then use new scale
+                    flush();
+                    scale = s;
+                }
+            }
+            else if (s < scale) {
+                long p = POW10[scale - s];
+                if (u == Long.MIN_VALUE || Math.abs(u) > Long.MAX_VALUE / p) {
+                    addBig(BigDecimal.valueOf(u, s));
+                    return;
+                }
+                u *= p;
+            }
+            long r = sum + u;
+            if (((sum ^ r) & (u ^ r)) < 0) { //overflow
+                flush();
+                r = u;
+            }
+            sum = r;
+        }
+
+        private void flush() {
+            addBig(BigDecimal.valueOf(sum, scale));
+            sum = 0;
+        }
+
+        private void addBig(BigDecimal d) {
+            big = big == null ? d : big.add(d);
+        }
+
+        Accumulator merge(Accumulator o) {
+            count += o.count;
+            doubleSum += o.doubleSum;
+            if (o.big != null)
+                addBig(o.big);
+            addScaled(o.sum, o.scale);
+            return this;
+        }
+
+        private BigDecimal exactSum() {
+            BigDecimal d = BigDecimal.valueOf(sum, scale);
+            return big == null ? d : big.add(d);
+        }
+
+        Value sum() {
+            if (floating)
+                return count == 0 ? ValueNumber.NULL_DOUBLE : ValueNumber.buildNumber(Types.TYPE_DOUBLE, doubleSum);
+            if (Types.TYPE_ULONG.equals(type))
+                return count == 0 ? ValueNumber.NULL_ULONG : ValueNumber.buildNumber(Types.TYPE_ULONG, exactSum().toBigInteger());
+            if (Types.TYPE_DECIMAL.equals(type)) {
+                if (count == 0)
+                    return ValueNumber.NULL_DECIMAL;
+                if (big == null)
+                    return ValueNumber.buildDecimal(sum, scale);
+                return ValueNumber.buildNumber(Types.TYPE_DECIMAL, exactSum());
+            }
+            //integer types
+            if (count == 0)
+                return ValueNumber.NULL_LONG;
+            if (big == null)
+                return ValueNumber.buildNumber(Types.TYPE_LONG, sum);
+            return ValueNumber.buildNumber(Types.TYPE_DECIMAL, exactSum());
+        }
+
+        Value avg() {
+            if (floating)
+                return count == 0 ? ValueNumber.NULL_DOUBLE : ValueNumber.buildNumber(Types.TYPE_DOUBLE, doubleSum / count);
+            if (count == 0)
+                return ValueNumber.NULL_DECIMAL;
+            if (big == null && sum % count == 0)
+                return ValueNumber.buildDecimal(sum / count, scale);
+            return ValueNumber.buildNumber(Types.TYPE_DECIMAL,
+                    exactSum().divide(BigDecimal.valueOf(count), MathContext.DECIMAL64));
+        }
+    }
+}
@@ -3,14 +3,14 @@ package esql.data;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
-import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -21,17 +21,27 @@ import java.util.concurrent.locks.ReentrantLock;
 
 public class ValueBLOB extends ValueLOB {
 
-    public static final ValueBLOB NULL_BLOB = new ValueBLOB(null, null, 0L, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512]);
-    public static final ValueBLOB EMPTY_BLOB = new ValueBLOB(null, EMPTY_BYTES, 0L, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512]);
+    public static final ValueBLOB NULL_BLOB = new ValueBLOB(null, null, 0L, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512], EMPTY_HASHES[CRC32C], EMPTY_HASHES[XXHASH64]);
+    public static final ValueBLOB EMPTY_BLOB = new ValueBLOB(null, EMPTY_BYTES, 0L, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512], EMPTY_HASHES[CRC32C], EMPTY_HASHES[XXHASH64]);
 
     final int BASE64_BUFFER_SIZE = 3 * 1024; //multiply with 3.
     protected final byte[] first_in_mem;
     protected final Path tempFile;
+    //reference of the temp file in the store, it may be a stored file with the same content
+    private final transient LobStore.Ref storeRef;
+    //layout of a compressed temp file, null if raw
+    private final LobBlocks blocks;
 
     private ValueBLOB(Path tempFile, byte[] in_mem, long lobSize, byte[]... pre_hash) {
+        this(tempFile, null, in_mem, lobSize, pre_hash);
+    }
+
+    private ValueBLOB(Path tempFile, LobBlocks blocks, byte[] in_mem, long lobSize, byte[]... pre_hash) {
         super(lobSize, pre_hash);
         this.first_in_mem = in_mem; //first block of file
-        this.tempFile = tempFile;
+        this.blocks = blocks;
+        this.storeRef = tempFile == null ? null : LobStore.getDefault().acquire(this, tempFile, pre_hash);
+        this.tempFile = storeRef == null ? null : storeRef.path();
     }
 
     public static ValueBLOB wrap(byte[] in_mem, long lobSize, int... hashAlgorithms) throws NoSuchAlgorithmException {
@@ -40,7 +50,7 @@ public class ValueBLOB extends ValueLOB {
         byte[][] hash_holder = new byte[HASHES.length][];
         for(int i = 0;i<hashAlgorithms.length;i++) {
             //serial of digest
-            hash_holder[hashAlgorithms[i]] = MessageDigest.getInstance(HASHES[hashAlgorithms[i]]).digest(in_mem);
+            hash_holder[hashAlgorithms[i]] = messageDigestFromAlgorithm(hashAlgorithms[i]).digest(in_mem);
         }
         return buildBLOB(null, in_mem, lobSize, hash_holder);
     }
@@ -61,6 +71,24 @@ public class ValueBLOB extends ValueLOB {
         return new ValueBLOB.ValueBLOBonDemand(lobSourceInput, ValueLOB.tempDir.resolve("ESQL-LOB"+ UUID.randomUUID()+".bin"), lobSize, hashAlgorithms);
     }
 
+    /**
+     * create BLOB spooled in background: a task of the spool executor copies the source to a temp file and hashes it,
+     * readers of getInputStream() follow the copy concurrently instead of waiting for it.
+     *
+     * @param lobSourceInput source, closed when spooled
+     * @param lobSize
+     * @param hashAlgorithms hash algorithms to apply, default as BLOB creator
+     * @return new BLOB
+     * @throws NoSuchAlgorithmException
+     * @see ValueLOB#setSpoolExecutor(java.util.concurrent.Executor)
+     */
+    public static ValueBLOB spool(InputStream lobSourceInput, long lobSize, int... hashAlgorithms) throws NoSuchAlgorithmException {
+        if (lobSize == 0) //nothing to read
+            return ValueBLOB.EMPTY_BLOB;
+        return new ValueBLOB.ValueBLOBSpooled(lobSourceInput, ValueLOB.tempDir.resolve("ESQL-LOB"+ UUID.randomUUID()+".bin"),
+                lobSize, hashAlgorithms.length == 0 ? DEFAULT_HASH_ALGOS : hashAlgorithms);
+    }
+
     /**
      * create new BLOB by loading all data from lobSourceInput.
      * new BLOB using temporally file to store data, and it is calculating hash as requested,
@@ -76,39 +104,58 @@ public class ValueBLOB extends ValueLOB {
         Path temp = ValueLOB.tempDir.resolve("ESQL-LOB"+ UUID.randomUUID()+".bin");
         long lobSize = 0;
 
-        if(hashAlgos.length>0) {
-            byte[][] hash_holder = new byte[HASHES.length][];
-            MessageDigest[] hash = new MessageDigest[hashAlgos.length];
-            for(int i = 0;i<hashAlgos.length;i++)
-                //serial of digest
-                hash[i] = MessageDigest.getInstance(HASHES[hashAlgos[i]]);
-            InputStream finalInput = cascadeDigestInput(lobSourceInput, hash);
-            try {
-                lobSize = Files.copy(finalInput, temp);
-            }
-            finally {
-                finalInput.close();
-                if(lobSize>0) {
-                    for (int i = 0; i < hash.length; i++) {
-                        hash_holder[hashAlgos[i]] = hash[i].digest();
-                    }
-                }
-            }
-            if(lobSize > 0)
-                return new ValueBLOB(temp, EMPTY_BYTES, lobSize,
-                        hash_holder);
-        }
-        else
-            lobSize = Files.copy(lobSourceInput, temp);
-        if (lobSize == 0) //nothing to read
+        LobStore store = LobStore.getDefault();
+        //each chunk is read once for the file and all digests
+        MultiDigest digest = new MultiDigest(hashAlgos);
+        lobSize = store.spool(lobSourceInput, temp, digest);
+        if(!digest.isEmpty())
+            lobSourceInput.close();
+        byte[][] hash_holder = digest.digest();
+        if (lobSize == 0) { //nothing to read
+            Files.deleteIfExists(temp);
             return ValueBLOB.EMPTY_BLOB;
-        return new ValueBLOB(temp, EMPTY_BYTES, lobSize);
+        }
+        //the store counts the file from now
+        ValueBLOB blob = new ValueBLOB(temp, EMPTY_BYTES, lobSize, hash_holder);
+        store.unreserve(lobSize);
+        return blob;
+    }
+
+    /**
+     * create new BLOB by decoding Base64 text (as java.util.Base64.getDecoder), by chunks.
+     *
+     * @param base64 reader of Base64 text, like CLOB reader
+     * @param hashAlgos hash algorithms to apply
+     * @return new BLOB
+     * @throws IllegalArgumentException if the text is not Base64
+     */
+    public static ValueBLOB loadBase64(Reader base64, int... hashAlgos) throws IOException, NoSuchAlgorithmException {
+        try(ValueBLOBCreator creator = ValueLOB.getBLOBCreator(hashAlgos)) {
+            Base64Codec.decode(base64, creator);
+            return (ValueBLOB) creator.buildBLOB();
+        }
+    }
+
+    /**
+     * create new BLOB by decoding Base64 string, by chunks.
+     *
+     * @see #loadBase64(Reader, int...)
+     */
+    public static ValueBLOB loadBase64(CharSequence base64, int... hashAlgos) throws IOException, NoSuchAlgorithmException {
+        try(ValueBLOBCreator creator = ValueLOB.getBLOBCreator(hashAlgos)) {
+            Base64Codec.decode(base64, creator);
+            return (ValueBLOB) creator.buildBLOB();
+        }
     }
 
     static ValueBLOB buildBLOB(Path tempFile, byte[] in_mem, long lobSize, byte[]... pre_hash) {
         return new ValueBLOB(tempFile, in_mem, lobSize, pre_hash);
     }
 
+    static ValueBLOB buildBLOB(Path tempFile, LobBlocks blocks, byte[] in_mem, long lobSize, byte[]... pre_hash) {
+        return new ValueBLOB(tempFile, blocks, in_mem, lobSize, pre_hash);
+    }
+
     @Override
     public boolean isNull() {
         return this.first_in_mem == null;
@@ -140,16 +187,9 @@ public class ValueBLOB extends ValueLOB {
                     }
                 }
                 if(Files.exists(tempFile)) {//already creating file
-                    try(FileChannel fc = FileChannel.open(tempFile, StandardOpenOption.READ);
+                    try(InputStream in = openTemp(0);
                         ValueCLOBCreator creator = ValueLOB.getCLOBCreator(Types.TYPE_NCLOB.equals(type), findConvenienceAlgorithms())) {
-                        ByteBuffer t_read = ByteBuffer.allocate(BASE64_BUFFER_SIZE);
-                        while (0 <= fc.read(t_read)) {
-                            t_read.flip();
-                            ByteBuffer t_out = encoder.encode(t_read);
-                            String s = new String(t_out.array());
-                            creator.writeToLOB(s);
-                            t_read.compact();
-                        }
+                        Base64Codec.encode(in, creator);
                         return creator.buildCLOB();
                     } catch (IOException | NoSuchAlgorithmException e) {
                         throw new RuntimeException("LOB convert IO error. "+e.toString());
@@ -161,9 +201,13 @@ public class ValueBLOB extends ValueLOB {
                 if(lobSize<MAX_CONVERTIBLE_TO_STRING_SIZE) {
                     try {
                         if(lobSize <= first_in_mem.length)
-                            return ValueBytes.buildBytes(first_in_mem);
-                        if(Files.exists(tempFile))
-                            return ValueBytes.buildBytes(Files.readAllBytes(tempFile));
+                            return ValueBytes.buildBytes(lobSize == first_in_mem.length ? first_in_mem
+                                    : Arrays.copyOf(first_in_mem, (int) lobSize));
+                        if(Files.exists(tempFile)) {
+                            try(InputStream in = openTemp(0)) {
+                                return ValueBytes.buildBytes(in.readAllBytes());
+                            }
+                        }
                         return ValueBytes.EMPTY_BINARY_STRING;
                     } catch (IOException e) {
                         throw new RuntimeException("BLOB convert readAllBytes error "+e.toString());
@@ -175,24 +219,12 @@ public class ValueBLOB extends ValueLOB {
                 if(lobSize <= first_in_mem.length)
                     return ValueBLOB.buildBLOB(null,
                             Arrays.copyOf(first_in_mem, (int) lobSize), lobSize, preHash);
-                try {
-                    if(Files.exists(tempFile)) {//already creating file
-                        Path newTemp = ValueLOB.tempDir.resolve("ESQL-LOB" + UUID.randomUUID() + ".bin");
-                        try {
-                            //create link with better speed/disk space
-                            Files.createLink(newTemp, tempFile);
-                        }
-                        catch (UnsupportedOperationException e) {
-                            //fall back to copy file.
-                            Files.copy(tempFile, newTemp);
-                        }
-                        return new ValueBLOB(newTemp, EMPTY_BYTES, lobSize, preHash);
-                    }
-                    //empty case
-                    return EMPTY_BLOB;
-                } catch (IOException e) {
-                    throw new RuntimeException("BLOB convert error "+e.toString());
+                if(Files.exists(tempFile)) {//already creating file
+                    //share the file, it is deleted after both LOBs
+                    return new ValueBLOB(tempFile, tempBlocks(), EMPTY_BYTES, lobSize, preHash);
                 }
+                //empty case
+                return EMPTY_BLOB;
             default:
                 throw new IllegalArgumentException("BLOB can not cast to other types");
         }
@@ -211,17 +243,10 @@ public class ValueBLOB extends ValueLOB {
         if(lobSize <= first_in_mem.length)
             return encoder.encodeToString(Arrays.copyOf(first_in_mem, (int) lobSize));
         if(tempFile != null && Files.exists(tempFile)) {
-            StringBuilder sb = new StringBuilder();
-            try(FileChannel fc = FileChannel.open(tempFile, StandardOpenOption.READ)) {
-                ByteBuffer t_read = ByteBuffer.allocate(BASE64_BUFFER_SIZE);
-                while (0 <= fc.read(t_read)) {
-                    t_read.flip();
-                    ByteBuffer t_out = encoder.encode(t_read);
-                    sb.append(new String(t_out.array()));
-                    t_read.compact();
-                    if(sb.length() >= MAX_CONVERTIBLE_TO_STRING_SIZE*4/3)
-                        break;
-                }
+            StringBuilder sb = new StringBuilder((int) (Math.min(lobSize, MAX_CONVERTIBLE_TO_STRING_SIZE) / 3 * 4 + 4));
+            try(InputStream in = openTemp(0)) {
+                //limited as other LOB strings
+                Base64Codec.encode(in, MAX_CONVERTIBLE_TO_STRING_SIZE, (chars, length) -> sb.append(chars, 0, length));
             } catch (IOException e) {
                 throw new RuntimeException("LOB temp read error. "+e.toString());
             }
@@ -233,7 +258,7 @@ public class ValueBLOB extends ValueLOB {
     @Override
     public InputStream getInputStream() throws IOException {
         if(tempFile != null && Files.exists(tempFile)) {
-            return Files.newInputStream(tempFile, StandardOpenOption.READ);
+            return openTemp(0);
         }
         if(lobSize > first_in_mem.length) {
             throw new IllegalStateException("Temp file gone, in_memory data does not have full data length.");
@@ -243,13 +268,25 @@ public class ValueBLOB extends ValueLOB {
 
 
 
-    protected static InputStream cascadeDigestInput(InputStream source, MessageDigest... hash) {
-        DigestInputStream[] dis = new DigestInputStream[hash.length];
-        for(int i = 0;i<hash.length;i++) {
-            //serial of digest
-            dis[i] = new DigestInputStream(i==0 ? source : dis[i-1], hash[i]);
+    /**
+     * content as Base64, encoded by chunks (no padding until the end).
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        if(first_in_mem == null || lobSize == 0) //NULL LOB.
+            return;
+        try(InputStream in = getInputStream()) {
+            Base64Codec.encode(in, out);
+        }
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        if(first_in_mem == null || lobSize == 0) //NULL LOB.
+            return;
+        try(InputStream in = getInputStream()) {
+            Base64Codec.encode(in, out);
         }
-        return dis[dis.length-1];
     }
 
     @Override
@@ -268,10 +305,11 @@ public class ValueBLOB extends ValueLOB {
         if(fh != null)
             sb.append(", ").append(HASHES[algo]).append(" ").append(ValueBytes.bytesToHex(fh));
         sb.append(")");
-        if(first_in_mem.length>0)
-            sb.append(" ").append(encoder.encodeToString(first_in_mem));
-        if(lobSize> first_in_mem.length)
-            sb.append(" ").append((lobSize- first_in_mem.length)).append(" bytes remaining.");
+        int inMem = (int) Math.min(first_in_mem.length, lobSize);
+        if(inMem>0)
+            sb.append(" ").append(encoder.encodeToString(Arrays.copyOf(first_in_mem, inMem)));
+        if(lobSize> inMem)
+            sb.append(" ").append((lobSize- inMem)).append(" bytes remaining.");
         return sb.toString();
     }
 
@@ -280,15 +318,27 @@ public class ValueBLOB extends ValueLOB {
         return tempFile;
     }
 
+    @Override
+    LobBlocks tempBlocks() {
+        return blocks;
+    }
+
+    @Override
+    ByteBuffer inMemoryBytes() {
+        if(lobSize > first_in_mem.length)
+            throw new IllegalStateException("Temp file gone, in_memory data does not have full data length.");
+        return ByteBuffer.wrap(first_in_mem, 0, (int) lobSize);
+    }
+
     /**
-     * close LOB by delete temporally file (if exists)
+     * close LOB by releasing temporally file (deleted if no other LOB shares it)
      * close input stream (if open)
      * @throws IOException
      */
     @Override
     public void close() throws IOException {
-        if(tempFile != null) {
-            Files.deleteIfExists(tempFile);
+        if(storeRef != null) {
+            storeRef.release();
         }
     }
 
@@ -297,15 +347,17 @@ public class ValueBLOB extends ValueLOB {
         if(preHash.length >= algo+1 && preHash[algo] != null)
             return preHash[algo];
         //calc if no pre-calc
-        MessageDigest hash = MessageDigest.getInstance(HASHES[algo]);
-        if(lobSize <= first_in_mem.length)
-            return preHash[algo] = hash.digest(first_in_mem);
-        try (InputStream is = Files.newInputStream(tempFile, StandardOpenOption.READ);
-             DigestInputStream dis = new DigestInputStream(is, hash)) {
-            byte[] buff = new byte[1024];
+        MessageDigest hash = messageDigestFromAlgorithm(algo);
+        if(lobSize <= first_in_mem.length) {
+            hash.update(first_in_mem, 0, (int) lobSize);
+            return preHash[algo] = hash.digest();
+        }
+        try (InputStream is = openTemp(0)) {
+            byte[] buff = new byte[LobStore.SPOOL_CHUNK_SIZE];
             long acc_read = 0;
             int nread;
-            while (0<= (nread = dis.read(buff))) {
+            while (0<= (nread = is.read(buff))) {
+                hash.update(buff, 0, nread);
                 acc_read += nread;
             }
             if(acc_read != lobSize)
@@ -319,8 +371,7 @@ public class ValueBLOB extends ValueLOB {
         protected final ReentrantLock lock;
         protected final AtomicBoolean closed;
         protected final InputStream lobSourceInput;
-        protected final MessageDigest[] hash;
-        protected final int[] hashAlgos;
+        protected final MultiDigest digest;
         protected final InputStream digestSourceInput;
 
         ValueBLOBonDemand(InputStream lobSourceInput, Path tempFile, long lobSize, int...hashAlgos) throws NoSuchAlgorithmException {
@@ -328,32 +379,22 @@ public class ValueBLOB extends ValueLOB {
             this.lock = new ReentrantLock();
             this.closed = new AtomicBoolean(false);
             this.lobSourceInput = lobSourceInput;
-            this.hashAlgos = hashAlgos;
-            if(hashAlgos.length>0) {
-                hash = new MessageDigest[hashAlgos.length];
-                for(int i = 0;i<hashAlgos.length;i++) {
-                    //serial of digest
-                    hash[i] = MessageDigest.getInstance(HASHES[hashAlgos[i]]);
-                }
-                digestSourceInput = cascadeDigestInput(lobSourceInput, hash);
-            }
-            else {
-                hash = new MessageDigest[0];
-                digestSourceInput = lobSourceInput;
-            }
+            this.digest = new MultiDigest(hashAlgos);
+            digestSourceInput = digest.input(lobSourceInput);
         }
 
         private void copyInputToTemp() {
             lock.lock();
             try {
-                if(!Files.exists(tempFile)) //check again
-                    Files.copy(digestSourceInput, tempFile);
-                closed.set(true); //can not copy again
-                //hash update
-                for (int i = 0; i<hash.length;i++) {
-                    if(hash[i] != null)
-                        preHash[hashAlgos[i]] = hash[i].digest();
+                if(!Files.exists(tempFile)) { //check again
+                    LobStore store = LobStore.getDefault();
+                    long n = store.spool(digestSourceInput, tempFile);
+                    //hash update
+                    digest.digestTo(preHash);
+                    store.track(tempFile, preHash);
+                    store.unreserve(n);
                 }
+                closed.set(true); //can not copy again
             } catch (IOException e) {
                 throw new RuntimeException("LOB Copy error. "+e.toString());
             } finally {
@@ -379,16 +420,7 @@ public class ValueBLOB extends ValueLOB {
                     lobSourceInput.mark((int) Math.min(MAX_CONVERTIBLE_TO_STRING_SIZE+BASE64_BUFFER_SIZE, lobSize));
                     StringBuilder sb = new StringBuilder();
                     try {
-                        byte[] b_read = new byte[BASE64_BUFFER_SIZE];
-                        int nRead;
-                        while (0 <= (nRead = lobSourceInput.read(b_read))) {
-                            if(nRead < b_read.length)
-                                sb.append(encoder.encodeToString(Arrays.copyOf(b_read, nRead)));
-                            else
-                                sb.append(encoder.encodeToString(b_read));
-                            if(sb.length() >= MAX_CONVERTIBLE_TO_STRING_SIZE*4/3)
-                                break;
-                        }
+                        Base64Codec.encode(lobSourceInput, MAX_CONVERTIBLE_TO_STRING_SIZE, (chars, length) -> sb.append(chars, 0, length));
                     }
                     finally {
                         //back to the old position
@@ -405,6 +437,28 @@ public class ValueBLOB extends ValueLOB {
             return super.stringValue();
         }
 
+        //copy the source to temp once, writing must not consume it
+        @Override
+        void spoolToTemp() {
+            if(lobSize <= first_in_mem.length || Files.exists(tempFile))
+                return;
+            if(closed.get())
+                throw new IllegalStateException("LOB onDemand has closed");
+            copyInputToTemp();
+        }
+
+        @Override
+        public void writeTo(Appendable out) throws IOException {
+            spoolToTemp();
+            super.writeTo(out);
+        }
+
+        @Override
+        public void writeUtf8To(OutputStream out) throws IOException {
+            spoolToTemp();
+            super.writeUtf8To(out);
+        }
+
         @Override
         public InputStream getInputStream() throws IOException {
             if(lobSize <= first_in_mem.length) {
@@ -437,7 +491,7 @@ public class ValueBLOB extends ValueLOB {
             if(closed.get())
                 throw new IllegalStateException("LOB onDemand has closed");
             if(lobSourceInput.markSupported() && lobSize <= MAX_CONVERTIBLE_TO_STRING_SIZE) {
-                MessageDigest hash = MessageDigest.getInstance(HASHES[algo]);
+                MessageDigest hash = messageDigestFromAlgorithm(algo);
                 lock.lock();
                 try {
                     lobSourceInput.mark((int) lobSize);
@@ -481,61 +535,63 @@ public class ValueBLOB extends ValueLOB {
                     if(closed.get())
                         throw new IllegalStateException("LOB onDemand has closed");
 
-                    try {
-                        //save mark
-                        if(digestSourceInput.markSupported() && lobSize <= MAX_CONVERTIBLE_TO_STRING_SIZE) {
-                            lock.lock();
-                            try {
-                                digestSourceInput.mark((int) (BASE64_BUFFER_SIZE + lobSize));
-                                try {
-                                    switch (type) {
-                                        case TYPE_CLOB:
-                                        case TYPE_NCLOB:
-                                            //create new CLOB of base64 string
-                                            Base64.Encoder encoder = Base64.getEncoder();
-                                            try (ValueCLOBCreator creator = ValueLOB.getCLOBCreator(Types.TYPE_NCLOB.equals(type), findConvenienceAlgorithms())) {
-                                                ReadableByteChannel channel = Channels.newChannel(digestSourceInput);
-                                                ByteBuffer buff = ByteBuffer.allocate(BASE64_BUFFER_SIZE);
-                                                int n_read;
-                                                while (0 <= (n_read = channel.read(buff))) {
-                                                    buff.flip();
-                                                    if (n_read > 0)
-                                                        creator.writeToLOB(new String(encoder.encode(buff).array()));
-                                                    buff.compact();
-                                                }
-                                                return creator.buildCLOB();
-                                            }
-                                        case TYPE_BYTES: //read all bytes
-                                            return ValueBLOB.load(digestSourceInput).convertTo(Types.TYPE_BYTES);
-                                        case TYPE_BLOB:
-                                            //create a new BLOB
-                                            return ValueBLOB.load(digestSourceInput, hashAlgos);
-                                        default:
-                                            throw new IllegalArgumentException("BLOB can not cast to other types");
-                                    }
-                                } finally {
-                                    digestSourceInput.reset();
-                                    //hash update
-                                    for (int i = 0; i<hash.length;i++) {
-                                        if (hash[i] != null)
-                                            preHash[hashAlgos[i]] = hash[i].digest();
-                                    }
-                                }
-                            }
-                            catch (IOException e) {
-                                throw new RuntimeException("LOB Input Source read error. "+e.toString());
-                            }
-                            finally {
-                                lock.unlock();
-                            }
-                        }
+                    //the source is hashed while read, it is copied to temp once (no mark/reset)
+                    copyInputToTemp();
+                    return super.convertTo(type);
+            }
+        }
+    }
 
-                        copyInputToTemp();
-                        return super.convertTo(type);
-                    } catch (NoSuchAlgorithmException e) {
-                        throw new RuntimeException("BLOB convert error "+e.toString());
-                    }
+    static class ValueBLOBSpooled extends ValueBLOB {
+        protected final LobSpooler spooler;
+
+        ValueBLOBSpooled(InputStream lobSourceInput, Path tempFile, long lobSize, int... hashAlgos) throws NoSuchAlgorithmException {
+            super(tempFile, EMPTY_BYTES, lobSize, new byte[HASHES.length][]);
+            this.spooler = new LobSpooler(tempFile, new MultiDigest(hashAlgos), preHash);
+            spooler.start(lobSourceInput);
+        }
+
+        //wait for the whole temp file
+        @Override
+        void spoolToTemp() {
+            try {
+                spooler.await();
+            } catch (IOException e) {
+                throw new RuntimeException("LOB Copy error. "+e.toString());
             }
         }
+
+        @Override
+        public String stringValue() {
+            spoolToTemp();
+            return super.stringValue();
+        }
+
+        /**
+         * reader of the temp file, it does not wait for the copy, only for bytes not copied yet.
+         */
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return spooler.newInput(this);
+        }
+
+        @Override
+        public Value convertTo(Types type) {
+            if(!isNull())
+                spoolToTemp();
+            return super.convertTo(type);
+        }
+
+        @Override
+        public byte[] forceHash(int algo) throws NoSuchAlgorithmException, IOException {
+            spooler.await();
+            return super.forceHash(algo);
+        }
+
+        @Override
+        public void close() throws IOException {
+            spooler.cancel();
+            super.close();
+        }
     }
 }
@@ -7,92 +7,148 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 class ValueBLOBCreator implements Closeable {
-    ByteBuffer first_block = ByteBuffer.allocate(ValueLOB.MAX_BUFFERED_SIZE);
+    //sizes of built BLOBs, for the first block of next ones
+    static final LobBufferPool.Adaptive SIZES = new LobBufferPool.Adaptive();
+
+    //pooled, grows by size classes up to MAX_BUFFERED_SIZE, null once handed to the BLOB
+    byte[] first_block = LobBufferPool.bytes(SIZES.initialSize());
+    private int first_length = 0;
     private FileChannel fo = null;
+    //not built yet, deleted on close
     private Path tempFile = null;
+    //bytes of the temp file reserved in the store
+    private long reserved = 0;
     private long lobSize = 0;
-    private MessageDigest[] hasher = {};
-    private int[] hashAlgos = {};
+    //each chunk is read once for all digests
+    private final MultiDigest digest;
+    //temp file compressed by blocks, writer once spilled
+    private boolean compress = LobBlocks.isEnabled();
+    private LobBlocks.Writer packer = null;
 
     ValueBLOBCreator(int... hashAlgorithms) {
-        if(hashAlgorithms.length > 0) {
-            hasher = new MessageDigest[hashAlgorithms.length];
-            hashAlgos = new int[hashAlgorithms.length];
-            for(int i=0;i < hashAlgorithms.length;i++) {
-                try {
-                    hashAlgos[i] = hashAlgorithms[i];
-                    hasher[i] = MessageDigest.getInstance(ValueLOB.HASHES[hashAlgorithms[i]]);
-                } catch (NoSuchAlgorithmException e) {
-                    throw new AssertionError();
-                }
-            }
+        try {
+            digest = new MultiDigest(hashAlgorithms);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError();
         }
     }
 
+    /**
+     * compress the temp file by blocks (default of ValueLOB.setTempCompression), before it is written.
+     * Incompressible blocks are stored as is.
+     */
+    public ValueBLOBCreator setTempCompression(boolean compress) {
+        if (fo != null)
+            throw new IllegalStateException("BLOB temp file is already written");
+        this.compress = compress;
+        return this;
+    }
+
     public ValueBLOBCreator writeToLOB(ByteBuffer data) throws IOException {
+        if (first_block == null)
+            throw new IllegalStateException("BLOB is already built");
         if (!data.hasRemaining())
             return this;
         //HASH calculation
-        if (data.hasArray()) {
-            byte[] temp_array = data.array();
-            for(MessageDigest hash: hasher)
-                hash.update(temp_array, data.position(), data.limit());
-        } else {
-            data.mark();
-            while (data.hasRemaining()) {
-                byte d = data.get();
-                for(MessageDigest hash: hasher)
-                    hash.update(d);
-            }
-            data.reset();
-        }
+        digest.update(data.duplicate());
         lobSize += data.remaining();
-        if (first_block.hasRemaining()) {
-            int remain = first_block.remaining();
-            if (remain >= data.remaining()) {
-                first_block.put(data);
-                return this;
-            } else
-                while (first_block.hasRemaining())
-                    first_block.put(data.get());
-        }
-        //check to write first time
         if (fo == null) {
+            int count = data.remaining();
+            if (first_length + count > first_block.length && first_block.length < ValueLOB.MAX_BUFFERED_SIZE)
+                growFirstBlock(first_length + count);
+            int len = Math.min(count, first_block.length - first_length);
+            data.get(first_block, first_length, len);
+            first_length += len;
+            if (len == count)
+                return this;
+            //write first block at first time
             tempFile = Files.createTempFile(ValueLOB.tempDir, "ESQL-LOB", ".bin");
-            //write first block
             fo = FileChannel.open(tempFile, StandardOpenOption.WRITE);
-            first_block.flip();
-            while (first_block.hasRemaining())
-                fo.write(first_block);
+            if (compress)
+                packer = new LobBlocks.Writer(fo);
+            //content bytes are reserved, more than a compressed file
+            reserve(first_length);
+            write(ByteBuffer.wrap(first_block, 0, first_length));
             //the position is limit now.
         }
+        reserve(data.remaining());
+        write(data);
+        return this;
+    }
+
+    private void write(ByteBuffer data) throws IOException {
+        if (packer != null) {
+            packer.write(data);
+            return;
+        }
         while (data.hasRemaining())
             fo.write(data);
-        return this;
+    }
+
+    private void reserve(long bytes) throws IOException {
+        LobStore.getDefault().reserve(bytes);
+        reserved += bytes;
+    }
+
+    private void growFirstBlock(int minSize) {
+        byte[] b = LobBufferPool.bytes(minSize);
+        System.arraycopy(first_block, 0, b, 0, first_length);
+        LobBufferPool.release(first_block);
+        first_block = b;
     }
 
     public ValueLOB buildBLOB() {
+        if (first_block == null)
+            throw new IllegalStateException("BLOB is already built");
         if (lobSize == 0)
             return ValueBLOB.EMPTY_BLOB;
-        first_block.flip();
+        SIZES.record(lobSize);
+        //the block is handed to the BLOB, without copy if it is mostly used
+        byte[] first_in_mem = LobBufferPool.handOff(first_block, first_length);
+        first_block = null;
 
-        byte[] first_in_mem = new byte[first_block.limit()];
-        first_block.get(first_in_mem);
-
-        byte[][] hash_holder = new byte[ValueLOB.HASHES.length][];
-        for(int i = 0; i<hasher.length;i++)
-            hash_holder[hashAlgos[i]] = hasher[i].digest();
-        return ValueBLOB.buildBLOB(tempFile, first_in_mem, lobSize,
+        byte[][] hash_holder = digest.digest();
+        LobBlocks blocks = null;
+        if (fo != null) {
+            try {
+                if (packer != null)
+                    blocks = packer.finish();
+                fo.close();
+            } catch (IOException e) {
+                throw new RuntimeException("BLOB temp file close error. "+e.toString());
+            } finally {
+                packer = null;
+            }
+        }
+        //the store counts the file from now
+        ValueBLOB blob = ValueBLOB.buildBLOB(tempFile, blocks, first_in_mem, lobSize,
                 hash_holder);
+        LobStore.getDefault().unreserve(reserved);
+        reserved = 0;
+        tempFile = null;
+        return blob;
     }
 
     @Override
     public void close() throws IOException {
+        if (first_block != null) { //not built
+            LobBufferPool.release(first_block);
+            first_block = null;
+        }
+        if (packer != null) {
+            packer.abort();
+            packer = null;
+        }
         if (fo != null && fo.isOpen())
             fo.close();
+        if (tempFile != null) { //not built, nobody refers the file
+            Files.deleteIfExists(tempFile);
+            tempFile = null;
+            LobStore.getDefault().unreserve(reserved);
+            reserved = 0;
+        }
     }
 }
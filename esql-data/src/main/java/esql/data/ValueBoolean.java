@@ -57,6 +57,10 @@ public class ValueBoolean extends ValueNumber {
         return 0;
     }
 
+    /**
+     * A boolean equals the number 1 if true, 0 if false. Other non-zero numbers are
+     * true by isTrue() but not equal to true: 2 = true = 1 would make 2 = 1, which no hash can agree with.
+     */
     @Override
     public boolean equals(Object obj) {
         if(obj == null)
@@ -64,11 +68,12 @@ public class ValueBoolean extends ValueNumber {
         if(obj == this)
             return true;
         if (obj instanceof ValueBoolean)
-            return this.val == ((ValueBoolean) obj).val;
+            return !((ValueBoolean) obj).isNull() && this.val == ((ValueBoolean) obj).val;
+        //as number 0 or 1
         if (obj instanceof ValueNumber)
-            return this.val == ((ValueNumber) obj).booleanValue();
+            return equalNumbers(this, (ValueNumber) obj);
         if (obj instanceof Value)
-            return !((Value) obj).isNull() && this.val == ((ValueNumber) obj).isTrue();
+            return false;
         return this.val == isTrueString(obj.toString());
     }
 
@@ -77,6 +82,11 @@ public class ValueBoolean extends ValueNumber {
         return val;
     }
 
+    @Override
+    int compactScale() {
+        return 0;
+    }
+
     public static boolean isTrueString(String val) {
         return val!=null && !val.isEmpty();
     }
@@ -2,7 +2,10 @@ package esql.data;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.MessageDigest;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -21,6 +24,7 @@ public class ValueBytes extends Value {
     static final ValueBytes NULL_BYTES = new ValueBytes(null);
 
     private final byte[] data;
+    private transient int hash;
 
     static final ValueBytes buildBytes(byte... data) {
         if(data == null)
@@ -102,6 +106,45 @@ public class ValueBytes extends Value {
         return bytesToHex(data);
     }
 
+    //bytes converted to hex per chunk when streaming
+    private static final int HEX_CHUNK_SIZE = 1024;
+
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        if(data != null)
+            writeHex(data, 0, data.length, out);
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        if(data == null)
+            return;
+        byte[] ascii = new byte[Math.min(data.length, HEX_CHUNK_SIZE) * 2];
+        for (int from = 0; from < data.length; from += HEX_CHUNK_SIZE) {
+            int n = Math.min(data.length - from, HEX_CHUNK_SIZE);
+            encodeHex(data, from, n, ascii, 0);
+            out.write(ascii, 0, n * 2);
+        }
+    }
+
+    @Override
+    public void writeUtf8To(ByteBuffer buf) {
+        if(data == null)
+            return;
+        if(buf.remaining() < data.length * 2)
+            throw new BufferOverflowException();
+        if(buf.hasArray()) {
+            encodeHex(data, 0, data.length, buf.array(), buf.arrayOffset() + buf.position());
+            buf.position(buf.position() + data.length * 2);
+            return;
+        }
+        for (byte b : data) {
+            short pair = HEX_PAIRS[b & 0xFF];
+            buf.put((byte) (pair >>> 8));
+            buf.put((byte) pair);
+        }
+    }
+
     @Override
     public int compareTo(Value o) {
         if(o == null || o.isNull())
@@ -167,36 +210,11 @@ public class ValueBytes extends Value {
                 return false;
             Iterator<Value> oit = ((ValueArray) obj).iterator();
             int not_match = IntStream.range(0, Math.min(data.length,((ValueArray) obj).size()))
-                    .filter(i -> oit.hasNext() ? !oit.next().equals(ValueNumberInt.valueOf(data[i])) : true )
+                    .filter(i -> oit.hasNext() ? !oit.next().equals(Value.valueOf(data[i])) : true )
                     .findFirst().orElse(-1);
             return not_match < 0 && data.length == ((ValueArray) obj).size();
         }
-        //compare hexa string
-        if (obj instanceof ValueString) {
-            return (!((Value) obj).isArray() && ((ValueString) obj).isEmpty() && this.isEmpty())
-                    || (!((ValueString) obj).isEmpty() && !this.isEmpty()
-                        && Arrays.equals(data,
-                    hexToBytes(((ValueString) obj).stringValue())));
-        }
-        //compare by hash
-        if (obj instanceof ValueLOB) {
-            int g = ((ValueLOB)obj).getStrongestAlgorithmAvailableHash();
-            try {
-                if(g >= 0) {
-                    byte[] h = ((ValueLOB)obj).getHash(g);
-                    MessageDigest md = ValueLOB.messageDigestFromAlgorithm(g);
-                    return Arrays.equals(md.digest(this.data), h);
-                }
-                else {
-                    byte[] h = ((ValueLOB)obj).forceHash(ValueLOB.DEFAULT_HASH_ALGO);
-                    MessageDigest md = ValueLOB.messageDigestFromAlgorithm(ValueLOB.DEFAULT_HASH_ALGO);
-                    return Arrays.equals(md.digest(this.data), h);
-                }
-            } catch (NoSuchAlgorithmException | IOException e) {
-                throw new IllegalStateException(e);
-            }
-        }
-        if (obj instanceof Value) //other, false
+        if (obj instanceof Value) //other, false: hex strings and BLOBs are converted first (convertTo)
             return false;
         //compare primitive
         if (obj instanceof byte[])
@@ -208,6 +226,23 @@ public class ValueBytes extends Value {
         return false;
     }
 
+    /**
+     * same as hashCode of ValueArray of TYPE_BYTE with the same bytes (List.hashCode).
+     */
+    @Override
+    public int hashCode() {
+        if(data == null)
+            return 0;
+        int h = hash;
+        if(h == 0) {
+            h = 1;
+            for (byte b : data)
+                h = 31 * h + Long.hashCode(b);
+            hash = h;
+        }
+        return h;
+    }
+
     /**
      * return length of byte array
      *
@@ -252,6 +287,21 @@ public class ValueBytes extends Value {
 
     //lower char for hexa
     private static final char[] HEX_ARRAY = "0123456789abcdef".toCharArray();
+    //two ASCII hex chars of each byte, high char first
+    private static final short[] HEX_PAIRS = new short[256];
+    //value of ASCII hex char, 0 for other chars
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < 256; i++)
+            HEX_PAIRS[i] = (short) (HEX_ARRAY[i >>> 4] << 8 | HEX_ARRAY[i & 0x0F]);
+        for (int i = 0; i < 10; i++)
+            HEX_VALUES['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
 
     /**
      * byte array to hex string, big endian conversion
@@ -260,62 +310,118 @@ public class ValueBytes extends Value {
      * @return
      */
     public static String bytesToHex(byte[] bytes) {
-        char[] hexChars = new char[bytes.length * 2];
-        for (int j = 0; j < bytes.length; j++) {
-            int v = bytes[j] & 0xFF;
-            hexChars[j * 2] = HEX_ARRAY[v >>> 4];
-            hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
+        byte[] ascii = new byte[bytes.length * 2];
+        encodeHex(bytes, 0, bytes.length, ascii, 0);
+        return new String(ascii, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * write bytes as lower case hex chars to output, by chunks.
+     *
+     * @param bytes bytes
+     * @param out output
+     * @throws IOException from the output
+     */
+    public static void writeHex(byte[] bytes, Appendable out) throws IOException {
+        writeHex(bytes, 0, bytes.length, out);
+    }
+
+    /**
+     * write a range of bytes as lower case hex chars to output, by chunks.
+     */
+    public static void writeHex(byte[] bytes, int offset, int length, Appendable out) throws IOException {
+        char[] chars = new char[Math.min(length, HEX_CHUNK_SIZE) * 2];
+        for (int from = offset; from < offset + length; from += HEX_CHUNK_SIZE) {
+            int n = Math.min(offset + length - from, HEX_CHUNK_SIZE);
+            for (int j = 0; j < n; j++) {
+                short pair = HEX_PAIRS[bytes[from + j] & 0xFF];
+                chars[j * 2] = (char) (pair >>> 8);
+                chars[j * 2 + 1] = (char) (pair & 0xFF);
+            }
+            appendChars(out, chars, 0, n * 2);
+        }
+    }
+
+    //n bytes to 2*n ASCII hex chars
+    private static void encodeHex(byte[] src, int from, int n, byte[] dst, int pos) {
+        for (int j = 0; j < n; j++) {
+            short pair = HEX_PAIRS[src[from + j] & 0xFF];
+            dst[pos + j * 2] = (byte) (pair >>> 8);
+            dst[pos + j * 2 + 1] = (byte) pair;
         }
-        return new String(hexChars);
     }
 
     /**
-     * big endian only conversion
+     * big endian only conversion.
+     * An odd last char is the high half of the last byte, a non hex char is taken as 0.
      *
      * @param hex hex string (without 0x prefix)
      * @return byte array
      */
     public static byte[] hexToBytes(CharSequence hex) {
-        byte[] buff = new byte[Math.floorDiv(hex.length()+1, 2)];
-        hexToBytes(hex, buff, 0);
-        return buff;
+        return hexToBytes(hex, 0, hex.length());
     }
 
     /**
-     * big endian only conversion
+     * big endian only conversion of a range of hex string.
      *
-     * @param hex hex string (without 0x prefix)
-     * @param from start index (inclusive)
-     * @param to end index (inclusive)
+     * @param hex hex string
+     * @param from start index (inclusive), after 0x prefix
+     * @param to end index (exclusive)
      */
     public static byte[] hexToBytes(CharSequence hex, int from, int to) {
-        byte[] buff = new byte[Math.floorDiv(to - from +1, 2)];
-        hexToBytes(hex, buff, from);
+        byte[] buff = new byte[(to - from + 1) / 2];
+        decodeHex(hex, from, to, buff, 0);
         return buff;
     }
 
     /**
-     * big endian only conversion
+     * big endian only conversion, into the buffer from pos, until end of hex string or buffer.
+     *
+     * @return position after the last written byte
      */
     public static int hexToBytes(CharSequence hex, byte[] buf, int pos) {
-        int i = pos;
-        for (int j = 0; j < hex.length(); j++) {
-            if(i>=buf.length)
-                return i;//end of buffer
-            int v = 0;
-            char c = hex.charAt(j);
-            if(c >= '0' && c <= '9')
-                v = c - '0';
-            else if(c >= 'A' && c <= 'F')
-                v = c - 'A' + 10;
-            else if(c >= 'a' && c <= 'f')
-                v = c - 'a' + 10;
-            if(j % 2 == 0) //even
-                buf[i] |= v << 4;
-            else
-                buf[i++] |= v;
+        int n = Math.min(hex.length(), (buf.length - pos) * 2);
+        return decodeHex(hex, 0, n, buf, pos);
+    }
+
+    /**
+     * decode hex string into the buffer (from its position), as hexToBytes.
+     *
+     * @param hex hex string (without 0x prefix)
+     * @param out output buffer
+     * @return number of bytes written
+     * @throws BufferOverflowException if the buffer has not enough space, the position is not changed then.
+     */
+    public static int decodeHex(CharSequence hex, ByteBuffer out) {
+        int n = (hex.length() + 1) / 2;
+        if(out.remaining() < n)
+            throw new BufferOverflowException();
+        if(out.hasArray()) {
+            decodeHex(hex, 0, hex.length(), out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + n);
+            return n;
         }
-        return i+1; //end of hex string
+        int i = 0;
+        for (; i + 1 < hex.length(); i += 2)
+            out.put((byte) (hexValue(hex.charAt(i)) << 4 | hexValue(hex.charAt(i + 1))));
+        if(i < hex.length())
+            out.put((byte) (hexValue(hex.charAt(i)) << 4));
+        return n;
+    }
+
+    //hex chars in [from, to) into buf from pos, return position after the last byte
+    private static int decodeHex(CharSequence hex, int from, int to, byte[] buf, int pos) {
+        int i = from;
+        for (; i + 1 < to; i += 2)
+            buf[pos++] = (byte) (hexValue(hex.charAt(i)) << 4 | hexValue(hex.charAt(i + 1)));
+        if(i < to) //odd char
+            buf[pos++] = (byte) (hexValue(hex.charAt(i)) << 4);
+        return pos;
+    }
+
+    private static int hexValue(char c) {
+        return c < 128 ? HEX_VALUES[c] : 0;
     }
 
 }
@@ -4,12 +4,15 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
@@ -19,17 +22,35 @@ public class ValueCLOB extends ValueLOB {
 
     public static final ValueCLOB NULL_CLOB = new ValueCLOB(null, null, 0L, false);
     public static final ValueCLOB NULL_NCLOB = new ValueCLOB(null, null, 0L, true);
-    public static final ValueCLOB EMPTY_CLOB = new ValueCLOB(null, EMPTY_CHARS, 0L, false, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512]);
-    public static final ValueCLOB EMPTY_NCLOB = new ValueCLOB(null, EMPTY_CHARS, 0L, true, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512]);
+    public static final ValueCLOB EMPTY_CLOB = new ValueCLOB(null, EMPTY_CHARS, 0L, false, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512], EMPTY_HASHES[CRC32C], EMPTY_HASHES[XXHASH64]);
+    public static final ValueCLOB EMPTY_NCLOB = new ValueCLOB(null, EMPTY_CHARS, 0L, true, EMPTY_HASHES[MD5], EMPTY_HASHES[SHA1], EMPTY_HASHES[SHA256], EMPTY_HASHES[SHA384], EMPTY_HASHES[SHA512], EMPTY_HASHES[CRC32C], EMPTY_HASHES[XXHASH64]);
 
+    static final int CHAR_BUFFER_SIZE = 4 * 1024;
     protected final char[] first_in_mem;
+    //bytes of first_in_mem in the charset when known (built in memory), else encoded on demand
+    private final byte[] first_encoded;
+    //char positions in the temp file, null if not recorded
+    private final CharOffsetIndex index;
+    //layout of a compressed temp file, null if raw
+    private final LobBlocks blocks;
     protected final Path tempFile;
+    //reference of the temp file in the store, it may be a stored file with the same content
+    private final transient LobStore.Ref storeRef;
     final boolean national;
 
     private ValueCLOB(Path tempFile, char[] first_in_mem, long stringLen, boolean national, byte[]... preHash) {
+        this(tempFile, first_in_mem, null, null, null, stringLen, national, preHash);
+    }
+
+    private ValueCLOB(Path tempFile, char[] first_in_mem, byte[] first_encoded, CharOffsetIndex index, LobBlocks blocks,
+                      long stringLen, boolean national, byte[]... preHash) {
         super(stringLen, preHash);
         this.first_in_mem = first_in_mem;
-        this.tempFile = tempFile;
+        this.first_encoded = first_encoded;
+        this.index = index;
+        this.blocks = blocks;
+        this.storeRef = tempFile == null ? null : LobStore.getDefault().acquire(this, tempFile, preHash);
+        this.tempFile = storeRef == null ? null : storeRef.path();
         this.national = national;
     }
 
@@ -40,10 +61,10 @@ public class ValueCLOB extends ValueLOB {
             hashAlgos = DEFAULT_HASH_ALGOS;
         for(int i = 0;i<hashAlgos.length;i++) {
             //digest
-            MessageDigest hash = MessageDigest.getInstance(HASHES[hashAlgos[i]]);
+            MessageDigest hash = messageDigestFromAlgorithm(hashAlgos[i]);
             hash_holder[hashAlgos[i]] = hash.digest(buff);
         }
-        return new ValueCLOB(null, data.toCharArray(), data.length(), national, hash_holder);
+        return new ValueCLOB(null, data.toCharArray(), buff, null, null, data.length(), national, hash_holder);
     }
 
     /**
@@ -63,6 +84,25 @@ public class ValueCLOB extends ValueLOB {
         return new ValueCLOB.ValueCLOBonDemand(lobSourceReader, ValueLOB.tempDir.resolve("ESQL-CLOB"+ UUID.randomUUID()+".txt"), lobSize, national, hashAlgorithms);
     }
 
+    /**
+     * create CLOB spooled in background: a task of the spool executor copies the source to a temp file and hashes it,
+     * readers of getReader()/getInputStream() follow the copy concurrently instead of waiting for it.
+     *
+     * @param lobSourceReader source, closed when spooled
+     * @param lobSize number of chars
+     * @param national
+     * @param hashAlgorithms hash algorithms to apply, default as CLOB creator
+     * @return new CLOB
+     * @throws NoSuchAlgorithmException
+     * @see ValueLOB#setSpoolExecutor(java.util.concurrent.Executor)
+     */
+    public static ValueCLOB spool(Reader lobSourceReader, long lobSize, boolean national, int... hashAlgorithms) throws NoSuchAlgorithmException {
+        if (lobSize == 0) //nothing to read
+            return national ?  ValueCLOB.EMPTY_NCLOB : ValueCLOB.EMPTY_CLOB;
+        return new ValueCLOB.ValueCLOBSpooled(lobSourceReader, ValueLOB.tempDir.resolve("ESQL-CLOB"+ UUID.randomUUID()+".txt"),
+                lobSize, national, hashAlgorithms.length == 0 ? DEFAULT_HASH_ALGOS : hashAlgorithms);
+    }
+
     /**
      * create a new CLOB from reader.
      *
@@ -80,9 +120,10 @@ public class ValueCLOB extends ValueLOB {
         try(ValueCLOBCreator creator = ValueLOB.getCLOBCreator(national,
                 hashAlgorithms)) {
 
-            CharBuffer buff = CharBuffer.allocate(1024);
-            while (0 <= lobSourceReader.read(buff)) {
-                creator.writeToLOB(buff);
+            char[] buff = new char[CHAR_BUFFER_SIZE];
+            int nRead;
+            while (0 <= (nRead = lobSourceReader.read(buff))) {
+                creator.writeToLOB(buff, 0, nRead);
             }
             return creator.buildCLOB();
         }
@@ -92,6 +133,11 @@ public class ValueCLOB extends ValueLOB {
         return new ValueCLOB(tempFile, first_in_mem, stringLen, national, preHash);
     }
 
+    static ValueCLOB buildCLOB(Path tempFile, char[] first_in_mem, byte[] first_encoded, CharOffsetIndex index,
+                               LobBlocks blocks, long stringLen, boolean national, byte[]... preHash) {
+        return new ValueCLOB(tempFile, first_in_mem, first_encoded, index, blocks, stringLen, national, preHash);
+    }
+
     @Override
     public boolean isNull() {
         return this.first_in_mem == null;
@@ -109,25 +155,26 @@ public class ValueCLOB extends ValueLOB {
         switch (type) {
             case TYPE_STRING:
             case TYPE_NSTRING:
+                if(isUtf8Temp() && lobSize <= MAX_CONVERTIBLE_TO_STRING_SIZE/2) {
+                    //UTF-8 bytes are kept as is, decoded only when the String is needed
+                    try(InputStream in = openTemp(0)) {
+                        byte[] bytes = in.readAllBytes();
+                        return ValueString.buildString(type, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new RuntimeException("LOB temp read error. "+e.toString());
+                    }
+                }
                 return ValueString.buildString(type, this.stringValue());
             case TYPE_CLOB:
             case TYPE_NCLOB:
                 //Clone new CLOB
-                if(lobSize <= first_in_mem.length)
-                    return new ValueCLOB(null, Arrays.copyOf(first_in_mem, (int) lobSize), lobSize,
-                            Types.TYPE_NCLOB.equals(type) ? true : false, preHash);
+                if(lobSize <= first_in_mem.length) //bytes are shared in the same charset
+                    return new ValueCLOB(null, Arrays.copyOf(first_in_mem, (int) lobSize),
+                            is(type) ? first_encoded : null, null, null, lobSize, Types.TYPE_NCLOB.equals(type), preHash);
                 try {
                     if(Files.exists(tempFile)) {//creating new file
-                        if(is(type)) { //same type, copy file for faster
-                            Path newTemp = ValueLOB.tempDir.resolve("ESQL-CLOB" + UUID.randomUUID() + ".txt");
-                            try {
-                                //create link with better speed/disk space
-                                Files.createLink(newTemp, tempFile);
-                            } catch (UnsupportedOperationException e) {
-                                //fall back to copy file.
-                                Files.copy(tempFile, newTemp);
-                            }
-                            return new ValueCLOB(newTemp, EMPTY_CHARS, lobSize,
+                        if(is(type)) { //same type, share the file, it is deleted after both LOBs
+                            return new ValueCLOB(tempFile, EMPTY_CHARS, null, charIndex(), tempBlocks(), lobSize,
                                     Types.TYPE_NCLOB.equals(type), preHash);
                         }
                         else {
@@ -136,11 +183,11 @@ public class ValueCLOB extends ValueLOB {
                                     IntStream.range(0, HASHES.length).filter(t -> preHash[t] != null).findFirst()
                                             .orElse(MD5)
                             )) {
-                                try(Reader reader =
-                                            new FileReader(tempFile.toFile(), ValueString.stringCharset(national))) {
-                                    CharBuffer buff = CharBuffer.allocate(1024);
-                                    while (0<=reader.read(buff)) {
-                                        creator.writeToLOB(buff);
+                                try(Reader reader = getReader()) {
+                                    char[] buff = new char[CHAR_BUFFER_SIZE];
+                                    int nRead;
+                                    while (0<=(nRead = reader.read(buff))) {
+                                        creator.writeToLOB(buff, 0, nRead);
                                     }
                                 }
                                 return creator.buildCLOB();
@@ -156,10 +203,11 @@ public class ValueCLOB extends ValueLOB {
                 if(lobSize<=MAX_CONVERTIBLE_TO_STRING_SIZE/2) {
                     try {
                         if(lobSize <= first_in_mem.length)
-                            return ValueBytes.buildBytes(String.valueOf(first_in_mem, 0, (int) lobSize)
-                                    .getBytes(ValueString.stringCharset(national)));
+                            return ValueBytes.buildBytes(inMemoryByteArray());
                         if(Files.exists(tempFile)) { //read text to big memory
-                            return ValueBytes.buildBytes(Files.readAllBytes(tempFile));
+                            try(InputStream in = openTemp(0)) {
+                                return ValueBytes.buildBytes(in.readAllBytes());
+                            }
                         }
                         return ValueBytes.EMPTY_BINARY_STRING;
                     } catch (IOException e) {
@@ -169,22 +217,13 @@ public class ValueCLOB extends ValueLOB {
                 throw new IllegalStateException("CLOB is too large to convert");
             case TYPE_BLOB:
                 //create a new BLOB
-                if(lobSize <= first_in_mem.length)
-                    return ValueBLOB.buildBLOB(null,
-                            String.valueOf(first_in_mem, 0, (int) lobSize)
-                            .getBytes(ValueString.stringCharset(national)), lobSize, preHash);
+                if(lobSize <= first_in_mem.length) { //size in bytes
+                    byte[] bytes = inMemoryByteArray();
+                    return ValueBLOB.buildBLOB(null, bytes, bytes.length, preHash);
+                }
                 try {
-                    if(Files.exists(tempFile)) {//already created file, clone it
-                        Path newTemp = ValueLOB.tempDir.resolve("ESQL-LOB" + UUID.randomUUID() + ".bin");
-                        try {
-                            //create link with better speed/disk space
-                            Files.createLink(newTemp, tempFile);
-                        }
-                        catch (UnsupportedOperationException e) {
-                            //fall back to copy file.
-                            Files.copy(tempFile, newTemp);
-                        }
-                        return ValueBLOB.buildBLOB(newTemp, EMPTY_BYTES, lobSize, preHash);
+                    if(Files.exists(tempFile)) {//already created file, share it (size in bytes)
+                        return ValueBLOB.buildBLOB(tempFile, tempBlocks(), EMPTY_BYTES, tempLength(), preHash);
                     }
                     //empty case
                     return ValueBLOB.EMPTY_BLOB;
@@ -208,16 +247,19 @@ public class ValueCLOB extends ValueLOB {
 
         if(tempFile != null && Files.exists(tempFile)) {
             try {
-                if(lobSize <= MAX_CONVERTIBLE_TO_STRING_SIZE/2)
-                    return new String(Files.readAllBytes(tempFile), ValueString.stringCharset(national));
+                if(lobSize <= MAX_CONVERTIBLE_TO_STRING_SIZE/2) {
+                    try(InputStream in = openTemp(0)) {
+                        return new String(in.readAllBytes(), ValueString.stringCharset(national));
+                    }
+                }
 
                 //only read first n bytes (converted to lines)
                 StringBuilder sb = new StringBuilder();
-                try(Reader reader =
-                        new FileReader(tempFile.toFile(), ValueString.stringCharset(national))) {
-                    CharBuffer buff = CharBuffer.allocate(1024);
-                    while (0<=reader.read(buff)) {
-                        sb.append(buff); //append here
+                try(Reader reader = new InputStreamReader(openTemp(0), ValueString.stringCharset(national))) {
+                    char[] buff = new char[CHAR_BUFFER_SIZE];
+                    int nRead;
+                    while (0<=(nRead = reader.read(buff))) {
+                        sb.append(buff, 0, nRead); //append here
                         if (sb.length() > MAX_CONVERTIBLE_TO_STRING_SIZE / 2)
                             break;
                     }
@@ -230,17 +272,56 @@ public class ValueCLOB extends ValueLOB {
         throw new IllegalStateException("Temp file gone, in_memory data does not have full CLOB length.");
     }
 
+    /**
+     * content chars are copied by chunks, not limited as stringValue.
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        if(isNull())
+            return;
+        if(lobSize <= first_in_mem.length) {
+            appendChars(out, first_in_mem, 0, (int) lobSize);
+            return;
+        }
+        char[] chars = new char[CHAR_BUFFER_SIZE];
+        try(Reader reader = getReader()) {
+            int nRead;
+            while (0 <= (nRead = reader.read(chars)))
+                appendChars(out, chars, 0, nRead);
+        }
+    }
+
+    /**
+     * temp file in UTF-8 is copied as is, without decoding.
+     */
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        if(isUtf8Temp()) {
+            try(InputStream in = openTemp(0)) {
+                in.transferTo(out);
+            }
+            return;
+        }
+        super.writeUtf8To(out);
+    }
+
+    //content is only in the temp file, encoded in UTF-8
+    private boolean isUtf8Temp() {
+        return !isNull() && lobSize > first_in_mem.length && tempFile != null && Files.exists(tempFile)
+                && StandardCharsets.UTF_8.equals(ValueString.stringCharset(national));
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
         if(tempFile != null && Files.exists(tempFile)) {
             //don't care about Charset, provides as is.
-            return Files.newInputStream(tempFile, StandardOpenOption.READ);
+            return openTemp(0);
         }
         if(lobSize > first_in_mem.length) {
             throw new IllegalStateException("Temp file gone, in_memory data does not have full data length.");
         }
-        byte[] t_array = ValueString.stringCharset(national).encode(CharBuffer.wrap(first_in_mem)).array();
-        return new ByteArrayInputStream(t_array);
+        ByteBuffer b = inMemoryBytes();
+        return new ByteArrayInputStream(b.array(), b.arrayOffset() + b.position(), b.remaining());
     }
 
     /**
@@ -251,17 +332,137 @@ public class ValueCLOB extends ValueLOB {
     public Reader getReader() throws IOException {
         if(tempFile != null && Files.exists(tempFile)) {
             //return charset
-            return Files.newBufferedReader(tempFile, ValueString.stringCharset(national));
+            return new BufferedReader(new InputStreamReader(openTemp(0), ValueString.stringCharset(national)),
+                    CHAR_BUFFER_SIZE);
         }
         if(lobSize > first_in_mem.length) {
             throw new IllegalStateException("Temp file gone, in_memory data does not have full data length.");
         }
-        return new CharArrayReader(first_in_mem);
+        return new CharArrayReader(first_in_mem, 0, (int) lobSize);
+    }
+
+    /**
+     * reader of the chars from a position, the temp file is decoded from the nearest indexed offset
+     * before it instead of from the start.
+     *
+     * @param fromChar char position from 0, up to the size
+     * @return reader to read data
+     * @throws IOException
+     */
+    public Reader getReader(long fromChar) throws IOException {
+        if(fromChar < 0 || fromChar > lobSize)
+            throw new IllegalArgumentException("char position is out of CLOB");
+        if(lobSize <= first_in_mem.length)
+            return new CharArrayReader(first_in_mem, (int) fromChar, (int) (lobSize - fromChar));
+        spoolToTemp();
+        if(tempFile == null || !Files.exists(tempFile))
+            throw new IllegalStateException("Temp file gone, in_memory data does not have full data length.");
+        CharOffsetIndex charIndex = charIndex();
+        int entry = charIndex == null ? 0 : charIndex.floor(fromChar);
+        long charPos = charIndex == null ? 0 : charIndex.charAt(entry);
+        //file position or block of a compressed file
+        Reader reader = new BufferedReader(new InputStreamReader(openTemp(charIndex == null ? 0 : charIndex.byteAt(entry)),
+                ValueString.stringCharset(national)), CHAR_BUFFER_SIZE);
+        try {
+            for (long skip = fromChar - charPos, n; skip > 0; skip -= n) {
+                if((n = reader.skip(skip)) <= 0)
+                    throw new IllegalStateException("temp read chars differs lobSize");
+            }
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * chars of the range, read from the nearest indexed offset.
+     *
+     * @param pos char position from 0
+     * @param length number of chars, less at the end of CLOB
+     * @return chars of the range, null if CLOB is null
+     * @throws IOException
+     */
+    public String getSubString(long pos, int length) throws IOException {
+        if(isNull())
+            return null;
+        if(pos < 0 || pos > lobSize)
+            throw new IllegalArgumentException("char position is out of CLOB");
+        if(length < 0)
+            throw new IllegalArgumentException("negative length");
+        int count = (int) Math.min(length, lobSize - pos);
+        if(lobSize <= first_in_mem.length)
+            return new String(first_in_mem, (int) pos, count);
+        char[] chars = new char[count];
+        try(Reader reader = getReader(pos)) {
+            int n = 0, r;
+            while (n < count && 0 <= (r = reader.read(chars, n, count - n)))
+                n += r;
+            return new String(chars, 0, n);
+        }
+    }
+
+    /**
+     * pages of chars from a position, each page is read by getSubString(), no file is kept open between pages.
+     *
+     * @param fromChar char position of the first page, from 0
+     * @param pageSize number of chars of a page, the last one may be shorter
+     * @return iterator of pages
+     */
+    public Iterator<String> pages(long fromChar, int pageSize) {
+        if(pageSize <= 0)
+            throw new IllegalArgumentException("page size must be positive");
+        if(fromChar < 0 || fromChar > lobSize)
+            throw new IllegalArgumentException("char position is out of CLOB");
+        return new Iterator<>() {
+            private long position = fromChar;
+
+            @Override
+            public boolean hasNext() {
+                return !isNull() && position < lobSize;
+            }
+
+            @Override
+            public String next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                try {
+                    String page = getSubString(position, pageSize);
+                    position += page.length();
+                    return page;
+                } catch (IOException e) {
+                    throw new RuntimeException("CLOB page read error. "+e.toString());
+                }
+            }
+        };
     }
 
+    //char positions of the temp file content
+    CharOffsetIndex charIndex() {
+        return index;
+    }
+
+    /**
+     * hash of the encoded chars, as the temp file content.
+     */
     @Override
     public byte[] forceHash(int algo) throws IOException, NoSuchAlgorithmException {
-        return new byte[0];
+        if(preHash.length >= algo+1 && preHash[algo] != null)
+            return preHash[algo];
+        MessageDigest hash = messageDigestFromAlgorithm(algo);
+        if(lobSize <= first_in_mem.length) {
+            hash.update(inMemoryBytes());
+            return preHash[algo] = hash.digest();
+        }
+        if(tempFile == null || !Files.exists(tempFile))
+            throw new IllegalStateException("Temp file gone, in_memory data does not have full data length.");
+        try (InputStream is = openTemp(0)) {
+            byte[] buff = new byte[LobStore.SPOOL_CHUNK_SIZE];
+            int nread;
+            while (0<= (nread = is.read(buff)))
+                hash.update(buff, 0, nread);
+        }
+        return preHash[algo] = hash.digest();
     }
 
     @Override
@@ -269,6 +470,25 @@ public class ValueCLOB extends ValueLOB {
         return tempFile;
     }
 
+    @Override
+    LobBlocks tempBlocks() {
+        return blocks;
+    }
+
+    @Override
+    ByteBuffer inMemoryBytes() {
+        if(lobSize > first_in_mem.length)
+            throw new IllegalStateException("Temp file gone, in_memory data does not have full data length.");
+        return ByteBuffer.wrap(inMemoryByteArray());
+    }
+
+    //encoded first_in_mem, not to be modified
+    private byte[] inMemoryByteArray() {
+        if(first_encoded != null)
+            return first_encoded;
+        return CharChunkEncoder.encodeAll(ValueString.stringCharset(national), first_in_mem, 0, (int) lobSize);
+    }
+
     @Override
     public int compareTo(Value o) {
         return 0;
@@ -293,95 +513,146 @@ public class ValueCLOB extends ValueLOB {
         if(fh != null)
             sb.append(", ").append(HASHES[algo]).append(" ").append(ValueBytes.bytesToHex(fh));
         sb.append(")");
-        if(first_in_mem.length>0)
-            sb.append(" ").append(first_in_mem);
-        if(lobSize> first_in_mem.length)
-            sb.append(" ").append((lobSize- first_in_mem.length)).append(" chars remaining.");
+        int inMem = (int) Math.min(first_in_mem.length, lobSize);
+        if(inMem>0)
+            sb.append(" ").append(first_in_mem, 0, inMem);
+        if(lobSize> inMem)
+            sb.append(" ").append((lobSize- inMem)).append(" chars remaining.");
         return sb.toString();
     }
 
     @Override
     public void close() throws IOException {
-        if(tempFile != null) {
-            Files.deleteIfExists(tempFile);
+        if(storeRef != null) {
+            storeRef.release();
         }
     }
 
     static class DigestReader extends FilterReader {
-        private final Charset charset;
-        private final MessageDigest[] hash;
+        private final CharChunkEncoder encoder;
+        private final MultiDigest digest;
+        private final char[] single = new char[1];
+        private boolean finished = false;
 
-        DigestReader(Reader origReader, Charset charset, MessageDigest... hash) {
+        DigestReader(Reader origReader, Charset charset, MultiDigest digest) {
             super(origReader);
-            this.charset = charset;
-            this.hash = hash;
+            this.encoder = new CharChunkEncoder(charset);
+            this.digest = digest;
         }
 
         @Override
         public int read() throws IOException {
-            char theChar = (char) super.read();
-            Arrays.stream(hash).forEach(h -> h.update(charset.encode(String.valueOf(theChar))));
-            return theChar;
+            int c = super.read();
+            if(c >= 0) {
+                single[0] = (char) c;
+                encoder.encode(CharBuffer.wrap(single), digest::update);
+            }
+            else
+                finish();
+            return c;
         }
 
         @Override
         public int read(char[] cbuf, int off, int len) throws IOException {
             int read = super.read(cbuf, off, len);
-            if(read > 0)
-                Arrays.stream(hash).forEach(h -> h.update(charset.encode(String.valueOf(cbuf, off, read))));
+            if(read > 0) //encoded once for all digests
+                encoder.encode(CharBuffer.wrap(cbuf, off, read), digest::update);
+            else if(read < 0)
+                finish();
             return read;
         }
-    }
 
-    protected static Reader cascadeDigestReader(Reader origReader, Charset charset, MessageDigest... hash) {
-        return new DigestReader(origReader, charset, hash);
+        //a surrogate kept at the end is hashed as String.getBytes() does
+        private void finish() throws IOException {
+            if(finished)
+                return;
+            finished = true;
+            encoder.finish(digest::update);
+            encoder.release();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            finished = true;
+            encoder.release();
+        }
     }
 
+    /**
+     * bytes of the reader chars, encoded by chunks with one encoder.
+     */
     static class InputWrapReader extends InputStream {
         private final Reader origReader;
-        private final Charset charset;
-        private final CharBuffer cbuff;
-        private final ByteBuffer buff;
+        private final CharChunkEncoder encoder;
+        private final char[] chars = new char[CHAR_BUFFER_SIZE];
+        private byte[] pending = new byte[CHAR_BUFFER_SIZE * 2];
+        private int pos = 0;
+        private int limit = 0;
+        private boolean eof = false;
 
         InputWrapReader(Reader origReader, Charset charset) {
-            this.charset = charset;
             this.origReader = origReader;
-            this.cbuff = CharBuffer.allocate(1024);
-            this.buff = ByteBuffer.allocate(cbuff.capacity()*6); //bigger sixes time than text
+            this.encoder = new CharChunkEncoder(charset);
+        }
+
+        private void append(byte[] b, int off, int len) {
+            if(limit + len > pending.length)
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, limit + len));
+            System.arraycopy(b, off, pending, limit, len);
+            limit += len;
         }
 
-        private int nextRead() throws IOException {
-            buff.compact();
-            cbuff.compact();
-            int r = origReader.read(cbuff);
-            cbuff.flip();
-            if(r > 0) {
-                buff.put(charset.encode(cbuff));
+        //false at the end
+        private boolean fill() throws IOException {
+            pos = limit = 0;
+            while (limit == 0 && !eof) {
+                int r = origReader.read(chars);
+                if(r < 0) {
+                    eof = true;
+                    encoder.finish(this::append);
+                    encoder.release();
+                }
+                else
+                    encoder.encode(CharBuffer.wrap(chars, 0, r), this::append);
             }
-            buff.flip();
-            return r;
+            return limit > 0;
         }
 
         @Override
         public int read() throws IOException {
-            while (!buff.hasRemaining()) {//empty, next read
-                if(nextRead() < 0)
-                    return -1;
-            }
-            return buff.get();
+            if(pos >= limit && !fill())
+                return -1;
+            return pending[pos++] & 0xff;
         }
 
         @Override
         public int read(byte[] b, int off, int len) throws IOException {
-            if(!buff.hasRemaining()) {//empty, next read
-                int r = nextRead();
-                if(r <= 0)
-                    return r;
-            }
-            len = Math.min(len, buff.remaining());
-            int old_pos = buff.position();
-            buff.get(b, off, len);
-            return buff.position() - old_pos;
+            if(len == 0)
+                return 0;
+            if(pos >= limit && !fill())
+                return -1;
+            len = Math.min(len, limit - pos);
+            System.arraycopy(pending, pos, b, off, len);
+            pos += len;
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return limit - pos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            eof = true;
+            encoder.release();
+            origReader.close();
         }
     }
 
@@ -390,35 +661,54 @@ public class ValueCLOB extends ValueLOB {
         protected final ReentrantLock lock;
         protected final AtomicBoolean closed;
         protected final Reader lobSourceReader;
-        protected final MessageDigest[] hash;
-        protected final int[] hashAlgos;
+        protected final MultiDigest digest;
         protected final Reader digestSourceReader;
+        //recorded by the copy to temp
+        private volatile CharOffsetIndex copiedIndex;
 
         ValueCLOBonDemand(Reader lobSourceReader, Path tempFile, long stringLen, boolean national, int... hashAlgos) throws NoSuchAlgorithmException {
             super(tempFile, EMPTY_CHARS, stringLen, national, new byte[HASHES.length][]);
             this.lobSourceReader = lobSourceReader;
             this.lock = new ReentrantLock();
             this.closed = new AtomicBoolean(false);
-            this.hashAlgos = hashAlgos;
-            if(hashAlgos.length>0) {
-                hash = new MessageDigest[hashAlgos.length];
-                for(int i = 0;i<hashAlgos.length;i++) {
-                    //serial of digest
-                    hash[i] = MessageDigest.getInstance(HASHES[hashAlgos[i]]);
-                }
-                digestSourceReader = cascadeDigestReader(lobSourceReader, ValueString.stringCharset(national), hash);
-            }
-            else {
-                hash = new MessageDigest[0];
-                digestSourceReader = lobSourceReader;
-            }
+            this.digest = new MultiDigest(hashAlgos);
+            digestSourceReader = digest.isEmpty() ? lobSourceReader
+                    : new DigestReader(lobSourceReader, ValueString.stringCharset(national), digest);
         }
 
         private void copyReaderToTemp() {
             lock.lock();
             try {
                 if(!Files.exists(tempFile)) {//check again
-                    digestSourceReader.transferTo(new FileWriter(tempFile.toFile(), ValueString.stringCharset(national)));
+                    //encoded once, the same bytes are hashed and written
+                    LobStore store = LobStore.getDefault();
+                    CharChunkEncoder encoder = new CharChunkEncoder(ValueString.stringCharset(national));
+                    CharOffsetIndex copyIndex = new CharOffsetIndex();
+                    long[] reserved = {0};
+                    try(OutputStream out = Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                        CharChunkEncoder.ByteSink sink = (b, off, len) -> {
+                            store.reserve(len);
+                            reserved[0] += len;
+                            digest.update(b, off, len);
+                            out.write(b, off, len);
+                        };
+                        char[] buff = new char[CHAR_BUFFER_SIZE];
+                        int nRead;
+                        while (0 <= (nRead = lobSourceReader.read(buff)))
+                            copyIndex.encode(encoder, CharBuffer.wrap(buff, 0, nRead), sink);
+                        encoder.finish(sink);
+                    } catch (IOException | RuntimeException e) {
+                        store.unreserve(reserved[0]);
+                        Files.deleteIfExists(tempFile);
+                        throw e;
+                    } finally {
+                        encoder.release();
+                    }
+                    copiedIndex = copyIndex;
+                    //hash update
+                    digest.digestTo(preHash);
+                    store.track(tempFile, preHash);
+                    store.unreserve(reserved[0]);
                 }
                 closed.set(true); //can not copy again
             } catch (IOException e) {
@@ -471,11 +761,32 @@ public class ValueCLOB extends ValueLOB {
             return super.stringValue();
         }
 
+        //copy the source to temp once, writing must not consume it
+        @Override
+        void spoolToTemp() {
+            if(lobSize <= first_in_mem.length || Files.exists(tempFile))
+                return;
+            if(closed.get())
+                throw new IllegalStateException("CLOB onDemand has closed");
+            copyReaderToTemp();
+        }
+
+        @Override
+        public void writeTo(Appendable out) throws IOException {
+            spoolToTemp();
+            super.writeTo(out);
+        }
+
+        @Override
+        public void writeUtf8To(OutputStream out) throws IOException {
+            spoolToTemp();
+            super.writeUtf8To(out);
+        }
+
         @Override
         public InputStream getInputStream() throws IOException {
             if(lobSize <= first_in_mem.length) {
-                return new ByteArrayInputStream(ValueString.stringCharset(national)
-                        .encode(CharBuffer.wrap(Arrays.copyOf(first_in_mem, (int) lobSize))).array());
+                return super.getInputStream();
             }
 
             if(Files.exists(tempFile)) {
@@ -508,16 +819,6 @@ public class ValueCLOB extends ValueLOB {
             super.close();
         }
 
-        @Override
-        public byte[] getHash(int algo) {
-            byte[] s = super.getHash(algo);
-            if(s == null && hash.length>0)
-                for (int i = 0; i<hash.length;i++) {
-                    preHash[hashAlgos[i]] = hash[i].digest();
-                }
-            return preHash[algo];
-        }
-
         @Override
         public byte[] forceHash(int algo) throws NoSuchAlgorithmException, IOException {
             if(Files.exists(tempFile))
@@ -527,19 +828,20 @@ public class ValueCLOB extends ValueLOB {
             if(closed.get())
                 throw new IllegalStateException("LOB onDemand has closed");
             if(lobSourceReader.markSupported() && lobSize <= MAX_CONVERTIBLE_TO_STRING_SIZE/2) {
-                MessageDigest hash = MessageDigest.getInstance(HASHES[algo]);
+                MessageDigest hash = messageDigestFromAlgorithm(algo);
                 lock.lock();
                 try {
                     lobSourceReader.mark((int) lobSize);
+                    CharChunkEncoder encoder = new CharChunkEncoder(ValueString.stringCharset(national));
                     try {
-                        var buff = CharBuffer.allocate(1024);
+                        char[] buff = new char[CHAR_BUFFER_SIZE];
                         int n_read;
                         while (0<=(n_read = lobSourceReader.read(buff)))
-                            if(n_read>0) {
-                                hash.update(ValueString.stringCharset(national).encode(buff));
-                            }
+                            encoder.encode(CharBuffer.wrap(buff, 0, n_read), hash::update);
+                        encoder.finish(hash::update);
                     }
                     finally {
+                        encoder.release();
                         //back to the old position
                         lobSourceReader.reset();
                     }
@@ -553,5 +855,84 @@ public class ValueCLOB extends ValueLOB {
             copyReaderToTemp();
             return super.forceHash(algo);
         }
+
+        @Override
+        CharOffsetIndex charIndex() {
+            return copiedIndex;
+        }
+    }
+
+    static class ValueCLOBSpooled extends ValueCLOB {
+        protected final LobSpooler spooler;
+
+        ValueCLOBSpooled(Reader lobSourceReader, Path tempFile, long stringLen, boolean national, int... hashAlgos) throws NoSuchAlgorithmException {
+            super(tempFile, EMPTY_CHARS, stringLen, national, new byte[HASHES.length][]);
+            this.spooler = new LobSpooler(tempFile, new MultiDigest(hashAlgos), preHash);
+            spooler.start(lobSourceReader, ValueString.stringCharset(national));
+        }
+
+        //wait for the whole temp file
+        @Override
+        void spoolToTemp() {
+            try {
+                spooler.await();
+            } catch (IOException e) {
+                throw new RuntimeException("LOB Copy error. "+e.toString());
+            }
+        }
+
+        @Override
+        public String stringValue() {
+            spoolToTemp();
+            return super.stringValue();
+        }
+
+        /**
+         * encoded bytes of the temp file, it does not wait for the copy, only for bytes not copied yet.
+         */
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return spooler.newInput(this);
+        }
+
+        @Override
+        public Reader getReader() throws IOException {
+            return new InputStreamReader(spooler.newInput(this), ValueString.stringCharset(national));
+        }
+
+        @Override
+        public void writeUtf8To(OutputStream out) throws IOException {
+            if(!StandardCharsets.UTF_8.equals(ValueString.stringCharset(national))) {
+                super.writeUtf8To(out); //decoded by getReader()
+                return;
+            }
+            try(InputStream in = getInputStream()) {
+                in.transferTo(out);
+            }
+        }
+
+        @Override
+        public Value convertTo(Types type) {
+            if(!isNull())
+                spoolToTemp();
+            return super.convertTo(type);
+        }
+
+        @Override
+        public byte[] forceHash(int algo) throws NoSuchAlgorithmException, IOException {
+            spooler.await();
+            return super.forceHash(algo);
+        }
+
+        @Override
+        CharOffsetIndex charIndex() {
+            return spooler.charIndex();
+        }
+
+        @Override
+        public void close() throws IOException {
+            spooler.cancel();
+            super.close();
+        }
     }
 }
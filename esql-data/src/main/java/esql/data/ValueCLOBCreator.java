@@ -8,121 +8,176 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 public class ValueCLOBCreator  implements Closeable {
+    //lengths of built CLOBs, for the first block of next ones
+    static final LobBufferPool.Adaptive SIZES = new LobBufferPool.Adaptive();
+
     private final boolean national;
-    CharBuffer first_block = CharBuffer.allocate(ValueLOB.MAX_BUFFERED_SIZE);
+    //pooled, grows by size classes up to MAX_BUFFERED_SIZE, null once handed to the CLOB
+    char[] first_block = LobBufferPool.chars(SIZES.initialSize());
+    private int first_length = 0;
     private FileChannel fo = null;
+    //not built yet, deleted on close
     private Path tempFile = null;
+    //bytes of the temp file reserved in the store
+    private long reserved = 0;
     private long length = 0;
-    private MessageDigest[] hasher = {};
-    private int[] hashAlgos = {};
+    //each chunk is read once for all digests
+    private final MultiDigest digest;
+    //reused for all chunks once spilled, null in memory
+    private CharChunkEncoder encoder = null;
+    //byte offsets of the temp file by chars
+    private CharOffsetIndex index = null;
+    //temp file compressed by blocks, writer once spilled
+    private boolean compress = LobBlocks.isEnabled();
+    private LobBlocks.Writer packer = null;
 
     ValueCLOBCreator(boolean national, int... hashAlgorithms) throws NoSuchAlgorithmException {
         this.national = national;
-        if(hashAlgorithms.length > 0) {
-            hasher = new MessageDigest[hashAlgorithms.length];
-            hashAlgos = new int[hashAlgorithms.length];
-            for(int i=0;i < hashAlgorithms.length;i++) {
-                try {
-                    hashAlgos[i] = hashAlgorithms[i];
-                    hasher[i] = ValueLOB.messageDigestFromAlgorithm(hashAlgorithms[i]);
-                } catch (NoSuchAlgorithmException e) {
-                    throw new AssertionError();
-                }
-            }
-        }
+        this.digest = new MultiDigest(hashAlgorithms);
+    }
+
+    /**
+     * compress the temp file by blocks (default of ValueLOB.setTempCompression), before it is written.
+     * Incompressible blocks are stored as is.
+     */
+    public void setTempCompression(boolean compress) {
+        if (fo != null)
+            throw new IllegalStateException("CLOB temp file is already written");
+        this.compress = compress;
     }
 
     public void writeToLOB(String s) throws IOException {
-        ByteBuffer x = ValueString.stringCharset(national).encode(s);
-        for(MessageDigest hash: hasher) {
-            hash.update(x);
-            x.rewind();
-        }
-        length += s.length();
-        if (first_block.hasRemaining() &&  first_block.remaining() >= s.length()) {
-            first_block.put(s);
-            return;
-        }
-        //splitted to first_block and other.
-        int len = Math.min(first_block.remaining(), s.length());
-        if(len > 0) {
-            first_block.put(s, 0, len);
-            s = s.substring(len);
-        }
+        writeToLOB(CharBuffer.wrap(s));
+    }
 
-        //check to write first time
-        if (fo == null) {
-            tempFile = Files.createTempFile(ValueLOB.tempDir, "ESQL-CLOB", ".txt");
-            //write first block
-            first_block.flip();
-            fo = FileChannel.open(tempFile, StandardOpenOption.WRITE);
-            ByteBuffer fb = ValueString.stringCharset(national).encode(first_block);
-            while (fb.hasRemaining())
-                fo.write(fb);
-            //the position is limit now.
-        }
-        //convert again
-        x = ValueString.stringCharset(national).encode(s);
-        while (x.hasRemaining())
-            fo.write(x);
+    /**
+     * write chars of the array range, the array can be reused after.
+     */
+    public void writeToLOB(char[] chars, int offset, int count) throws IOException {
+        writeToLOB(CharBuffer.wrap(chars, offset, count));
     }
 
+    /**
+     * write the remaining chars, the buffer position is moved to its limit.
+     * Chars are encoded once when spilled to the temp file, the same bytes are hashed and written.
+     */
     public void writeToLOB(CharBuffer data) throws IOException {
+        if (first_block == null)
+            throw new IllegalStateException("CLOB is already built");
         if (!data.hasRemaining())
             return;
-        //HASH calculation
-        ByteBuffer x = ValueString.stringCharset(national).encode(data);
-        for(MessageDigest hash: hasher) {
-            hash.update(x);
-            x.rewind();
-        }
-        length += data.remaining();
-        if (first_block.hasRemaining()) {
-            int remain = first_block.remaining();
-            if (remain >= data.remaining()) {
-                first_block.put(data);
-                return;
-            } else
-                while (first_block.hasRemaining())
-                    first_block.put(data.get());
-        }
-        //check to write first time
+        int count = data.remaining();
+        length += count;
         if (fo == null) {
+            if (first_length + count > first_block.length && first_block.length < ValueLOB.MAX_BUFFERED_SIZE)
+                growFirstBlock(first_length + count);
+            int len = Math.min(count, first_block.length - first_length);
+            data.get(first_block, first_length, len);
+            first_length += len;
+            if (len == count)
+                return;
+            //write first block at first time
             tempFile = Files.createTempFile(ValueLOB.tempDir, "ESQL-CLOB", ".txt");
-            //write first block
             fo = FileChannel.open(tempFile, StandardOpenOption.WRITE);
-            ByteBuffer fb = ValueString.stringCharset(national).encode(first_block);
-            while (fb.hasRemaining())
-                fo.write(fb);
-            //the position is limit now.
+            if (compress)
+                packer = new LobBlocks.Writer(fo);
+            encoder = new CharChunkEncoder(ValueString.stringCharset(national));
+            index = new CharOffsetIndex();
+            index.encode(encoder, CharBuffer.wrap(first_block, 0, first_length), this::spill);
         }
-        //convert again
-        x = ValueString.stringCharset(national).encode(data);
+        index.encode(encoder, data, this::spill);
+    }
+
+    //encoded bytes to the temp file (reserved as is, more than compressed)
+    private void spill(byte[] b, int off, int len) throws IOException {
+        reserve(len);
+        digest.update(b, off, len);
+        if (packer != null) {
+            packer.write(b, off, len);
+            return;
+        }
+        ByteBuffer x = ByteBuffer.wrap(b, off, len);
         while (x.hasRemaining())
             fo.write(x);
     }
 
+    private void reserve(long bytes) throws IOException {
+        LobStore.getDefault().reserve(bytes);
+        reserved += bytes;
+    }
+
+    private void growFirstBlock(int minSize) {
+        char[] b = LobBufferPool.chars(minSize);
+        System.arraycopy(first_block, 0, b, 0, first_length);
+        LobBufferPool.release(first_block);
+        first_block = b;
+    }
+
     public ValueCLOB buildCLOB() {
+        if (first_block == null)
+            throw new IllegalStateException("CLOB is already built");
         if (length == 0)
             return national ? ValueCLOB.EMPTY_NCLOB : ValueCLOB.EMPTY_CLOB;
-        first_block.flip();
-        char[] first_in_mem = new char[first_block.limit()];
-        first_block.get(first_in_mem);
+        SIZES.record(length);
+        byte[] first_encoded = null;
+        LobBlocks blocks = null;
+        if (fo != null) {
+            try {
+                encoder.finish(this::spill);
+                if (packer != null)
+                    blocks = packer.finish();
+                fo.close();
+            } catch (IOException e) {
+                throw new RuntimeException("CLOB temp file close error. "+e.toString());
+            } finally {
+                encoder.release();
+                encoder = null;
+                packer = null;
+            }
+        }
+        else { //encoded once for the hash, kept as bytes of the CLOB
+            first_encoded = CharChunkEncoder.encodeAll(ValueString.stringCharset(national), first_block, 0, first_length);
+            digest.update(first_encoded, 0, first_encoded.length);
+        }
+        //the block is handed to the CLOB, without copy if it is mostly used
+        char[] first_in_mem = LobBufferPool.handOff(first_block, first_length);
+        first_block = null;
 
-        byte[][] hash_holder = new byte[ValueLOB.HASHES.length][];
-        for(int i = 0; i<hasher.length;i++)
-            hash_holder[hashAlgos[i]] = hasher[i].digest();
-        return ValueCLOB.buildCLOB(tempFile, first_in_mem, length, national,
+        byte[][] hash_holder = digest.digest();
+        //the store counts the file from now
+        ValueCLOB clob = ValueCLOB.buildCLOB(tempFile, first_in_mem, first_encoded, index, blocks, length, national,
                 hash_holder);
+        LobStore.getDefault().unreserve(reserved);
+        reserved = 0;
+        tempFile = null;
+        index = null;
+        return clob;
     }
 
     @Override
     public void close() throws IOException {
+        if (first_block != null) { //not built
+            LobBufferPool.release(first_block);
+            first_block = null;
+        }
+        if (encoder != null) {
+            encoder.release();
+            encoder = null;
+        }
+        if (packer != null) {
+            packer.abort();
+            packer = null;
+        }
         if (fo != null && fo.isOpen())
             fo.close();
+        if (tempFile != null) { //not built, nobody refers the file
+            Files.deleteIfExists(tempFile);
+            tempFile = null;
+            LobStore.getDefault().unreserve(reserved);
+            reserved = 0;
+        }
     }
 }
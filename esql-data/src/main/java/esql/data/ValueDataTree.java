@@ -72,6 +72,15 @@ public abstract class ValueDataTree extends Value implements Map<Key, ValueDataT
         public abstract ValueDataTreeElement valueOf(BigInteger val);
         public abstract ValueDataTreeElement valueOf(String val);
         public abstract ValueDataTreeElement valueOf(byte[] val);
+        /**
+         * element of a scalar value: booleans and numbers as they are, other values as string.
+         * String values are kept, their UTF-8 bytes are written to JSON output without decoding.
+         *
+         * @param val the value
+         * @return the element, null element for null value
+         * @throws IllegalArgumentException if the value is not scalar (array, data tree)
+         */
+        public abstract ValueDataTreeElement valueOf(Value val);
 
         public abstract int size();
 
@@ -1,6 +1,5 @@
 package esql.data;
 
-import jakarta.json.Json;
 import jakarta.json.JsonException;
 import jakarta.json.stream.JsonGenerator;
 import javax.xml.stream.XMLOutputFactory;
@@ -119,32 +118,28 @@ public class ValueDataTreeImpl extends ValueDataTree {
             return true;
         }
         else if(element.isMultiLines() && !element.isNeedEscape()) {
-            StringBuffer buff = new StringBuffer(128);
-            boolean lastIsNewLine = element.isNewLineAtLast();
-            //int l = 0;
+            //YAML multi lines, header is known first so lines are written directly
+            if(element.isNewLineAtLast())
+                writer.append(" |");
+            else
+                writer.append(" |-");
+            writer.append(lineSeparator);
             for (CharSequence cs : element.getLineIterator(-1)) {
                 if(curr > 0) {
                     //last level is list
                     if (lastLevel == TREE_CURR_IS_LIST) {
                         //array prefix is already imply a level
                         if(curr > 1)
-                            buff.append(yamlIndentChars[curr - 2]);
+                            writer.write(yamlIndentChars[curr - 2]);
                         //continuous of last level
-                        buff.append(yamlArrayItemContinous);
+                        writer.write(yamlArrayItemContinous);
                     }
                     else {
-                        buff.append(yamlIndentChars[curr - 1]);
+                        writer.write(yamlIndentChars[curr - 1]);
                     }
                 }
-                buff.append(" ").append(cs).append(lineSeparator);
-                //l++;
+                writer.append(" ").append(cs).append(lineSeparator);
             }
-            //YAML multi lines
-            if(lastIsNewLine)
-                writer.append(" |");
-            else
-                writer.append(" |-");
-            writer.append(lineSeparator).append(buff);
         }
         else if(element.isNeedQuote()) {
             //YAML quoted
@@ -303,9 +298,9 @@ public class ValueDataTreeImpl extends ValueDataTree {
     public void writeAsJSON(OutputStream output) throws IOException {
         if(this.map == null)
             return;
-        //dung writer de write
-        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), true)) {
-            writeAsJSON(writer);
+        //strings are written by their values, UTF-8 bytes as is
+        try (OutputStream out = new BufferedOutputStream(output)) {
+            DataTreeJsonWriter.of(out).writeTree(map);
         }
     }
 
@@ -313,11 +308,9 @@ public class ValueDataTreeImpl extends ValueDataTree {
     public void writeAsJSON(Writer writer) throws IOException {
         if(this.map == null)
             return;
-        try(JsonGenerator gen = Json.createGenerator(writer)) {
-            writeAsJSON(gen);
-        }
-        catch (JsonException e) {
-            throw new IOException(e);
+        //closed as by JsonGenerator
+        try(Writer out = writer) {
+            DataTreeJsonWriter.of(out).writeTree(map);
         }
     }
 
@@ -520,10 +513,12 @@ public class ValueDataTreeImpl extends ValueDataTree {
                 writer.writeStartElement(namespaceURI, tagName.origString());
             else
                 writer.writeStartElement(tagName.origString());
-            if(element.isNeedEscape() || element.isMultiLines())
-                writer.writeCData(element.getObject().toString());
-            else { //it is a number or string
-                writer.writeCharacters(element.getObject().toString());
+            //it is a number or string, written by its value
+            XMLCharacters chars = new XMLCharacters(writer, element.isNeedEscape() || element.isMultiLines());
+            try {
+                element.getValue().writeTo(chars);
+            } catch (IOException e) {
+                throw new XMLStreamException(e.getMessage(), e);
             }
             writer.writeEndElement();
             return;
@@ -552,6 +547,42 @@ public class ValueDataTreeImpl extends ValueDataTree {
         }
     }
 
+    /**
+     * chars of a value to the XML writer, as text or CDATA.
+     */
+    static final class XMLCharacters implements Appendable {
+        private final XMLStreamWriter writer;
+        private final boolean cdata;
+
+        XMLCharacters(XMLStreamWriter writer, boolean cdata) {
+            this.writer = writer;
+            this.cdata = cdata;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            try {
+                if(cdata)
+                    writer.writeCData(csq.toString());
+                else
+                    writer.writeCharacters(csq.toString());
+            } catch (XMLStreamException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            return append(csq.subSequence(start, end));
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            return append(String.valueOf(c));
+        }
+    }
+
     private static class TripleOfTreeBuilder {
         final ValueDataTreeElement value;
         final ListBuilder listBuilder;
@@ -637,6 +668,29 @@ public class ValueDataTreeImpl extends ValueDataTree {
             return new StringElement(ValueBytes.bytesToHex(val));
         }
 
+        @Override
+        public ValueDataTreeElement valueOf(Value val) {
+            if(val == null || val.isNull())
+                return NULL_ELEMENT;
+            if(val.isArray() || val instanceof ValueDataTree)
+                throw new IllegalArgumentException("not a scalar value "+val.getType());
+            Types type = val.getType();
+            if(Types.TYPE_BOOLEAN.equals(type))
+                return valueOf(val.isTrue());
+            if(val instanceof ValueNumber) {
+                ValueNumber n = (ValueNumber) val;
+                if(Types.TYPE_ULONG.equals(type))
+                    return valueOf(n.bigIntValue());
+                if(Types.TYPE_DECIMAL.equals(type))
+                    return valueOf(n.decimalValue());
+                if(Types.isInteger(type))
+                    return valueOf(n.longValue());
+                return valueOf(n.doubleValue());
+            }
+            //date/time, bytes and LOBs are coded as string, CLOB in UTF-8 is not decoded
+            return new StringElement((ValueString) val.convertTo(Types.TYPE_STRING));
+        }
+
         @Override
         public TreeBuilder putNull(Key key) {
             Integer n = this.builtValues.size();
@@ -897,11 +951,59 @@ public class ValueDataTreeImpl extends ValueDataTree {
     public String toString() {
         if(map == null)
             return "";
-        return "({"+
-                map.entrySet().stream()
-                        .map(e -> e.getKey()+"="+e.getValue().toString())
-                        .collect(Collectors.joining(","))
-                +"})";
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            throw new AssertionError(e); //StringBuilder does not throw
+        }
+        return sb.toString();
+    }
+
+    /**
+     * same form as toString, sub-trees and lists are streamed without intermediate strings.
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        if(map == null)
+            return;
+        out.append("(");
+        writeTreeElements(map, out);
+        out.append(")");
+    }
+
+    static void writeTreeElements(Map<Key, ValueDataTreeElement> tree, Appendable out) throws IOException {
+        out.append('{');
+        boolean first = true;
+        for (Entry<Key, ValueDataTreeElement> e : tree.entrySet()) {
+            if(!first)
+                out.append(',');
+            out.append(e.getKey().toString()).append('=');
+            writeElement(e.getValue(), out);
+            first = false;
+        }
+        out.append('}');
+    }
+
+    static void writeListElements(List<ValueDataTreeElement> list, Appendable out) throws IOException {
+        out.append('[');
+        boolean first = true;
+        for (ValueDataTreeElement e : list) {
+            if(!first)
+                out.append(',');
+            writeElement(e, out);
+            first = false;
+        }
+        out.append(']');
+    }
+
+    private static void writeElement(ValueDataTreeElement element, Appendable out) throws IOException {
+        if(element instanceof SubTreeElement)
+            writeTreeElements(element.getTree(), out);
+        else if(element instanceof SubListElement)
+            writeListElements(element.getList(), out);
+        else
+            out.append(element.toString());
     }
 
     @Override
@@ -1285,26 +1387,26 @@ class NumberElement implements ValueDataTreeElement {
 }
 
 /**
- * String value implementation
+ * String value implementation, the string value is kept (UTF-8 bytes are not decoded for output).
  */
 class StringElement implements ValueDataTreeElement {
-    private final String value;
+    private final ValueString value;
     private final boolean safe;
 
     StringElement(String value) {
+        this(value == null ? null : (ValueString) ValueString.buildString(Types.TYPE_STRING, value));
+    }
+
+    StringElement(ValueString value) {
         this.value = value;
-        if(value == null || value.isBlank())
-            this.safe = true;
-        else {
-            this.safe = ValueDataTree.detectSpecialChars(this.value) < 0;
-        }
+        this.safe = value == null || ValueDataTree.detectSpecialChars(value.chars()) < 0;
     }
 
     @Override
     public String toString() {
         if(value == null)
             return "<null>";
-        return "\""+value.replaceAll("\n", "\\n").replaceAll("\r", "\\r")
+        return "\""+value.stringValue().replaceAll("\n", "\\n").replaceAll("\r", "\\r")
                 .replaceAll("\"","\\\"")+"\"";
     }
 
@@ -1315,12 +1417,14 @@ class StringElement implements ValueDataTreeElement {
 
     @Override
     public Value getValue() {
-        return ValueString.buildString(Types.TYPE_STRING, value);
+        if(value == null)
+            return Value.nullOf(Types.TYPE_STRING);
+        return value;
     }
 
     @Override
     public Object getObject() {
-        return value;
+        return value == null ? null : value.stringValue();
     }
 
     @Override
@@ -1337,8 +1441,8 @@ class StringElement implements ValueDataTreeElement {
     public boolean isNeedQuote() {
         if(this.value == null)
             return false;
-
-        if(this.value.isEmpty() || this.value.contains(" ") || this.value.contains("\t"))
+        String s = this.value.stringValue();
+        if(s.isEmpty() || s.contains(" ") || s.contains("\t"))
             return true;
         return isNeedEscape();
     }
@@ -1352,14 +1456,14 @@ class StringElement implements ValueDataTreeElement {
     public boolean isMultiLines() {
         if(this.value == null)
             return false;
-        return this.value.contains(ValueDataTreeImpl.lineSeparator);
+        return this.value.stringValue().contains(ValueDataTreeImpl.lineSeparator);
     }
 
     @Override
     public boolean isNewLineAtLast() {
         if(this.value == null)
             return false;
-        return this.value.endsWith(ValueDataTreeImpl.lineSeparator);
+        return this.value.stringValue().endsWith(ValueDataTreeImpl.lineSeparator);
     }
 
     @Override
@@ -1383,27 +1487,28 @@ class StringElement implements ValueDataTreeElement {
     public Iterable<CharSequence> getLineIterator(int lineLength) {
         if(this.value == null)
             return Collections.emptyList();
-        int ni = this.value.indexOf(ValueDataTreeImpl.lineSeparator);
-        if(ni < 0 && (lineLength < 0 || this.value.length() <= lineLength)) {
-            return Collections.singletonList(this.value);
+        String s = this.value.stringValue();
+        int ni = s.indexOf(ValueDataTreeImpl.lineSeparator);
+        if(ni < 0 && (lineLength < 0 || s.length() <= lineLength)) {
+            return Collections.singletonList(s);
         }
         if(lineLength < 0)
-            lineLength = this.value.length();
-        ArrayList<CharSequence> list = new ArrayList<>(this.value.length() / lineLength + 1);
+            lineLength = s.length();
+        ArrayList<CharSequence> list = new ArrayList<>(s.length() / lineLength + 1);
         int p = 0;
-        while (p < this.value.length()) {
+        while (p < s.length()) {
             if(ni > 0 && ni < p + lineLength) {
-                list.add(this.value.subSequence(p, ni));
+                list.add(s.subSequence(p, ni));
                 p = ni + 1;
             }
             else {
-                int j = Math.min(this.value.length(), p + lineLength);
-                    list.add(this.value.subSequence(p, j));
+                int j = Math.min(s.length(), p + lineLength);
+                    list.add(s.subSequence(p, j));
                 p = j;
             }
 
             if(ni > 0)
-                ni = this.value.indexOf(ValueDataTreeImpl.lineSeparator, p);
+                ni = s.indexOf(ValueDataTreeImpl.lineSeparator, p);
         }
         return list;
     }
@@ -1422,8 +1527,13 @@ class SubListElement implements ValueDataTreeElement {
 
     @Override
     public String toString() {
-        return "["+list.stream().map(v -> v.toString())
-                .collect(Collectors.joining(","))+"]";
+        StringBuilder sb = new StringBuilder();
+        try {
+            ValueDataTreeImpl.writeListElements(list, sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
     }
 
     /**
@@ -1519,11 +1629,13 @@ class SubTreeElement implements ValueDataTreeElement {
 
     @Override
     public String toString() {
-        return "{"+
-                map.entrySet().stream()
-                        .map(e -> e.getKey()+"="+e.getValue().toString())
-                        .collect(Collectors.joining(","))
-                +"}";
+        StringBuilder sb = new StringBuilder();
+        try {
+            ValueDataTreeImpl.writeTreeElements(map, sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
     }
 
     @Override
@@ -11,6 +11,7 @@ import java.time.temporal.Temporal;
 public abstract class ValueDateTime  extends Value {
 
     public static final long MILLISECONDS_PER_DAY = 86400*1000;
+    static final long SECONDS_PER_DAY = 86400;
     public static final ValueDateTime NULL_DATE = new ValueNULLDateTime(Types.TYPE_DATE);
     public static final ValueDateTime NULL_TIME = new ValueNULLDateTime(Types.TYPE_TIME);
     public static final ValueDateTime NULL_DATETIME = new ValueNULLDateTime(Types.TYPE_DATETIME);
@@ -73,6 +74,34 @@ public abstract class ValueDateTime  extends Value {
         return new ValueLocalTime(val);
     }
 
+    /**
+     * date of days from 1970-01-01.
+     */
+    static Value buildDate(int epochDay) {
+        return new ValueLocalDate(epochDay);
+    }
+
+    /**
+     * time of nanoseconds from midnight.
+     */
+    static Value buildTime(long nanoOfDay) {
+        return new ValueLocalTime(nanoOfDay);
+    }
+
+    /**
+     * datetime of seconds from 1970-01-01T00:00 (local, without zone) and nanoseconds.
+     */
+    static Value buildLocalDateTime(long epochSecond, int nano) {
+        return new ValueLocalDateTime(epochSecond, nano);
+    }
+
+    /**
+     * timestamp of seconds from the epoch instant and nanoseconds.
+     */
+    static Value buildTimestamp(long epochSecond, int nano) {
+        return new ValueTimestamp(epochSecond, nano);
+    }
+
     /**
      * build date or datetime from miliseconds from epoch.
      *
@@ -101,19 +130,32 @@ public abstract class ValueDateTime  extends Value {
      */
     public abstract Temporal toTemporal();
 
+    /**
+     * Values of the same type are compared by subclasses. A date/time value does not equal its ISO-8601
+     * string, convert the string first (convertTo) to compare by value.
+     */
     @Override
     public boolean equals(Object obj) {
         if(obj == null)
             return false;
         if(obj == this)
             return true;
-        if (obj instanceof ValueDateTime)
-            return this.toTemporal().equals(((ValueDateTime) obj).toTemporal());
-        if (obj instanceof Value)
-            return !((Value) obj).isNull() && this.toTemporal().toString().equals(((Value) obj).stringValue());
+        if (obj instanceof Value) //other types and date/time of other classes
+            return false;
         //compare primitive
         return this.toTemporal().equals(obj);
     }
+
+    /**
+     * hash of the packed fields, the temporal is not created.
+     */
+    @Override
+    public abstract int hashCode();
+
+    static int compareInstant(long epochSecond1, int nano1, long epochSecond2, int nano2) {
+        int c = Long.compare(epochSecond1, epochSecond2);
+        return c != 0 ? c : Integer.compare(nano1, nano2);
+    }
 }
 
 final class ValueNULLDateTime extends ValueDateTime {
@@ -161,6 +203,11 @@ final class ValueNULLDateTime extends ValueDateTime {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+
     @Override
     public int compareTo(Value o) {
         if(o != null && o.isNull())
@@ -170,24 +217,48 @@ final class ValueNULLDateTime extends ValueDateTime {
 }
 
 /**
- * wrapper of LocalDate
+ * date as epoch-day, LocalDate is created on demand.
  */
 class ValueLocalDate extends ValueDateTime {
-    private final LocalDate value;
+    private final int epochDay;
 
     ValueLocalDate(LocalDate value) {
+        this(Math.toIntExact(value.toEpochDay()));
+    }
+
+    ValueLocalDate(int epochDay) {
         super(Types.TYPE_DATE);
-        this.value = value;
+        this.epochDay = epochDay;
+    }
+
+    int epochDay() {
+        return epochDay;
+    }
+
+    private LocalDate value() {
+        return LocalDate.ofEpochDay(epochDay);
     }
 
     @Override
     public Temporal toTemporal() {
-        return value;
+        return value();
     }
 
     @Override
     public String toString() {
-        return "(ValueLocalDate)"+this.value;
+        return "(ValueLocalDate)"+value();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof ValueLocalDate)
+            return epochDay == ((ValueLocalDate) obj).epochDay;
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(epochDay);
     }
 
     @SuppressWarnings("rawtypes")
@@ -195,34 +266,35 @@ class ValueLocalDate extends ValueDateTime {
     public int compareTo(Value o) {
         if(o == null || o.isEmpty())
             return 1; //always bigger
+        if(o instanceof ValueLocalDate) //same type
+            return Integer.compare(epochDay, ((ValueLocalDate) o).epochDay);
+        if(o instanceof ValueLocalDateTime) { //excluding time
+            int c = Long.compare(epochDay, ((ValueLocalDateTime) o).epochDay());
+            if (c == 0) //date-only always smaller datetime if same day.
+                return -1;
+            return c;
+        }
+        if(o instanceof ValueTimestamp) { //start of day in the zone of context
+            ValueTimestamp b = (ValueTimestamp) o;
+            long a = TimeZoneContext.current().toEpochSecond(epochDay * SECONDS_PER_DAY);
+            return compareInstant(a, 0, b.epochSecond(), b.nano());
+        }
         if(o instanceof ValueDateTime) {
             if(o.is(Types.TYPE_TIME))
                 throw new IllegalArgumentException("A date value is only comparable to date/datetime/timestamp value");
             Temporal b = ((ValueDateTime)o).toTemporal();
-            if (b instanceof ChronoLocalDate) //same type
-                return this.value.compareTo((ChronoLocalDate) b);
-            if (b instanceof ChronoLocalDateTime) { //excluding time
-                int c = this.value.compareTo(((ChronoLocalDateTime) b).toLocalDate());
-                if (c == 0) //date-only always smaller datetime if same day.
-                    return -1;
-                return c;
-            }
-            if (b instanceof Instant) { //convert to timestamp at local timezone
-                ZonedDateTime a = this.value.atStartOfDay(ZoneId.systemDefault());
-                return a.toInstant().compareTo((Instant) b);
-            }
-            if (b instanceof ChronoZonedDateTime) { //convert to timestamp at local timezone
-                ZonedDateTime a = this.value.atStartOfDay(ZoneId.systemDefault());
+            if (b instanceof ChronoZonedDateTime) { //convert to timestamp at zone of context
+                ZonedDateTime a = value().atStartOfDay(TimeZoneContext.current().getZone());
                 return a.compareTo((ChronoZonedDateTime) b);
             }
             throw new AssertionError();
         }
         if(o instanceof ValueNumber) {
             long ts = ((ValueNumber)o).longValue();
-            return Long.compare(this.value.toEpochDay()*MILLISECONDS_PER_DAY, ts);
+            return Long.compare(epochDay*MILLISECONDS_PER_DAY, ts);
         }
         if(o instanceof ValueString) {
-            return this.value.toString().compareTo(o.stringValue());
+            return stringValue().compareTo(o.stringValue());
         }
         throw new IllegalArgumentException("Can not compare to "+o);
     }
@@ -233,9 +305,9 @@ class ValueLocalDate extends ValueDateTime {
             case TYPE_DATE:
                 return this;
             case TYPE_DATETIME:
-                return ValueDateTime.buildDateTime(this.value.atStartOfDay());
+                return new ValueLocalDateTime(epochDay * SECONDS_PER_DAY, 0);
             case TYPE_TIMESTAMP:
-                return ValueDateTime.buildDateTime(this.value.atStartOfDay(ZoneId.systemDefault()));
+                return ValueDateTime.buildDateTime(value().atStartOfDay(TimeZoneContext.current().getZone()));
             case TYPE_INT:
             case TYPE_UINT:
             case TYPE_LONG:
@@ -244,12 +316,12 @@ class ValueLocalDate extends ValueDateTime {
             case TYPE_FLOAT:
             case TYPE_DOUBLE:
                 //convert epoch days to milliseconds
-                return ValueNumber.buildNumber(type, this.value.toEpochDay() * ValueDateTime.MILLISECONDS_PER_DAY);
+                return ValueNumber.buildNumber(type, epochDay * ValueDateTime.MILLISECONDS_PER_DAY);
             case TYPE_STRING:
             case TYPE_NSTRING:
-                return ValueString.buildString(type, this.value.toString());
+                return ValueString.buildString(type, stringValue());
             case TYPE_BYTES:
-                return ValueBytes.buildBytes(this.value.toString().getBytes(StandardCharsets.ISO_8859_1));
+                return ValueBytes.buildBytes(stringValue().getBytes(StandardCharsets.ISO_8859_1));
             default:
                 throw new IllegalArgumentException("the \"date\" value can not convert to \""+type+"\" value");
         }
@@ -257,24 +329,59 @@ class ValueLocalDate extends ValueDateTime {
 
     @Override
     public String stringValue() {
-        return value.toString();
+        return value().toString();
     }
 }
 
 /**
- * wrapper of LocalDateTime
+ * datetime without zone as seconds and nano of second from 1970-01-01T00:00,
+ * LocalDateTime is created on demand.
  */
 class ValueLocalDateTime extends ValueDateTime {
-    private final LocalDateTime value;
+    private final long epochSecond;
+    private final int nano;
 
     ValueLocalDateTime(LocalDateTime value) {
+        this(value.toEpochSecond(ZoneOffset.UTC), value.getNano());
+    }
+
+    ValueLocalDateTime(long epochSecond, int nano) {
         super(Types.TYPE_DATETIME);
-        this.value = value;
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+    }
+
+    long epochDay() {
+        return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    }
+
+    long epochSecond() {
+        return epochSecond;
+    }
+
+    int nano() {
+        return nano;
+    }
+
+    private LocalDateTime value() {
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
     }
 
     @Override
     public Temporal toTemporal() {
-        return value;
+        return value();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof ValueLocalDateTime)
+            return epochSecond == ((ValueLocalDateTime) obj).epochSecond && nano == ((ValueLocalDateTime) obj).nano;
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(epochSecond) + nano;
     }
 
     @SuppressWarnings("rawtypes")
@@ -282,32 +389,37 @@ class ValueLocalDateTime extends ValueDateTime {
     public int compareTo(Value o) {
         if(o == null || o.isEmpty())
             return 1; //always bigger
+        if(o instanceof ValueLocalDateTime) { //same type
+            ValueLocalDateTime b = (ValueLocalDateTime) o;
+            int c = Long.compare(epochSecond, b.epochSecond);
+            return c != 0 ? c : Integer.compare(nano, b.nano);
+        }
+        if(o instanceof ValueLocalDate) { //without time
+            int c = Long.compare(epochSecond, ((ValueLocalDate) o).epochDay() * SECONDS_PER_DAY);
+            return c != 0 ? c : Integer.compare(nano, 0);
+        }
+        if(o instanceof ValueTimestamp) { //convert to timestamp at zone of context
+            ValueTimestamp b = (ValueTimestamp) o;
+            long a = TimeZoneContext.current().toEpochSecond(epochSecond);
+            return compareInstant(a, nano, b.epochSecond(), b.nano());
+        }
         if(o instanceof ValueDateTime) {
             if(o.is(Types.TYPE_TIME))
                 throw new IllegalArgumentException("A datetime value is only comparable to date/datetime/timestamp value");
             Temporal b = ((ValueDateTime) o).toTemporal();
-            if (b instanceof ChronoLocalDate) //without time
-                return this.value.compareTo(((ChronoLocalDate) b).atTime(LocalTime.MIDNIGHT));
-            if (b instanceof ChronoLocalDateTime) { //same type
-                return this.value.compareTo(((ChronoLocalDateTime) b));
-            }
-            if (b instanceof Instant) { //convert to timestamp at local timezone
-                ZonedDateTime a = this.value.atZone(ZoneId.systemDefault());
-                return a.toInstant().compareTo((Instant) b);
-            }
-            if (b instanceof ChronoZonedDateTime) { //convert to timestamp at local timezone
-                ZonedDateTime a = this.value.atZone(ZoneId.systemDefault());
-                return a.compareTo(((ChronoZonedDateTime) b).withZoneSameInstant(ZoneId.systemDefault()));
+            if (b instanceof ChronoZonedDateTime) { //convert to timestamp at zone of context
+                ZoneId zone = TimeZoneContext.current().getZone();
+                ZonedDateTime a = value().atZone(zone);
+                return a.compareTo(((ChronoZonedDateTime) b).withZoneSameInstant(zone));
             }
             throw new AssertionError();
         }
         if(o instanceof ValueNumber) {
             long ts = ((ValueNumber)o).longValue();
-            ZoneId systemZone = ZoneId.systemDefault();
-            return Long.compare(this.value.toEpochSecond(systemZone.getRules().getOffset(this.value))*1000, ts);
+            return Long.compare(TimeZoneContext.current().toEpochSecond(epochSecond)*1000, ts);
         }
         if(o instanceof ValueString) {
-            return this.value.toString().compareTo(o.stringValue());
+            return stringValue().compareTo(o.stringValue());
         }
         throw new IllegalArgumentException("Can not compare to "+o);
     }
@@ -316,11 +428,11 @@ class ValueLocalDateTime extends ValueDateTime {
     public Value convertTo(Types type) {
         switch (type) {
             case TYPE_DATE:
-                return ValueDateTime.buildDateTime(this.value.toLocalDate());
+                return new ValueLocalDate(Math.toIntExact(epochDay()));
             case TYPE_DATETIME:
                 return this;
             case TYPE_TIMESTAMP:
-                return ValueDateTime.buildDateTime(this.value.atZone(ZoneId.systemDefault()));
+                return ValueDateTime.buildDateTime(value().atZone(TimeZoneContext.current().getZone()));
             case TYPE_INT:
             case TYPE_UINT:
             case TYPE_LONG:
@@ -328,14 +440,13 @@ class ValueLocalDateTime extends ValueDateTime {
             case TYPE_DECIMAL:
             case TYPE_FLOAT:
             case TYPE_DOUBLE:
-                //convert epoch days to milliseconds
-                ZoneId systemZone = ZoneId.systemDefault();
-                return ValueNumber.buildNumber(type, this.value.toEpochSecond(systemZone.getRules().getOffset(this.value)) * 1000);
+                //convert to milliseconds at zone of context
+                return ValueNumber.buildNumber(type, TimeZoneContext.current().toEpochSecond(epochSecond) * 1000);
             case TYPE_STRING:
             case TYPE_NSTRING:
-                return ValueString.buildString(type, this.value.toString());
+                return ValueString.buildString(type, stringValue());
             case TYPE_BYTES:
-                return ValueBytes.buildBytes(this.value.toString().getBytes(StandardCharsets.ISO_8859_1));
+                return ValueBytes.buildBytes(stringValue().getBytes(StandardCharsets.ISO_8859_1));
             default:
                 throw new IllegalArgumentException("the \"datetime\" value can not convert to \""+type+"\" value");
         }
@@ -343,24 +454,54 @@ class ValueLocalDateTime extends ValueDateTime {
 
     @Override
     public String stringValue() {
-        return value.toString();
+        return value().toString();
     }
 }
 
 /**
- * wrapper of Instant, timestamp at UTC.
+ * timestamp at UTC as seconds and nano of second from epoch, Instant is created on demand.
  */
 class ValueTimestamp extends ValueDateTime {
-    private final Instant value;
+    private final long epochSecond;
+    private final int nano;
 
     ValueTimestamp(Instant value) {
-        super(Types.TYPE_DATETIME);
-        this.value = value;
+        this(value.getEpochSecond(), value.getNano());
+    }
+
+    ValueTimestamp(long epochSecond, int nano) {
+        super(Types.TYPE_TIMESTAMP);
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+    }
+
+    long epochSecond() {
+        return epochSecond;
+    }
+
+    int nano() {
+        return nano;
+    }
+
+    private Instant value() {
+        return Instant.ofEpochSecond(epochSecond, nano);
     }
 
     @Override
     public Temporal toTemporal() {
-        return value;
+        return value();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof ValueTimestamp)
+            return epochSecond == ((ValueTimestamp) obj).epochSecond && nano == ((ValueTimestamp) obj).nano;
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(epochSecond) + 51 * nano; //as Instant
     }
 
     @SuppressWarnings("rawtypes")
@@ -368,26 +509,32 @@ class ValueTimestamp extends ValueDateTime {
     public int compareTo(Value o) {
         if(o == null || o.isEmpty())
             return 1; //always bigger
+        if(o instanceof ValueTimestamp) { //same type
+            ValueTimestamp b = (ValueTimestamp) o;
+            return compareInstant(epochSecond, nano, b.epochSecond, b.nano);
+        }
+        if(o instanceof ValueLocalDate) { //start of day in the zone of context
+            long b = TimeZoneContext.current().toEpochSecond(((ValueLocalDate) o).epochDay() * SECONDS_PER_DAY);
+            return compareInstant(epochSecond, nano, b, 0);
+        }
+        if(o instanceof ValueLocalDateTime) { //datetime in the zone of context
+            ValueLocalDateTime b = (ValueLocalDateTime) o;
+            return compareInstant(epochSecond, nano, TimeZoneContext.current().toEpochSecond(b.epochSecond()), b.nano());
+        }
         if(o instanceof ValueDateTime) {
             if(o.is(Types.TYPE_TIME))
                 throw new IllegalArgumentException("A timestamp value is only comparable to date/datetime/timestamp value");
             Temporal b = ((ValueDateTime) o).toTemporal();
-            if (b instanceof Instant) //same type
-                return this.value.compareTo(((Instant) b));
-            if (b instanceof ChronoLocalDate) //without time
-                return this.value.compareTo(((ChronoLocalDate) b).atTime(LocalTime.MIDNIGHT).toInstant(ZoneOffset.UTC));
-            if (b instanceof ChronoLocalDateTime) //from datetime
-                return this.value.compareTo(((ChronoLocalDateTime) b).toInstant(ZoneOffset.UTC));
             if (b instanceof ChronoZonedDateTime) //convert to timestamp at local timezone
-                return value.compareTo(((ChronoZonedDateTime) b).toInstant());
+                return value().compareTo(((ChronoZonedDateTime) b).toInstant());
             throw new AssertionError();
         }
         if(o instanceof ValueNumber) {
             long ts = ((ValueNumber)o).longValue();
-            return Long.compare(this.value.toEpochMilli(), ts);
+            return Long.compare(value().toEpochMilli(), ts);
         }
         if(o instanceof ValueString) {
-            return this.value.toString().compareTo(o.stringValue());
+            return stringValue().compareTo(o.stringValue());
         }
         throw new IllegalArgumentException("Can not compare to "+o);
     }
@@ -396,11 +543,11 @@ class ValueTimestamp extends ValueDateTime {
     public Value convertTo(Types type) {
         switch (type) {
             case TYPE_TIME:
-                return ValueDateTime.buildDateTime(this.value.atZone(ZoneId.systemDefault()).toLocalTime());
+                return new ValueLocalTime(Math.floorMod(localEpochSecond(), SECONDS_PER_DAY) * 1000_000_000L + nano);
             case TYPE_DATE:
-                return ValueDateTime.buildDateTime(this.value.atZone(ZoneId.systemDefault()).toLocalDate());
+                return new ValueLocalDate(Math.toIntExact(Math.floorDiv(localEpochSecond(), SECONDS_PER_DAY)));
             case TYPE_DATETIME:
-                return ValueDateTime.buildDateTime(this.value.atZone(ZoneId.systemDefault()).toLocalDateTime());
+                return new ValueLocalDateTime(localEpochSecond(), nano);
             case TYPE_TIMESTAMP:
                 return this;
             case TYPE_INT:
@@ -411,12 +558,12 @@ class ValueTimestamp extends ValueDateTime {
             case TYPE_FLOAT:
             case TYPE_DOUBLE:
                 //convert epoch days to milliseconds
-                return ValueNumber.buildNumber(type, this.value.getEpochSecond() * 1000);
+                return ValueNumber.buildNumber(type, epochSecond * 1000);
             case TYPE_STRING:
             case TYPE_NSTRING:
-                return ValueString.buildString(type, this.value.toString());
+                return ValueString.buildString(type, stringValue());
             case TYPE_BYTES:
-                return ValueBytes.buildBytes(this.value.toString().getBytes(StandardCharsets.ISO_8859_1));
+                return ValueBytes.buildBytes(stringValue().getBytes(StandardCharsets.ISO_8859_1));
             default:
                 throw new IllegalArgumentException("the \"timestamp\" value can not convert to \""+type+"\" value");
         }
@@ -424,7 +571,12 @@ class ValueTimestamp extends ValueDateTime {
 
     @Override
     public String stringValue() {
-        return value.toString();
+        return value().toString();
+    }
+
+    //local time in the zone of context
+    private long localEpochSecond() {
+        return TimeZoneContext.current().toLocalEpochSecond(epochSecond);
     }
 }
 
@@ -435,7 +587,7 @@ class ValueTimestampWithTZ extends ValueDateTime {
     private final ZonedDateTime value;
 
     ValueTimestampWithTZ(ZonedDateTime value) {
-        super(Types.TYPE_DATETIME);
+        super(Types.TYPE_TIMESTAMP);
         this.value = value;
     }
 
@@ -444,6 +596,18 @@ class ValueTimestampWithTZ extends ValueDateTime {
         return value;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof ValueTimestampWithTZ)
+            return value.equals(((ValueTimestampWithTZ) obj).value);
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
     @SuppressWarnings("rawtypes")
     @Override
     public int compareTo(Value o) {
@@ -460,9 +624,9 @@ class ValueTimestampWithTZ extends ValueDateTime {
             if (b instanceof ChronoZonedDateTime) //same type
                 return this.value.compareTo(((ChronoZonedDateTime) b));
             if (b instanceof ChronoLocalDate) //without time
-                return this.value.compareTo(((ChronoLocalDate) b).atTime(LocalTime.MIDNIGHT).atZone(ZoneId.systemDefault()));
+                return this.value.compareTo(((ChronoLocalDate) b).atTime(LocalTime.MIDNIGHT).atZone(TimeZoneContext.current().getZone()));
             if (b instanceof ChronoLocalDateTime) { //from datetime
-                return this.value.compareTo(((ChronoLocalDateTime) b).atZone(ZoneId.systemDefault()));
+                return this.value.compareTo(((ChronoLocalDateTime) b).atZone(TimeZoneContext.current().getZone()));
             }
             throw new AssertionError();
         }
@@ -513,44 +677,62 @@ class ValueTimestampWithTZ extends ValueDateTime {
 }
 
 /**
- * wrapper of LocalTime
+ * time as nano of day, LocalTime is created on demand.
  */
 class ValueLocalTime extends ValueDateTime {
-    private final LocalTime value;
+    private final long nanoOfDay;
 
     ValueLocalTime(LocalTime value) {
+        this(value.toNanoOfDay());
+    }
+
+    ValueLocalTime(long nanoOfDay) {
         super(Types.TYPE_TIME);
-        this.value = value;
+        this.nanoOfDay = nanoOfDay;
+    }
+
+    private LocalTime value() {
+        return LocalTime.ofNanoOfDay(nanoOfDay);
     }
 
     @Override
     public Temporal toTemporal() {
-        return value;
+        return value();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof ValueLocalTime)
+            return nanoOfDay == ((ValueLocalTime) obj).nanoOfDay;
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(nanoOfDay);
     }
 
     @Override
     public int compareTo(Value o) {
         if (o == null || o.isEmpty())
             return 1; //always bigger
-        if(o instanceof ValueDateTime) {
-            if(!o.is(Types.TYPE_TIME))
-                throw new IllegalArgumentException("A time value is only comparable to time value");
-            LocalTime b = (LocalTime)((ValueDateTime) o).toTemporal();
-            return this.value.compareTo(b);
-        }
+        if(o instanceof ValueLocalTime)
+            return Long.compare(nanoOfDay, ((ValueLocalTime) o).nanoOfDay);
+        if(o instanceof ValueDateTime)
+            throw new IllegalArgumentException("A time value is only comparable to time value");
         if(o instanceof ValueNumber) {
             long ts = ((ValueNumber)o).longValue();
-            return Long.compare(this.value.toSecondOfDay()*1000, ts);
+            return Long.compare(nanoOfDay / 1000_000_000 * 1000, ts);
         }
         if(o instanceof ValueString) {
-            return this.value.toString().compareTo(o.stringValue());
+            return stringValue().compareTo(o.stringValue());
         }
         throw new IllegalArgumentException("Can not compare to "+o);
     }
 
     @Override
     public String stringValue() {
-        return value.toString();
+        return value().toString();
     }
 
     @Override
@@ -568,12 +750,12 @@ class ValueLocalTime extends ValueDateTime {
             case TYPE_FLOAT:
             case TYPE_DOUBLE:
                 //convert epoch days to milliseconds
-                return ValueNumber.buildNumber(type, this.value.toSecondOfDay() * 1000);
+                return ValueNumber.buildNumber(type, nanoOfDay / 1000_000_000 * 1000);
             case TYPE_STRING:
             case TYPE_NSTRING:
-                return ValueString.buildString(type, this.value.toString());
+                return ValueString.buildString(type, stringValue());
             case TYPE_BYTES:
-                return ValueBytes.buildBytes(this.value.toString().getBytes(StandardCharsets.ISO_8859_1));
+                return ValueBytes.buildBytes(stringValue().getBytes(StandardCharsets.ISO_8859_1));
             default:
                 throw new IllegalArgumentException("the \"time\" value can not convert to \""+type+"\" value");
         }
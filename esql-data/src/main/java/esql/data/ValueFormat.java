@@ -0,0 +1,338 @@
+package esql.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.Temporal;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Output formatting of values (attributes outputFormat, locale, currency and monetary of statement).
+ *
+ * Date/time values take DateTimeFormatter patterns, timestamps are shown in the zone of TimeZoneContext.
+ * Number values take DecimalFormat patterns: plain patterns (like #,##0.00 or 0.0%) are compiled
+ * to a thread-safe formatter writing digits directly, others (exponent, currency sign, quotes...)
+ * and float/double values use a DecimalFormat per thread.
+ * Other values are written as writeTo, null as nothing.
+ *
+ * Formats are shared and cached per (pattern, locale, currency), a format can be used by many threads.
+ * <pre>
+ * ValueFormat f = ValueFormat.of("#,##0.00", locale);
+ * for (...) f.formatTo(value, writer);
+ * </pre>
+ */
+public final class ValueFormat {
+
+    private static final ConcurrentHashMap<String, ValueFormat> FORMATS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+    private static final ThreadLocal<StringBuffer> NUMBER_FORMAT_BUFFER = ThreadLocal.withInitial(StringBuffer::new);
+    private static final int MAX_BUFFER_SIZE = 8 * 1024; //do not keep bigger buffer in threads
+
+    private final String pattern;
+    private final Locale locale;
+    private final Currency currency; //not null for monetary format
+    //compiled on first use, by type of value
+    private volatile DateTimeFormatter dateFormatter;
+    private volatile DecimalPattern decimalPattern;
+    private volatile ThreadLocal<NumberFormat> numberFormats;
+
+    private ValueFormat(String pattern, Locale locale, Currency currency) {
+        this.pattern = pattern;
+        this.locale = locale;
+        this.currency = currency;
+    }
+
+    /**
+     * @param pattern DateTimeFormatter or DecimalFormat pattern, null for default string of value
+     * @param locale locale of the pattern
+     * @return the shared format
+     */
+    public static ValueFormat of(String pattern, Locale locale) {
+        return of(pattern, locale, null, false);
+    }
+
+    /**
+     * @param pattern DateTimeFormatter or DecimalFormat pattern, null for default (currency format of locale if monetary)
+     * @param locale locale of the pattern
+     * @param currency ISO 4217 code, null for currency of the locale
+     * @param monetary number is an amount of currency (currency sign and digits)
+     * @return the shared format
+     * @throws IllegalArgumentException if currency code is invalid
+     */
+    public static ValueFormat of(String pattern, Locale locale, String currency, boolean monetary) {
+        if(pattern != null && pattern.isEmpty())
+            pattern = null;
+        Currency c = null;
+        if(monetary || currency != null)
+            c = currency != null ? Currency.getInstance(currency) : Currency.getInstance(locale);
+        String key = (pattern == null ? "" : pattern) + '\u0000' + locale.toLanguageTag() + '\u0000' + (c == null ? "" : c.getCurrencyCode());
+        ValueFormat f = FORMATS.get(key);
+        if(f == null) {
+            f = new ValueFormat(pattern, locale, c);
+            if(FORMATS.size() >= DateTimeParser.FORMAT_CACHE_SIZE)
+                FORMATS.clear();
+            FORMATS.put(key, f);
+        }
+        return f;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return currency of monetary format, or null
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @param value the value
+     * @return formatted string, empty for null
+     */
+    public String format(Value value) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        try {
+            formatTo(value, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //not from StringBuilder
+        }
+        String s = sb.toString();
+        if(sb.capacity() > MAX_BUFFER_SIZE)
+            BUFFER.remove();
+        return s;
+    }
+
+    /**
+     * write the formatted value to output, nothing for null.
+     *
+     * @param value the value
+     * @param out output
+     * @throws IOException from the output
+     * @throws java.time.DateTimeException if the pattern has fields which the date/time value has not
+     */
+    public void formatTo(Value value, Appendable out) throws IOException {
+        if(value == null || value.isNull())
+            return;
+        if(value instanceof ValueDateTime && pattern != null)
+            formatDateTime((ValueDateTime) value, out);
+        else if(value instanceof ValueNumber && (pattern != null || currency != null))
+            formatNumber((ValueNumber) value, out);
+        else
+            value.writeTo(out);
+    }
+
+    private void formatDateTime(ValueDateTime value, Appendable out) {
+        DateTimeFormatter f = dateFormatter;
+        if(f == null)
+            dateFormatter = f = DateTimeFormatter.ofPattern(pattern, locale);
+        Temporal t = value.toTemporal();
+        if(t instanceof Instant)
+            t = ZonedDateTime.ofInstant((Instant) t, TimeZoneContext.current().getZone());
+        f.formatTo(t, out);
+    }
+
+    private void formatNumber(ValueNumber value, Appendable out) throws IOException {
+        Types type = value.getType();
+        if(currency == null && !Types.TYPE_FLOAT.equals(type) && !Types.TYPE_DOUBLE.equals(type)) {
+            DecimalPattern p = decimalPattern;
+            if(p == null)
+                decimalPattern = p = DecimalPattern.compile(pattern, locale);
+            if(p != DecimalPattern.NOT_COMPILED) {
+                int scale = value.compactScale();
+                if(scale >= 0)
+                    p.format(value.compactUnscaled(), scale, out);
+                else
+                    p.format(value.decimalValue(), out);
+                return;
+            }
+        }
+        ThreadLocal<NumberFormat> local = numberFormats;
+        if(local == null) {
+            NumberFormat prototype = numberFormat();
+            numberFormats = local = ThreadLocal.withInitial(() -> (NumberFormat) prototype.clone());
+        }
+        StringBuffer sb = NUMBER_FORMAT_BUFFER.get();
+        sb.setLength(0);
+        Object n = Types.TYPE_FLOAT.equals(type) || Types.TYPE_DOUBLE.equals(type) ? (Object) value.doubleValue() : value.decimalValue();
+        local.get().format(n, sb, new FieldPosition(0));
+        out.append(sb);
+    }
+
+    private NumberFormat numberFormat() {
+        NumberFormat f;
+        if(pattern == null)
+            f = NumberFormat.getCurrencyInstance(locale);
+        else
+            f = new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale));
+        if(currency != null)
+            f.setCurrency(currency);
+        return f;
+    }
+
+    @Override
+    public String toString() {
+        return "ValueFormat(" + pattern + ", " + locale.toLanguageTag() + (currency != null ? ", " + currency : "") + ")";
+    }
+
+    /**
+     * plain DecimalFormat pattern: prefix, grouping, integer and fraction digits, suffix, percent or per mille,
+     * without exponent, currency or rounding increment. Digits are rounded HALF_EVEN as DecimalFormat.
+     */
+    static final class DecimalPattern {
+        static final DecimalPattern NOT_COMPILED = new DecimalPattern();
+        private static final long[] POW10 = {
+                1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+                10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+                1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L,
+        };
+
+        String prefix;
+        String suffix;
+        String negativePrefix;
+        String negativeSuffix;
+        int multiplierScale; //power of ten of multiplier: 0, 2 for percent, 3 for per mille
+        int minInt;
+        int minFraction;
+        int maxFraction;
+        int groupingSize; //0 for no grouping
+        char zero;
+        char groupingSeparator;
+        char decimalSeparator;
+
+        /**
+         * settings are taken from the DecimalFormat of the pattern.
+         *
+         * @return NOT_COMPILED if the pattern is not plain
+         * @throws IllegalArgumentException if the pattern is invalid
+         */
+        static DecimalPattern compile(String pattern, Locale locale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            DecimalFormat f = new DecimalFormat(pattern, symbols);
+            String p = f.toPattern();
+            //exponent, currency sign, rounding increment (digits 1-9)
+            for (int i = 0; i < p.length(); i++) {
+                char c = p.charAt(i);
+                if(c == 'E' || c == '\u00a4' || (c >= '1' && c <= '9'))
+                    return NOT_COMPILED;
+            }
+            int multiplierScale = f.getMultiplier() == 1 ? 0 : f.getMultiplier() == 100 ? 2 : f.getMultiplier() == 1000 ? 3 : -1;
+            if(multiplierScale < 0 || f.isDecimalSeparatorAlwaysShown() || f.getRoundingMode() != RoundingMode.HALF_EVEN
+                    || f.getMaximumFractionDigits() > 18 || f.getMaximumIntegerDigits() < Integer.MAX_VALUE)
+                return NOT_COMPILED;
+            DecimalPattern d = new DecimalPattern();
+            d.prefix = f.getPositivePrefix();
+            d.suffix = f.getPositiveSuffix();
+            d.negativePrefix = f.getNegativePrefix();
+            d.negativeSuffix = f.getNegativeSuffix();
+            d.multiplierScale = multiplierScale;
+            d.minInt = f.getMinimumIntegerDigits();
+            d.minFraction = f.getMinimumFractionDigits();
+            d.maxFraction = f.getMaximumFractionDigits();
+            d.groupingSize = f.isGroupingUsed() ? f.getGroupingSize() : 0;
+            d.zero = symbols.getZeroDigit();
+            d.groupingSeparator = symbols.getGroupingSeparator();
+            d.decimalSeparator = symbols.getDecimalSeparator();
+            return d;
+        }
+
+        void format(BigDecimal value, Appendable out) throws IOException {
+            value = value.movePointRight(multiplierScale);
+            BigDecimal rounded = value.setScale(maxFraction, RoundingMode.HALF_EVEN);
+            if(rounded.unscaledValue().bitLength() < 64 && rounded.unscaledValue().longValue() != Long.MIN_VALUE) {
+                write(value.signum() < 0, Math.abs(rounded.unscaledValue().longValue()), maxFraction, out);
+                return;
+            }
+            String digits = rounded.unscaledValue().abs().toString();
+            write(value.signum() < 0, digits.toCharArray(), digits.length(), maxFraction, out);
+        }
+
+        void format(long unscaled, int scale, Appendable out) throws IOException {
+            if(unscaled == Long.MIN_VALUE) {
+                format(BigDecimal.valueOf(unscaled, scale), out);
+                return;
+            }
+            boolean negative = unscaled < 0;
+            long abs = Math.abs(unscaled);
+            if(multiplierScale > 0) {
+                if(scale >= multiplierScale)
+                    scale -= multiplierScale;
+                else {
+                    int n = multiplierScale - scale;
+                    if(abs > Long.MAX_VALUE / POW10[n]) {
+                        format(BigDecimal.valueOf(unscaled, scale), out);
+                        return;
+                    }
+                    abs *= POW10[n];
+                    scale = 0;
+                }
+            }
+            if(scale > maxFraction) { //round HALF_EVEN
+                long div = POW10[scale - maxFraction];
+                long q = abs / div;
+                long r = abs % div;
+                long half = div / 2;
+                if(r > half || (r == half && (q & 1) != 0))
+                    q++;
+                abs = q;
+                scale = maxFraction;
+            }
+            write(negative, abs, scale, out);
+        }
+
+        private void write(boolean negative, long abs, int scale, Appendable out) throws IOException {
+            char[] digits = new char[19];
+            int n = 0;
+            for (long v = abs; v != 0; v /= 10)
+                digits[digits.length - 1 - n++] = (char) ('0' + v % 10);
+            System.arraycopy(digits, digits.length - n, digits, 0, n);
+            write(negative, digits, n, scale, out);
+        }
+
+        //digits of absolute value without leading zeros (n = 0 for zero), scale <= maxFraction
+        private void write(boolean negative, char[] digits, int n, int scale, Appendable out) throws IOException {
+            int fraction = scale; //fraction digits to show, trailing zeros removed
+            while (fraction > minFraction && digit(digits, n, n - scale + fraction - 1) == '0')
+                fraction--;
+            int intDigits = Math.max(n - scale, 0);
+            int width = Math.max(intDigits, minInt);
+            out.append(negative ? negativePrefix : prefix);
+            int offset = zero - '0';
+            for (int i = 0; i < width; i++) {
+                int d = i - (width - intDigits);
+                out.append(d < 0 ? zero : (char) (digits[d] + offset));
+                int left = width - 1 - i;
+                if(groupingSize > 0 && left > 0 && left % groupingSize == 0)
+                    out.append(groupingSeparator);
+            }
+            if(fraction > 0 || minFraction > 0) {
+                out.append(decimalSeparator);
+                for (int i = 0; i < Math.max(fraction, minFraction); i++)
+                    out.append(i >= scale ? zero : (char) (digit(digits, n, n - scale + i) + offset));
+            }
+            else if(width == 0)
+                out.append(zero);
+            out.append(negative ? negativeSuffix : suffix);
+        }
+
+        private static char digit(char[] digits, int n, int index) {
+            return index < 0 ? '0' : digits[index];
+        }
+    }
+}
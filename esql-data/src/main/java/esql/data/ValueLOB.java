@@ -3,12 +3,24 @@ package esql.data;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.stream.IntStream;
 
 public abstract class ValueLOB extends Value implements Closeable {
@@ -17,14 +29,26 @@ public abstract class ValueLOB extends Value implements Closeable {
     public static final int SHA256 = 2;
     public static final int SHA384 = 3;
     public static final int SHA512 = 4;
+    //non-cryptographic, fast to tell LOBs apart
+    public static final int CRC32C = 5;
+    public static final int XXHASH64 = 6;
     static final String[] HASHES = {
-            "MD5", "SHA-1","SHA-256", "SHA-384", "SHA-512"
+            "MD5", "SHA-1","SHA-256", "SHA-384", "SHA-512", "CRC32C", "XXH64"
     };
+    //algorithms from the strongest, the first one both LOBs have is compared
+    static final int[] BY_STRENGTH = { SHA512, SHA384, SHA256, SHA1, MD5, XXHASH64, CRC32C };
 
     public static MessageDigest messageDigestFromAlgorithm(int g) throws NoSuchAlgorithmException {
-        if(g < 0 || g > HASHES.length)
-            throw new IllegalArgumentException("value is not in range 0.."+HASHES.length);
-        return MessageDigest.getInstance(HASHES[g]);
+        if(g < 0 || g >= HASHES.length)
+            throw new IllegalArgumentException("value is not in range 0.."+(HASHES.length-1));
+        switch (g) {
+            case CRC32C:
+                return new FastDigests.Crc32c();
+            case XXHASH64:
+                return new FastDigests.XxHash64();
+            default:
+                return MessageDigest.getInstance(HASHES[g]);
+        }
     }
 
     public static final int DEFAULT_HASH_ALGO = MD5;
@@ -45,7 +69,9 @@ public abstract class ValueLOB extends Value implements Closeable {
             ValueBytes.hexToBytes("da39a3ee5e6b4b0d3255bfef95601890afd80709"),
             ValueBytes.hexToBytes("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"),
             ValueBytes.hexToBytes("38b060a751ac96384cd9327eb1b1e36a21fdb71114be07434c0cc7bf63f6e1da274edebfe76f65fbd51ad2f14898b95b"),
-            ValueBytes.hexToBytes("cf83e1357eefb8bdf1542850d66d8007d620e4050b5715dc83f4a921d36ce9ce47d0d13c5d85f2b0ff8318d2877eec2f63b931bd47417a81a538327af927da3e")
+            ValueBytes.hexToBytes("cf83e1357eefb8bdf1542850d66d8007d620e4050b5715dc83f4a921d36ce9ce47d0d13c5d85f2b0ff8318d2877eec2f63b931bd47417a81a538327af927da3e"),
+            ValueBytes.hexToBytes("00000000"),
+            ValueBytes.hexToBytes("ef46db3751d8e999")
     };
 
     static final byte[] EMPTY_BYTES = new byte[0];
@@ -61,6 +87,26 @@ public abstract class ValueLOB extends Value implements Closeable {
         this.preHash = pre_hash;
     }
 
+    /**
+     * set the executor of background spooling (ValueBLOB.spool, ValueCLOB.spool), for example
+     * a virtual thread per task executor on JDK 21+. Tasks block on I/O. Null restores the default
+     * cached pool of daemon threads.
+     */
+    public static void setSpoolExecutor(Executor executor) {
+        LobSpooler.setExecutor(executor);
+    }
+
+    /**
+     * compress the temp files of LOBs built after, by default of creators (esql.data.lob.compress).
+     * Compressed files are read transparently, by independent blocks.
+     *
+     * @see ValueBLOBCreator#setTempCompression(boolean)
+     * @see ValueCLOBCreator#setTempCompression(boolean)
+     */
+    public static void setTempCompression(boolean compress) {
+        LobBlocks.setEnabled(compress);
+    }
+
     /**
      * create BLOBCreator (or builder) that to writing data for the new BLOB.
      *
@@ -93,7 +139,7 @@ public abstract class ValueLOB extends Value implements Closeable {
 
     protected int[] findConvenienceAlgorithms() {
         var used = IntStream.range(0, HASHES.length)
-                .filter(t -> preHash[t] != null).toArray();
+                .filter(t -> t < preHash.length && preHash[t] != null).toArray();
         if(used.length == 0)
             return DEFAULT_HASH_ALGOS;
         return used;
@@ -114,16 +160,9 @@ public abstract class ValueLOB extends Value implements Closeable {
             if(c != 0)
                 return c;
             //comparing LOBs by comparing its hash.
-            if(preHash.length > 0 && ((ValueLOB) o).preHash.length > 0) { //compare hashed
-                for(int algos = HASHES.length - 1; algos >= 0; algos--) {
-                    if(preHash.length <= algos+1 || ((ValueLOB) o).preHash.length <= algos+1)
-                        continue;
-                    byte[] h1 = preHash[algos];
-                    byte[] h2 = ((ValueLOB) o).preHash[algos];
-                    if(h1 != null && h2 != null)
-                        return Arrays.compare(h1, h2);
-                }
-            }
+            int algo = commonAlgorithm((ValueLOB) o);
+            if(algo >= 0)
+                return Arrays.compare(preHash[algo], ((ValueLOB) o).preHash[algo]);
 
             throw new IllegalStateException("No available hashes to compare objects");
             //TODO: force comparing by hash, it is slow for large, I still considering...
@@ -140,31 +179,106 @@ public abstract class ValueLOB extends Value implements Closeable {
         return 1;
     }
 
-    @SuppressWarnings("unlikely-arg-type")
+    /**
+     * LOBs of the same kind (BLOB, or CLOB/NCLOB) are equal by size and content: compared by the strongest hash
+     * pre-calculated by both, or read if there is none. An on-demand LOB is spooled to its temp file to be read,
+     * its source is not consumed. A BLOB does not equal a bytes value, convert it first (convertTo).
+     */
     @Override
     public boolean equals(Object obj) {
-        if(obj == null)
-            return false;
         if(obj == this)
             return true;
-        if(obj instanceof ValueLOB) {
-            if(this.size() != ((ValueLOB) obj).size())
-                return false;
-            if (preHash.length > 0 && ((ValueLOB) obj).preHash.length > 0) { //compare hashed
-                for (int algos = 0; algos < HASHES.length; algos++) {
-                    if (preHash.length <= algos + 1 || ((ValueLOB) obj).preHash.length <= algos + 1)
-                        break;
-                    byte[] h1 = preHash[algos];
-                    byte[] h2 = ((ValueLOB) obj).preHash[algos];
-                    if (h1 != null && h2 != null)
-                        return Arrays.equals(h1, h2);
-                }
+        if(!(obj instanceof ValueLOB) || isNull())
+            return false;
+        ValueLOB o = (ValueLOB) obj;
+        //bytes are not chars
+        if(o.isNull() || (getType() == Types.TYPE_BLOB) != (o.getType() == Types.TYPE_BLOB))
+            return false;
+        return equalContent(o);
+    }
+
+    private boolean equalContent(ValueLOB o) {
+        if(this.size() != o.size())
+            return false;
+        //compare hashed
+        int algo = commonAlgorithm(o);
+        if(algo >= 0)
+            return Arrays.equals(preHash[algo], o.preHash[algo]);
+        try {
+            //CLOB and NCLOB of different charsets, compare chars
+            if(getType() != o.getType() && !ValueString.stringCharset(false).equals(ValueString.stringCharset(true)))
+                return equalChars(((ValueCLOB) this).getReader(0), ((ValueCLOB) o).getReader(0));
+            //compare by chunks
+            int chunk = (int) Math.min(LobStore.SPOOL_CHUNK_SIZE, 4 * lobSize + 1); //up to 4 bytes a char
+            ByteBuffer a = ByteBuffer.allocate(chunk);
+            ByteBuffer b = ByteBuffer.allocate(chunk);
+            for (long position = 0;;) {
+                int n = readChunk(a, position);
+                if(n != o.readChunk(b, position) || !a.flip().equals(b.flip()))
+                    return false;
+                if(n < chunk)
+                    return true;
+                position += n;
+                a.clear();
+                b.clear();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //fill the buffer from the position, fewer bytes only at the end of content
+    private int readChunk(ByteBuffer dst, long position) throws IOException {
+        int n = 0;
+        int r;
+        while (dst.hasRemaining() && 0 <= (r = read(dst, position + n)))
+            n += r;
+        return n;
+    }
+
+    private static boolean equalChars(Reader a, Reader b) throws IOException {
+        try(a; b) {
+            char[] buffA = new char[ValueCLOB.CHAR_BUFFER_SIZE];
+            char[] buffB = new char[ValueCLOB.CHAR_BUFFER_SIZE];
+            while (true) {
+                int n = readChars(a, buffA);
+                if(n != readChars(b, buffB) || !Arrays.equals(buffA, 0, n, buffB, 0, n))
+                    return false;
+                if(n < buffA.length)
+                    return true;
             }
         }
-        else if(obj instanceof ValueBytes) { //using equals from ValueBytes.
-            return ((ValueBytes)obj).equals(this);
+    }
+
+    private static int readChars(Reader in, char[] buff) throws IOException {
+        int n = 0;
+        int r;
+        while (n < buff.length && 0 <= (r = in.read(buff, n, buff.length - n)))
+            n += r;
+        return n;
+    }
+
+    //the strongest algorithm pre-calculated by both LOBs, -1 if none
+    private int commonAlgorithm(ValueLOB o) {
+        for (int algo : BY_STRENGTH) {
+            if(hashOf(algo) != null && o.hashOf(algo) != null)
+                return algo;
         }
-        return false;
+        return -1;
+    }
+
+    private byte[] hashOf(int algo) {
+        return algo < preHash.length ? preHash[algo] : null;
+    }
+
+    /**
+     * LOB content is not read for hashing, equal LOBs have the same size.
+     */
+    @Override
+    public int hashCode() {
+        if(isNull())
+            return 0;
+        return Long.hashCode(lobSize);
     }
 
     /**
@@ -175,6 +289,16 @@ public abstract class ValueLOB extends Value implements Closeable {
      */
     public abstract InputStream getInputStream() throws IOException;
 
+    /**
+     * LOB content is written in full through an UTF-8 encoding writer, by chunks.
+     */
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeTo(writer);
+        writer.flush(); //not close the output
+    }
+
     /**
      * LOB length in bytes for BLOB and chars for CLOB.
      *
@@ -204,13 +328,11 @@ public abstract class ValueLOB extends Value implements Closeable {
      * @return -1 if not found
      */
     public int getStrongestAlgorithmAvailableHash() {
-        int g = HASHES.length-1;
-        while (g >= 0) {
-            if(g < preHash.length - 1 && preHash[g] != null)
-                break;
-            g--;
+        for (int algo : BY_STRENGTH) {
+            if(hashOf(algo) != null)
+                return algo;
         }
-        return g;
+        return -1;
     }
 
     /**
@@ -218,15 +340,11 @@ public abstract class ValueLOB extends Value implements Closeable {
      * @return -1 if not found
      */
     public int getWeakestAlgorithmAvailableHash() {
-        int g = 0;
-        while (g < HASHES.length-1) {
-            if(g < preHash.length - 1 && preHash[g] != null)
-                break;
-            g++;
+        for (int i = BY_STRENGTH.length - 1; i >= 0; i--) {
+            if(hashOf(BY_STRENGTH[i]) != null)
+                return BY_STRENGTH[i];
         }
-        if(g>=preHash.length)
-            return -1;
-        return g;
+        return -1;
     }
 
     /**
@@ -244,4 +362,186 @@ public abstract class ValueLOB extends Value implements Closeable {
      * @return temporally file path
      */
     abstract Path getTempFile();
+
+    /**
+     * content bytes held in memory when there is no temp file (BLOB bytes, CLOB chars encoded).
+     *
+     * @throws IllegalStateException if the temp file is gone
+     */
+    abstract ByteBuffer inMemoryBytes();
+
+    /**
+     * copy the source of on-demand LOB to the temp file, before reading it by channel.
+     */
+    void spoolToTemp() {
+    }
+
+    /**
+     * blocks of a compressed temp file, null if the temp file is the content as is.
+     */
+    LobBlocks tempBlocks() {
+        return null;
+    }
+
+    /**
+     * stream of the temp file content from a byte position, inflated if the file is compressed.
+     */
+    InputStream openTemp(long position) throws IOException {
+        LobBlocks blocks = tempBlocks();
+        if(blocks != null)
+            return blocks.newInput(getTempFile(), position);
+        FileChannel channel = FileChannel.open(getTempFile(), StandardOpenOption.READ);
+        return Channels.newInputStream(channel.position(position));
+    }
+
+    /**
+     * number of content bytes of the temp file.
+     */
+    long tempLength() throws IOException {
+        LobBlocks blocks = tempBlocks();
+        return blocks != null ? blocks.length() : Files.size(getTempFile());
+    }
+
+    /**
+     * ratio of content bytes by temp file bytes, 1.0 if the content is not compressed.
+     */
+    public double getCompressionRatio() {
+        LobBlocks blocks = tempBlocks();
+        return blocks == null ? 1.0 : blocks.ratio();
+    }
+
+    //temp file of the whole content, null if the content is in memory
+    private Path contentFile() {
+        if(isNull())
+            return null;
+        spoolToTemp();
+        Path file = getTempFile();
+        return file != null && Files.exists(file) ? file : null;
+    }
+
+    /**
+     * write the whole content (bytes of getInputStream) to the channel.
+     * The temp file is sent by FileChannel.transferTo, which may use zero-copy (sendfile) of the OS,
+     * a compressed one is inflated by blocks.
+     *
+     * @param target channel in blocking mode, it is not closed
+     * @return number of bytes written
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        Path file = contentFile();
+        if(file == null) {
+            ByteBuffer b = isNull() ? ByteBuffer.wrap(EMPTY_BYTES) : inMemoryBytes();
+            long n = b.remaining();
+            while (b.hasRemaining())
+                target.write(b);
+            return n;
+        }
+        if(tempBlocks() != null) {
+            try(InputStream in = openTemp(0)) {
+                byte[] buff = new byte[LobBlocks.BLOCK_SIZE];
+                long n = 0;
+                int r;
+                while (0 <= (r = in.read(buff))) {
+                    ByteBuffer b = ByteBuffer.wrap(buff, 0, r);
+                    while (b.hasRemaining())
+                        target.write(b);
+                    n += r;
+                }
+                return n;
+            }
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size)
+                position += channel.transferTo(position, size - position, target);
+            return position;
+        }
+    }
+
+    /**
+     * read content bytes from a position, without moving any stream.
+     * Fewer bytes than remaining of dst may be read, as FileChannel.read(ByteBuffer, long).
+     *
+     * @param dst buffer to read into
+     * @param position byte position in the content
+     * @return number of bytes read, -1 if position is at or beyond the end
+     */
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if(position < 0)
+            throw new IllegalArgumentException("negative position");
+        Path file = contentFile();
+        if(file == null) {
+            ByteBuffer b = isNull() ? ByteBuffer.wrap(EMPTY_BYTES) : inMemoryBytes();
+            if(position >= b.remaining())
+                return -1;
+            b.position(b.position() + (int) position);
+            int n = Math.min(b.remaining(), dst.remaining());
+            b.limit(b.position() + n);
+            dst.put(b);
+            return n;
+        }
+        if(tempBlocks() != null)
+            return tempBlocks().read(file, dst, position);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.read(dst, position);
+        }
+    }
+
+    /**
+     * read-only view of the whole content bytes, mapped from the temp file or wrapped from memory.
+     * A compressed temp file is inflated to a heap buffer.
+     *
+     * @throws IllegalStateException if the content is larger than a ByteBuffer, use mapReadOnly(position, size) by slices
+     * @see #mapReadOnly(long, long)
+     */
+    public ByteBuffer mapReadOnly() throws IOException {
+        Path file = contentFile();
+        if(file == null)
+            return (isNull() ? ByteBuffer.wrap(EMPTY_BYTES) : inMemoryBytes()).slice().asReadOnlyBuffer();
+        if(tempBlocks() != null) {
+            if(tempLength() > Integer.MAX_VALUE)
+                throw new IllegalStateException("LOB is too large to map at once");
+            return mapReadOnly(0, tempLength());
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE)
+                throw new IllegalStateException("LOB is too large to map at once");
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * read-only view of a range of content bytes, a MappedByteBuffer for the temp file.
+     * The mapping is valid after the LOB is closed, until it is garbage collected,
+     * but the temp file may not be deleted while it is mapped on some platforms.
+     * A range of a compressed temp file is inflated to a heap buffer.
+     *
+     * @param position byte position in the content
+     * @param size number of bytes, at most Integer.MAX_VALUE
+     * @throws IllegalArgumentException if the range is out of the content
+     */
+    public ByteBuffer mapReadOnly(long position, long size) throws IOException {
+        if(position < 0 || size < 0 || size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("invalid range to map");
+        Path file = contentFile();
+        if(file == null) {
+            ByteBuffer b = isNull() ? ByteBuffer.wrap(EMPTY_BYTES) : inMemoryBytes();
+            if(position + size > b.remaining())
+                throw new IllegalArgumentException("range is out of the LOB");
+            return b.slice(b.position() + (int) position, (int) size).asReadOnlyBuffer();
+        }
+        if(tempBlocks() != null) {
+            if(position + size > tempLength())
+                throw new IllegalArgumentException("range is out of the LOB");
+            try(InputStream in = openTemp(position)) {
+                return ByteBuffer.wrap(in.readNBytes((int) size)).asReadOnlyBuffer();
+            }
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(position + size > channel.size())
+                throw new IllegalArgumentException("range is out of the LOB");
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+    }
 }
@@ -1,7 +1,11 @@
 package esql.data;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
 
 public abstract class ValueNumber extends Value {
 
@@ -52,20 +56,20 @@ public abstract class ValueNumber extends Value {
     public final static ValueNumberObject ULONG_TWO = new ValueNumberObject(Types.TYPE_ULONG, BigInteger.TWO);
     public final static ValueNumberObject ULONG_TEN = new ValueNumberObject(Types.TYPE_ULONG, BigInteger.TEN);
 
-    public final static ValueNumberObject DECIMAL_ZERO = new ValueNumberObject(Types.TYPE_DECIMAL, BigDecimal.ZERO);
-    public final static ValueNumberObject DECIMAL_ONE = new ValueNumberObject(Types.TYPE_DECIMAL, BigDecimal.ONE);
-    public final static ValueNumberObject DECIMAL_TWO = new ValueNumberObject(Types.TYPE_DECIMAL, BigDecimal.valueOf(2L));
-    public final static ValueNumberObject DECIMAL_TEN = new ValueNumberObject(Types.TYPE_DECIMAL, BigDecimal.TEN);
+    public final static ValueNumberCompactDecimal DECIMAL_ZERO = new ValueNumberCompactDecimal(0, 0);
+    public final static ValueNumberCompactDecimal DECIMAL_ONE = new ValueNumberCompactDecimal(1, 0);
+    public final static ValueNumberCompactDecimal DECIMAL_TWO = new ValueNumberCompactDecimal(2, 0);
+    public final static ValueNumberCompactDecimal DECIMAL_TEN = new ValueNumberCompactDecimal(10, 0);
 
-    public final static ValueNumberObject FLOAT_ZERO = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.ZERO);
-    public final static ValueNumberObject FLOAT_ONE = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.ONE);
-    public final static ValueNumberObject FLOAT_TWO = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.valueOf(2L));
-    public final static ValueNumberObject FLOAT_TEN = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.TEN);
+    public final static ValueNumberFloat FLOAT_ZERO = new ValueNumberFloat(0f);
+    public final static ValueNumberFloat FLOAT_ONE = new ValueNumberFloat(1f);
+    public final static ValueNumberFloat FLOAT_TWO = new ValueNumberFloat(2f);
+    public final static ValueNumberFloat FLOAT_TEN = new ValueNumberFloat(10f);
 
-    public final static ValueNumberObject DOUBLE_ZERO = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.ZERO);
-    public final static ValueNumberObject DOUBLE_ONE = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.ONE);
-    public final static ValueNumberObject DOUBLE_TWO = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.valueOf(2L));
-    public final static ValueNumberObject DOUBLE_TEN = new ValueNumberObject(Types.TYPE_FLOAT, BigDecimal.TEN);
+    public final static ValueNumberDouble DOUBLE_ZERO = new ValueNumberDouble(0d);
+    public final static ValueNumberDouble DOUBLE_ONE = new ValueNumberDouble(1d);
+    public final static ValueNumberDouble DOUBLE_TWO = new ValueNumberDouble(2d);
+    public final static ValueNumberDouble DOUBLE_TEN = new ValueNumberDouble(10d);
 
     private static final ValueNumber[][] STATIC_VAL_MATRIX = {
             { BYTE_ZERO, BYTE_ONE, BYTE_TWO, BYTE_TEN, }, //0
@@ -81,7 +85,16 @@ public abstract class ValueNumber extends Value {
             { DOUBLE_ZERO, DOUBLE_ONE, DOUBLE_TWO, DOUBLE_TEN, }, //10
     };
 
-    private static boolean integerUsingPool = "true".equals(System.getProperty("ESQL_INTEGER_USING_POOL", System.getenv("ESQL_INTEGER_USING_POOL")));
+    //cache of small integer values per type (byte to long), same idea as Integer.valueOf().
+    //range is set by system properties, high lower than low disables the cache.
+    static final int CACHE_LOW = Integer.getInteger("esql.data.number.cache.low", -128);
+    static final int CACHE_HIGH = (int) Math.min(Integer.getInteger("esql.data.number.cache.high", 1024),
+            (long) CACHE_LOW + (1 << 20));
+    private static final int CACHE_SIZE = Math.max(0, CACHE_HIGH - CACHE_LOW + 1);
+    //byte, ubyte, short, ushort, int, uint, long (same index as STATIC_VAL_MATRIX)
+    private static final ValueNumber[][] INTEGER_CACHE = new ValueNumber[7][CACHE_SIZE];
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
 
     private static final int typeToIndex(Types type) {
         int i = -1;
@@ -153,7 +166,86 @@ public abstract class ValueNumber extends Value {
         return null;
     }
 
+    /**
+     * lookup the integer cache, create the cached value if needed.
+     *
+     * @return cached value, or null if type is not cached or value is out of range.
+     */
+    private static final ValueNumber useCachedValue(Types type, long value) {
+        long key;
+        switch (type) {
+            case TYPE_BYTE:
+                key = (byte) value;
+                break;
+            case TYPE_UBYTE:
+                key = value & 0xff;
+                break;
+            case TYPE_SHORT:
+                key = (short) value;
+                break;
+            case TYPE_USHORT:
+                key = value & 0xffff;
+                break;
+            case TYPE_INT:
+                key = (int) value;
+                break;
+            case TYPE_UINT:
+                key = value & 0xffffffffL;
+                break;
+            case TYPE_LONG:
+                key = value;
+                break;
+            default:
+                return null;
+        }
+        if(key < CACHE_LOW || key > CACHE_HIGH) {
+            cacheMisses.increment();
+            return null;
+        }
+        ValueNumber[] slots = INTEGER_CACHE[typeToIndex(type)];
+        int i = (int) (key - CACHE_LOW);
+        ValueNumber v = slots[i];
+        if(v != null) {
+            cacheHits.increment();
+            return v;
+        }
+        //immutable, racing creation is harmless
+        v = useStaticValue(type, key);
+        if(v == null) {
+            if (Types.TYPE_UINT.equals(type))
+                v = new ValueNumberUInt(key);
+            else if (Types.TYPE_LONG.equals(type))
+                v = new ValueNumberLong(key);
+            else
+                v = new ValueNumberInt(type, (int) key);
+        }
+        slots[i] = v;
+        cacheMisses.increment();
+        return v;
+    }
+
+    /**
+     * @return number of integer values served from the cache.
+     */
+    public static long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return number of integer values not served from the cache (out of range or first use).
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public static void resetCacheCounters() {
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+
     private static final BigDecimal BIG_DECIMAL_TWO = BigDecimal.valueOf(2L);
+    //scale of a decimal kept as unscaled long
+    static final int MAX_COMPACT_SCALE = 18;
     private static final ValueNumber useStaticValue(Types type, BigDecimal value) {
         int i = typeToIndex(type);
         int j = -1;
@@ -192,9 +284,6 @@ public abstract class ValueNumber extends Value {
             case TYPE_BOOLEAN:
                 return ValueBoolean.buildBoolean(num != 0);
             case TYPE_BYTE:
-                //using pool
-                if(integerUsingPool)
-                    return new ValueNumberObject(type, (byte)((int) num & 0xff));
             case TYPE_UBYTE:
             case TYPE_SHORT:
             case TYPE_USHORT:
@@ -207,11 +296,11 @@ public abstract class ValueNumber extends Value {
             case TYPE_ULONG:
                 return new ValueNumberObject(type, new BigDecimal(String.valueOf(num)).toBigInteger());
             case TYPE_DECIMAL:
-                return new ValueNumberObject(type, BigDecimal.valueOf(num));
+                return buildDecimal(BigDecimal.valueOf(num));
             case TYPE_FLOAT:
-                return new ValueNumberObject(type, Float.valueOf((float) num));
+                return new ValueNumberFloat((float) num);
             case TYPE_DOUBLE:
-                return new ValueNumberObject(type, Double.valueOf(num));
+                return new ValueNumberDouble(num);
             default:
                 break;
         }
@@ -222,17 +311,16 @@ public abstract class ValueNumber extends Value {
         if(!Types.isNumber(type) && !Types.TYPE_BOOLEAN.equals(type))
             throw new IllegalArgumentException("type \""+type+"\" is not number / number convertible");
 
-        ValueNumber v = useStaticValue(type, num);
+        ValueNumber v = useCachedValue(type, num);
+        if(v != null)
+            return v;
+        v = useStaticValue(type, num);
         if(v != null)
             return v;
         switch(type) {
             case TYPE_BOOLEAN:
                 return ValueBoolean.buildBoolean(num != 0);
             case TYPE_BYTE:
-                //using Integer pool is better memory?
-                //using pool
-                if(integerUsingPool)
-                    return new ValueNumberObject(type, (byte)(num & 0xff));
             case TYPE_UBYTE:
             case TYPE_SHORT:
             case TYPE_USHORT:
@@ -245,11 +333,11 @@ public abstract class ValueNumber extends Value {
             case TYPE_ULONG:
                 return new ValueNumberObject(type, BigInteger.valueOf(num));
             case TYPE_DECIMAL:
-                return new ValueNumberObject(type, BigDecimal.valueOf(num));
+                return new ValueNumberCompactDecimal(num, 0);
             case TYPE_FLOAT:
-                return new ValueNumberObject(type, Float.valueOf(num));
+                return new ValueNumberFloat(num);
             case TYPE_DOUBLE:
-                return new ValueNumberObject(type, Double.valueOf(num));
+                return new ValueNumberDouble(num);
             default:
                 break;
         }
@@ -271,8 +359,12 @@ public abstract class ValueNumber extends Value {
             return buildNumber(type, num.longValue());
         //decimal object
         if(Types.TYPE_DECIMAL.equals(type))
-            return new ValueNumberObject(Types.TYPE_DECIMAL, num);
-        //double value
+            return buildDecimal(num);
+        //floating values
+        if(Types.TYPE_FLOAT.equals(type))
+            return new ValueNumberFloat(num.floatValue());
+        if(Types.TYPE_DOUBLE.equals(type))
+            return new ValueNumberDouble(num.doubleValue());
         return new ValueNumberObject(type, num.doubleValue());
     }
 
@@ -291,11 +383,50 @@ public abstract class ValueNumber extends Value {
             return buildNumber(type, num.longValue());
         //decimal object
         if(Types.TYPE_DECIMAL.equals(type))
-            return new ValueNumberObject(Types.TYPE_DECIMAL, num);
-        //double value
+            return num.bitLength() < 64 ? new ValueNumberCompactDecimal(num.longValue(), 0)
+                    : new ValueNumberObject(Types.TYPE_DECIMAL, num);
+        //floating values
+        if(Types.TYPE_FLOAT.equals(type))
+            return new ValueNumberFloat(num.floatValue());
+        if(Types.TYPE_DOUBLE.equals(type))
+            return new ValueNumberDouble(num.doubleValue());
         return new ValueNumberObject(type, num.doubleValue());
     }
 
+    /**
+     * decimal as unscaled long and scale when it fits, BigDecimal otherwise.
+     */
+    private static ValueNumber buildDecimal(BigDecimal num) {
+        if(num.scale() < 0)
+            num = num.setScale(0);
+        if(num.scale() <= MAX_COMPACT_SCALE && num.unscaledValue().bitLength() < 64)
+            return new ValueNumberCompactDecimal(num.unscaledValue().longValue(), num.scale());
+        return new ValueNumberObject(Types.TYPE_DECIMAL, num);
+    }
+
+    /**
+     * decimal of unscaled value and scale (0 to MAX_COMPACT_SCALE).
+     */
+    static ValueNumber buildDecimal(long unscaled, int scale) {
+        if(scale == 0) {
+            ValueNumber v = useStaticValue(Types.TYPE_DECIMAL, unscaled);
+            if(v != null)
+                return v;
+        }
+        return new ValueNumberCompactDecimal(unscaled, scale);
+    }
+
+    /**
+     * scale of the value as compactUnscaled() / 10^scale, -1 if it is not a long (float, big or null).
+     */
+    int compactScale() {
+        return -1;
+    }
+
+    long compactUnscaled() {
+        return longValue();
+    }
+
     public abstract boolean booleanValue();
     public abstract byte byteValue();
     public abstract short shortValue();
@@ -310,6 +441,101 @@ public abstract class ValueNumber extends Value {
     public boolean isEmpty() {
         return false; //never empty
     }
+
+    /**
+     * hash of the numeric value, same for all number types.
+     */
+    @Override
+    public int hashCode() {
+        if(isNull())
+            return 0;
+        return hashOfDouble(doubleValue());
+    }
+
+    /**
+     * hash of double, integral values hash as Long.hashCode.
+     */
+    static int hashOfDouble(double d) {
+        long l = (long) d;
+        if(l == d) //also -0.0
+            return Long.hashCode(l);
+        return Double.hashCode(d);
+    }
+
+    /**
+     * Numbers are equal by value whatever their types: when one is float/double both are
+     * compared as double, otherwise exactly. Both rules agree with hashCode().
+     */
+    static boolean equalNumbers(ValueNumber a, ValueNumber b) {
+        if(a.isNull() || b.isNull())
+            return a == b;
+        if(isFloatingPoint(a) || isFloatingPoint(b)) {
+            double x = a.doubleValue();
+            double y = b.doubleValue();
+            return x == y || (x != x && y != y); //NaN equals NaN
+        }
+        if(isIntegral(a) && isIntegral(b))
+            return a.longValue() == b.longValue();
+        if(a instanceof ValueNumberCompactDecimal && (isIntegral(b) || b instanceof ValueNumberCompactDecimal))
+            return a.compareTo(b) == 0;
+        if(b instanceof ValueNumberCompactDecimal && isIntegral(a))
+            return b.compareTo(a) == 0;
+        return a.decimalValue().compareTo(b.decimalValue()) == 0;
+    }
+
+    static boolean isFloatingPoint(ValueNumber v) {
+        return v.getType() == Types.TYPE_FLOAT || v.getType() == Types.TYPE_DOUBLE;
+    }
+
+    private static boolean isIntegral(ValueNumber v) {
+        return v instanceof ValueNumberLong || v instanceof ValueNumberInt || v instanceof ValueBoolean;
+    }
+
+    //sign, 19 digits and the point
+    private static final int MAX_PLAIN_LENGTH = 21;
+
+    /**
+     * ASCII of unscaled / 10^scale in plain notation (as BigDecimal.toPlainString()),
+     * written backward to the end of buf (MAX_PLAIN_LENGTH bytes).
+     *
+     * @return start index of the text in buf
+     */
+    private static int plainAscii(long unscaled, int scale, byte[] buf) {
+        int p = buf.length;
+        long v = unscaled < 0 ? unscaled : -unscaled; //negative, so Long.MIN_VALUE works
+        int n = 0;
+        do {
+            buf[--p] = (byte) ('0' - v % 10);
+            v /= 10;
+            if(++n == scale)
+                buf[--p] = '.';
+        } while (v != 0 || n <= scale);
+        if(unscaled < 0)
+            buf[--p] = '-';
+        return p;
+    }
+
+    static void writePlain(long unscaled, int scale, Appendable out) throws IOException {
+        if(scale == 0 && out instanceof StringBuilder) {
+            ((StringBuilder) out).append(unscaled);
+            return;
+        }
+        byte[] buf = new byte[MAX_PLAIN_LENGTH];
+        for (int i = plainAscii(unscaled, scale, buf); i < buf.length; i++)
+            out.append((char) buf[i]);
+    }
+
+    static void writePlain(long unscaled, int scale, OutputStream out) throws IOException {
+        byte[] buf = new byte[MAX_PLAIN_LENGTH];
+        int start = plainAscii(unscaled, scale, buf);
+        out.write(buf, start, buf.length - start);
+    }
+
+    static void writePlain(long unscaled, int scale, ByteBuffer out) {
+        byte[] buf = new byte[MAX_PLAIN_LENGTH];
+        int start = plainAscii(unscaled, scale, buf);
+        out.put(buf, start, buf.length - start);
+    }
 }
 
 final class ValueNULLNumber extends ValueNumber {
@@ -409,12 +635,12 @@ final class ValueNULLNumber extends ValueNumber {
     }
 }
 /**
- * class for BigInteger  (ulong), BigDecimal, Float, Double,
- * or, for Integer from -128 to 127 due to Java's pool of Integer to save memory.
+ * class for BigInteger  (ulong), BigDecimal, or other boxed Number.
  */
 final class ValueNumberObject extends ValueNumber {
     private final Types type;
     private final Number number;
+    private transient int hash; //doubleValue() of big numbers is not cheap
 
     ValueNumberObject(Types type, Number number) {
         this.type = type;
@@ -485,7 +711,7 @@ final class ValueNumberObject extends ValueNumber {
     @Override
     public String stringValue() {
         if(number instanceof BigDecimal)
-            ((BigDecimal) number).toPlainString();
+            return ((BigDecimal) number).toPlainString();
         return number.toString();
     }
 
@@ -560,6 +786,12 @@ final class ValueNumberObject extends ValueNumber {
     public int compareTo(Value o) {
         if(o.isNull())
             return 1;
+        if(o instanceof ValueNumber && (isFloatingPoint(this) || isFloatingPoint((ValueNumber) o))) {
+            //as double, the rule of equals()
+            double x = number.doubleValue();
+            double d = ((ValueNumber) o).doubleValue();
+            return x == d ? 0 : Double.compare(x, d);
+        }
         if(o instanceof ValueNumberObject) {
             if(number instanceof BigInteger)
                 return ((BigInteger)number).compareTo(((ValueNumberObject) o).bigIntValue());
@@ -573,6 +805,15 @@ final class ValueNumberObject extends ValueNumber {
                 return ((Integer)number).compareTo(((ValueNumberObject) o).intValue());
             return Long.compare(number.longValue(), ((ValueNumberObject) o).longValue());
         }
+        else if(o instanceof ValueNumber) {
+            if(number instanceof BigInteger)
+                return ((BigInteger)number).compareTo(((ValueNumber) o).bigIntValue());
+            if(number instanceof BigDecimal)
+                return ((BigDecimal)number).compareTo(((ValueNumber) o).decimalValue());
+            if(number instanceof Float || number instanceof Double)
+                return Double.compare(number.doubleValue(), ((ValueNumber) o).doubleValue());
+            return Long.compare(number.longValue(), ((ValueNumber) o).longValue());
+        }
         else {
             if (number instanceof BigInteger)
                 return ((BigInteger) number).compareTo(new BigInteger(o.stringValue()));
@@ -597,19 +838,27 @@ final class ValueNumberObject extends ValueNumber {
             return false;
         if(obj == this)
             return true;
-        if (obj instanceof ValueNumberObject)
-            return this.number.equals(((ValueNumberObject) obj).number);
-        if (obj instanceof ValueNumber) {
-            if(this.number instanceof BigInteger)
-                return this.number.equals( ((ValueNumber) obj).bigIntValue() );
-            return this.number.equals( ((ValueNumber) obj).decimalValue() );
-        }
-        //compare strings
-        if(obj instanceof Value)
-            return !((Value) obj).isNull() && number.toString().equals(((Value) obj).stringValue());
+        if (obj instanceof ValueNumberObject) {
+            if(this.number instanceof BigDecimal && ((ValueNumberObject) obj).number instanceof BigDecimal)
+                return ((BigDecimal) this.number).compareTo((BigDecimal) ((ValueNumberObject) obj).number) == 0;
+            if(this.number instanceof BigInteger && ((ValueNumberObject) obj).number instanceof BigInteger)
+                return this.number.equals(((ValueNumberObject) obj).number);
+        }
+        if (obj instanceof ValueNumber)
+            return equalNumbers(this, (ValueNumber) obj);
+        if (obj instanceof Value)
+            return false;
         return number.equals(obj);
     }
 
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if(h == 0)
+            hash = h = super.hashCode();
+        return h;
+    }
+
     @Override
     public boolean isTrue() {
         if (number instanceof BigInteger)
@@ -661,6 +910,11 @@ class ValueNumberLong extends ValueNumber {
         this.value = value;
     }
 
+    @Override
+    int compactScale() {
+        return 0;
+    }
+
     @Override
     public boolean isTrue() {
         return value != 0;
@@ -689,6 +943,21 @@ class ValueNumberLong extends ValueNumber {
         return String.valueOf(value);
     }
 
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        writePlain(value, 0, out);
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        writePlain(value, 0, out);
+    }
+
+    @Override
+    public void writeUtf8To(ByteBuffer buf) {
+        writePlain(value, 0, buf);
+    }
+
     @Override
     public boolean booleanValue() {
         return value != 0;
@@ -740,6 +1009,8 @@ class ValueNumberLong extends ValueNumber {
             return 1;
         if(o.getType().equals(Types.TYPE_ULONG)) //BigInteger
             return -((ValueNumberObject) o).bigIntValue().compareTo(BigInteger.valueOf(value));
+        if(o instanceof ValueNumberCompactDecimal || o instanceof ValueNumberFloat || o instanceof ValueNumberDouble)
+            return -o.compareTo(this); //fraction part counts
         if(Types.isNumber(o.getType())) {
             return Long.compare(value, ((ValueNumber)o).longValue());
         }
@@ -755,10 +1026,9 @@ class ValueNumberLong extends ValueNumber {
         if (obj instanceof ValueNumberLong)
             return this.value == ((ValueNumberLong) obj).value;
         if (obj instanceof ValueNumber)
-            return this.value == ((ValueNumber) obj).longValue();
-        //compare strings
-        if(obj instanceof Value)
-            return !((Value) obj).isNull() && String.valueOf(value).equals(((Value) obj).stringValue());
+            return equalNumbers(this, (ValueNumber) obj);
+        if (obj instanceof Value)
+            return false;
         return Long.valueOf(this.value).equals(obj);
     }
 }
@@ -780,7 +1050,7 @@ class ValueNumberUInt extends ValueNumberLong {
 
 /**
  * class for Int, Short, UShort, Byte, UByte (8 bytes each).
- * Byte will be as ValueNumberObject for utilizing Java's Integer Pool
+ * Small values are shared from the cache of ValueNumber.
  */
 final class ValueNumberInt extends ValueNumber {
     private final Types type;
@@ -807,6 +1077,11 @@ final class ValueNumberInt extends ValueNumber {
         }
     }
 
+    @Override
+    int compactScale() {
+        return 0;
+    }
+
     @Override
     public boolean isTrue() {
         return value != 0;
@@ -833,6 +1108,21 @@ final class ValueNumberInt extends ValueNumber {
         return String.valueOf(value);
     }
 
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        writePlain(value, 0, out);
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        writePlain(value, 0, out);
+    }
+
+    @Override
+    public void writeUtf8To(ByteBuffer buf) {
+        writePlain(value, 0, buf);
+    }
+
     @Override
     public boolean booleanValue() {
         return value != 0;
@@ -884,6 +1174,8 @@ final class ValueNumberInt extends ValueNumber {
             return 1;
         if(o.getType().equals(Types.TYPE_ULONG)) //BigInteger
             return -((ValueNumberObject) o).bigIntValue().compareTo(BigInteger.valueOf(value));
+        if(o instanceof ValueNumberCompactDecimal || o instanceof ValueNumberFloat || o instanceof ValueNumberDouble)
+            return -o.compareTo(this); //fraction part counts
         if(Types.isNumber(o.getType())) {
             return Long.compare(value, ((ValueNumber)o).longValue());
         }
@@ -899,10 +1191,472 @@ final class ValueNumberInt extends ValueNumber {
         if (obj instanceof ValueNumberInt)
             return this.value == ((ValueNumberInt) obj).value;
         if (obj instanceof ValueNumber)
-            return this.value == ((ValueNumber) obj).longValue();
-        //compare strings
-        if(obj instanceof Value)
-            return !((Value) obj).isNull() && String.valueOf(value).equals(((Value) obj).stringValue());
+            return equalNumbers(this, (ValueNumber) obj);
+        if (obj instanceof Value)
+            return false;
         return Integer.valueOf(this.value).equals(obj);
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Float value, 4 bytes, kept as primitive.
+ */
+final class ValueNumberFloat extends ValueNumber {
+    private final float value;
+
+    ValueNumberFloat(float value) {
+        this.value = value;
+    }
+
+    @Override
+    public boolean isTrue() {
+        return value != 0 && !Float.isNaN(value);
+    }
+
+    @Override
+    public Value convertTo(Types type) {
+        if(Types.isString(type))
+            return ValueString.buildString(type, Float.toString(value));
+        if(Types.TYPE_BOOLEAN.equals(type))
+            return ValueBoolean.buildBoolean(this.isTrue());
+        if(Types.TYPE_FLOAT.equals(type))
+            return this;
+        //same decimal as decimalValue(), not the binary expansion of the float
+        if(Types.TYPE_DECIMAL.equals(type))
+            return ValueNumber.buildNumber(type, decimalValue());
+        if(Types.isNumber(type))
+            return ValueNumber.buildNumber(type, (double) value);
+        if(Types.isDateOrTime(type))
+            return ValueDateTime.buildDateTime(type, (long) value);
+        throw new IllegalArgumentException("Can not convert to "+type);//can not cast, set null.
+    }
+
+    @Override
+    public Types getType() {
+        return Types.TYPE_FLOAT;
+    }
+
+    @Override
+    public String stringValue() {
+        return Float.toString(value);
+    }
+
+    @Override
+    public boolean booleanValue() {
+        return value != 0;
+    }
+
+    @Override
+    public byte byteValue() {
+        return (byte) value;
+    }
+
+    @Override
+    public short shortValue() {
+        return (short) value;
+    }
+
+    @Override
+    public int intValue() {
+        return (int) value;
+    }
+
+    @Override
+    public long longValue() {
+        return (long) value;
+    }
+
+    @Override
+    public float floatValue() {
+        return value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public BigDecimal decimalValue() {
+        //shortest decimal form, not the binary expansion
+        return new BigDecimal(Float.toString(value));
+    }
+
+    @Override
+    public BigInteger bigIntValue() {
+        return decimalValue().toBigInteger();
+    }
+
+    @Override
+    public int compareTo(Value o) {
+        if(o == null || o.isNull())
+            return 1;
+        if(o instanceof ValueNumberFloat)
+            return Float.compare(value, ((ValueNumberFloat) o).value);
+        if(Types.isNumber(o.getType())) {
+            double d = ((ValueNumber) o).doubleValue();
+            return value == d ? 0 : Double.compare(value, d);
+        }
+        //a number string by its value, read as float
+        if(o instanceof ValueString) {
+            ValueNumber n = ((ValueString) o).numberValue();
+            if(n != null)
+                return Float.compare(value, n.floatValue());
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == null)
+            return false;
+        if(obj == this)
+            return true;
+        if (obj instanceof ValueNumberFloat)
+            return Float.compare(this.value, ((ValueNumberFloat) obj).value) == 0;
+        if (obj instanceof ValueNumber)
+            return equalNumbers(this, (ValueNumber) obj);
+        if (obj instanceof Value)
+            return false;
+        return Float.valueOf(this.value).equals(obj);
+    }
+}
+
+/**
+ * Double value, 8 bytes, kept as primitive.
+ */
+final class ValueNumberDouble extends ValueNumber {
+    private final double value;
+
+    ValueNumberDouble(double value) {
+        this.value = value;
+    }
+
+    @Override
+    public boolean isTrue() {
+        return value != 0 && !Double.isNaN(value);
+    }
+
+    @Override
+    public Value convertTo(Types type) {
+        if(Types.isString(type))
+            return ValueString.buildString(type, Double.toString(value));
+        if(Types.TYPE_BOOLEAN.equals(type))
+            return ValueBoolean.buildBoolean(this.isTrue());
+        if(Types.TYPE_DOUBLE.equals(type))
+            return this;
+        if(Types.isNumber(type))
+            return ValueNumber.buildNumber(type, value);
+        if(Types.isDateOrTime(type))
+            return ValueDateTime.buildDateTime(type, (long) value);
+        throw new IllegalArgumentException("Can not convert to "+type);//can not cast, set null.
+    }
+
+    @Override
+    public Types getType() {
+        return Types.TYPE_DOUBLE;
+    }
+
+    @Override
+    public String stringValue() {
+        return Double.toString(value);
+    }
+
+    @Override
+    public boolean booleanValue() {
+        return value != 0;
+    }
+
+    @Override
+    public byte byteValue() {
+        return (byte) value;
+    }
+
+    @Override
+    public short shortValue() {
+        return (short) value;
+    }
+
+    @Override
+    public int intValue() {
+        return (int) value;
+    }
+
+    @Override
+    public long longValue() {
+        return (long) value;
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public BigDecimal decimalValue() {
+        return BigDecimal.valueOf(value);
+    }
+
+    @Override
+    public BigInteger bigIntValue() {
+        return BigDecimal.valueOf(value).toBigInteger();
+    }
+
+    @Override
+    public int compareTo(Value o) {
+        if(o == null || o.isNull())
+            return 1;
+        if(o instanceof ValueNumberDouble)
+            return Double.compare(value, ((ValueNumberDouble) o).value);
+        ValueNumber n = null;
+        if(Types.isNumber(o.getType()))
+            n = (ValueNumber) o;
+        else if(o instanceof ValueString) //a number string by its value
+            n = ((ValueString) o).numberValue();
+        if(n == null)
+            return -1;
+        double d = n.doubleValue();
+        return value == d ? 0 : Double.compare(value, d);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == null)
+            return false;
+        if(obj == this)
+            return true;
+        if (obj instanceof ValueNumberDouble)
+            return Double.compare(this.value, ((ValueNumberDouble) obj).value) == 0;
+        if (obj instanceof ValueNumber)
+            return equalNumbers(this, (ValueNumber) obj);
+        if (obj instanceof Value)
+            return false;
+        return Double.valueOf(this.value).equals(obj);
+    }
+}
+
+/**
+ * Decimal value as unscaled long and scale (value = unscaled / 10^scale),
+ * for amounts which fit in 64 bits. Larger ones are kept as BigDecimal in ValueNumberObject.
+ */
+final class ValueNumberCompactDecimal extends ValueNumber {
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L,
+    };
+    //exact powers of ten in double
+    private static final double[] DOUBLE_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+    };
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final long unscaled;
+    private final int scale;
+    private transient BigDecimal decimal; //created on demand
+
+    ValueNumberCompactDecimal(long unscaled, int scale) {
+        assert scale >= 0 && scale <= MAX_COMPACT_SCALE;
+        this.unscaled = unscaled;
+        this.scale = scale;
+    }
+
+    @Override
+    long compactUnscaled() {
+        return unscaled;
+    }
+
+    @Override
+    int compactScale() {
+        return scale;
+    }
+
+    @Override
+    public boolean isTrue() {
+        return unscaled != 0;
+    }
+
+    @Override
+    public Value convertTo(Types type) {
+        if(Types.isString(type))
+            return ValueString.buildString(type, stringValue());
+        if(Types.TYPE_BOOLEAN.equals(type))
+            return ValueBoolean.buildBoolean(this.isTrue());
+        if(Types.TYPE_DECIMAL.equals(type))
+            return this;
+        if(Types.TYPE_ULONG.equals(type))
+            return ValueNumber.buildNumber(type, decimalValue());
+        if(Types.isInteger(type))
+            return ValueNumber.buildNumber(type, longValue());
+        if(Types.isNumber(type))
+            return ValueNumber.buildNumber(type, doubleValue());
+        if(Types.isDateOrTime(type))
+            return ValueDateTime.buildDateTime(type, longValue());
+        throw new IllegalArgumentException("Can not convert to "+type);//can not cast, set null.
+    }
+
+    @Override
+    public Types getType() {
+        return Types.TYPE_DECIMAL;
+    }
+
+    /**
+     * same as BigDecimal.toPlainString()
+     */
+    @Override
+    public String stringValue() {
+        String digits = Long.toString(unscaled);
+        if(scale == 0)
+            return digits;
+        int start = unscaled < 0 ? 1 : 0;
+        int n = digits.length() - start;
+        StringBuilder sb = new StringBuilder(digits.length() + scale + 2);
+        if(start > 0)
+            sb.append('-');
+        if(n > scale) {
+            sb.append(digits, start, digits.length() - scale)
+                    .append('.')
+                    .append(digits, digits.length() - scale, digits.length());
+        }
+        else {
+            sb.append("0.");
+            for(int i = n; i < scale; i++)
+                sb.append('0');
+            sb.append(digits, start, digits.length());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        writePlain(unscaled, scale, out);
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        writePlain(unscaled, scale, out);
+    }
+
+    @Override
+    public void writeUtf8To(ByteBuffer buf) {
+        writePlain(unscaled, scale, buf);
+    }
+
+    @Override
+    public boolean booleanValue() {
+        return unscaled != 0;
+    }
+
+    @Override
+    public byte byteValue() {
+        return (byte) longValue();
+    }
+
+    @Override
+    public short shortValue() {
+        return (short) longValue();
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public long longValue() {
+        return scale == 0 ? unscaled : unscaled / POW10[scale];
+    }
+
+    @Override
+    public float floatValue() {
+        if(Math.abs(unscaled) < (1L << 24) && scale <= 10)
+            return (float) unscaled / (float) DOUBLE_POW10[scale];
+        return decimalValue().floatValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        //both exact in double, division is correctly rounded
+        if(Math.abs(unscaled) < MAX_EXACT_DOUBLE)
+            return scale == 0 ? unscaled : unscaled / DOUBLE_POW10[scale];
+        return decimalValue().doubleValue();
+    }
+
+    @Override
+    public BigDecimal decimalValue() {
+        BigDecimal d = decimal;
+        if(d == null) {
+            d = BigDecimal.valueOf(unscaled, scale);
+            decimal = d;
+        }
+        return d;
+    }
+
+    @Override
+    public BigInteger bigIntValue() {
+        return BigInteger.valueOf(longValue());
+    }
+
+    /**
+     * compare unscaled values by bringing them to the same scale, BigDecimal only when overflow.
+     */
+    static int compareCompact(long u1, int s1, long u2, int s2) {
+        if(s1 == s2)
+            return Long.compare(u1, u2);
+        if(s1 < s2) {
+            long p = POW10[s2 - s1];
+            if(u1 != Long.MIN_VALUE && Math.abs(u1) <= Long.MAX_VALUE / p)
+                return Long.compare(u1 * p, u2);
+        }
+        else {
+            long p = POW10[s1 - s2];
+            if(u2 != Long.MIN_VALUE && Math.abs(u2) <= Long.MAX_VALUE / p)
+                return Long.compare(u1, u2 * p);
+        }
+        return BigDecimal.valueOf(u1, s1).compareTo(BigDecimal.valueOf(u2, s2));
+    }
+
+    @Override
+    public int compareTo(Value o) {
+        if(o == null || o.isNull())
+            return 1;
+        if(o instanceof ValueNumberCompactDecimal)
+            return compareCompact(unscaled, scale,
+                    ((ValueNumberCompactDecimal) o).unscaled, ((ValueNumberCompactDecimal) o).scale);
+        if(o instanceof ValueNumberLong || o instanceof ValueNumberInt || o instanceof ValueBoolean)
+            return compareCompact(unscaled, scale, ((ValueNumber) o).longValue(), 0);
+        if(o instanceof ValueNumberFloat || o instanceof ValueNumberDouble) {
+            //as double, the rule of equals() and of the float/double side
+            double x = doubleValue();
+            double d = ((ValueNumber) o).doubleValue();
+            return x == d ? 0 : Double.compare(x, d);
+        }
+        if(Types.isNumber(o.getType()))
+            return decimalValue().compareTo(((ValueNumber) o).decimalValue());
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == null)
+            return false;
+        if(obj == this)
+            return true;
+        if (obj instanceof ValueNumberCompactDecimal)
+            return compareCompact(unscaled, scale,
+                    ((ValueNumberCompactDecimal) obj).unscaled, ((ValueNumberCompactDecimal) obj).scale) == 0;
+        if (obj instanceof ValueNumber)
+            return equalNumbers(this, (ValueNumber) obj);
+        if (obj instanceof Value)
+            return false;
+        if(obj instanceof BigDecimal)
+            return decimalValue().compareTo((BigDecimal) obj) == 0;
+        return false;
+    }
+}
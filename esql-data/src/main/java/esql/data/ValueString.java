@@ -1,15 +1,16 @@
 package esql.data;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
-import java.text.ParsePosition;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -28,8 +29,15 @@ public class ValueString extends Value {
     private static final ValueString EMPTY_STRING = new ValueString(false, "");
     private static final ValueString EMPTY_NSTRING = new ValueString(true, "");
 
+    //encoders are not thread-safe, reset before each use
+    private static final ThreadLocal<CharsetEncoder> UTF8_ENCODER = ThreadLocal.withInitial(() ->
+            StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
     private final boolean national;
     private final String value;
+    private transient int hash;
 
     ValueString(boolean national, String val) {
         this.national = national;
@@ -43,7 +51,43 @@ public class ValueString extends Value {
             return Value.nullOf(type);
         if(val.isEmpty())
             return Types.TYPE_NSTRING.equals(type) ? EMPTY_NSTRING:EMPTY_STRING;
-        return new ValueString(false, val);
+        return new ValueString(Types.TYPE_NSTRING.equals(type), val);
+    }
+
+    /**
+     * build string value, shared from the pool if any.
+     *
+     * @param type string or nstring
+     * @param val the string
+     * @param pool intern pool, null to build new value.
+     * @return string value
+     */
+    public static final Value buildString(Types type, String val, ValueStringPool pool) {
+        if(pool == null)
+            return buildString(type, val);
+        return pool.intern(type, val);
+    }
+
+    /**
+     * build string value backed by UTF-8 bytes, decoded only when the String is needed.
+     * The bytes are not copied, they must not be modified after.
+     *
+     * @param type string or nstring
+     * @param utf8 bytes of UTF-8
+     * @param offset start of the string in bytes
+     * @param length number of bytes
+     * @return string value
+     */
+    public static final Value buildString(Types type, byte[] utf8, int offset, int length) {
+        if(!Types.isString(type))
+            throw new IllegalArgumentException("not for type other than string/nstring");
+        if(utf8 == null)
+            return Value.nullOf(type);
+        if(offset < 0 || length < 0 || offset + length > utf8.length)
+            throw new IndexOutOfBoundsException("range ["+offset+", "+(offset+length)+") of "+utf8.length);
+        if(length == 0)
+            return Types.TYPE_NSTRING.equals(type) ? EMPTY_NSTRING:EMPTY_STRING;
+        return new ValueStringUtf8(Types.TYPE_NSTRING.equals(type), utf8, offset, length);
     }
 
     public static final Charset stringCharset(boolean national) {
@@ -79,17 +123,11 @@ public class ValueString extends Value {
         //String se chuyen thanh cac loai khac neu safely convertible
         switch (type) {
             case TYPE_DATE:
-               //parse as date
-               return ValueDateTime.buildDateTime(LocalDate.parse(this.value));
             case TYPE_TIME:
-               //parse as date
-               return ValueDateTime.buildDateTime(LocalTime.parse(this.value));
             case TYPE_DATETIME:
-               //parse as date
-               return ValueDateTime.buildDateTime(LocalDateTime.parse(this.value));
             case TYPE_TIMESTAMP:
-               //parse as date
-               return ValueDateTime.buildDateTime(Instant.parse(this.value));
+                //ISO-8601, as LocalDate/LocalTime/LocalDateTime/Instant.parse
+                return DateTimeParser.parse(type, this.value);
             case TYPE_BYTE:
             case TYPE_UBYTE:
             case TYPE_SHORT:
@@ -97,58 +135,12 @@ public class ValueString extends Value {
             case TYPE_INT:
             case TYPE_UINT:
             case TYPE_LONG:
-                {//as integer types
-                    var start = new ParsePosition(0);
-                    var decimalPos = new ParsePosition(0);
-                    var end = new ParsePosition(this.value.length());
-                    if(Value.isIntegerString(this.value, start, end)) {
-                        return ValueNumber.buildNumber(type, Long.parseLong(
-                                this.value.substring(start.getIndex(), end.getIndex())
-                        ));
-                    }
-                    //try decimal
-                    else if(Value.isDecimalString(this.value, start, decimalPos, end)) {
-                        //decimal string
-                        return ValueNumber.buildNumber(type, Long.parseLong(
-                                this.value.substring(start.getIndex(), decimalPos.getIndex())
-                        )); //first group
-                    }
-                }
-                throw new NumberFormatException("NaN");
             case TYPE_ULONG:
-                {
-                    var start = new ParsePosition(0);
-                    var decimalPos = new ParsePosition(0);
-                    var end = new ParsePosition(this.value.length());
-                    if(Value.isIntegerString(this.value, start, end)) {
-                        return ValueNumber.buildNumber(type, new BigInteger(
-                                this.value.substring(start.getIndex(), end.getIndex())
-                        ));
-                    }
-                    //try decimal
-                    else if(Value.isDecimalString(this.value, start, decimalPos, end)) {
-                        //decimal string
-                        return ValueNumber.buildNumber(type, new BigInteger(
-                                this.value.substring(start.getIndex(), decimalPos.getIndex())
-                        )); //first group
-                    }
-                }
-                throw new NumberFormatException("NaN");
             case TYPE_DECIMAL:
-                try {
-                    //parsing as BigDecimal
-                    var v = new BigDecimal(this.value);
-                    return ValueNumber.buildNumber(type, v);
-                }
-                catch (NumberFormatException e) {
-                    //ignore
-                    assert true;
-                }
-                throw new NumberFormatException("NaN");
             case TYPE_FLOAT:
             case TYPE_DOUBLE:
-                //parsing as Double
-                return ValueNumber.buildNumber(type, Double.parseDouble(this.value));
+                //integer types take integer part of decimal string
+                return NumberParser.parse(type, this.value);
             case TYPE_BOOLEAN:
                 return ValueBoolean.buildBoolean(!this.value.isEmpty());
             case TYPE_DATA_TREE:
@@ -171,21 +163,23 @@ public class ValueString extends Value {
                 //base64 convert?
                 try {
                     if(Value.matchBase64String(this.value, false)) {
+                        if(this.value.length() > ValueLOB.MAX_BUFFERED_SIZE) //decode by chunks to temp
+                            return ValueBLOB.loadBase64(this.value);
                         var decoder = Base64.getDecoder();
                         var buff = decoder.decode(this.value);
                         return ValueBLOB.wrap(buff, buff.length);
                     }
                 } catch (NoSuchAlgorithmException e) {
                     throw new AssertionError(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
                 return Value.nullOf(type);
             case TYPE_BYTES:
-                //var bm = Value.matchHexString(this.value);
-                var start = new ParsePosition(0);
-                var end = new ParsePosition(this.value.length());
-                if(Value.isHexString(this.value, start, end)) {
+                var shape = new LiteralShape();
+                if((shape.classify(this.value) & LiteralShape.HEX) != 0) {
                     return ValueBytes.buildBytes(
-                            ValueBytes.hexToBytes(this.value, start.getIndex(), end.getIndex())
+                            ValueBytes.hexToBytes(this.value, shape.getHexStart(), shape.getEnd())
                     );
                 }
                 throw new NumberFormatException("not a hex string");
@@ -210,17 +204,56 @@ public class ValueString extends Value {
         return this.value.compareTo(o.stringValue());
     }
 
+    /**
+     * Strings (national or not) are equal by their text only, as compareTo orders them: "007" and "7" differ.
+     * A string never equals the number, date/time or bytes value it denotes, convert it first (convertTo)
+     * to compare by value.
+     */
     @Override
     public boolean equals(Object obj) {
-        if(obj == null)
-            return false;
         if(obj == this)
             return true;
-        if (obj instanceof ValueString)
-            return this.value != null && this.value.equals(((ValueString) obj).value);
-        if (obj instanceof Value)
-            return this.value != null && this.value.equals(((Value) obj).stringValue());
-        return false;
+        if(!(obj instanceof ValueString) || isNull() || ((ValueString) obj).isNull())
+            return false;
+        CharSequence a = chars();
+        CharSequence b = ((ValueString) obj).chars();
+        return a.length() == b.length() && CharSequence.compare(a, b) == 0;
+    }
+
+    /**
+     * same as String.hashCode of the text.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if(h == 0 && !isNull()) {
+            CharSequence s = chars();
+            if(s instanceof String)
+                h = s.hashCode();
+            else
+                for (int i = 0; i < s.length(); i++)
+                    h = 31 * h + s.charAt(i); //same as String.hashCode
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * chars of the string for comparing and parsing, without building a String if possible.
+     */
+    CharSequence chars() {
+        return value;
+    }
+
+    /**
+     * the decimal number of this string.
+     *
+     * @return null if not a number string.
+     */
+    ValueNumber numberValue() {
+        if(isNull())
+            return null;
+        return (ValueNumber) NumberParser.parseOrNull(Types.TYPE_DECIMAL, chars());
     }
 
     @Override
@@ -229,4 +262,30 @@ public class ValueString extends Value {
             return Value.STRING_OF_NULL;
         return value;
     }
+
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        if(value != null)
+            out.append(value);
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        if(value != null)
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //encode directly into the buffer, no byte array
+    @Override
+    public void writeUtf8To(ByteBuffer buf) {
+        if(value == null)
+            return;
+        int start = buf.position();
+        CharsetEncoder encoder = UTF8_ENCODER.get().reset();
+        if(encoder.encode(CharBuffer.wrap(value), buf, true).isOverflow()
+                || encoder.flush(buf).isOverflow()) {
+            buf.position(start);
+            throw new BufferOverflowException();
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package esql.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded intern pool of ValueString, for columns with few distinct values (codes, names...),
+ * so repeated strings share one ValueString and one backing String.
+ *
+ * Eviction is frequency based: the victim is the least used of a few sampled entries, and a new string
+ * takes its place only when it was missed more often recently (counted in a small count-min sketch),
+ * so a scan of unique strings does not flush the pool. Counters are halved periodically to forget old usage.
+ *
+ * Thread-safe, one pool is meant to be shared while materialising a result set or arrays.
+ */
+public final class ValueStringPool {
+
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("esql.data.string.pool.capacity", 1024);
+    public static final int DEFAULT_MAX_LENGTH = Integer.getInteger("esql.data.string.pool.max.length", 128);
+
+    private static final int SAMPLE_SIZE = 8;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final int capacity;
+    private final int maxLength;
+    private final HashMap<String, Entry> index;
+    private final Entry[] entries;
+    private int size = 0;
+
+    //frequency of recently missed strings, 2 rows of 4-bit counters (kept in bytes)
+    private final byte[] sketch;
+    private final int sketchMask;
+    private final int resetPeriod;
+    private int additions = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public ValueStringPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    public ValueStringPool(int capacity) {
+        this(capacity, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param capacity max number of pooled strings
+     * @param maxLength longer strings are not pooled
+     */
+    public ValueStringPool(int capacity, int maxLength) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.maxLength = maxLength;
+        this.index = new HashMap<>(capacity * 4 / 3 + 1);
+        this.entries = new Entry[capacity];
+        int width = Integer.highestOneBit(Math.max(256, capacity * 8) - 1) << 1;
+        this.sketch = new byte[width * 2];
+        this.sketchMask = width - 1;
+        this.resetPeriod = capacity * 10;
+    }
+
+    /**
+     * get the pooled value of the string, add it to pool if admitted.
+     *
+     * @param type TYPE_STRING or TYPE_NSTRING
+     * @param val the string
+     * @return string value, null or empty values are the static ones.
+     */
+    public Value intern(Types type, String val) {
+        if(!Types.isString(type))
+            throw new IllegalArgumentException("not for type other than string/nstring");
+        if(val == null || val.isEmpty() || val.length() > maxLength)
+            return ValueString.buildString(type, val);
+        boolean national = Types.TYPE_NSTRING.equals(type);
+        synchronized (this) {
+            Entry e = index.get(val);
+            if(e != null) {
+                hits++;
+                if(e.frequency < MAX_FREQUENCY)
+                    e.frequency++;
+                tick();
+                return e.value(national);
+            }
+            misses++;
+            int f = increment(val.hashCode());
+            tick();
+            if(size < capacity) {
+                e = new Entry(val, size);
+                entries[size++] = e;
+                index.put(val, e);
+                return e.value(national);
+            }
+            Entry victim = sampleVictim();
+            if(f <= Math.max(victim.frequency, 1)) //not admitted, at least seen twice
+                return new ValueString(national, val);
+            index.remove(victim.key);
+            e = new Entry(val, victim.slot);
+            entries[victim.slot] = e;
+            index.put(val, e);
+            return e.value(national);
+        }
+    }
+
+    private Entry sampleVictim() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Entry victim = entries[random.nextInt(size)];
+        for (int i = 1; i < SAMPLE_SIZE && victim.frequency > 0; i++) {
+            Entry e = entries[random.nextInt(size)];
+            if(e.frequency < victim.frequency)
+                victim = e;
+        }
+        return victim;
+    }
+
+    //count and return the estimated frequency
+    private int increment(int hash) {
+        int i1 = spread(hash) & sketchMask;
+        int i2 = (spread(hash * 0x9E3779B9) & sketchMask) + sketchMask + 1;
+        if(sketch[i1] < MAX_FREQUENCY)
+            sketch[i1]++;
+        if(sketch[i2] < MAX_FREQUENCY)
+            sketch[i2]++;
+        return Math.min(sketch[i1], sketch[i2]);
+    }
+
+    private void tick() {
+        if(++additions >= resetPeriod)
+            age();
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+    //halve all counters, old usage counts less
+    private void age() {
+        for (int i = 0; i < sketch.length; i++)
+            sketch[i] >>= 1;
+        for (int i = 0; i < size; i++)
+            entries[i].frequency >>= 1;
+        additions >>= 1;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return hits / (hits + misses), 0 if never used.
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * remove all pooled strings and counters.
+     */
+    public synchronized void clear() {
+        index.clear();
+        Arrays.fill(entries, null);
+        Arrays.fill(sketch, (byte) 0);
+        size = 0;
+        additions = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    private static final class Entry {
+        final String key;
+        final int slot;
+        int frequency = 1;
+        private ValueString string;
+        private ValueString nstring;
+
+        Entry(String key, int slot) {
+            this.key = key;
+            this.slot = slot;
+        }
+
+        ValueString value(boolean national) {
+            if(national) {
+                if(nstring == null)
+                    nstring = new ValueString(true, key);
+                return nstring;
+            }
+            if(string == null)
+                string = new ValueString(false, key);
+            return string;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package esql.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * String value backed by a slice of UTF-8 bytes (CLOB of a UTF-8 temp file converted to string...),
+ * the String is decoded only when it is needed. Pass-through writers (writeUtf8To, JSON of data tree)
+ * copy the bytes as is.
+ *
+ * Equality, ordering and hash work on the bytes for ASCII text, which is the common case,
+ * and fall back to the decoded String for non-ASCII text.
+ */
+final class ValueStringUtf8 extends ValueString {
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private transient String decoded;
+
+    ValueStringUtf8(boolean national, byte[] bytes, int offset, int length) {
+        super(national, null);
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public boolean isNull() {
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    @Override
+    public boolean isTrue() {
+        return length != 0;
+    }
+
+    @Override
+    public String stringValue() {
+        String s = decoded;
+        if(s == null)
+            decoded = s = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        return s;
+    }
+
+    /**
+     * @return length of the string in UTF-8 bytes
+     */
+    int utf8Length() {
+        return length;
+    }
+
+    @Override
+    public Value convertTo(Types type) {
+        if(getType().equals(type))
+            return this;
+        if(Types.isString(type))
+            return new ValueStringUtf8(Types.TYPE_NSTRING.equals(type), bytes, offset, length);
+        return new ValueString(Types.TYPE_NSTRING.equals(getType()), stringValue()).convertTo(type);
+    }
+
+    @Override
+    public int compareTo(Value o) {
+        if(o == null || o.isNull())
+            return 1;
+        if(o instanceof ValueStringUtf8) {
+            ValueStringUtf8 u = (ValueStringUtf8) o;
+            int i = Arrays.mismatch(bytes, offset, offset + length, u.bytes, u.offset, u.offset + u.length);
+            if(i < 0)
+                return 0;
+            if(i == length || i == u.length) //prefix
+                return length - u.length;
+            int b1 = bytes[offset + i] & 0xff;
+            int b2 = u.bytes[u.offset + i] & 0xff;
+            if(b1 < 0x80 && b2 < 0x80)
+                return b1 - b2;
+        }
+        //ordering of UTF-16 String differs from UTF-8 bytes for non-ASCII
+        return stringValue().compareTo(o.stringValue());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ValueStringUtf8) {
+            ValueStringUtf8 u = (ValueStringUtf8) obj;
+            if(Arrays.equals(bytes, offset, offset + length, u.bytes, u.offset, u.offset + u.length))
+                return true;
+        }
+        return super.equals(obj);
+    }
+
+    //ASCII bytes are chars, no decoding
+    @Override
+    CharSequence chars() {
+        if(decoded == null && isAscii())
+            return new AsciiChars(bytes, offset, length);
+        return stringValue();
+    }
+
+    private boolean isAscii() {
+        for (int i = offset; i < offset + length; i++)
+            if(bytes[i] < 0)
+                return false;
+        return true;
+    }
+
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        if(decoded == null && isAscii())
+            out.append(new AsciiChars(bytes, offset, length));
+        else
+            out.append(stringValue());
+    }
+
+    @Override
+    public void writeUtf8To(OutputStream out) throws IOException {
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void writeUtf8To(ByteBuffer buf) {
+        buf.put(bytes, offset, length);
+    }
+
+    /**
+     * chars of ASCII bytes, for parsing without decoding.
+     */
+    private static final class AsciiChars implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        AsciiChars(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) bytes[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiChars(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        }
+    }
+}
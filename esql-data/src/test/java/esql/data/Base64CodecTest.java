@@ -0,0 +1,81 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Base64CodecTest {
+
+    @Test
+    public void codecTest() throws IOException {
+        Random random = new Random(5);
+        int[] sizes = {0, 1, 2, 3, 4, 100, Base64Codec.CHUNK_SIZE - 1, Base64Codec.CHUNK_SIZE,
+                Base64Codec.CHUNK_SIZE + 1, Base64Codec.CHUNK_SIZE * 2 + 2, 200_000};
+        for (int size : sizes) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            String expected = Base64.getEncoder().encodeToString(data);
+
+            StringBuilder sb = new StringBuilder();
+            Base64Codec.encode(new ByteArrayInputStream(data), sb);
+            assertEquals(expected, sb.toString(), "size " + size);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Base64Codec.encode(new ByteArrayInputStream(data), out);
+            assertEquals(expected, out.toString(StandardCharsets.US_ASCII));
+
+            out.reset();
+            assertEquals(size, Base64Codec.decode(new StringReader(expected), out));
+            assertArrayEquals(data, out.toByteArray(), "size " + size);
+            //without padding, as java.util.Base64 accepts
+            out.reset();
+            Base64Codec.decode(new StringReader(expected.replace("=", "")), out);
+            assertArrayEquals(data, out.toByteArray());
+        }
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.decode(new StringReader("aGVsbG8*"), new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.decode(new StringReader("aGVsb"), new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.decode(new StringReader("aG=sbG8="), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void lobTest() throws Exception {
+        byte[] data = new byte[ValueLOB.MAX_BUFFERED_SIZE * 3 + 7];
+        new Random(9).nextBytes(data);
+        String expected = Base64.getEncoder().encodeToString(data);
+        try(ValueBLOB blob = ValueBLOB.load(new ByteArrayInputStream(data))) {
+            assertEquals(expected, blob.stringValue());
+            StringWriter w = new StringWriter();
+            blob.writeTo(w);
+            assertEquals(expected, w.toString());
+            try(ValueCLOB clob = (ValueCLOB) blob.convertTo(TYPE_CLOB)) {
+                assertEquals(expected.length(), clob.size());
+                StringWriter cw = new StringWriter();
+                clob.writeTo(cw);
+                assertEquals(expected, cw.toString());
+                //decoding the CLOB back
+                try(ValueBLOB back = ValueBLOB.loadBase64(clob.getReader())) {
+                    assertEquals(data.length, back.size());
+                    try(InputStream in = back.getInputStream()) {
+                        assertArrayEquals(data, in.readAllBytes());
+                    }
+                }
+            }
+        }
+        //large base64 string is decoded by chunks to a temp file
+        try(ValueBLOB blob = (ValueBLOB) ValueString.buildString(TYPE_STRING, expected).convertTo(TYPE_BLOB);
+            InputStream in = blob.getInputStream()) {
+            assertNotNull(blob.getTempFile());
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+}
@@ -3,6 +3,11 @@ package esql.data;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -165,7 +170,96 @@ public class BinaryTest {
         array = ValueArray.buildArrayOfInteger(Types.TYPE_BYTE, 0, 3, 2, 0x7f, -76);
         assertFalse(v.equals(array), "Must not be equal");
 
-        assertTrue(v.equals(ValueString.buildString(Types.TYPE_STRING, "0001027fB4")), "Must be equal");
+        //hex string is not a bytes value until converted
+        assertFalse(v.equals(ValueString.buildString(Types.TYPE_STRING, "0001027fB4")), "Must not be equal");
+        assertTrue(v.equals(ValueString.buildString(Types.TYPE_STRING, "0001027fB4").convertTo(Types.TYPE_BYTES)),
+                "Must be equal");
+        assertEquals(ValueArray.buildArrayOfInteger(Types.TYPE_BYTE, 0, 1, 2, 0x7f, -76).hashCode(), v.hashCode());
     }
-}
 
+    @Test
+    public void equalLobTest() throws Exception {
+        byte[] data = new byte[5000];
+        new Random(3).nextBytes(data);
+        ValueBytes v = ValueBytes.buildBytes(data);
+        try(ValueBLOB md5 = ValueBLOB.wrap(data, data.length, ValueLOB.MD5);
+            ValueBLOB sha1 = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.SHA1)) {
+            //no common hash, compared by content
+            assertEquals(md5, sha1);
+            assertEquals(md5.hashCode(), sha1.hashCode());
+            //a BLOB is not a bytes value until converted
+            assertNotEquals(sha1, v);
+            assertNotEquals(v, md5);
+            assertEquals(v, md5.convertTo(Types.TYPE_BYTES));
+            byte[] changed = data.clone();
+            changed[4999]++;
+            try(ValueBLOB other = ValueBLOB.wrap(changed, changed.length, ValueLOB.SHA256)) {
+                assertNotEquals(md5, other);
+                assertNotEquals(other, sha1);
+            }
+            //a CLOB is chars, not bytes
+            assertNotEquals(md5, ValueCLOB.wrap("x", false));
+        }
+    }
+
+    @Test
+    public void equalOnDemandLobTest() throws Exception {
+        byte[] data = new byte[5000];
+        new Random(5).nextBytes(data);
+        //equals and hashCode spool an on-demand LOB, its content is still readable after
+        try(ValueBLOB onDemand = ValueBLOB.wrap(new ByteArrayInputStream(data.clone()), data.length);
+            ValueBLOB loaded = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.MD5)) {
+            assertEquals(loaded.hashCode(), onDemand.hashCode());
+            assertEquals(onDemand, loaded);
+            assertEquals(loaded, onDemand);
+            assertEquals(ValueBytes.buildBytes(data), onDemand.convertTo(Types.TYPE_BYTES));
+            assertEquals(loaded.stringValue(), onDemand.stringValue());
+        }
+        String text = "Đà Nẵng ".repeat(700);
+        try(ValueCLOB onDemand = ValueCLOB.wrap(new java.io.StringReader(text), text.length(), false);
+            ValueCLOB nclob = ValueCLOB.wrap(text, true, ValueLOB.SHA1)) {
+            assertEquals(nclob.hashCode(), onDemand.hashCode());
+            assertEquals(onDemand, nclob);
+            assertEquals(text, onDemand.stringValue());
+        }
+    }
+
+    @Test
+    public void hexCodecTest() throws Exception {
+        Random random = new Random(3);
+        for (int len = 0; len < 3000; len += 1 + len / 4) {
+            byte[] in = new byte[len];
+            random.nextBytes(in);
+            StringBuilder expected = new StringBuilder();
+            for (byte b : in)
+                expected.append(String.format("%02x", b & 0xFF));
+            assertEquals(expected.toString(), ValueBytes.bytesToHex(in));
+            StringBuilder sb = new StringBuilder();
+            ValueBytes.writeHex(in, sb);
+            assertEquals(expected.toString(), sb.toString());
+            assertArrayEquals(in, ValueBytes.hexToBytes(expected.toString().toUpperCase()));
+
+            ByteBuffer buf = ByteBuffer.allocateDirect(len + 1);
+            buf.put((byte) 1);
+            assertEquals(len, ValueBytes.decodeHex(expected, buf));
+            assertEquals(len + 1, buf.position());
+            buf.flip().get();
+            byte[] out = new byte[len];
+            buf.get(out);
+            assertArrayEquals(in, out);
+        }
+        ByteBuffer small = ByteBuffer.allocate(1);
+        assertThrows(BufferOverflowException.class, () -> ValueBytes.decodeHex("0102", small));
+        assertEquals(0, small.position());
+
+        //range and buffer position
+        assertArrayEquals(new byte[]{0x12, 0x34}, ValueBytes.hexToBytes("0x1234", 2, 6));
+        byte[] buf = {9, 9, 9, 9};
+        assertEquals(3, ValueBytes.hexToBytes("abcd", buf, 1));
+        assertArrayEquals(new byte[]{9, (byte) 0xab, (byte) 0xcd, 9}, buf);
+        assertEquals(4, ValueBytes.hexToBytes("abcdef", buf, 2));
+        assertArrayEquals(new byte[]{9, (byte) 0xab, (byte) 0xab, (byte) 0xcd}, buf);
+        assertEquals(ValueBytes.buildBytes((byte) 0x12, (byte) 0x34),
+                ValueString.buildString(Types.TYPE_STRING, "0x1234").convertTo(Types.TYPE_BYTES));
+    }
+}
@@ -1,4 +1,158 @@
 package esql.data;
 
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
 public class CLOBTest {
+
+    private static String text(int minLength) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < minLength)
+            sb.append("Tiếng Việt 😀 ").append(sb.length()).append('\n');
+        return sb.toString();
+    }
+
+    private static byte[] md5(byte[] b) throws Exception {
+        return MessageDigest.getInstance("MD5").digest(b);
+    }
+
+    @Test
+    public void splitSurrogatesTest() throws Exception {
+        for (boolean national : new boolean[]{false, true}) {
+            Charset charset = ValueString.stringCharset(national);
+            String text = text(ValueLOB.MAX_BUFFERED_SIZE * 2 + 100);
+            byte[] expected = text.getBytes(charset);
+            try(ValueCLOBCreator creator = ValueLOB.getCLOBCreator(national, ValueLOB.MD5, ValueLOB.CRC32C)) {
+                //odd chunks split the surrogate pairs between writes
+                for (int off = 0; off < text.length(); off += 7)
+                    creator.writeToLOB(text.toCharArray(), off, Math.min(7, text.length() - off));
+                try(ValueCLOB clob = creator.buildCLOB(); InputStream in = clob.getInputStream()) {
+                    assertArrayEquals(expected, in.readAllBytes());
+                    assertEquals(text, clob.stringValue());
+                    assertArrayEquals(md5(expected), clob.getHash(ValueLOB.MD5));
+                    assertArrayEquals(ValueLOB.messageDigestFromAlgorithm(ValueLOB.CRC32C).digest(expected),
+                            clob.getHash(ValueLOB.CRC32C));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void inMemoryTest() throws Exception {
+        String text = "xin chào 😀 và \uD83D";
+        byte[] expected = text.getBytes(ValueString.stringCharset(false));
+        try(ValueCLOBCreator creator = ValueLOB.getCLOBCreator(false, ValueLOB.MD5)) {
+            creator.writeToLOB(text);
+            ValueCLOB clob = creator.buildCLOB();
+            try(InputStream in = clob.getInputStream()) {
+                assertArrayEquals(expected, in.readAllBytes());
+            }
+            assertArrayEquals(md5(expected), clob.getHash(ValueLOB.MD5));
+            assertArrayEquals(ValueLOB.messageDigestFromAlgorithm(ValueLOB.SHA256).digest(expected),
+                    clob.forceHash(ValueLOB.SHA256));
+            //size of BLOB in bytes
+            assertEquals(expected.length, ((ValueBLOB) clob.convertTo(TYPE_BLOB)).size());
+            assertArrayEquals(expected, ((ValueBytes) clob.convertTo(TYPE_BYTES)).bytesArray());
+            assertEquals(ValueCLOB.wrap(text, false), clob);
+        }
+    }
+
+    @Test
+    public void readerTest() throws Exception {
+        String text = text(ValueLOB.MAX_BUFFERED_SIZE + 10);
+        byte[] expected = text.getBytes(ValueString.stringCharset(false));
+        try(ValueCLOB loaded = ValueCLOB.load(new StringReader(text), false)) {
+            assertEquals(text.length(), loaded.size());
+            assertArrayEquals(md5(expected), loaded.getHash(ValueLOB.MD5));
+            assertArrayEquals(md5(expected), loaded.forceHash(ValueLOB.MD5));
+        }
+        //bytes of a reader not copied to the temp file
+        try(ValueCLOB onDemand = ValueCLOB.wrap(new StringReader(text), text.length(), false);
+            InputStream in = onDemand.getInputStream()) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+        try(ValueCLOB onDemand = ValueCLOB.wrap(new InputStreamReader(new ByteArrayInputStream(expected),
+                ValueString.stringCharset(false)), text.length(), false, ValueLOB.MD5)) {
+            assertEquals(text, onDemand.stringValue());
+            assertArrayEquals(md5(expected), onDemand.getHash(ValueLOB.MD5));
+        }
+    }
+
+    private static String readAll(Reader reader) throws Exception {
+        try(reader) {
+            StringBuilder sb = new StringBuilder();
+            char[] buff = new char[1000];
+            int n;
+            while (0 <= (n = reader.read(buff)))
+                sb.append(buff, 0, n);
+            return sb.toString();
+        }
+    }
+
+    private static void assertRandomAccess(String text, ValueCLOB clob) throws Exception {
+        Random random = new Random(11);
+        for (int i = 0; i < 20; i++) {
+            int pos = random.nextInt(text.length());
+            int len = random.nextInt(5000);
+            assertEquals(text.substring(pos, Math.min(text.length(), pos + len)), clob.getSubString(pos, len));
+        }
+        //offsets of the index and around them
+        for (long pos : new long[]{0, CharOffsetIndex.STEP - 1, CharOffsetIndex.STEP, CharOffsetIndex.STEP + 1, text.length()})
+            assertEquals(text.substring((int) pos), readAll(clob.getReader(pos)));
+        StringBuilder paged = new StringBuilder();
+        Iterator<String> pages = clob.pages(100, 30000);
+        while (pages.hasNext())
+            paged.append(pages.next());
+        assertEquals(text.substring(100), paged.toString());
+        assertThrows(IllegalArgumentException.class, () -> clob.getSubString(text.length() + 1, 1));
+    }
+
+    @Test
+    public void charIndexTest() throws Exception {
+        String text = text(CharOffsetIndex.STEP * 3 + 50);
+        try(ValueCLOBCreator creator = ValueLOB.getCLOBCreator(false)) {
+            for (int off = 0; off < text.length(); off += 999)
+                creator.writeToLOB(text.toCharArray(), off, Math.min(999, text.length() - off));
+            try(ValueCLOB clob = creator.buildCLOB()) {
+                CharOffsetIndex index = clob.charIndex();
+                assertEquals(4, index.size());
+                for (int i = 1; i < index.size(); i++) { //offsets are encoded lengths of the chars before
+                    int chars = (int) index.charAt(i);
+                    assertTrue(chars == i * CharOffsetIndex.STEP || chars == i * CharOffsetIndex.STEP - 1);
+                    assertEquals(text.substring(0, chars).getBytes(ValueString.stringCharset(false)).length, index.byteAt(i));
+                }
+                assertRandomAccess(text, clob);
+                //index is shared by the copy
+                try(ValueCLOB copy = (ValueCLOB) clob.convertTo(TYPE_CLOB)) {
+                    assertSame(index, copy.charIndex());
+                }
+            }
+        }
+        //recorded by the copy of the source
+        try(ValueCLOB onDemand = ValueCLOB.wrap(new InputStreamReader(new ByteArrayInputStream(
+                text.getBytes(ValueString.stringCharset(true))), ValueString.stringCharset(true)), text.length(), true)) {
+            assertRandomAccess(text, onDemand);
+            assertEquals(4, onDemand.charIndex().size());
+        }
+        try(ValueCLOB spooled = ValueCLOB.spool(new StringReader(text), text.length(), false)) {
+            assertRandomAccess(text, spooled);
+            assertEquals(4, spooled.charIndex().size());
+        }
+        ValueCLOB small = ValueCLOB.wrap("xin chào", false);
+        assertEquals("chào", small.getSubString(4, 10));
+        assertEquals("in", readAll(small.getReader(1)).substring(0, 2));
+        assertFalse(ValueCLOB.NULL_CLOB.pages(0, 10).hasNext());
+    }
 }
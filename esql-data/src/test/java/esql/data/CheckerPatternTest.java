@@ -0,0 +1,106 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.ParsePosition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckerPatternTest {
+
+    private static final char[] DIGITS = "0123456789".toCharArray();
+    private static final char[] HEX = "0123456789ABCDEFabcdef".toCharArray();
+    private static final char[] SIGNS = {'+', '-'};
+    private static final char[] POINT = {'.'};
+    private static final char[] POWER = {'E', 'e'};
+    private static final char[] PADDING = {'='};
+    private static final char[] PREFIX = {'0', 'x'};
+    private static final char[] VIETNAMESE = "aăâđeêoôơuưy".toCharArray();
+
+    //parameters of checkStringOfPattern: flags of left, left chars, flags of right, right chars, valid chars
+    private static final Object[][] CONFIGS = {
+            {true, false, PREFIX, true, false, false, null, false, false, HEX, false},
+            {true, true, SIGNS, true, true, false, null, false, false, DIGITS, false},
+            {true, true, SIGNS, true, true, false, POINT, false, false, DIGITS, false},
+            {false, true, POINT, false, false, false, null, false, false, DIGITS, false},
+            {false, true, POINT, false, false, false, POWER, false, true, DIGITS, false},
+            {true, true, null, false, false, true, PADDING, true, true, HEX, false},
+            {true, true, SIGNS, false, true, true, PADDING, false, false, DIGITS, true},
+            {true, false, VIETNAMESE, true, true, false, PREFIX, true, false, VIETNAMESE, false},
+    };
+
+    private static CheckerPattern compile(Object[] c) {
+        return new CheckerPattern((Boolean) c[0],
+                (Boolean) c[1], (char[]) c[2], (Boolean) c[3], (Boolean) c[4],
+                (Boolean) c[5], (char[]) c[6], (Boolean) c[7], (Boolean) c[8],
+                (char[]) c[9], (Boolean) c[10]);
+    }
+
+    //string, last state, start and end of the value, for each config
+    private static final Object[][][] STATES = {
+            {{"0x12ab", 8, 2, 6}, {" 12ab ", 7, 1, 5}, {"0xg", 7, 2, 2}, {"x12", 7, 0, 0}, {"", -1, 0, 0}},
+            {{"-123", 8, 0, 4}, {" +7 ", 7, 1, 3}, {"12a", 7, 0, 2}, {"-", 3, 0, 1}, {"1 2", 7, 0, 1}},
+            {{"-12.5", 8, 0, 3}, {"12.", 8, 0, 2}, {"+3", 5, 0, 2}, {".5", 8, 0, 0}, {"1.2.3", 7, 0, 1}},
+            {{".25", 8, 0, 3}, {"25", 3, 0, 2}, {".", 3, 0, 1}, {".2x", 7, 0, 2}, {". 5", 7, 0, 1}},
+            {{".5e", 8, 0, 2}, {".5E3", 6, 0, 2}, {".5", 5, 0, 2}, {"5e", 3, 0, 2}, {".e", 8, 0, 1}},
+            {{"ab==", 8, 0, 4}, {"ab", 8, 0, 2}, {"ab=c", 7, 0, 4}, {"=", 8, 0, 1}, {" a= ", 7, 0, 4}},
+            {{"-12=", 8, 0, 4}, {"+1\n2=", 8, 0, 5}, {"12", 3, 0, 2}, {"-1=x", 8, 0, 3}, {"==", 3, 0, 2}},
+            {{"ăđ0x", 8, 1, 2}, {"đa", 8, 1, 2}, {"aăx0", 5, 1, 2}, {"0x", 8, 0, 0}, {"ă 0", 5, 1, 1}},
+    };
+
+    @Test
+    public void statesTest() {
+        for (int c = 0; c < CONFIGS.length; c++) {
+            Object[] config = CONFIGS[c];
+            CheckerPattern pattern = compile(config);
+            for (Object[] expected : STATES[c]) {
+                String s = (String) expected[0];
+                ParsePosition start = new ParsePosition(0), end = new ParsePosition(s.length());
+                assertEquals(expected[1], pattern.check(s, start, end), s);
+                assertEquals(expected[2], start.getIndex(), s);
+                assertEquals(expected[3], end.getIndex(), s);
+                assertEquals((int) expected[1] == StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED,
+                        pattern.match(s, new ParsePosition(0), null), s);
+                //the static checker compiles the same pattern (sorted chars)
+                start = new ParsePosition(0);
+                end = new ParsePosition(s.length());
+                assertEquals(expected[1], StringLeftRightChecker.checkStringOfPattern(0, (Boolean) config[0],
+                        (Boolean) config[1], (char[]) config[2], (Boolean) config[3], (Boolean) config[4],
+                        (Boolean) config[5], (char[]) config[6], (Boolean) config[7], (Boolean) config[8],
+                        (char[]) config[9], (Boolean) config[10], s, start, end), s);
+                assertEquals(expected[2], start.getIndex(), s);
+                assertEquals(expected[3], end.getIndex(), s);
+            }
+        }
+        //from the value, the sign is not a left sequence anymore
+        CheckerPattern signed = compile(CONFIGS[1]);
+        assertEquals(StringLeftRightChecker.STRING_GRACEFULLY_END_MATCHED,
+                signed.check(StringLeftRightChecker.STRING_START_OF_VALUE, "12", null, null));
+        assertEquals(StringLeftRightChecker.STRING_END_OF_TEMPLATE,
+                signed.check(StringLeftRightChecker.STRING_START_OF_VALUE, "-12", null, null));
+    }
+
+    @Test
+    public void charSetTest() {
+        CheckerPattern.CharSet set = new CheckerPattern.CharSet("z0?\u007fđâ".toCharArray());
+        for (char c = 0; c < 512; c++)
+            assertEquals("z0?\u007fđâ".indexOf(c) >= 0, set.contains(c), Integer.toString(c));
+        assertFalse(set.contains('\uffff'));
+    }
+
+    @Test
+    public void valueChecksTest() {
+        ParsePosition start = new ParsePosition(0);
+        ParsePosition end = new ParsePosition(0);
+        assertTrue(Value.isHexString(" 0x12ab", start, end));
+        assertEquals(3, start.getIndex());
+        assertEquals(7, end.getIndex());
+        assertTrue(Value.isIntegerString("-123"));
+        assertFalse(Value.isIntegerString("12a"));
+        assertTrue(Value.isFloatingNumberString("-1.5e+3"));
+        assertFalse(Value.isFloatingNumberString("1.5e+"));
+        assertTrue(Value.matchBase64String("ab+/", false));
+        assertFalse(Value.matchBase64String("ab+/", true));
+        assertTrue(Value.matchBase64String("ab-_", true));
+    }
+}
@@ -17,6 +17,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -771,4 +772,66 @@ public class DataTreeTest {
 
 	}
 
+	@Test
+	public void utf8StringJSONTest() throws Exception {
+		String text = "xin chào 😀";
+		byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+		TreeBuilder builder = ValueDataTree.builderOfDataTree();
+		builder.putElement(Key.of("s"), builder.valueOf(ValueString.buildString(Types.TYPE_STRING, utf8, 0, utf8.length)));
+		builder.putElement(Key.of("e"), "a\"b\\c\n\u0001");
+		builder.putElement(Key.of("n"), builder.valueOf(Value.valueOf(new BigDecimal("12.50"))));
+		builder.putElement(Key.of("b"), builder.valueOf(Value.valueOf(true)));
+		builder.putNull(Key.of("z"));
+		ValueDataTree data_tree = builder.build();
+		assertTrue(data_tree.get("s").getValue() instanceof ValueStringUtf8);
+
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		data_tree.writeAsJSON(bo);
+		assertEquals("{\"s\":\"xin chào 😀\",\"e\":\"a\\\"b\\\\c\\n\\u0001\",\"n\":12.50,\"b\":true,\"z\":null}",
+				bo.toString(StandardCharsets.UTF_8));
+		JsonObject obj = Json.createReader(new ByteArrayInputStream(bo.toByteArray())).readObject();
+		assertEquals("a\"b\\c\n\u0001", obj.getString("e"));
+
+		assertThrows(IllegalArgumentException.class, () -> builder.valueOf(data_tree));
+	}
+
+	@Test
+	public void clobJSONTest() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < ValueLOB.MAX_BUFFERED_SIZE * 2)
+			sb.append("Tiếng Việt ").append(sb.length()).append(' ');
+		String text = sb.toString();
+		try(ValueCLOB clob = ValueCLOB.load(new StringReader(text), false)) {
+			Value s = clob.convertTo(Types.TYPE_STRING);
+			assertEquals(text, s.stringValue());
+			if(StandardCharsets.UTF_8.equals(ValueString.stringCharset(false)))
+				assertTrue(s instanceof ValueStringUtf8, "UTF-8 temp file is not decoded");
+
+			TreeBuilder builder = ValueDataTree.builderOfDataTree();
+			builder.putElement(Key.of("clob"), builder.valueOf(clob));
+			ByteArrayOutputStream bo = new ByteArrayOutputStream();
+			builder.build().writeAsJSON(bo);
+			JsonObject obj = Json.createReader(new ByteArrayInputStream(bo.toByteArray())).readObject();
+			assertEquals(text, obj.getString("clob"));
+		}
+	}
+
+	@Test
+	public void valueWriterTest() throws Exception {
+		TreeBuilder builder = ValueDataTree.builderOfDataTree();
+		builder.putElement(Key.of("s"), "a<b\"c");
+		builder.putElement(Key.of("n"), new BigDecimal("1E+3"));
+		builder.putElement(Key.of("d"), 4.5d);
+		builder.createList(Key.of("l")).addElement(builder.valueOf(7L), builder.valueOf("x:y"));
+		ValueDataTree data_tree = builder.build();
+
+		StringWriter json = new StringWriter();
+		data_tree.writeAsJSON(json);
+		assertEquals("{\"s\":\"a<b\\\"c\",\"n\":1000,\"d\":4.5,\"l\":[7,\"x:y\"]}", json.toString());
+
+		StringWriter xml = new StringWriter();
+		data_tree.writeAsXML("root", xml);
+		assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><root><s><![CDATA[a<b\"c]]></s><n>1000</n><d>4.5</d>"
+				+ "<l>7</l><l><![CDATA[x:y]]></l></root>", xml.toString());
+	}
 }
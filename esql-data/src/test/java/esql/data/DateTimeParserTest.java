@@ -0,0 +1,113 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DateTimeParserTest {
+
+    private static Object temporal(Value v) {
+        return ((ValueDateTime) v).toTemporal();
+    }
+
+    @Test
+    public void isoTest() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            LocalDateTime dt = LocalDateTime.ofEpochSecond(random.nextInt(Integer.MAX_VALUE) * 4L - 4_000_000_000L,
+                    random.nextInt(4) == 0 ? random.nextInt(1000_000_000) : 0, ZoneOffset.UTC);
+            String date = dt.toLocalDate().toString();
+            String time = dt.toLocalTime().toString();
+            String datetime = dt.toString();
+            assertEquals(LocalDate.parse(date), temporal(DateTimeParser.parse(TYPE_DATE, date)), date);
+            assertEquals(LocalTime.parse(time), temporal(DateTimeParser.parse(TYPE_TIME, time)), time);
+            assertEquals(LocalDateTime.parse(datetime), temporal(DateTimeParser.parse(TYPE_DATETIME, datetime)), datetime);
+            String ts = dt.toInstant(ZoneOffset.UTC).toString();
+            assertEquals(Instant.parse(ts), temporal(DateTimeParser.parse(TYPE_TIMESTAMP, ts)), ts);
+            String offset = dt.atOffset(ZoneOffset.ofHoursMinutes(7, 30)).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            assertEquals(Instant.parse(offset), temporal(DateTimeParser.parse(TYPE_TIMESTAMP, offset)), offset);
+        }
+        //rare forms by java.time
+        assertEquals(LocalDate.of(12345, 1, 1), temporal(DateTimeParser.parse(TYPE_DATE, "+12345-01-01")));
+        assertEquals(LocalDate.of(2024, 2, 29), temporal(DateTimeParser.parse(TYPE_DATE, "2024-02-29")));
+        String[] bad = {"2023-02-29", "2024-13-01", "2024-1-01", "2024-01-01x", "", "24:00", "12:60", "12:00:00.1234567890"};
+        for (String s : bad) {
+            assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse(TYPE_DATE, s), s);
+            assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse(TYPE_TIME, s), s);
+        }
+        assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse(TYPE_TIMESTAMP, "2024-01-01T00:00:00"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse(TYPE_TIMESTAMP, "2024-01-01T00:00:00+19:00"));
+        assertEquals(LocalDate.of(2024, 3, 1), temporal(ValueString.buildString(TYPE_STRING, "2024-03-01").convertTo(TYPE_DATE)));
+    }
+
+    @Test
+    public void patternTest() {
+        Locale vi = Locale.forLanguageTag("vi-VN");
+        String[][] cases = {
+                {"dd/MM/yyyy", "05/03/2024"},
+                {"d/M/yyyy", "5/3/2024"},
+                {"d/M/yyyy", "15/12/2024"},
+                {"yyyyMMdd", "20240305"},
+                {"dd/MM/yy HH:mm", "05/03/24 07:08"},
+                {"dd.MM.uuuu HH:mm:ss.SSS", "05.03.2024 07:08:09.123"},
+                {"'ngày' dd 'tháng' MM yyyy", "ngày 05 tháng 03 2024"},
+                {"dd MMM yyyy", "05 thg 3 2024"},
+                {"yyyy-MM-dd'T'HH:mm:ssXXX", "2024-03-05T07:08:09+07:00"},
+        };
+        for (String[] c : cases) {
+            DateTimeFormatter f = DateTimeFormatter.ofPattern(c[0], vi);
+            LocalDate date = LocalDate.parse(c[1], f);
+            assertEquals(date, temporal(DateTimeParser.parse(TYPE_DATE, c[1], c[0], vi)), c[0]);
+            LocalDateTime dt = f.parse(c[1]).isSupported(java.time.temporal.ChronoField.HOUR_OF_DAY)
+                    ? LocalDateTime.parse(c[1], f) : date.atStartOfDay();
+            assertEquals(dt, temporal(DateTimeParser.parse(TYPE_DATETIME, c[1], c[0], vi)), c[0]);
+        }
+        assertEquals(LocalTime.of(7, 8), temporal(DateTimeParser.parse(TYPE_TIME, "07h08", "HH'h'mm", vi)));
+        assertEquals(LocalDate.of(2024, 3, 5), temporal(DateTimeParser.parse(TYPE_DATE, "Mar 5, 2024", "MMM d, yyyy", Locale.US)));
+
+        //timestamp without offset is local in the context zone
+        try(TimeZoneContext.Scope s = TimeZoneContext.use(ZoneId.of("Asia/Ho_Chi_Minh"))) {
+            assertEquals(Instant.parse("2024-03-05T00:08:00Z"),
+                    temporal(DateTimeParser.parse(TYPE_TIMESTAMP, "05/03/2024 07:08", "dd/MM/yyyy HH:mm", vi)));
+            assertEquals(Instant.parse("2024-03-05T00:08:00Z"),
+                    temporal(DateTimeParser.parse(TYPE_TIMESTAMP, "05 thg 3 2024 07:08", "dd MMM yyyy HH:mm", vi)));
+            assertEquals(Instant.parse("2024-03-05T00:08:09Z"),
+                    temporal(DateTimeParser.parse(TYPE_TIMESTAMP, "2024-03-05T07:08:09+07:00", "yyyy-MM-dd'T'HH:mm:ssXXX", vi)));
+        }
+
+        //resolved by the formatter as java.time does
+        assertEquals(LocalDate.of(2024, 2, 29), temporal(DateTimeParser.parse(TYPE_DATE, "31/02/2024", "dd/MM/yyyy", vi)));
+        assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse(TYPE_DATE, "32/02/2024", "dd/MM/yyyy", vi));
+        assertThrows(DateTimeParseException.class, () -> DateTimeParser.parse(TYPE_DATE, "05/03/2024 ", "dd/MM/yyyy", vi));
+        assertThrows(DateTimeException.class, () -> DateTimeParser.parse(TYPE_TIME, "05/03/2024", "dd/MM/yyyy", vi));
+        assertThrows(IllegalArgumentException.class, () -> DateTimeParser.parse(TYPE_DATE, "05/03/2024", "dd/MM/yyyy{", vi));
+    }
+
+    @Test
+    public void buildValueTest() {
+        assertEquals(LocalDate.of(2024, 3, 5), temporal(Value.buildValue("date", " 05/03/2024 ", "dd/MM/yyyy", true)));
+        assertEquals(LocalDate.of(2024, 3, 5), temporal(Value.buildValue("date", "2024-03-05", null, false)));
+        assertTrue(Value.buildValue("date", "", "dd/MM/yyyy", false).isNull());
+        assertTrue(Value.buildValue("date", null, "dd/MM/yyyy", false).isNull());
+        assertEquals(" x ", Value.buildValue("string", " x ", "dd/MM/yyyy", false).stringValue());
+
+        Value n = Value.buildValue(TYPE_DECIMAL, "1.234.567,89", "#,##0.00", Locale.forLanguageTag("vi-VN"), false);
+        assertEquals(0, new BigDecimal("1234567.89").compareTo(((ValueNumber) n).decimalValue()));
+        assertEquals(1234567L, ((ValueNumber) Value.buildValue(TYPE_LONG, "1,234,567", "#,##0", Locale.US, false)).longValue());
+        assertThrows(NumberFormatException.class, () -> Value.buildValue(TYPE_LONG, "1,234x", "#,##0", Locale.US, false));
+    }
+}
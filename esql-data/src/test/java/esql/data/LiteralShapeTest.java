@@ -0,0 +1,122 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiteralShapeTest {
+
+    private static final Pattern HEX_PATTERN = Pattern.compile("\\s*(0x)?[0-9A-Fa-f]+\\s*");
+
+    private static boolean parses(Types type, String s) {
+        try {
+            DateTimeParser.parse(type, s.trim());
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void differentialTest() {
+        //same as the patterns of Value
+        Random random = new Random(3);
+        String alphabet = "0123456789+-.eExabfAZz=/_ \t";
+        LiteralShape shape = new LiteralShape();
+        for (int i = 0; i < 200_000; i++) {
+            char[] chars = new char[1 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++)
+                chars[j] = alphabet.charAt(random.nextInt(alphabet.length()));
+            String s = new String(chars);
+            int mask = shape.classify(s);
+            assertEquals(Value.INTEGER_PATTERN.matcher(s).matches(), (mask & LiteralShape.INTEGER) != 0, s);
+            assertEquals(Value.DECIMAL_PATTERN.matcher(s).matches(), (mask & LiteralShape.DECIMAL) != 0, s);
+            assertEquals(Value.FLOATING_NUMBER_PATTERN.matcher(s).matches(), (mask & LiteralShape.FLOATING) != 0, s);
+            assertEquals(HEX_PATTERN.matcher(s).matches(), (mask & LiteralShape.HEX) != 0, s);
+            String trimmed = s.trim();
+            boolean base64 = trimmed.length() % 4 == 0 && !trimmed.endsWith("===");
+            assertEquals(base64 && Value.BASE64_LINE_PATTERN.matcher(s).matches(), (mask & LiteralShape.BASE64) != 0, s);
+            assertEquals(base64 && Value.BASE64URL_LINE_PATTERN.matcher(s).matches(), (mask & LiteralShape.BASE64URL) != 0, s);
+            if((mask & LiteralShape.FLOATING) != 0)
+                assertEquals(Double.parseDouble(trimmed), Double.parseDouble(s.substring(shape.getStart(), shape.getEnd())));
+        }
+    }
+
+    @Test
+    public void offsetTest() {
+        LiteralShape shape = new LiteralShape();
+        int mask = shape.classify(" -12.5e+3\t");
+        assertEquals(LiteralShape.FLOATING, mask);
+        assertEquals(1, shape.getStart());
+        assertEquals(9, shape.getEnd());
+        assertEquals(1, shape.getSignIndex());
+        assertEquals(2, shape.getIntegerStart());
+        assertEquals(4, shape.getDecimalPoint());
+        assertEquals(6, shape.getExponent());
+        assertEquals(-1, shape.getHexStart());
+
+        assertEquals(LiteralShape.INTEGER | LiteralShape.DECIMAL | LiteralShape.FLOATING | LiteralShape.HEX
+                | LiteralShape.BASE64 | LiteralShape.BASE64URL, shape.classify("1234"));
+        assertEquals(-1, shape.getSignIndex());
+        assertEquals(0, shape.getIntegerStart());
+        assertEquals(-1, shape.getDecimalPoint());
+        assertEquals(0, shape.getHexStart());
+
+        assertEquals(LiteralShape.HEX | LiteralShape.BASE64 | LiteralShape.BASE64URL, shape.classify(" 0x1A2b3c "));
+        assertEquals(3, shape.getHexStart());
+        assertEquals(9, shape.getEnd());
+        assertEquals(-1, shape.getIntegerStart());
+
+        assertEquals(LiteralShape.BASE64, shape.classify("aGVsbG8+d29ybGQ="));
+        assertEquals(LiteralShape.BASE64URL, shape.classify("aGVsbG8-d29ybGQ_"));
+        assertEquals(0, shape.classify("a==="));
+        assertEquals(0, shape.classify(""));
+        assertEquals(0, shape.classify(" \t"));
+        assertEquals(0, shape.classify(null));
+        assertEquals(0, shape.classify("0x"));
+        assertEquals(0, shape.classify("١٢٣"));
+        assertFalse(shape.is(LiteralShape.INTEGER));
+
+        //hex string converted by its shape
+        assertEquals(ValueBytes.buildBytes(new byte[]{0x12, 0x34}),
+                ValueString.buildString(TYPE_STRING, " 0x1234\t").convertTo(TYPE_BYTES));
+    }
+
+    @Test
+    public void temporalTest() {
+        LiteralShape shape = new LiteralShape();
+        assertEquals(LiteralShape.DATE, shape.classify(" 2024-03-05 "));
+        assertEquals(LiteralShape.TIME, shape.classify("07:08"));
+        assertEquals(LiteralShape.TIME, shape.classify("07:08:09.123"));
+        assertEquals(LiteralShape.DATETIME, shape.classify("2024-03-05T07:08:09"));
+        assertEquals(LiteralShape.TIMESTAMP, shape.classify("2024-03-05T07:08:09Z"));
+        assertEquals(LiteralShape.TIMESTAMP, shape.classify("2024-03-05T07:08:09.5-07:30"));
+        String[] bad = {"2024-02-30", "2024-13-01", "2024-03-05T", "2024-03-05 07:08", "24:00", "2024-03-05T07:08Z",
+                "2024-03-05T07:08:09+19:00", "7:08", "2024-3-05", "12:60"};
+        for (String s : bad)
+            assertEquals(0, shape.classify(s) & (LiteralShape.DATE | LiteralShape.TIME | LiteralShape.DATETIME | LiteralShape.TIMESTAMP), s);
+
+        //every temporal shape is parsed by DateTimeParser
+        Random random = new Random(5);
+        String alphabet = "0123456789-:.TZ+";
+        for (int i = 0; i < 100_000; i++) {
+            char[] chars = "2024-03-05T07:08:09.123+07:00".toCharArray();
+            int len = 5 + random.nextInt(chars.length - 4);
+            for (int j = random.nextInt(3); j > 0; j--)
+                chars[random.nextInt(len)] = alphabet.charAt(random.nextInt(alphabet.length()));
+            String s = new String(chars, 0, len);
+            int mask = shape.classify(s);
+            assertEquals((mask & LiteralShape.DATE) != 0, s.length() == 10 && parses(TYPE_DATE, s), s);
+            if((mask & LiteralShape.TIME) != 0)
+                assertTrue(parses(TYPE_TIME, s), s);
+            if((mask & LiteralShape.DATETIME) != 0)
+                assertTrue(parses(TYPE_DATETIME, s), s);
+            if((mask & LiteralShape.TIMESTAMP) != 0)
+                assertTrue(parses(TYPE_TIMESTAMP, s), s);
+        }
+    }
+}
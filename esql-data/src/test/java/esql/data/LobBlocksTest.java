@@ -0,0 +1,128 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobBlocksTest {
+
+    private static byte[] text(int length) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length)
+            sb.append("<row id=\"").append(sb.length() % 977).append("\">log line of bulk import</row>\n");
+        return Arrays.copyOf(sb.toString().getBytes(), length);
+    }
+
+    private static ValueBLOB compressed(byte[] data) throws Exception {
+        try(ValueBLOBCreator creator = ValueLOB.getBLOBCreator(ValueLOB.MD5).setTempCompression(true)) {
+            //chunks across the blocks
+            for (int off = 0; off < data.length; off += 10000)
+                creator.writeToLOB(ByteBuffer.wrap(data, off, Math.min(10000, data.length - off)));
+            return (ValueBLOB) creator.buildBLOB();
+        }
+    }
+
+    private static void assertContent(byte[] data, ValueLOB lob) throws Exception {
+        try(InputStream in = lob.getInputStream()) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        Random random = new Random(13);
+        for (int i = 0; i < 20; i++) {
+            int pos = random.nextInt(data.length);
+            ByteBuffer dst = ByteBuffer.allocate(random.nextInt(LobBlocks.BLOCK_SIZE * 2));
+            int n = lob.read(dst, pos);
+            assertEquals(Math.min(dst.capacity(), data.length - pos), n);
+            assertArrayEquals(Arrays.copyOfRange(data, pos, pos + n), Arrays.copyOf(dst.array(), n));
+            try(InputStream in = lob.getInputStream()) {
+                assertEquals(pos, in.skip(pos));
+                assertEquals(data[pos] & 0xff, in.read());
+            }
+        }
+        assertEquals(-1, lob.read(ByteBuffer.allocate(1), data.length));
+        ByteBuffer range = lob.mapReadOnly(LobBlocks.BLOCK_SIZE - 5, 10);
+        byte[] b = new byte[range.remaining()];
+        range.get(b);
+        assertArrayEquals(Arrays.copyOfRange(data, LobBlocks.BLOCK_SIZE - 5, LobBlocks.BLOCK_SIZE + 5), b);
+        assertEquals(data.length, lob.mapReadOnly().remaining());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length, lob.transferTo(Channels.newChannel(out)));
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void compressedBlobTest() throws Exception {
+        byte[] data = text(LobBlocks.BLOCK_SIZE * 5 + 123);
+        try(ValueBLOB blob = compressed(data)) {
+            assertTrue(blob.getCompressionRatio() > 4, "ratio " + blob.getCompressionRatio());
+            assertTrue(Files.size(blob.getTempFile()) * 4 < data.length);
+            assertContent(data, blob);
+            assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), blob.getHash(ValueLOB.MD5));
+            assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), blob.forceHash(ValueLOB.SHA256));
+            try(ValueBLOB copy = (ValueBLOB) blob.convertTo(TYPE_BLOB)) {
+                assertEquals(blob.getTempFile(), copy.getTempFile());
+                assertContent(data, copy);
+            }
+            assertArrayEquals(data, ((ValueBytes) blob.convertTo(TYPE_BYTES)).bytesArray());
+        }
+    }
+
+    @Test
+    public void incompressibleTest() throws Exception {
+        Random random = new Random(17);
+        byte[] noise = new byte[LobBlocks.BLOCK_SIZE * 6];
+        random.nextBytes(noise);
+        try(ValueBLOB blob = compressed(noise)) {
+            //stored as is
+            assertEquals(1.0, blob.getCompressionRatio());
+            assertEquals(noise.length, Files.size(blob.getTempFile()));
+            assertContent(noise, blob);
+        }
+        //text after noise is compressed again
+        byte[] mixed = new byte[LobBlocks.BLOCK_SIZE * 30];
+        System.arraycopy(noise, 0, mixed, 0, noise.length);
+        byte[] text = text(mixed.length - noise.length);
+        System.arraycopy(text, 0, mixed, noise.length, text.length);
+        try(ValueBLOB blob = compressed(mixed)) {
+            assertTrue(blob.getCompressionRatio() > 2, "ratio " + blob.getCompressionRatio());
+            assertContent(mixed, blob);
+        }
+    }
+
+    @Test
+    public void compressedClobTest() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < CharOffsetIndex.STEP * 3)
+            sb.append("{\"tên\": \"Nguyễn 😀\", \"dòng\": ").append(sb.length() % 101).append("}\n");
+        String text = sb.toString();
+        byte[] encoded = text.getBytes(ValueString.stringCharset(false));
+        ValueLOB.setTempCompression(true);
+        try(ValueCLOB clob = ValueCLOB.load(new java.io.StringReader(text), false)) {
+            ValueLOB.setTempCompression(false);
+            assertTrue(clob.getCompressionRatio() > 4, "ratio " + clob.getCompressionRatio());
+            assertEquals(text, clob.stringValue());
+            assertContent(encoded, clob);
+            assertArrayEquals(MessageDigest.getInstance("MD5").digest(encoded), clob.getHash(ValueLOB.MD5));
+            assertArrayEquals(MessageDigest.getInstance("MD5").digest(encoded), clob.forceHash(ValueLOB.MD5));
+            int pos = CharOffsetIndex.STEP * 2 + 7;
+            assertEquals(text.substring(pos, pos + 100), clob.getSubString(pos, 100));
+            try(ValueBLOB blob = (ValueBLOB) clob.convertTo(TYPE_BLOB);
+                ValueCLOB nclob = (ValueCLOB) clob.convertTo(TYPE_NCLOB)) {
+                assertEquals(encoded.length, blob.size());
+                assertContent(encoded, blob);
+                assertEquals(text, nclob.stringValue());
+            }
+        } finally {
+            ValueLOB.setTempCompression(false);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobBufferPoolTest {
+
+    @Test
+    public void sizeClassTest() {
+        assertEquals(LobBufferPool.MIN_SIZE, LobBufferPool.bytes(1).length);
+        assertEquals(LobBufferPool.MIN_SIZE * 2, LobBufferPool.chars(LobBufferPool.MIN_SIZE + 1).length);
+        assertEquals(ValueLOB.MAX_BUFFERED_SIZE, LobBufferPool.bytes(Integer.MAX_VALUE).length);
+        for (int size = 1; size <= ValueLOB.MAX_BUFFERED_SIZE; size += 97) {
+            int c = LobBufferPool.classOf(size);
+            assertTrue(LobBufferPool.sizeOf(c) >= size);
+            assertTrue(c == 0 || LobBufferPool.sizeOf(c - 1) < size);
+        }
+
+        //released array is reused, a copy leaves the array in the pool
+        byte[] b = LobBufferPool.bytes(1000);
+        Arrays.fill(b, (byte) 1);
+        byte[] copy = LobBufferPool.handOff(b, 10);
+        assertEquals(10, copy.length);
+        boolean reused = false;
+        for (int i = 0; i <= LobBufferPool.POOL_SIZE && !reused; i++)
+            reused = b == LobBufferPool.bytes(1000);
+        assertTrue(reused);
+        //mostly used array is handed off with the tail cleared
+        byte[] kept = LobBufferPool.handOff(b, b.length - 10);
+        assertSame(b, kept);
+        assertEquals(0, kept[kept.length - 1]);
+        assertEquals(1, kept[0]);
+        //not a size class, not pooled
+        LobBufferPool.release(new char[LobBufferPool.MIN_SIZE + 3]);
+        assertEquals(LobBufferPool.MIN_SIZE * 2, LobBufferPool.chars(LobBufferPool.MIN_SIZE + 1).length);
+    }
+
+    @Test
+    public void adaptiveTest() {
+        LobBufferPool.Adaptive sizes = new LobBufferPool.Adaptive();
+        assertEquals(LobBufferPool.MIN_SIZE, sizes.initialSize());
+        for (int i = 0; i < 100; i++)
+            sizes.record(Long.MAX_VALUE);
+        assertTrue(sizes.initialSize() > ValueLOB.MAX_BUFFERED_SIZE * 9 / 10);
+        for (int i = 0; i < 100; i++)
+            sizes.record(100);
+        assertTrue(sizes.initialSize() < LobBufferPool.MIN_SIZE * 2);
+    }
+
+    @Test
+    public void creatorTest() throws Exception {
+        Random random = new Random(21);
+        for (int size : new int[]{1, 200, 300, 5000, ValueLOB.MAX_BUFFERED_SIZE, ValueLOB.MAX_BUFFERED_SIZE + 1, 100_000}) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            char[] text = new char[size];
+            for (int i = 0; i < size; i++)
+                text[i] = (char) ('a' + random.nextInt(26));
+            ValueBLOB blob;
+            ValueCLOB clob;
+            try(ValueBLOBCreator b = ValueLOB.getBLOBCreator(); ValueCLOBCreator c = ValueLOB.getCLOBCreator(false)) {
+                //by random chunks, the first block grows
+                for (int off = 0; off < size; ) {
+                    int n = Math.min(size - off, 1 + random.nextInt(3000));
+                    b.writeToLOB(ByteBuffer.wrap(data, off, n));
+                    c.writeToLOB(text, off, n);
+                    off += n;
+                }
+                blob = (ValueBLOB) b.buildBLOB();
+                clob = c.buildCLOB();
+                assertThrows(IllegalStateException.class, b::buildBLOB);
+                assertThrows(IllegalStateException.class, () -> c.writeToLOB("x"));
+            }
+            try(blob; clob; InputStream in = blob.getInputStream(); Reader reader = clob.getReader()) {
+                assertEquals(size, blob.size());
+                assertArrayEquals(data, in.readAllBytes(), "size " + size);
+                assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), blob.forceHash(ValueLOB.MD5));
+                assertTrue(blob.first_in_mem.length <= ValueLOB.MAX_BUFFERED_SIZE);
+                assertTrue(blob.first_in_mem.length < size * 2 + LobBufferPool.MIN_SIZE);
+                char[] read = new char[size];
+                int n = 0, r;
+                while (n < size && 0 < (r = reader.read(read, n, size - n)))
+                    n += r;
+                assertEquals(-1, reader.read());
+                assertArrayEquals(text, read);
+                assertEquals(new String(text), clob.stringValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobChannelTest {
+
+    private static void assertReads(ValueLOB lob, byte[] expected) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expected.length, lob.transferTo(Channels.newChannel(out)));
+        assertArrayEquals(expected, out.toByteArray());
+
+        ByteBuffer all = lob.mapReadOnly();
+        assertTrue(all.isReadOnly());
+        byte[] mapped = new byte[all.remaining()];
+        all.get(mapped);
+        assertArrayEquals(expected, mapped);
+
+        Random random = new Random(expected.length);
+        for (int i = 0; i < 20 && expected.length > 0; i++) {
+            int from = random.nextInt(expected.length);
+            int size = random.nextInt(expected.length - from + 1);
+            ByteBuffer slice = lob.mapReadOnly(from, size);
+            byte[] b = new byte[size];
+            slice.get(b);
+            assertArrayEquals(Arrays.copyOfRange(expected, from, from + size), b);
+
+            ByteBuffer dst = ByteBuffer.allocate(size);
+            long position = from;
+            int n;
+            while (dst.hasRemaining() && 0 <= (n = lob.read(dst, position)))
+                position += n;
+            assertArrayEquals(Arrays.copyOfRange(expected, from, from + size), dst.array());
+        }
+        assertEquals(-1, lob.read(ByteBuffer.allocate(8), expected.length));
+        assertThrows(IllegalArgumentException.class, () -> lob.mapReadOnly(expected.length, 1));
+        assertThrows(IllegalArgumentException.class, () -> lob.read(ByteBuffer.allocate(8), -1));
+    }
+
+    @Test
+    public void blobTest() throws Exception {
+        Random random = new Random(1);
+        for (int size : new int[]{0, 100, ValueLOB.MAX_BUFFERED_SIZE, ValueLOB.MAX_BUFFERED_SIZE * 3 + 5}) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            try(ValueBLOBCreator creator = ValueLOB.getBLOBCreator()) {
+                creator.writeToLOB(ByteBuffer.wrap(data));
+                try(ValueLOB blob = creator.buildBLOB()) {
+                    assertEquals(size > ValueLOB.MAX_BUFFERED_SIZE, blob.getTempFile() != null);
+                    assertReads(blob, data);
+                    if(blob.getTempFile() != null)
+                        assertTrue(blob.mapReadOnly(0, 10) instanceof MappedByteBuffer);
+                }
+            }
+            try(ValueBLOB loaded = ValueBLOB.load(new ByteArrayInputStream(data))) {
+                assertReads(loaded, data);
+            }
+            //on-demand source is copied to temp first
+            if(size > 0) {
+                try (ValueBLOB onDemand = ValueBLOB.wrap(new ByteArrayInputStream(data), size)) {
+                    assertReads(onDemand, data);
+                    assertNotNull(onDemand.getTempFile());
+                }
+            }
+        }
+        assertReads(ValueBLOB.NULL_BLOB, new byte[0]);
+    }
+
+    @Test
+    public void clobTest() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < ValueLOB.MAX_BUFFERED_SIZE * 2)
+            sb.append("Tiếng Việt có dấu, ").append(sb.length()).append('\n');
+        for (String text : new String[]{"xin chào", sb.toString()}) {
+            byte[] expected = text.getBytes(ValueString.stringCharset(false));
+            try(ValueCLOBCreator creator = ValueLOB.getCLOBCreator(false)) {
+                creator.writeToLOB(text.toCharArray(), 0, text.length());
+                try(ValueCLOB clob = creator.buildCLOB()) {
+                    assertEquals(text.length() > ValueLOB.MAX_BUFFERED_SIZE, clob.getTempFile() != null);
+                    assertReads(clob, expected);
+                }
+            }
+            try(ValueCLOB onDemand = ValueCLOB.wrap(new StringReader(text), text.length(), false)) {
+                assertReads(onDemand, expected);
+            }
+        }
+        assertReads(ValueCLOB.wrap("ascii", true), "ascii".getBytes(ValueString.stringCharset(true)));
+        assertReads(ValueCLOB.NULL_CLOB, new byte[0]);
+    }
+}
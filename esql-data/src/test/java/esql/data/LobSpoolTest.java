@@ -0,0 +1,165 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobSpoolTest {
+
+    @Test
+    public void concurrentReadersTest() throws Exception {
+        byte[] data = new byte[LobStore.SPOOL_CHUNK_SIZE * 3 + 11];
+        new Random(1).nextBytes(data);
+        int half = data.length / 2;
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            PipedOutputStream source = new PipedOutputStream();
+            try(ValueBLOB blob = ValueBLOB.spool(new PipedInputStream(source, 4096), data.length, ValueLOB.MD5, ValueLOB.XXHASH64)) {
+                source.write(data, 0, half);
+                source.flush();
+                InputStream first = blob.getInputStream();
+                InputStream second = blob.getInputStream();
+                //the spooled prefix is read before the source ends
+                assertArrayEquals(Arrays.copyOf(data, half), first.readNBytes(half));
+                assertArrayEquals(Arrays.copyOf(data, 100), second.readNBytes(100));
+                assertNull(blob.getHash(ValueLOB.MD5));
+                source.write(data, half, data.length - half);
+                source.close();
+                ByteArrayOutputStream rest = new ByteArrayOutputStream();
+                first.transferTo(rest);
+                assertArrayEquals(Arrays.copyOfRange(data, half, data.length), rest.toByteArray());
+                assertArrayEquals(Arrays.copyOfRange(data, 100, data.length), second.readAllBytes());
+                assertEquals(-1, first.read());
+                first.close();
+                second.close();
+                //whole content is spooled and hashed
+                assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), blob.forceHash(ValueLOB.MD5));
+                assertArrayEquals(ValueLOB.messageDigestFromAlgorithm(ValueLOB.XXHASH64).digest(data), blob.getHash(ValueLOB.XXHASH64));
+                try(ValueBLOB copy = (ValueBLOB) blob.convertTo(TYPE_BLOB);
+                    ValueBLOB loaded = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.MD5);
+                    InputStream in = copy.getInputStream()) {
+                    assertArrayEquals(data, in.readAllBytes());
+                    assertEquals(loaded, blob);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void clobTest() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < LobStore.SPOOL_CHUNK_SIZE)
+            sb.append("Tiếng Việt có dấu ").append(sb.length()).append('\n');
+        String text = sb.toString();
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            PipedWriter source = new PipedWriter();
+            try(ValueCLOB clob = ValueCLOB.spool(new PipedReader(source, 1024), text.length(), false)) {
+                source.write(text, 0, 1000);
+                source.flush();
+                Reader reader = clob.getReader();
+                char[] prefix = new char[100];
+                int n = 0;
+                while (n < prefix.length)
+                    n += reader.read(prefix, n, prefix.length - n);
+                assertEquals(text.substring(0, 100), new String(prefix));
+                source.write(text, 1000, text.length() - 1000);
+                source.close();
+                StringBuilder read = new StringBuilder(new String(prefix));
+                char[] buff = new char[500];
+                while (0 <= (n = reader.read(buff)))
+                    read.append(buff, 0, n);
+                reader.close();
+                assertEquals(text, read.toString());
+                assertEquals(text, clob.stringValue());
+                byte[] expected = text.getBytes(ValueString.stringCharset(false));
+                ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+                clob.writeUtf8To(utf8);
+                assertEquals(text, utf8.toString(StandardCharsets.UTF_8));
+                assertArrayEquals(MessageDigest.getInstance("MD5").digest(expected), clob.getHash(ValueLOB.MD5));
+            }
+        });
+    }
+
+    @Test
+    public void executorTest() throws Exception {
+        AtomicInteger tasks = new AtomicInteger();
+        ValueLOB.setSpoolExecutor(task -> {
+            tasks.incrementAndGet();
+            new Thread(task).start();
+        });
+        try(ValueCLOB clob = ValueCLOB.spool(new StringReader("xin chào"), 8, true)) {
+            assertEquals("xin chào", clob.stringValue());
+            assertEquals(1, tasks.get());
+        } finally {
+            ValueLOB.setSpoolExecutor(null);
+        }
+    }
+
+    @Test
+    public void closedBeforeSpoolTest() throws Exception {
+        Runnable[] pending = new Runnable[1];
+        ValueLOB.setSpoolExecutor(task -> pending[0] = task);
+        try {
+            ValueBLOB blob = ValueBLOB.spool(new ByteArrayInputStream(new byte[1000]), 1000);
+            Path file = blob.getTempFile();
+            blob.close();
+            //the task runs after the release, it leaves no file
+            pending[0].run();
+            assertFalse(Files.exists(file));
+        } finally {
+            ValueLOB.setSpoolExecutor(null);
+        }
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        InputStream failing = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if(count++ < 10)
+                    return 'a';
+                throw new IOException("source broken");
+            }
+        };
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            try(ValueBLOB blob = ValueBLOB.spool(failing, 100)) {
+                try(InputStream in = blob.getInputStream()) {
+                    assertThrows(IOException.class, in::readAllBytes);
+                }
+                assertThrows(RuntimeException.class, blob::stringValue);
+                assertNull(blob.getHash(ValueLOB.MD5));
+            }
+            //closed while spooling, waiting readers fail
+            PipedOutputStream source = new PipedOutputStream();
+            ValueBLOB blob = ValueBLOB.spool(new PipedInputStream(source), 100);
+            source.write(new byte[10]);
+            source.flush();
+            InputStream in = blob.getInputStream();
+            assertEquals(10, in.readNBytes(10).length);
+            blob.close();
+            assertThrows(IOException.class, in::read);
+            in.close();
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobStoreTest {
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static ValueBLOB create(byte[] data) throws Exception {
+        try(ValueBLOBCreator creator = ValueLOB.getBLOBCreator()) {
+            creator.writeToLOB(ByteBuffer.wrap(data));
+            return (ValueBLOB) creator.buildBLOB();
+        }
+    }
+
+    @Test
+    public void deduplicateTest() throws Exception {
+        byte[] data = randomBytes(ValueLOB.MAX_BUFFERED_SIZE * 2, 1);
+        ValueBLOB first = create(data);
+        ValueBLOB second = create(data);
+        ValueBLOB loaded = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.MD5);
+        ValueBLOB other = create(randomBytes(data.length, 2));
+        Path file = first.getTempFile();
+        assertEquals(file, second.getTempFile());
+        assertEquals(file, loaded.getTempFile());
+        assertNotEquals(file, other.getTempFile());
+        //file is deleted after the last reference
+        first.close();
+        first.close();
+        second.close();
+        assertTrue(Files.exists(file));
+        try(InputStream in = loaded.getInputStream()) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        loaded.close();
+        assertFalse(Files.exists(file));
+        other.close();
+        assertFalse(Files.exists(other.getTempFile()));
+    }
+
+    @Test
+    public void spooledKeyTest() throws Exception {
+        byte[] data = randomBytes(ValueLOB.MAX_BUFFERED_SIZE * 2, 6);
+        try(ValueBLOB spooled = ValueBLOB.spool(new ByteArrayInputStream(data), data.length, ValueLOB.MD5)) {
+            spooled.forceHash(ValueLOB.MD5);
+            //keyed once hashed, a LOB loaded later shares its file
+            try(ValueBLOB loaded = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.MD5)) {
+                assertEquals(spooled.getTempFile(), loaded.getTempFile());
+            }
+            assertTrue(Files.exists(spooled.getTempFile()));
+        }
+    }
+
+    @Test
+    public void convertSharesFileTest() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() <= ValueLOB.MAX_BUFFERED_SIZE)
+            sb.append("Tiếng Việt ").append(sb.length());
+        ValueCLOB clob;
+        try(ValueCLOBCreator creator = ValueLOB.getCLOBCreator(false)) {
+            creator.writeToLOB(sb.toString());
+            clob = creator.buildCLOB();
+        }
+        Path file = clob.getTempFile();
+        ValueCLOB copy = (ValueCLOB) clob.convertTo(TYPE_CLOB);
+        ValueBLOB blob = (ValueBLOB) clob.convertTo(TYPE_BLOB);
+        assertEquals(file, copy.getTempFile());
+        assertEquals(file, blob.getTempFile());
+        assertEquals(Files.size(file), blob.size());
+        clob.close();
+        copy.close();
+        assertEquals(sb.toString(), new String(blob.getInputStream().readAllBytes(), ValueString.stringCharset(false)));
+        blob.close();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void unbuiltCreatorTest() throws Exception {
+        long used = LobStore.getDefault().getUsedBytes();
+        Path file;
+        try(ValueBLOBCreator creator = ValueLOB.getBLOBCreator()) {
+            creator.writeToLOB(ByteBuffer.wrap(randomBytes(ValueLOB.MAX_BUFFERED_SIZE + 10, 3)));
+            try(ValueLOB lob = creator.buildBLOB()) {
+                file = lob.getTempFile();
+            }
+        }
+        assertFalse(Files.exists(file));
+        try(ValueBLOBCreator creator = ValueLOB.getBLOBCreator()) {
+            creator.writeToLOB(ByteBuffer.wrap(randomBytes(ValueLOB.MAX_BUFFERED_SIZE + 10, 4)));
+        }
+        //unreferenced LOBs of other tests may be cleaned meanwhile
+        assertTrue(LobStore.getDefault().getUsedBytes() <= used);
+    }
+
+    @Test
+    public void cleanerTest() throws Exception {
+        Path file = create(randomBytes(ValueLOB.MAX_BUFFERED_SIZE + 1, 5)).getTempFile();
+        //not closed, released when unreachable
+        for (int i = 0; i < 100 && Files.exists(file); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void quotaTest() throws Exception {
+        LobStore store = new LobStore(1000);
+        store.reserve(600);
+        assertThrows(IOException.class, () -> store.reserve(600));
+        assertEquals(600, store.getUsedBytes());
+        store.unreserve(600);
+        Path target = ValueLOB.tempDir.resolve("ESQL-LOB-quota-test.bin");
+        assertThrows(IOException.class, () -> store.spool(new ByteArrayInputStream(new byte[LobStore.SPOOL_CHUNK_SIZE]), target));
+        assertFalse(Files.exists(target));
+        assertEquals(0, store.getUsedBytes());
+        assertEquals(500, store.spool(new ByteArrayInputStream(new byte[500]), target));
+        Files.delete(target);
+    }
+
+    @Test
+    public void sweepOrphansTest() throws Exception {
+        LobStore store = new LobStore(0);
+        Path old = Files.createTempFile(ValueLOB.tempDir, "ESQL-LOB", ".bin");
+        Path recent = Files.createTempFile(ValueLOB.tempDir, "ESQL-CLOB", ".txt");
+        Path used = Files.createTempFile(ValueLOB.tempDir, "ESQL-LOB", ".bin");
+        Path other = Files.createTempFile(ValueLOB.tempDir, "ESQL-OTHER", ".bin");
+        FileTime past = FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(2).toMillis());
+        for (Path p : new Path[]{old, used, other})
+            Files.setLastModifiedTime(p, past);
+        LobStore.Ref ref = store.acquire(this, used, new byte[ValueLOB.HASHES.length][]);
+        assertTrue(store.sweepOrphans(Duration.ofDays(1)) >= 1);
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(used));
+        assertTrue(Files.exists(other));
+        ref.release();
+        assertFalse(Files.exists(used));
+        Files.delete(recent);
+        Files.delete(other);
+    }
+}
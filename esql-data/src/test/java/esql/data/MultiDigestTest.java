@@ -0,0 +1,105 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiDigestTest {
+
+    private static String xxh64(String s) throws Exception {
+        return ValueBytes.bytesToHex(ValueLOB.messageDigestFromAlgorithm(ValueLOB.XXHASH64)
+                .digest(s.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void fastDigestsTest() throws Exception {
+        assertEquals("ef46db3751d8e999", xxh64(""));
+        assertEquals("44bc2cf5ad770999", xxh64("abc"));
+        assertEquals("fbcea83c8a378bf1", xxh64("Nobody inspects the spammish repetition"));
+        assertArrayEquals(ValueLOB.EMPTY_HASHES[ValueLOB.CRC32C], ValueLOB.messageDigestFromAlgorithm(ValueLOB.CRC32C).digest());
+        assertArrayEquals(ValueLOB.EMPTY_HASHES[ValueLOB.XXHASH64], ValueLOB.messageDigestFromAlgorithm(ValueLOB.XXHASH64).digest());
+
+        //by any chunks, same as one update
+        Random random = new Random(3);
+        byte[] data = new byte[1000];
+        random.nextBytes(data);
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        for (int algo : new int[]{ValueLOB.CRC32C, ValueLOB.XXHASH64}) {
+            MessageDigest whole = ValueLOB.messageDigestFromAlgorithm(algo);
+            MessageDigest chunked = ValueLOB.messageDigestFromAlgorithm(algo);
+            byte[] expected = whole.digest(data);
+            for (int off = 0; off < data.length; ) {
+                int n = Math.min(data.length - off, random.nextInt(40));
+                if(n == 1)
+                    chunked.update(data[off]);
+                else
+                    chunked.update(data, off, n);
+                off += n;
+            }
+            assertArrayEquals(expected, chunked.digest());
+            if(algo == ValueLOB.CRC32C)
+                assertEquals(crc.getValue(), Long.parseLong(ValueBytes.bytesToHex(expected), 16));
+        }
+        assertThrows(IllegalArgumentException.class, () -> ValueLOB.messageDigestFromAlgorithm(ValueLOB.HASHES.length));
+    }
+
+    @Test
+    public void multiDigestTest() throws Exception {
+        int[] algos = {ValueLOB.MD5, ValueLOB.SHA256, ValueLOB.SHA512, ValueLOB.CRC32C, ValueLOB.XXHASH64};
+        byte[] data = new byte[MultiDigest.PARALLEL_MIN_SIZE * 5 + 7];
+        new Random(5).nextBytes(data);
+        MultiDigest digest = new MultiDigest(algos);
+        //large chunks are hashed in parallel, then a direct buffer
+        digest.update(data, 0, MultiDigest.PARALLEL_MIN_SIZE * 4);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length - MultiDigest.PARALLEL_MIN_SIZE * 4);
+        direct.put(data, MultiDigest.PARALLEL_MIN_SIZE * 4, direct.capacity()).flip();
+        digest.update(direct);
+        assertFalse(direct.hasRemaining());
+        byte[][] hashes = digest.digest();
+        for (int algo : algos)
+            assertArrayEquals(ValueLOB.messageDigestFromAlgorithm(algo).digest(data), hashes[algo], ValueLOB.HASHES[algo]);
+        assertNull(hashes[ValueLOB.SHA1]);
+
+        //through the stream
+        try(InputStream in = digest.input(new ByteArrayInputStream(data))) {
+            assertFalse(in.markSupported());
+            assertEquals(10, in.skip(10));
+            assertEquals(data[10] & 0xff, in.read());
+            in.readAllBytes();
+        }
+        hashes = digest.digest();
+        for (int algo : algos)
+            assertArrayEquals(ValueLOB.messageDigestFromAlgorithm(algo).digest(data), hashes[algo], ValueLOB.HASHES[algo]);
+    }
+
+    @Test
+    public void compareByFastHashTest() throws Exception {
+        byte[] data = new byte[ValueLOB.MAX_BUFFERED_SIZE + 100];
+        new Random(7).nextBytes(data);
+        try(ValueBLOB fast = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.XXHASH64, ValueLOB.CRC32C);
+            ValueBLOB other = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.CRC32C);
+            ValueBLOB strong = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.SHA256, ValueLOB.XXHASH64)) {
+            assertEquals(ValueLOB.XXHASH64, fast.getStrongestAlgorithmAvailableHash());
+            assertEquals(ValueLOB.CRC32C, fast.getWeakestAlgorithmAvailableHash());
+            assertEquals(ValueLOB.SHA256, strong.getStrongestAlgorithmAvailableHash());
+            assertEquals(fast, other);
+            assertEquals(fast, strong);
+            assertEquals(0, fast.compareTo(strong));
+            assertArrayEquals(ValueLOB.messageDigestFromAlgorithm(ValueLOB.XXHASH64).digest(data), strong.getHash(ValueLOB.XXHASH64));
+            data[data.length - 1]++;
+            try(ValueBLOB changed = ValueBLOB.load(new ByteArrayInputStream(data), ValueLOB.CRC32C)) {
+                assertNotEquals(fast, changed);
+                assertNotEquals(0, fast.compareTo(changed));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NumberParserTest {
+
+    @Test
+    public void integerTest() {
+        assertEquals(Value.valueOf(1234L), NumberParser.parse(TYPE_LONG, "1234"));
+        assertEquals(Value.valueOf(-1234L), NumberParser.parse(TYPE_LONG, " \t-1234 "));
+        assertEquals(Value.valueOf(1234), NumberParser.parse(TYPE_INT, "+01234"));
+        assertEquals(Types.TYPE_INT, NumberParser.parse(TYPE_INT, "7").getType());
+        assertEquals(Value.valueOf(Long.MIN_VALUE), NumberParser.parse(TYPE_LONG, "-9223372036854775808"));
+        assertEquals(Value.valueOf(Long.MAX_VALUE), NumberParser.parse(TYPE_LONG, "9223372036854775807"));
+        //integer part of decimal string
+        assertEquals(Value.valueOf(12), NumberParser.parse(TYPE_INT, "12.95"));
+        assertEquals(Value.valueOf(12), NumberParser.parse(TYPE_INT, "12."));
+        //range of chars
+        assertEquals(Value.valueOf(345L), NumberParser.parse(TYPE_LONG, "12345", 2, 5));
+
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_LONG, "9223372036854775808"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_LONG, "12a"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_LONG, "1e5"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_LONG, "-"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_LONG, "  "));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_LONG, "."));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_LONG, "-.e1"));
+        //empty integer part
+        assertEquals(Value.valueOf(0L), NumberParser.parse(TYPE_LONG, ".5"));
+        assertEquals(Value.valueOf(0), NumberParser.parse(TYPE_INT, "-.5"));
+        assertEquals(Value.valueOf(0), NumberParser.parse(TYPE_SHORT, "+.5"));
+    }
+
+    @Test
+    public void unsignedTest() {
+        Value v = NumberParser.parse(TYPE_ULONG, "18446744073709551615");
+        assertEquals(new BigInteger("18446744073709551615"), ((ValueNumber) v).bigIntValue());
+        assertEquals(BigInteger.valueOf(42), ((ValueNumber) NumberParser.parse(TYPE_ULONG, "42")).bigIntValue());
+        assertEquals(Value.valueOf(4294967295L).stringValue(), NumberParser.parse(TYPE_UINT, "4294967295").stringValue());
+    }
+
+    @Test
+    public void decimalTest() {
+        Value v = NumberParser.parse(TYPE_DECIMAL, "12345.67");
+        assertTrue(v instanceof ValueNumberCompactDecimal);
+        assertEquals("12345.67", v.stringValue());
+        assertEquals("-0.050", NumberParser.parse(TYPE_DECIMAL, "-0.050").stringValue());
+        assertEquals("1500", NumberParser.parse(TYPE_DECIMAL, "1.5e3").stringValue());
+        assertEquals(new BigDecimal("1.5e-3"), ((ValueNumber) NumberParser.parse(TYPE_DECIMAL, "1.5e-3")).decimalValue());
+        assertTrue(ValueNumber.DECIMAL_TEN == NumberParser.parse(TYPE_DECIMAL, "10"));
+        //too long for compact
+        Value big = NumberParser.parse(TYPE_DECIMAL, "123456789012345678901234.5");
+        assertEquals(new BigDecimal("123456789012345678901234.5"), ((ValueNumber) big).decimalValue());
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_DECIMAL, "1.2.3"));
+        assertEquals(new BigDecimal("0.5"), ((ValueNumber) NumberParser.parse(TYPE_DECIMAL, ".5")).decimalValue());
+        assertEquals("-0.5", NumberParser.parse(TYPE_DECIMAL, "-.5").stringValue());
+        assertEquals("-50", NumberParser.parse(TYPE_DECIMAL, "-.5e2").stringValue());
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_DECIMAL, "-."));
+    }
+
+    @Test
+    public void floatingTest() {
+        String[] samples = {"0", "3.5", "0.1", "123.456e2", "1E-7", "-2.5e+10", "9007199254740993",
+                "1.7976931348623157e308", "4.9e-324", "123456789012345678901234567890", "NaN", "-Infinity", ".5", "-.5"};
+        for (String s : samples) {
+            assertEquals(Double.parseDouble(s), ((ValueNumber) NumberParser.parse(TYPE_DOUBLE, s)).doubleValue(), s);
+            assertEquals((float) Double.parseDouble(s), ((ValueNumber) NumberParser.parse(TYPE_FLOAT, s)).floatValue(), s);
+        }
+        assertEquals(TYPE_FLOAT, NumberParser.parse(TYPE_FLOAT, "1.25").getType());
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(TYPE_DOUBLE, "1.2x"));
+    }
+
+    @Test
+    public void buildValueTest() {
+        assertEquals(Value.valueOf(15), Value.buildValue(TYPE_INT, " 15 "));
+        assertEquals(Value.valueOf(new BigDecimal("15.10")), Value.buildValue(TYPE_DECIMAL, "15.10"));
+        assertTrue(Value.buildValue(TYPE_INT, "").isNull());
+        assertTrue(Value.buildValue(TYPE_INT, null).isNull());
+        assertEquals(Value.valueOf("abc"), Value.buildValue(TYPE_STRING, "abc"));
+        assertEquals(Value.valueOf(true), Value.buildValue(TYPE_BOOLEAN, "x"));
+        assertEquals(Value.valueOf(15L), Value.valueOf("15").convertTo(TYPE_LONG));
+        assertEquals(Value.valueOf(2.5d), Value.valueOf("2.5").convertTo(TYPE_DOUBLE));
+    }
+}
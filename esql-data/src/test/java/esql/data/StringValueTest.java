@@ -5,7 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
 import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestMethodOrder(MethodOrderer.MethodName.class)
@@ -71,7 +74,56 @@ public class StringValueTest {
         assertTrue(vietnameseString.isTrue(), "Must true");
         assertTrue(!vietnameseString.isEmpty(), "Must not be empty");
     }
-    
-  
 
+    @Test
+    public void Utf8StringTest() throws Exception {
+        byte[] row = "id=42;name=Nguyễn Văn A;code=VND".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Value name = ValueString.buildString(TYPE_STRING, row, 11, 15);
+        Value code = ValueString.buildString(TYPE_NSTRING, row, row.length - 3, 3);
+        Value id = ValueString.buildString(TYPE_STRING, row, 3, 2);
+
+        assertTrue(name.is(TYPE_STRING), "Not correct type");
+        assertTrue(code.is(TYPE_NSTRING), "Not correct type");
+        assertEquals("Nguyễn Văn A", name.stringValue());
+        assertEquals("VND", code.stringValue());
+        assertTrue(ValueString.buildString(TYPE_STRING, row, 0, 0).isEmpty(), "Must be empty");
+        assertTrue(ValueString.buildString(TYPE_STRING, (byte[]) null, 0, 0).isNull(), "Must be null");
+
+        //equals, hash, compare with plain strings and numbers
+        assertEquals(ValueString.buildString(TYPE_STRING, "VND"), code);
+        assertEquals(code, ValueString.buildString(TYPE_STRING, "VND"));
+        assertEquals(ValueString.buildString(TYPE_STRING, "VND").hashCode(), code.hashCode());
+        assertEquals(ValueString.buildString(TYPE_STRING, "Nguyễn Văn A"), name);
+        assertEquals(ValueString.buildString(TYPE_STRING, "Nguyễn Văn A").hashCode(), name.hashCode());
+        //a number string is a string, compared by value once converted
+        assertNotEquals(Value.valueOf(42), id);
+        assertNotEquals(id, Value.valueOf(42));
+        assertEquals("42".hashCode(), id.hashCode());
+        assertTrue(!code.equals(ValueString.buildString(TYPE_STRING, "VNC")), "Must not be equal");
+        assertTrue(code.compareTo(ValueString.buildString(TYPE_STRING, "VNC")) > 0, "Must be greater");
+        assertTrue(code.compareTo(name) > 0, "Must be greater");
+        assertEquals(0, name.compareTo(ValueString.buildString(TYPE_STRING, row, 11, 15)));
+        assertEquals(Value.valueOf(42), id.convertTo(TYPE_INT));
+
+        //bytes copied as is
+        var out = new java.io.ByteArrayOutputStream();
+        ((ValueString) name).writeUtf8To(out);
+        ((ValueString) ValueString.buildString(TYPE_STRING, " & more")).writeUtf8To(out);
+        assertEquals("Nguyễn Văn A & more", out.toString(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void Utf8BufferTest() {
+        Value s = ValueString.buildString(TYPE_STRING, "Tiếng Việt 😀");
+        byte[] expected = s.stringValue().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        //the encoder of the thread is reused after an overflow
+        java.nio.ByteBuffer small = java.nio.ByteBuffer.allocate(expected.length - 1);
+        assertThrows(java.nio.BufferOverflowException.class, () -> s.writeUtf8To(small));
+        assertEquals(0, small.position());
+        for (int i = 0; i < 2; i++) {
+            java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(expected.length);
+            s.writeUtf8To(buf);
+            assertArrayEquals(expected, buf.array());
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeZoneContextTest {
+
+    @Test
+    public void offsetTest() {
+        Random random = new Random(42);
+        String[] zones = {"America/New_York", "Asia/Ho_Chi_Minh", "Australia/Lord_Howe", "Europe/London", "UTC", "+07:00"};
+        for (String z : zones) {
+            ZoneId zone = ZoneId.of(z);
+            TimeZoneContext context = TimeZoneContext.of(zone);
+            assertSame(context, TimeZoneContext.of(zone));
+            long second = LocalDateTime.of(1950, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+            //walk in steps of about an hour, around transitions too
+            for (int i = 0; i < 200_000; i++) {
+                second += 1800 + random.nextInt(3600);
+                LocalDateTime local = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+                assertEquals(local.atZone(zone).toEpochSecond(), context.toEpochSecond(second), z + " " + local);
+                Instant instant = Instant.ofEpochSecond(second);
+                assertEquals(zone.getRules().getOffset(instant), context.getOffset(second), z + " " + instant);
+                assertEquals(instant.atZone(zone).toLocalDateTime().toEpochSecond(ZoneOffset.UTC),
+                        context.toLocalEpochSecond(second));
+            }
+        }
+    }
+
+    @Test
+    public void scopeTest() {
+        Value date = ValueDateTime.buildDateTime(LocalDate.of(2024, 3, 1));
+        Value utc;
+        try(TimeZoneContext.Scope s = TimeZoneContext.use(ZoneOffset.UTC)) {
+            assertEquals(ZoneOffset.UTC, TimeZoneContext.current().getZone());
+            utc = date.convertTo(TYPE_TIMESTAMP);
+            try(TimeZoneContext.Scope s2 = TimeZoneContext.use(ZoneId.of("Asia/Ho_Chi_Minh"))) {
+                Value hcm = date.convertTo(TYPE_TIMESTAMP);
+                assertTrue(hcm.compareTo(utc) < 0);
+                assertEquals(LocalDate.of(2024, 3, 1).atStartOfDay(ZoneId.of("Asia/Ho_Chi_Minh")), ((ValueDateTime) hcm).toTemporal());
+                assertEquals(LocalDateTime.of(2024, 3, 1, 7, 0),
+                        ((ValueDateTime) ValueDateTime.buildDateTime(Instant.parse("2024-03-01T00:00:00Z")).convertTo(TYPE_DATETIME)).toTemporal());
+                assertEquals(0, date.compareTo(ValueDateTime.buildDateTime(Instant.parse("2024-02-29T17:00:00Z"))));
+            }
+            assertEquals(ZoneOffset.UTC, TimeZoneContext.current().getZone());
+            assertEquals(0, date.compareTo(ValueDateTime.buildDateTime(Instant.parse("2024-03-01T00:00:00Z"))));
+        }
+        assertSame(TimeZoneContext.getDefault(), TimeZoneContext.current());
+    }
+}
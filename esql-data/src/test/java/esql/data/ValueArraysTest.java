@@ -0,0 +1,91 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ValueArraysTest {
+
+    @Test
+    public void integerTest() {
+        ValueArray a = ValueArray.arrayOf(3, 1, 4, 1, 5, 9, 2, 6);
+        assertEquals(Value.valueOf(31L), ValueArrays.sum(a));
+        assertEquals(TYPE_LONG, ValueArrays.sum(a).getType());
+        assertEquals(Value.valueOf(1), ValueArrays.min(a));
+        assertEquals(Value.valueOf(9), ValueArrays.max(a));
+        assertEquals(Value.valueOf(8L), ValueArrays.countNonNull(a));
+        assertEquals(Value.valueOf(new BigDecimal("3.875")), ValueArrays.avg(a));
+        assertEquals(TYPE_DECIMAL, ValueArrays.avg(a).getType());
+
+        //overflow to decimal
+        ValueArray big = ValueArray.arrayOf(Long.MAX_VALUE, Long.MAX_VALUE, -1L);
+        assertEquals(new BigDecimal(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)).subtract(BigDecimal.ONE),
+                ((ValueNumber) ValueArrays.sum(big)).decimalValue());
+    }
+
+    @Test
+    public void nullAndEmptyTest() {
+        ValueArray a = ValueArray.builderOf(TYPE_INT);
+        a.add(Value.valueOf(5));
+        a.add(null);
+        a.add(Value.valueOf(7));
+        assertEquals(Value.valueOf(12L), ValueArrays.sum(a));
+        assertEquals(Value.valueOf(2L), ValueArrays.countNonNull(a));
+        assertEquals(Value.valueOf(new BigDecimal(6)), ValueArrays.avg(a));
+
+        assertTrue(ValueArrays.sum(ValueArray.EMPTY_INT_ARRAY).isNull());
+        assertTrue(ValueArrays.max(ValueArray.EMPTY_INT_ARRAY).isNull());
+        assertTrue(ValueArrays.avg(ValueArray.NULL_DOUBLE_ARRAY).isNull());
+        assertEquals(Value.valueOf(0L), ValueArrays.countNonNull(ValueArray.NULL_DOUBLE_ARRAY));
+        assertThrows(IllegalArgumentException.class, () -> ValueArrays.sum(ValueArray.arrayOf("a", "b")));
+    }
+
+    @Test
+    public void decimalAndDoubleTest() {
+        ValueArray d = ValueArray.arrayOf(new BigDecimal("12.5"), new BigDecimal("0.125"), new BigDecimal("-3"));
+        assertEquals("9.625", ValueArrays.sum(d).stringValue());
+        assertEquals(Value.valueOf(new BigDecimal("-3")), ValueArrays.min(d));
+        assertEquals(Value.valueOf(new BigDecimal("12.5")), ValueArrays.max(d));
+        //ulong
+        ValueArray u = ValueArray.buildArrayOfNumber(TYPE_ULONG, new BigInteger("18446744073709551615"), BigInteger.ONE);
+        assertEquals(new BigInteger("18446744073709551616"), ((ValueNumber) ValueArrays.sum(u)).bigIntValue());
+
+        ValueArray f = ValueArray.buildArrayOfNumber(TYPE_DOUBLE, 1.5d, 2.5d, -1d);
+        assertEquals(Value.valueOf(3d), ValueArrays.sum(f));
+        assertEquals(Value.valueOf(1d), ValueArrays.avg(f));
+        assertEquals(Value.valueOf(-1d), ValueArrays.min(f));
+        assertEquals(Value.valueOf("b"), ValueArrays.max(ValueArray.arrayOf("a", "b")));
+    }
+
+    @Test
+    public void parallelTest() {
+        int n = ValueArrays.PARALLEL_THRESHOLD * 2 + 17;
+        Random r = new Random(42);
+        long[] longs = new long[n];
+        Number[] decimals = new Number[n];
+        long sum = 0;
+        BigDecimal decimalSum = BigDecimal.ZERO;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            longs[i] = r.nextInt(2000) - 1000;
+            sum += longs[i];
+            max = Math.max(max, longs[i]);
+            BigDecimal d = BigDecimal.valueOf(r.nextInt(100000), r.nextInt(4));
+            decimals[i] = d;
+            decimalSum = decimalSum.add(d);
+        }
+        ValueArray a = ValueArray.buildArrayOfInteger(TYPE_LONG, longs);
+        assertEquals(Value.valueOf(sum), ValueArrays.sum(a));
+        assertEquals(Value.valueOf(max), ValueArrays.max(a));
+        assertEquals(Value.valueOf((long) n), ValueArrays.countNonNull(a));
+        ValueArray d = ValueArray.buildArrayOfNumber(TYPE_DECIMAL, decimals);
+        assertEquals(0, decimalSum.compareTo(((ValueNumber) ValueArrays.sum(d)).decimalValue()));
+    }
+}
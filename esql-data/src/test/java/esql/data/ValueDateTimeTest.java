@@ -312,4 +312,46 @@ public class ValueDateTimeTest {
 
 
 	}
+
+	@Test
+	public void primitiveEpochTest() {
+		LocalDateTime[] times = {
+				LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999), LocalDateTime.of(1970, 1, 1, 0, 0),
+				LocalDateTime.of(1900, 2, 28, 12, 0, 0, 1), LocalDateTime.of(2024, 2, 29, 8, 30, 15, 123_456_789),
+				LocalDateTime.of(2024, 2, 29, 8, 30, 15, 123_456_790),
+		};
+		for (LocalDateTime a : times) {
+			ValueDateTime va = dt(a);
+			assertEquals(a, va.toTemporal());
+			assertEquals(a.toString(), va.stringValue());
+			assertEquals(a.toLocalDate(), dt(a.toLocalDate()).toTemporal());
+			assertEquals(a.toLocalTime(), dt(a.toLocalTime()).toTemporal());
+			Instant instant = a.toInstant(ZoneOffset.UTC);
+			assertEquals(instant, dt(instant).toTemporal());
+			assertEquals(Types.TYPE_TIMESTAMP, dt(instant).getType());
+			assertEquals(a.toLocalDate(), ((ValueDateTime) va.convertTo(Types.TYPE_DATE)).toTemporal());
+			for (LocalDateTime b : times) {
+				ValueDateTime vb = dt(b);
+				assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(va.compareTo(vb)));
+				assertEquals(a.equals(b), va.equals(vb));
+				assertEquals(Integer.signum(a.toLocalDate().compareTo(b.toLocalDate())),
+						Integer.signum(dt(a.toLocalDate()).compareTo(dt(b.toLocalDate()))));
+				assertEquals(Integer.signum(a.toLocalTime().compareTo(b.toLocalTime())),
+						Integer.signum(dt(a.toLocalTime()).compareTo(dt(b.toLocalTime()))));
+				assertEquals(Integer.signum(a.compareTo(b)),
+						Integer.signum(dt(instant).compareTo(dt(b.toInstant(ZoneOffset.UTC)))));
+			}
+		}
+		//date and datetime of the same day
+		ValueDateTime date = dt(LocalDate.of(2024, 2, 29));
+		ValueDateTime midnight = dt(LocalDate.of(2024, 2, 29).atStartOfDay());
+		assertTrue(0 > date.compareTo(midnight));
+		assertEquals(0, midnight.compareTo(date));
+		assertTrue(0 < dt(times[3]).compareTo(date));
+		assertEquals(midnight, date.convertTo(Types.TYPE_DATETIME));
+	}
+
+	private static ValueDateTime dt(java.time.temporal.Temporal t) {
+		return (ValueDateTime) ValueDateTime.buildDateTime(t);
+	}
 }
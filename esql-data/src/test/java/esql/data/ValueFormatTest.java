@@ -0,0 +1,93 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.Random;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueFormatTest {
+
+    @Test
+    public void numberTest() {
+        String[] patterns = {"#,##0.00", "#,##0", "0.###", "#.##", "#.00", "000000", "#,##,##0.0#", "0.0%", "#,##0‰",
+                "'#'0", "Số 0.00 đ", "#,##0.00;(#,##0.00)", "0.00E0", "#,##0.00 ¤", "0.0000000000000000000"};
+        Locale[] locales = {Locale.US, Locale.forLanguageTag("vi-VN"), Locale.GERMANY, Locale.forLanguageTag("fr-CH")};
+        Random random = new Random(11);
+        for (String pattern : patterns) {
+            for (Locale locale : locales) {
+                ValueFormat f = ValueFormat.of(pattern, locale);
+                assertSame(f, ValueFormat.of(pattern, locale));
+                DecimalFormat expected = new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale));
+                for (int i = 0; i < 2000; i++) {
+                    BigDecimal d;
+                    switch (i % 4) {
+                        case 0: d = BigDecimal.valueOf(random.nextInt(2000) - 1000, random.nextInt(5)); break;
+                        case 1: d = BigDecimal.valueOf(random.nextLong(), random.nextInt(19)); break;
+                        case 2: d = new BigDecimal(new BigInteger(100, random), random.nextInt(30)).negate(); break;
+                        default: d = BigDecimal.valueOf(random.nextInt(2000) - 1000); break;
+                    }
+                    Value v = ValueNumber.buildNumber(TYPE_DECIMAL, d);
+                    assertEquals(expected.format(d), f.format(v), pattern + " " + locale + " " + d);
+                    Value l = ValueNumber.buildNumber(TYPE_LONG, d.longValue());
+                    assertEquals(expected.format(d.longValue()), f.format(l), pattern + " " + locale + " " + d.longValue());
+                }
+                Value min = ValueNumber.buildNumber(TYPE_LONG, Long.MIN_VALUE);
+                assertEquals(expected.format(Long.MIN_VALUE), f.format(min));
+                double x = random.nextDouble() * 1e6;
+                assertEquals(expected.format(x), f.format(ValueNumber.buildNumber(TYPE_DOUBLE, x)));
+            }
+        }
+        assertEquals("", ValueFormat.of("#,##0", Locale.US).format(Value.nullOf(TYPE_INT)));
+        assertEquals("abc", ValueFormat.of("#,##0", Locale.US).format(ValueString.buildString(TYPE_STRING, "abc")));
+        assertEquals("1234.5", ValueFormat.of(null, Locale.US).format(ValueNumber.buildNumber(TYPE_DECIMAL, new BigDecimal("1234.5"))));
+        assertThrows(IllegalArgumentException.class, () -> ValueFormat.of("#,##0.0.0", Locale.US).format(ValueNumber.buildNumber(TYPE_INT, 1)));
+    }
+
+    @Test
+    public void currencyTest() {
+        Locale vi = Locale.forLanguageTag("vi-VN");
+        Value amount = ValueNumber.buildNumber(TYPE_DECIMAL, new BigDecimal("1234567.891"));
+        NumberFormat expected = NumberFormat.getCurrencyInstance(vi);
+        assertEquals(expected.format(new BigDecimal("1234567.891")), ValueFormat.of(null, vi, null, true).format(amount));
+        expected.setCurrency(Currency.getInstance("USD"));
+        ValueFormat usd = ValueFormat.of(null, vi, "USD", true);
+        assertEquals("USD", usd.getCurrency().getCurrencyCode());
+        assertEquals(expected.format(new BigDecimal("1234567.891")), usd.format(amount));
+        assertThrows(IllegalArgumentException.class, () -> ValueFormat.of(null, vi, "XYZ1", true));
+    }
+
+    @Test
+    public void dateTimeTest() throws Exception {
+        Locale vi = Locale.forLanguageTag("vi-VN");
+        LocalDateTime dt = LocalDateTime.of(2024, 3, 5, 7, 8, 9, 123_000_000);
+        String pattern = "EEEE, dd MMMM yyyy HH:mm:ss.SSS";
+        ValueFormat f = ValueFormat.of(pattern, vi);
+        assertEquals(DateTimeFormatter.ofPattern(pattern, vi).format(dt), f.format(ValueDateTime.buildDateTime(dt)));
+        assertEquals("05/03/2024", ValueFormat.of("dd/MM/yyyy", vi).format(ValueDateTime.buildDateTime(LocalDate.of(2024, 3, 5))));
+        assertThrows(DateTimeException.class, () -> ValueFormat.of("HH:mm", vi).format(ValueDateTime.buildDateTime(LocalDate.of(2024, 3, 5))));
+
+        Value ts = ValueDateTime.buildDateTime(Instant.parse("2024-03-05T00:08:09Z"));
+        try(TimeZoneContext.Scope s = TimeZoneContext.use(ZoneId.of("Asia/Ho_Chi_Minh"))) {
+            StringWriter w = new StringWriter();
+            ValueFormat.of("dd/MM/yyyy HH:mm XXX", vi).formatTo(ts, w);
+            assertEquals("05/03/2024 07:08 +07:00", w.toString());
+        }
+        assertEquals("2024-03-05", ValueFormat.of(null, vi).format(ValueDateTime.buildDateTime(LocalDate.of(2024, 3, 5))));
+    }
+}
@@ -303,7 +303,152 @@ public class ValueNumberTest {
 		assertTrue(valueInt.equals(valueInt),"Two the same Object must return true");
 		assertTrue(valueInt.equals(valueInt2),"true if 2 value is equal else it is false");
 		assertTrue(valueInt.equals(valueNumber),"true if 2 value is equal else it is false");
-		assertEquals(valueInt.equals(valueString), !((Value) valueString).isNull() && String.valueOf(50000).equals(((Value) valueString).stringValue()));
+		assertTrue(!valueInt.equals(valueString),"a number string is compared once converted");
+		assertTrue(valueInt.equals(valueString.convertTo(Types.TYPE_INT)),"true if 2 value is equal else it is false");
 		assertTrue(!valueInt.equals(valueNumber2),"true if 2 value is equal else it is false");
 	}
+
+	@Test
+	public void valueNumberFloatDoubleTest() {
+		Value f = Value.valueOf(3.5f);
+		Value d = Value.valueOf(3.5d);
+
+		assertTrue(f instanceof ValueNumberFloat);
+		assertTrue(d instanceof ValueNumberDouble);
+		assertEquals(Types.TYPE_FLOAT, f.getType());
+		assertEquals(Types.TYPE_DOUBLE, d.getType());
+		assertEquals(Types.TYPE_DOUBLE, ValueNumber.DOUBLE_TEN.getType());
+		assertEquals(ValueNumber.DOUBLE_ONE, Value.valueOf(1d));
+		assertEquals(Value.nullOf(Types.TYPE_DOUBLE), Value.valueOf((Double) null));
+
+		/*Test
+		 * equals() function, both directions with boxed holder
+		 * */
+		assertEquals(f, d);
+		assertEquals(d, new ValueNumberObject(Types.TYPE_DOUBLE, Double.valueOf(3.5)));
+		assertEquals(new ValueNumberObject(Types.TYPE_DOUBLE, Double.valueOf(3.5)), d);
+		assertEquals(new ValueNumberObject(Types.TYPE_FLOAT, Float.valueOf(3.5f)), f);
+		assertNotEquals(d, Value.nullOf(Types.TYPE_DOUBLE));
+		assertNotEquals(d, ValueString.buildString(Types.TYPE_STRING, "3.5"));
+		assertEquals(d, ValueString.buildString(Types.TYPE_STRING, "3.5").convertTo(Types.TYPE_DOUBLE));
+
+		/*Test
+		 * compareTo() function
+		 * */
+		assertEquals(0, d.compareTo(f));
+		assertTrue(d.compareTo(ValueNumber.buildNumber(Types.TYPE_LONG, 4L)) < 0);
+		assertTrue(d.compareTo(ValueNumber.buildNumber(Types.TYPE_DECIMAL, new BigDecimal("3.25"))) > 0);
+		assertTrue(ValueNumber.buildNumber(Types.TYPE_DECIMAL, new BigDecimal("3.25")).compareTo(d) < 0);
+		assertEquals(1, d.compareTo(Value.nullOf(Types.TYPE_DOUBLE)));
+		//number strings by their value, others after
+		assertEquals(0, Value.valueOf(0.5d).compareTo(ValueString.buildString(Types.TYPE_STRING, "0.5")));
+		assertEquals(0, Value.valueOf(0.1f).compareTo(ValueString.buildString(Types.TYPE_STRING, "0.1")));
+		assertTrue(d.compareTo(ValueString.buildString(Types.TYPE_STRING, "1e1")) < 0);
+		assertTrue(f.compareTo(ValueString.buildString(Types.TYPE_STRING, "-4")) > 0);
+		assertEquals(-1, d.compareTo(ValueString.buildString(Types.TYPE_STRING, "abc")));
+		assertEquals(-1, f.compareTo(ValueString.buildString(Types.TYPE_STRING, "abc")));
+		//a big decimal compares with float/double as double, the rule of equals()
+		Value big = new ValueNumberObject(Types.TYPE_DECIMAL, new BigDecimal("0.3000000000000000000001"));
+		Value point3 = Value.valueOf(0.3d);
+		assertEquals(big, point3);
+		assertEquals(point3, big);
+		assertEquals(0, big.compareTo(point3));
+		assertEquals(0, point3.compareTo(big));
+		assertTrue(big.compareTo(Value.valueOf(0.3f)) < 0);
+		assertTrue(Value.valueOf(0.3f).compareTo(big) > 0);
+		assertEquals(0, Value.valueOf(-0d).compareTo(ValueNumber.buildNumber(Types.TYPE_DECIMAL, BigDecimal.ZERO)));
+		assertEquals(0, new ValueNumberObject(Types.TYPE_DECIMAL, BigDecimal.ZERO).compareTo(Value.valueOf(-0d)));
+		assertTrue(new ValueNumberObject(Types.TYPE_LONG, 1L).compareTo(Value.valueOf(1.5d)) < 0);
+
+		/*Test
+		 * convertTo() function
+		 * */
+		assertEquals(ValueString.buildString(Types.TYPE_STRING, "3.5"), d.convertTo(Types.TYPE_STRING));
+		assertEquals(new BigDecimal("3.5"), ((ValueNumber) f.convertTo(Types.TYPE_DECIMAL)).decimalValue());
+		//shortest decimal of the float, as decimalValue()
+		Value tenth = Value.valueOf(0.1f);
+		assertEquals(new BigDecimal("0.1"), ((ValueNumber) tenth.convertTo(Types.TYPE_DECIMAL)).decimalValue());
+		assertEquals(((ValueNumber) tenth).decimalValue(), ((ValueNumber) tenth.convertTo(Types.TYPE_DECIMAL)).decimalValue());
+		assertEquals(3L, ((ValueNumber) d.convertTo(Types.TYPE_LONG)).longValue());
+		assertEquals(BigInteger.valueOf(3), ((ValueNumber) d).bigIntValue());
+		assertTrue(d.isTrue());
+		assertTrue(!ValueNumber.DOUBLE_ZERO.isTrue());
+	}
+
+	@Test
+	public void valueNumberCacheTest() {
+		//same instance for values in range
+		assertTrue(Value.valueOf(404) == Value.valueOf(404L).convertTo(Types.TYPE_INT));
+		assertTrue(Value.valueOf(404L) == ValueNumber.buildNumber(Types.TYPE_LONG, 404L));
+		assertTrue(ValueNumber.buildNumber(Types.TYPE_UINT, 7) == ValueNumber.buildNumber(Types.TYPE_UINT, 7));
+		assertTrue(ValueNumber.buildNumber(Types.TYPE_INT, -128) == ValueNumber.buildNumber(Types.TYPE_INT, -128));
+		//static values are kept
+		assertTrue(ValueNumber.INT_TEN == Value.valueOf(10));
+		assertTrue(ValueNumber.LONG_ZERO == Value.valueOf(0L));
+		//normalized by type before lookup
+		assertTrue(ValueNumber.buildNumber(Types.TYPE_UBYTE, 256 + 5) == ValueNumber.buildNumber(Types.TYPE_UBYTE, 5));
+		assertEquals(new ValueNumberInt(Types.TYPE_UBYTE, 5), ValueNumber.buildNumber(Types.TYPE_UBYTE, 256 + 5));
+		assertEquals(Types.TYPE_UINT, ValueNumber.buildNumber(Types.TYPE_UINT, 7).getType());
+		//out of range, new instance
+		assertTrue(Value.valueOf(ValueNumber.CACHE_HIGH + 1L) != Value.valueOf(ValueNumber.CACHE_HIGH + 1L));
+		assertEquals(Value.valueOf(ValueNumber.CACHE_HIGH + 1L), Value.valueOf(ValueNumber.CACHE_HIGH + 1L));
+
+		ValueNumber.resetCacheCounters();
+		Value.valueOf(777);
+		Value.valueOf(777);
+		Value.valueOf(Long.MAX_VALUE);
+		assertTrue(ValueNumber.getCacheHits() >= 1);
+		assertTrue(ValueNumber.getCacheMisses() >= 1);
+	}
+
+	@Test
+	public void valueNumberCompactDecimalTest() {
+		Value amount = Value.valueOf(new BigDecimal("12345.67"));
+		assertTrue(amount instanceof ValueNumberCompactDecimal);
+		assertEquals("12345.67", amount.stringValue());
+		assertEquals("-0.005", Value.valueOf(new BigDecimal("-0.005")).stringValue());
+		assertEquals("0.00", Value.valueOf(new BigDecimal("0.00")).stringValue());
+		assertEquals("1200", Value.valueOf(new BigDecimal("1.2E+3")).stringValue());
+		assertEquals(new BigDecimal("12345.67"), ((ValueNumber) amount).decimalValue());
+
+		//overflow fall back to BigDecimal
+		Value big = Value.valueOf(new BigDecimal("123456789012345678901234.5"));
+		assertTrue(big instanceof ValueNumberObject);
+		assertEquals("123456789012345678901234.5", big.stringValue());
+		assertTrue(amount.compareTo(big) < 0);
+		assertTrue(big.compareTo(amount) > 0);
+
+		/*Test
+		 * equals() and compareTo() across scales and types
+		 * */
+		assertEquals(Value.valueOf(new BigDecimal("1.50")), Value.valueOf(new BigDecimal("1.5")));
+		assertEquals(0, Value.valueOf(new BigDecimal("1.50")).compareTo(Value.valueOf(new BigDecimal("1.5"))));
+		assertTrue(Value.valueOf(new BigDecimal("1.49")).compareTo(Value.valueOf(new BigDecimal("1.5"))) < 0);
+		assertEquals(Value.valueOf(new BigDecimal("3.00")), Value.valueOf(3L));
+		assertEquals(Value.valueOf(3L), Value.valueOf(new BigDecimal("3.00")));
+		assertNotEquals(Value.valueOf(3L), Value.valueOf(new BigDecimal("3.5")));
+		assertTrue(Value.valueOf(3L).compareTo(Value.valueOf(new BigDecimal("3.5"))) < 0);
+		assertTrue(Value.valueOf(new BigDecimal("3.5")).compareTo(Value.valueOf(3.25d)) > 0);
+		assertEquals(Value.valueOf(new BigDecimal("3.5")), Value.valueOf(3.5d));
+		//same rule in equals() and compareTo(), both sides
+		Value tenth = Value.valueOf(new BigDecimal("0.1"));
+		Value tenthF = Value.valueOf(0.1f);
+		assertEquals(tenth.equals(tenthF), tenth.compareTo(tenthF) == 0);
+		assertEquals(tenthF.equals(tenth), tenthF.compareTo(tenth) == 0);
+		assertEquals(Integer.signum(tenth.compareTo(tenthF)), -Integer.signum(tenthF.compareTo(tenth)));
+		assertEquals(0, tenth.compareTo(Value.valueOf(0.1d)));
+		assertEquals(0, Value.valueOf(new BigDecimal("0.0")).compareTo(Value.valueOf(-0.0d)));
+		assertTrue(ValueNumberCompactDecimal.compareCompact(Long.MAX_VALUE, 0, 1, 18) > 0);
+
+		/*Test
+		 * accessor and convertTo() function
+		 * */
+		ValueNumber n = (ValueNumber) Value.valueOf(new BigDecimal("-12.75"));
+		assertEquals(-12L, n.longValue());
+		assertEquals(-12.75d, n.doubleValue());
+		assertEquals(-12.75f, n.floatValue());
+		assertEquals(ValueNumber.buildNumber(Types.TYPE_INT, -12L), n.convertTo(Types.TYPE_INT));
+		assertEquals(ValueString.buildString(Types.TYPE_STRING, "-12.75"), n.convertTo(Types.TYPE_STRING));
+		assertTrue(n == n.convertTo(Types.TYPE_DECIMAL));
+	}
 }
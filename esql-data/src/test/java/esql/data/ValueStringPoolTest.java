@@ -0,0 +1,80 @@
+package esql.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static esql.data.Types.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueStringPoolTest {
+
+    @Test
+    public void internTest() {
+        ValueStringPool pool = new ValueStringPool(16);
+        Value a = pool.intern(TYPE_STRING, new String("VND"));
+        Value b = pool.intern(TYPE_STRING, new String("VND"));
+        assertSame(a, b);
+        assertSame(a.stringValue(), b.stringValue());
+        assertEquals(TYPE_STRING, a.getType());
+        //national string shares the backing String
+        Value n = pool.intern(TYPE_NSTRING, "VND");
+        assertEquals(TYPE_NSTRING, n.getType());
+        assertSame(a.stringValue(), n.stringValue());
+
+        assertEquals(2, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(2d / 3, pool.getHitRate(), 1e-9);
+        assertEquals(1, pool.size());
+
+        //null, empty and long strings are not pooled
+        assertTrue(pool.intern(TYPE_STRING, null).isNull());
+        assertTrue(pool.intern(TYPE_STRING, "").isEmpty());
+        assertEquals(1, pool.size());
+        assertThrows(IllegalArgumentException.class, () -> pool.intern(TYPE_INT, "1"));
+    }
+
+    @Test
+    public void evictionTest() {
+        ValueStringPool pool = new ValueStringPool(8);
+        String[] hot = {"A", "B", "C", "D", "E", "F", "G", "H"};
+        for (int round = 0; round < 5; round++)
+            for (String s : hot)
+                pool.intern(TYPE_STRING, s);
+        assertEquals(8, pool.size());
+        pool.resetCounters();
+        //unique strings among hot ones do not flush them
+        for (int i = 0; i < 1000; i++) {
+            pool.intern(TYPE_STRING, "unique-" + i);
+            pool.intern(TYPE_STRING, hot[i % hot.length]);
+        }
+        assertTrue(pool.getHits() > 950, "hot strings kept: " + pool.getHits());
+        assertTrue(pool.getHitRate() > 0.475);
+        assertEquals(8, pool.size());
+
+        //repeated new strings are admitted
+        for (int round = 0; round < 20; round++)
+            pool.intern(TYPE_STRING, "new");
+        Value v = pool.intern(TYPE_STRING, "new");
+        assertSame(v, pool.intern(TYPE_STRING, "new"));
+
+        pool.clear();
+        assertEquals(0, pool.size());
+        assertEquals(0, pool.getHitRate());
+    }
+
+    @Test
+    public void arrayTest() {
+        ValueStringPool pool = new ValueStringPool();
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            list.add(i % 2 == 0 ? "OK" : "FAILED");
+        ValueArray array = ValueArray.arrayOfObject(TYPE_STRING, list, pool);
+        assertEquals(100, array.size());
+        assertSame(array.get(0), array.get(2));
+        assertSame(array.get(1), array.get(99));
+        assertEquals(98, pool.getHits());
+        assertSame(array.get(0), ValueString.buildString(TYPE_STRING, "OK", pool));
+    }
+}
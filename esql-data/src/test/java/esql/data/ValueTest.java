@@ -368,4 +368,138 @@ class ValueTest {
     @Test
     void testToString() {
     }
-}
\ No newline at end of file
+
+    @Test
+    void hashCodeEqualsTest() {
+        Value[] ones = {
+                Value.valueOf((byte) 1), Value.valueOf(1), Value.valueOf(1L), Value.valueOf(1f), Value.valueOf(1d),
+                ValueNumber.buildNumber(Types.TYPE_ULONG, 1), ValueNumber.buildNumber(Types.TYPE_DECIMAL, 1),
+                ValueNumber.buildDecimal(100, 2), new ValueNumberObject(Types.TYPE_DECIMAL, new java.math.BigDecimal("1.000")),
+                ValueBoolean.BOOL_TRUE,
+        };
+        assertAllEqual(ones);
+        assertAllEqual(Value.valueOf(1.5d), ValueNumber.buildDecimal(15, 1), ValueNumber.buildNumber(Types.TYPE_DECIMAL, 1.5d));
+
+        //strings are equal by text only, as ordered by compareTo
+        String[][] sameValueTexts = {{"007", "7"}, {"1e3", "1000"}, {"1.0", "1"}, {"10:30", "10:30:00"},
+                {"cafe", "CAFE"}, {"0aFF", "0aff"}, {"2020-01-02T10:30:00Z", "2020-01-02T17:30:00+07:00"}};
+        var set = new java.util.HashSet<Value>();
+        for (String[] texts : sameValueTexts) {
+            Value a = ValueString.buildString(Types.TYPE_STRING, texts[0]);
+            Value b = ValueString.buildString(Types.TYPE_STRING, texts[1]);
+            assertNotEquals(a, b);
+            assertNotEquals(b, a);
+            assertTrue(a.compareTo(b) != 0, a + " <> " + b);
+            assertEquals(texts[0].hashCode(), a.hashCode());
+            set.add(a);
+            set.add(b);
+        }
+        assertEquals(sameValueTexts.length * 2, set.size());
+        byte[] utf8 = "01.0".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        assertAllEqual(ValueString.buildString(Types.TYPE_STRING, utf8, 1, 3), ValueString.buildString(Types.TYPE_STRING, "1.0"),
+                ValueString.buildString(Types.TYPE_NSTRING, "1.0"));
+
+        //a string is compared to other types by value once converted
+        assertEqualConverted(Value.valueOf(1), "1.0", Types.TYPE_DECIMAL);
+        assertEqualConverted(ValueBytes.buildBytes(new byte[] { 0x0a, -1 }), "0aFF", Types.TYPE_BYTES);
+        assertEqualConverted(ValueDateTime.buildDate(18263), "2020-01-02", Types.TYPE_DATE);
+        assertEqualConverted(ValueDateTime.buildTime(37800_000_000_000L), "10:30", Types.TYPE_TIME);
+        assertNotEquals(ValueString.buildString(Types.TYPE_STRING, "abc"), ValueString.buildString(Types.TYPE_STRING, "ABC"));
+
+        //fraction part counts
+        Value half = ValueNumber.buildDecimal(15, 1);
+        assertNotEquals(half, Value.valueOf(1L));
+        assertNotEquals(Value.valueOf(1L), half);
+        assertNotEquals(Value.valueOf(1L), new ValueNumberObject(Types.TYPE_DECIMAL, new java.math.BigDecimal("1.5")));
+        assertEquals(Value.valueOf(1.5d), half);
+        assertEquals(Value.valueOf(1.5d).hashCode(), half.hashCode());
+        assertNotEquals(ValueBoolean.BOOL_TRUE, Value.valueOf(5));
+        assertNotEquals(ValueBoolean.BOOL_TRUE, ValueString.buildString(Types.TYPE_STRING, "true"));
+        assertNotEquals(ValueString.buildString(Types.TYPE_STRING, "abc"), Value.valueOf(1));
+
+        //nulls
+        assertEquals(0, Value.nullOf(Types.TYPE_INT).hashCode());
+        assertEquals(0, Value.nullOf(Types.TYPE_STRING).hashCode());
+        assertEquals(0, Value.nullOf(Types.TYPE_BOOLEAN).hashCode());
+        assertNotEquals(ValueBoolean.BOOL_FALSE, Value.nullOf(Types.TYPE_BOOLEAN));
+
+        //as keys
+        var map = new java.util.HashMap<Value, String>();
+        map.put(Value.valueOf(10), "ten");
+        map.put(ValueString.buildString(Types.TYPE_STRING, "abc"), "abc");
+        map.put(ValueDateTime.buildDateTime(java.time.LocalDate.of(2020, 1, 2)), "date");
+        map.put(ValueArray.buildArrayOfInteger(Types.TYPE_INT, 1, 2), "array");
+        assertEquals("ten", map.get(ValueNumber.buildDecimal(1000, 2)));
+        assertEquals("ten", map.get(Value.valueOf(10d)));
+        assertNull(map.get(ValueString.buildString(Types.TYPE_STRING, "10")));
+        assertEquals("abc", map.get(ValueString.buildString(Types.TYPE_NSTRING, "abc")));
+        assertEquals("date", map.get(ValueDateTime.buildDateTime(java.time.LocalDate.of(2020, 1, 2))));
+        assertEquals("array", map.get(ValueArray.buildArrayOfInteger(Types.TYPE_LONG, 1, 2)));
+        assertNull(map.get(ValueString.buildString(Types.TYPE_STRING, "2020-01-02")));
+    }
+
+    //the string is not equal to the value, but equal once converted to its type
+    private static void assertEqualConverted(Value v, String text, Types type) {
+        Value s = ValueString.buildString(Types.TYPE_STRING, text);
+        assertNotEquals(v, s);
+        assertNotEquals(s, v);
+        assertAllEqual(v, s.convertTo(type));
+    }
+
+    //every pair is equal both ways, with the same hash
+    private static void assertAllEqual(Value... values) {
+        for (Value a : values)
+            for (Value b : values) {
+                assertEquals(a, b, a + " = " + b);
+                assertEquals(a.hashCode(), b.hashCode(), a + " = " + b);
+            }
+    }
+
+    @Test
+    void writeToTest() throws Exception {
+        byte[] bytes = new byte[3000];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (i * 7);
+        byte[] utf8 = "Đà Nẵng".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Value[] values = {
+                Value.valueOf(0), Value.valueOf(-42), Value.valueOf(Long.MIN_VALUE), Value.valueOf(Long.MAX_VALUE),
+                ValueNumber.buildDecimal(5, 2), ValueNumber.buildDecimal(-5, 2), ValueNumber.buildDecimal(-12340, 3),
+                ValueNumber.buildDecimal(Long.MIN_VALUE, 18), ValueNumber.buildDecimal(0, 4),
+                Value.valueOf(1.5d), ValueBoolean.BOOL_TRUE, Value.nullOf(Types.TYPE_LONG),
+                ValueString.buildString(Types.TYPE_NSTRING, "Đà Nẵng"), Value.nullOf(Types.TYPE_STRING),
+                ValueString.buildString(Types.TYPE_STRING, utf8, 0, utf8.length),
+                ValueString.buildString(Types.TYPE_STRING, "ascii".getBytes(), 0, 5),
+                ValueBytes.buildBytes(bytes), ValueBytes.buildBytes(new byte[] {1, (byte) 0xfe}),
+                ValueArray.buildArrayOfInteger(Types.TYPE_INT, 1, 2, 3), ValueArray.NULL_INT_ARRAY,
+                ValueArray.ValueArrayNULLEmpty.buildEmptyArray(Types.TYPE_INT),
+                ValueDateTime.buildDateTime(java.time.LocalDate.of(2020, 1, 2)),
+                ValueCLOB.wrap("Đà Nẵng\nline 2", false), ValueCLOB.EMPTY_CLOB,
+                ValueBLOB.wrap(bytes, bytes.length), ValueBLOB.wrap(new byte[] {1, 2}, 2), ValueBLOB.NULL_BLOB,
+        };
+        for (Value v : values) {
+            String expected = v.stringValue();
+            StringBuilder sb = new StringBuilder();
+            v.writeTo(sb);
+            assertEquals(expected, sb.toString(), v.getClass().getSimpleName());
+            java.io.StringWriter sw = new java.io.StringWriter();
+            v.writeTo(sw);
+            assertEquals(expected, sw.toString());
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+            v.writeUtf8To(out);
+            assertArrayEquals(expected.getBytes(java.nio.charset.StandardCharsets.UTF_8), out.toByteArray());
+            java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(out.size() + 2);
+            buf.put((byte) '>');
+            v.writeUtf8To(buf);
+            assertEquals(out.size() + 1, buf.position());
+        }
+
+        //full buffer does not move
+        java.nio.ByteBuffer small = java.nio.ByteBuffer.allocate(4);
+        for (Value v : new Value[] {Value.valueOf(123456), ValueString.buildString(Types.TYPE_STRING, "Nẵng"),
+                ValueBytes.buildBytes(new byte[] {1, 2, 3}), ValueArray.buildArrayOfInteger(Types.TYPE_INT, 1, 2)}) {
+            small.clear().put((byte) 1);
+            assertThrows(java.nio.BufferOverflowException.class, () -> v.writeUtf8To(small));
+            assertEquals(1, small.position());
+        }
+    }
+}